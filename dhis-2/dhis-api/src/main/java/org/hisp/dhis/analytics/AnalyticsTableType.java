@@ -34,8 +34,11 @@ package org.hisp.dhis.analytics;
 public enum AnalyticsTableType
 {
     DATA_VALUE( "analytics", true, true ),
+    DATA_VALUE_ROLLUP( "analytics_rollup", true, false ),
     COMPLETENESS( "analytics_completeness", true, true ),
     COMPLETENESS_TARGET( "analytics_completenesstarget", false, false ),
+    COMPLETENESS_AGGREGATE( "analytics_completenessagg", true, false ),
+    COMPLETENESS_TARGET_AGGREGATE( "analytics_completenesstargetagg", false, false ),
     ORG_UNIT_TARGET( "analytics_orgunittarget", false, false ),
     EVENT( "analytics_event", false, true ),
     ENROLLMENT( "analytics_enrollment", false, false ),
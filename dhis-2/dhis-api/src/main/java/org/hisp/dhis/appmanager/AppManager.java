@@ -176,6 +176,18 @@ public interface AppManager
     Resource getAppResource( App app, String pageName )
         throws IOException;
 
+    /**
+     * Returns the manifest of the given app rendered as JSON. A wildcard DHIS
+     * href in the manifest is replaced by the given context path. Rendered
+     * manifests are cached until apps are installed, deleted or reloaded.
+     *
+     * @param app the app.
+     * @param contextPath the context path of the request.
+     * @return the rendered manifest.
+     */
+    byte[] getAppManifest( App app, String contextPath )
+        throws IOException;
+
     /**
      * Sets the app status to DELETION_IN_PROGRESS.
      * @param app The app that has to be marked as deleted.
@@ -154,4 +154,15 @@ public interface DataApprovalStore
         Period period, Collection<OrganisationUnit> orgUnits, int orgUnitLevel,
         CategoryCombo attributeCombo,
         Set<CategoryOptionCombo> attributeOptionCombos, List<DataApprovalLevel> userApprovalLevels, Map<Integer, DataApprovalLevel> levelMap );
+
+    /**
+     * Returns a version of the persisted data that approval statuses depend
+     * on: approvals, approval levels, workflows, category options,
+     * organisation units, user groups and users. The version is a single
+     * counter maintained by database triggers, and changes whenever any of
+     * this data is changed, on any server.
+     *
+     * @return the data version.
+     */
+    String getDataApprovalVersion();
 }
@@ -72,6 +72,12 @@ public class DataExportParams
 
     private Date includedDate;
 
+    /**
+     * Together with includedDate, matches periods which include any date
+     * between includedDate and includedEndDate.
+     */
+    private Date includedEndDate;
+
     private Set<OrganisationUnit> organisationUnits = new HashSet<>();
 
     private boolean includeChildren;
@@ -172,6 +178,11 @@ public class DataExportParams
         return includedDate != null;
     }
 
+    public boolean hasIncludedEndDate()
+    {
+        return includedEndDate != null;
+    }
+
     public boolean hasOrganisationUnits()
     {
         return organisationUnits != null && !organisationUnits.isEmpty();
@@ -249,6 +260,7 @@ public class DataExportParams
             add( "start date", startDate ).
             add( "end date", endDate ).
             add( "included date", includedDate ).
+            add( "included end date", includedEndDate ).
             add( "org units", organisationUnits ).
             add( "children", includeChildren ).
             add( "return parent org unit", returnParentOrgUnit ).
@@ -355,6 +367,17 @@ public class DataExportParams
         return this;
     }
 
+    public Date getIncludedEndDate()
+    {
+        return includedEndDate;
+    }
+
+    public DataExportParams setIncludedEndDate( Date includedEndDate )
+    {
+        this.includedEndDate = includedEndDate;
+        return this;
+    }
+
     public Date getEndDate()
     {
         return endDate;
@@ -36,6 +36,7 @@ import org.hisp.dhis.period.Period;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * The DataValueService interface defines how to work with data values.
@@ -191,6 +192,15 @@ public interface DataValueService
      */
     List<DeflatedDataValue> getDeflatedDataValues( DataExportParams params );
 
+    /**
+     * Streams deflated data values for the given data export parameters to
+     * the given consumer, without holding the full result in memory.
+     *
+     * @param params the data export parameters.
+     * @param consumer the consumer of deflated data values.
+     */
+    void getDeflatedDataValues( DataExportParams params, Consumer<DeflatedDataValue> consumer );
+
     /**
      * Gets the number of DataValues persisted since the given number of days.
      *
@@ -36,6 +36,7 @@ import org.hisp.dhis.period.Period;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Defines the functionality for persisting DataValues.
@@ -144,6 +145,15 @@ public interface DataValueStore
      */
     List<DeflatedDataValue> getDeflatedDataValues( DataExportParams params );
 
+    /**
+     * Streams deflated data values for the given data export parameters to
+     * the given consumer, without holding the full result in memory.
+     *
+     * @param params the data export parameters.
+     * @param consumer the consumer of deflated data values.
+     */
+    void getDeflatedDataValues( DataExportParams params, Consumer<DeflatedDataValue> consumer );
+
     /**
      * Gets the number of DataValues which have been updated between the given
      * start and end date. The <pre>startDate</pre> and <pre>endDate</pre> parameters
@@ -99,6 +99,10 @@ public class OrganisationUnit
 
     private Integer hierarchyLevel;
 
+    private Integer hierarchyStart;
+
+    private Integer hierarchyEnd;
+
     private Date openingDate;
 
     private Date closedDate;
@@ -862,6 +866,54 @@ public class OrganisationUnit
         this.hierarchyLevel = hierarchyLevel;
     }
 
+    /**
+     * Position of this organisation unit in a pre-order traversal of the
+     * hierarchy, with gaps between positions. The descendants of this
+     * organisation unit, including itself, are the units with a hierarchy
+     * start between the hierarchy start and the hierarchy end of this unit.
+     * Managed by the persistence layer, see
+     * {@link OrganisationUnitStore#updateHierarchyIntervals()}.
+     */
+    public Integer getHierarchyStart()
+    {
+        return hierarchyStart;
+    }
+
+    /**
+     * Do not set directly, managed by persistence layer.
+     */
+    public void setHierarchyStart( Integer hierarchyStart )
+    {
+        this.hierarchyStart = hierarchyStart;
+    }
+
+    /**
+     * Upper bound of the pre-order positions of the descendants of this
+     * organisation unit, including free space for descendants added later.
+     * Managed by the persistence layer.
+     */
+    public Integer getHierarchyEnd()
+    {
+        return hierarchyEnd;
+    }
+
+    /**
+     * Do not set directly, managed by persistence layer.
+     */
+    public void setHierarchyEnd( Integer hierarchyEnd )
+    {
+        this.hierarchyEnd = hierarchyEnd;
+    }
+
+    /**
+     * Indicates whether this organisation unit has a pre-order hierarchy
+     * interval assigned.
+     */
+    public boolean hasHierarchyInterval()
+    {
+        return hierarchyStart != null && hierarchyEnd != null;
+    }
+
     @JsonProperty
     @JsonSerialize( contentUsing = JacksonOrganisationUnitChildrenSerializer.class )
     @JacksonXmlElementWrapper( localName = "children", namespace = DxfNamespaces.DXF_2_0 )
@@ -0,0 +1,190 @@
+package org.hisp.dhis.organisationunit;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Utility methods for restricting queries to the descendants of a set of
+ * organisation units using the pre-order hierarchy interval columns
+ * <code>hierarchystart</code> and <code>hierarchyend</code> of the
+ * <code>organisationunit</code> table.
+ * <p>
+ * Organisation units which are descendants of other organisation units in the
+ * given set are removed, and adjacent intervals are merged, so that a large set
+ * of user organisation units typically results in a handful of range predicates
+ * which can be resolved with an index scan. Organisation units which have not
+ * yet been assigned an interval fall back to a path prefix match.
+ */
+public class OrganisationUnitIntervalUtils
+{
+    public static final String COLUMN_HIERARCHY_START = "hierarchystart";
+
+    public static final String PROPERTY_HIERARCHY_START = "hierarchyStart";
+
+    private static final String PATH_SEP = "/";
+
+    /**
+     * Returns a SQL predicate which restricts the organisation unit table
+     * with the given alias to the given organisation units and their
+     * descendants. The predicate is enclosed in parentheses. Returns null if
+     * the given collection is null or empty.
+     *
+     * @param organisationUnits the organisation units.
+     * @param alias the alias of the organisation unit table.
+     * @return a SQL predicate, or null.
+     */
+    public static String getDescendantsSqlPredicate( Collection<OrganisationUnit> organisationUnits, String alias )
+    {
+        return getDescendantsPredicate( organisationUnits, alias, COLUMN_HIERARCHY_START );
+    }
+
+    /**
+     * Returns a HQL predicate which restricts the organisation unit entity
+     * with the given alias to the given organisation units and their
+     * descendants. The predicate is enclosed in parentheses. Returns null if
+     * the given collection is null or empty.
+     *
+     * @param organisationUnits the organisation units.
+     * @param alias the alias of the organisation unit entity.
+     * @return a HQL predicate, or null.
+     */
+    public static String getDescendantsHqlPredicate( Collection<OrganisationUnit> organisationUnits, String alias )
+    {
+        return getDescendantsPredicate( organisationUnits, alias, PROPERTY_HIERARCHY_START );
+    }
+
+    private static String getDescendantsPredicate( Collection<OrganisationUnit> organisationUnits, String alias, String start )
+    {
+        List<OrganisationUnit> roots = getHighestOrganisationUnits( organisationUnits );
+
+        if ( roots.isEmpty() )
+        {
+            return null;
+        }
+
+        List<String> predicates = new ArrayList<>();
+
+        for ( int[] interval : getMergedIntervals( roots ) )
+        {
+            predicates.add( interval[0] == interval[1] ?
+                alias + "." + start + " = " + interval[0] :
+                alias + "." + start + " between " + interval[0] + " and " + interval[1] );
+        }
+
+        for ( OrganisationUnit unit : roots )
+        {
+            if ( !unit.hasHierarchyInterval() )
+            {
+                predicates.add( alias + ".path like '" + unit.getPath() + "%'" );
+            }
+        }
+
+        return "(" + String.join( " or ", predicates ) + ")";
+    }
+
+    /**
+     * Returns the organisation units in the given collection which do not have
+     * an ancestor in the collection, sorted by path.
+     *
+     * @param organisationUnits the organisation units.
+     * @return a list of organisation units.
+     */
+    public static List<OrganisationUnit> getHighestOrganisationUnits( Collection<OrganisationUnit> organisationUnits )
+    {
+        List<OrganisationUnit> roots = new ArrayList<>();
+
+        if ( organisationUnits == null )
+        {
+            return roots;
+        }
+
+        List<OrganisationUnit> sorted = organisationUnits.stream()
+            .filter( Objects::nonNull )
+            .sorted( Comparator.comparing( OrganisationUnit::getPath ) )
+            .collect( Collectors.toList() );
+
+        String previousPath = null;
+
+        for ( OrganisationUnit unit : sorted )
+        {
+            String path = unit.getPath();
+
+            if ( previousPath != null && ( path.equals( previousPath ) || path.startsWith( previousPath + PATH_SEP ) ) )
+            {
+                continue;
+            }
+
+            roots.add( unit );
+            previousPath = path;
+        }
+
+        return roots;
+    }
+
+    /**
+     * Returns the hierarchy intervals of the given organisation units, sorted
+     * by start and with overlapping and adjacent intervals merged. Organisation
+     * units without an interval are ignored.
+     *
+     * @param organisationUnits the organisation units.
+     * @return a list of intervals, each represented as a start and end pair.
+     */
+    public static List<int[]> getMergedIntervals( Collection<OrganisationUnit> organisationUnits )
+    {
+        List<int[]> intervals = organisationUnits.stream()
+            .filter( OrganisationUnit::hasHierarchyInterval )
+            .map( unit -> new int[] { unit.getHierarchyStart(), unit.getHierarchyEnd() } )
+            .sorted( Comparator.comparingInt( ( int[] interval ) -> interval[0] ) )
+            .collect( Collectors.toList() );
+
+        List<int[]> merged = new ArrayList<>();
+
+        for ( int[] interval : intervals )
+        {
+            int[] last = merged.isEmpty() ? null : merged.get( merged.size() - 1 );
+
+            if ( last != null && interval[0] <= last[1] + 1 )
+            {
+                last[1] = Math.max( last[1], interval[1] );
+            }
+            else
+            {
+                merged.add( new int[] { interval[0], interval[1] } );
+            }
+        }
+
+        return merged;
+    }
+}
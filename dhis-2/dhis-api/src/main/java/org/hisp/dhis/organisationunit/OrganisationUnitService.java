@@ -359,7 +359,8 @@ public interface OrganisationUnitService
 
     /**
      * Indicates whether the given organisation unit is part of the hierarchy
-     * of the organisation units of the current user.
+     * of the organisation units of the current user. Checks against the
+     * {@link org.hisp.dhis.user.CurrentUserContext} of the current request.
      *
      * @param organisationUnit the organisation unit.
      * @return true if the given organisation unit is part of the hierarchy.
@@ -402,7 +403,8 @@ public interface OrganisationUnitService
     
     /**
      * Indicates whether the given organisation unit is part of the search hierarchy
-     * of the organisation units of the current user.
+     * of the organisation units of the current user. Checks against the
+     * {@link org.hisp.dhis.user.CurrentUserContext} of the current request.
      *
      * @param organisationUnit the organisation unit.
      * @return true if the given organisation unit is part of the search hierarchy.
@@ -505,4 +507,18 @@ public interface OrganisationUnitService
      * Update all OUs (thus forcing update of path).
      */
     void forceUpdatePaths();
+
+    /**
+     * Assigns pre-order hierarchy intervals to all organisation units, used
+     * to resolve descendant restrictions as ranges.
+     */
+    void updateHierarchyIntervals();
+
+    /**
+     * Assigns pre-order hierarchy intervals to the given added or moved
+     * organisation units and their descendants.
+     *
+     * @param organisationUnitIds the organisation unit identifiers.
+     */
+    void updateHierarchyIntervals( Collection<Long> organisationUnitIds );
 }
@@ -145,6 +145,39 @@ public interface OrganisationUnitStore
 
     void forceUpdatePaths();
 
+    /**
+     * Assigns pre-order hierarchy intervals to all organisation units with a
+     * missing or inconsistent interval, see
+     * {@link OrganisationUnit#getHierarchyStart()}. The subtree of such an
+     * organisation unit is placed in free space of the parent interval, and
+     * only when there is no room left a larger part of the hierarchy is
+     * renumbered. Only rows with a changed interval are written. Organisation
+     * units loaded in the current session get the new intervals, and changed
+     * organisation units are evicted from the second-level cache.
+     *
+     * @return the number of organisation units which were updated.
+     */
+    int updateHierarchyIntervals();
+
+    /**
+     * Assigns hierarchy intervals like {@link #updateHierarchyIntervals()},
+     * but only checks the given organisation units, typically the ones which
+     * were added or moved.
+     *
+     * @param organisationUnitIds the organisation unit identifiers.
+     * @return the number of organisation units which were updated.
+     */
+    int updateHierarchyIntervals( Collection<Long> organisationUnitIds );
+
+    /**
+     * Returns the currently persisted path of the organisation unit with the
+     * given identifier, ignoring any pending changes in the session.
+     *
+     * @param id the organisation unit identifier.
+     * @return the persisted path, or null if the organisation unit is not persisted.
+     */
+    String getPersistedPath( long id );
+
     /**
      * Returns the number of organsiation unit levels in the database based on
      * the organisation unit hierarchy.
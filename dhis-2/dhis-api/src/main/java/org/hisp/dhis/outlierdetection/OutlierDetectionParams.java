@@ -0,0 +1,195 @@
+package org.hisp.dhis.outlierdetection;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+
+/**
+ * Parameters for outlier detection. Measures are computed per data element,
+ * organisation unit, category option combination and attribute option
+ * combination over all data values with a period starting on or after the
+ * data start date, while outliers are only reported for periods within the
+ * start and end date.
+ */
+public class OutlierDetectionParams
+{
+    public static final double DEFAULT_THRESHOLD = 3.0;
+
+    public static final int DEFAULT_MAX_RESULTS = 500;
+
+    public static final int MAX_RESULTS_LIMIT = 10000;
+
+    private Set<DataElement> dataElements = new HashSet<>();
+
+    private Set<OrganisationUnit> organisationUnits = new HashSet<>();
+
+    private Date startDate;
+
+    private Date endDate;
+
+    private Date dataStartDate;
+
+    private OutlierDetectionAlgorithm algorithm = OutlierDetectionAlgorithm.Z_SCORE;
+
+    private double threshold = DEFAULT_THRESHOLD;
+
+    private int offset = 0;
+
+    private int maxResults = DEFAULT_MAX_RESULTS;
+
+    public OutlierDetectionParams()
+    {
+    }
+
+    // -------------------------------------------------------------------------
+    // Logic
+    // -------------------------------------------------------------------------
+
+    public boolean hasDataStartDate()
+    {
+        return dataStartDate != null;
+    }
+
+    /**
+     * Indicates whether the number of results is limited. A max results
+     * value of zero means that all outliers are returned.
+     */
+    public boolean hasMaxResults()
+    {
+        return maxResults > 0;
+    }
+
+    // -------------------------------------------------------------------------
+    // Getters and setters
+    // -------------------------------------------------------------------------
+
+    public Set<DataElement> getDataElements()
+    {
+        return dataElements;
+    }
+
+    public OutlierDetectionParams setDataElements( Set<DataElement> dataElements )
+    {
+        this.dataElements = dataElements;
+        return this;
+    }
+
+    public Set<OrganisationUnit> getOrganisationUnits()
+    {
+        return organisationUnits;
+    }
+
+    public OutlierDetectionParams setOrganisationUnits( Set<OrganisationUnit> organisationUnits )
+    {
+        this.organisationUnits = organisationUnits;
+        return this;
+    }
+
+    public Date getStartDate()
+    {
+        return startDate;
+    }
+
+    public OutlierDetectionParams setStartDate( Date startDate )
+    {
+        this.startDate = startDate;
+        return this;
+    }
+
+    public Date getEndDate()
+    {
+        return endDate;
+    }
+
+    public OutlierDetectionParams setEndDate( Date endDate )
+    {
+        this.endDate = endDate;
+        return this;
+    }
+
+    public Date getDataStartDate()
+    {
+        return dataStartDate;
+    }
+
+    public OutlierDetectionParams setDataStartDate( Date dataStartDate )
+    {
+        this.dataStartDate = dataStartDate;
+        return this;
+    }
+
+    public OutlierDetectionAlgorithm getAlgorithm()
+    {
+        return algorithm;
+    }
+
+    public OutlierDetectionParams setAlgorithm( OutlierDetectionAlgorithm algorithm )
+    {
+        this.algorithm = algorithm;
+        return this;
+    }
+
+    public double getThreshold()
+    {
+        return threshold;
+    }
+
+    public OutlierDetectionParams setThreshold( double threshold )
+    {
+        this.threshold = threshold;
+        return this;
+    }
+
+    public int getOffset()
+    {
+        return offset;
+    }
+
+    public OutlierDetectionParams setOffset( int offset )
+    {
+        this.offset = offset;
+        return this;
+    }
+
+    public int getMaxResults()
+    {
+        return maxResults;
+    }
+
+    public OutlierDetectionParams setMaxResults( int maxResults )
+    {
+        this.maxResults = maxResults;
+        return this;
+    }
+}
@@ -0,0 +1,97 @@
+package org.hisp.dhis.outlierdetection;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.hisp.dhis.common.IllegalQueryException;
+import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.scheduling.parameters.OutlierDetectionJobParameters;
+
+/**
+ * Service for detecting outlier data values. Means, standard deviations,
+ * medians and median absolute deviations are computed per data element,
+ * organisation unit, category option combination and attribute option
+ * combination in the database.
+ */
+public interface OutlierDetectionService
+{
+    /**
+     * Validates the given parameters.
+     *
+     * @param params the {@link OutlierDetectionParams}.
+     * @throws IllegalQueryException if the parameters are invalid.
+     */
+    void validate( OutlierDetectionParams params )
+        throws IllegalQueryException;
+
+    /**
+     * Returns a page of outlier values ordered by descending score, as given
+     * by the offset and max results of the parameters.
+     *
+     * @param params the {@link OutlierDetectionParams}.
+     * @return a list of {@link OutlierValue}.
+     * @throws IllegalQueryException if the parameters are invalid.
+     */
+    List<OutlierValue> getOutlierValues( OutlierDetectionParams params )
+        throws IllegalQueryException;
+
+    /**
+     * Streams outlier values ordered by descending score to the given
+     * consumer, without holding the result in memory.
+     *
+     * @param params the {@link OutlierDetectionParams}.
+     * @param consumer the consumer of outlier values.
+     * @throws IllegalQueryException if the parameters are invalid.
+     */
+    void getOutlierValues( OutlierDetectionParams params, Consumer<OutlierValue> consumer )
+        throws IllegalQueryException;
+
+    /**
+     * Replaces the stored outlier values for the given parameters with the
+     * current outlier values.
+     *
+     * @param params the {@link OutlierDetectionParams}.
+     * @return the number of outlier values stored.
+     * @throws IllegalQueryException if the parameters are invalid.
+     */
+    int saveOutlierValues( OutlierDetectionParams params )
+        throws IllegalQueryException;
+
+    /**
+     * Runs outlier detection for each data element group of the given job
+     * parameters and stores the outlier values, replacing earlier results.
+     *
+     * @param params the {@link OutlierDetectionJobParameters}.
+     * @param jobId the job configuration, used for notifications.
+     * @return the number of outlier values stored.
+     */
+    int saveOutlierValues( OutlierDetectionJobParameters params, JobConfiguration jobId );
+}
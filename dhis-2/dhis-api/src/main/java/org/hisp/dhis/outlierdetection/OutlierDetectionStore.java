@@ -0,0 +1,59 @@
+package org.hisp.dhis.outlierdetection;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.function.Consumer;
+
+/**
+ * Store for outlier detection, computing measures and scores in the database
+ * in a single query.
+ */
+public interface OutlierDetectionStore
+{
+    String ID = OutlierDetectionStore.class.getName();
+
+    /**
+     * Streams the outlier values matching the given parameters to the given
+     * consumer, ordered by descending score.
+     *
+     * @param params the {@link OutlierDetectionParams}.
+     * @param consumer the consumer of outlier values.
+     */
+    void getOutlierValues( OutlierDetectionParams params, Consumer<OutlierValue> consumer );
+
+    /**
+     * Replaces the outlier values stored for the data elements, organisation
+     * units and date range of the given parameters with the current outlier
+     * values. Paging parameters are ignored.
+     *
+     * @param params the {@link OutlierDetectionParams}.
+     * @return the number of outlier values stored.
+     */
+    int saveOutlierValues( OutlierDetectionParams params );
+}
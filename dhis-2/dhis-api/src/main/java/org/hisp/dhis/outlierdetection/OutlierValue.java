@@ -0,0 +1,317 @@
+package org.hisp.dhis.outlierdetection;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A data value which is an outlier according to an
+ * {@link OutlierDetectionAlgorithm}, with the measures of its data element,
+ * organisation unit, category option combination and attribute option
+ * combination. Internal identifiers are used when writing results to the
+ * database and are not serialized.
+ */
+public class OutlierValue
+{
+    private long dataElementId;
+
+    private String dataElement;
+
+    private String dataElementName;
+
+    private long periodId;
+
+    private String period;
+
+    private long orgUnitId;
+
+    private String orgUnit;
+
+    private String orgUnitName;
+
+    private long categoryOptionComboId;
+
+    private String categoryOptionCombo;
+
+    private long attributeOptionComboId;
+
+    private String attributeOptionCombo;
+
+    private double value;
+
+    private Double mean;
+
+    private Double stdDev;
+
+    private Double median;
+
+    private Double medianAbsDeviation;
+
+    private Double zScore;
+
+    private Double modifiedZScore;
+
+    private Double lowerBound;
+
+    private Double upperBound;
+
+    public OutlierValue()
+    {
+    }
+
+    // -------------------------------------------------------------------------
+    // Getters and setters
+    // -------------------------------------------------------------------------
+
+    public long getDataElementId()
+    {
+        return dataElementId;
+    }
+
+    public void setDataElementId( long dataElementId )
+    {
+        this.dataElementId = dataElementId;
+    }
+
+    @JsonProperty
+    public String getDataElement()
+    {
+        return dataElement;
+    }
+
+    public void setDataElement( String dataElement )
+    {
+        this.dataElement = dataElement;
+    }
+
+    @JsonProperty
+    public String getDataElementName()
+    {
+        return dataElementName;
+    }
+
+    public void setDataElementName( String dataElementName )
+    {
+        this.dataElementName = dataElementName;
+    }
+
+    public long getPeriodId()
+    {
+        return periodId;
+    }
+
+    public void setPeriodId( long periodId )
+    {
+        this.periodId = periodId;
+    }
+
+    @JsonProperty
+    public String getPeriod()
+    {
+        return period;
+    }
+
+    public void setPeriod( String period )
+    {
+        this.period = period;
+    }
+
+    public long getOrgUnitId()
+    {
+        return orgUnitId;
+    }
+
+    public void setOrgUnitId( long orgUnitId )
+    {
+        this.orgUnitId = orgUnitId;
+    }
+
+    @JsonProperty
+    public String getOrgUnit()
+    {
+        return orgUnit;
+    }
+
+    public void setOrgUnit( String orgUnit )
+    {
+        this.orgUnit = orgUnit;
+    }
+
+    @JsonProperty
+    public String getOrgUnitName()
+    {
+        return orgUnitName;
+    }
+
+    public void setOrgUnitName( String orgUnitName )
+    {
+        this.orgUnitName = orgUnitName;
+    }
+
+    public long getCategoryOptionComboId()
+    {
+        return categoryOptionComboId;
+    }
+
+    public void setCategoryOptionComboId( long categoryOptionComboId )
+    {
+        this.categoryOptionComboId = categoryOptionComboId;
+    }
+
+    @JsonProperty
+    public String getCategoryOptionCombo()
+    {
+        return categoryOptionCombo;
+    }
+
+    public void setCategoryOptionCombo( String categoryOptionCombo )
+    {
+        this.categoryOptionCombo = categoryOptionCombo;
+    }
+
+    public long getAttributeOptionComboId()
+    {
+        return attributeOptionComboId;
+    }
+
+    public void setAttributeOptionComboId( long attributeOptionComboId )
+    {
+        this.attributeOptionComboId = attributeOptionComboId;
+    }
+
+    @JsonProperty
+    public String getAttributeOptionCombo()
+    {
+        return attributeOptionCombo;
+    }
+
+    public void setAttributeOptionCombo( String attributeOptionCombo )
+    {
+        this.attributeOptionCombo = attributeOptionCombo;
+    }
+
+    @JsonProperty
+    public double getValue()
+    {
+        return value;
+    }
+
+    public void setValue( double value )
+    {
+        this.value = value;
+    }
+
+    @JsonProperty
+    public Double getMean()
+    {
+        return mean;
+    }
+
+    public void setMean( Double mean )
+    {
+        this.mean = mean;
+    }
+
+    @JsonProperty
+    public Double getStdDev()
+    {
+        return stdDev;
+    }
+
+    public void setStdDev( Double stdDev )
+    {
+        this.stdDev = stdDev;
+    }
+
+    @JsonProperty
+    public Double getMedian()
+    {
+        return median;
+    }
+
+    public void setMedian( Double median )
+    {
+        this.median = median;
+    }
+
+    @JsonProperty
+    public Double getMedianAbsDeviation()
+    {
+        return medianAbsDeviation;
+    }
+
+    public void setMedianAbsDeviation( Double medianAbsDeviation )
+    {
+        this.medianAbsDeviation = medianAbsDeviation;
+    }
+
+    @JsonProperty( "zScore" )
+    public Double getZScore()
+    {
+        return zScore;
+    }
+
+    public void setZScore( Double zScore )
+    {
+        this.zScore = zScore;
+    }
+
+    @JsonProperty
+    public Double getModifiedZScore()
+    {
+        return modifiedZScore;
+    }
+
+    public void setModifiedZScore( Double modifiedZScore )
+    {
+        this.modifiedZScore = modifiedZScore;
+    }
+
+    @JsonProperty
+    public Double getLowerBound()
+    {
+        return lowerBound;
+    }
+
+    public void setLowerBound( Double lowerBound )
+    {
+        this.lowerBound = lowerBound;
+    }
+
+    @JsonProperty
+    public Double getUpperBound()
+    {
+        return upperBound;
+    }
+
+    public void setUpperBound( Double upperBound )
+    {
+        this.upperBound = upperBound;
+    }
+}
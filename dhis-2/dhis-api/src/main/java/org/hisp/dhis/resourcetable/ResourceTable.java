@@ -32,7 +32,9 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.common.CodeGenerator;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -98,6 +100,59 @@ public abstract class ResourceTable<T>
         return "alter table " + getTempTableName() + " rename to " + getTableName() + ";";
     }
 
+    /**
+     * Provides a SQL select statement returning a single row which reflects
+     * the state of the source tables of this resource table. Resource tables
+     * with a source state are skipped when the state is unchanged since the
+     * last generation. Returns an empty optional by default, meaning that the
+     * state is given by the source tables and source join tables.
+     *
+     * @return a select statement for the state of the source tables.
+     */
+    public Optional<String> getSourceStateStatement()
+    {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the source tables of this resource table. The state of each
+     * table is given by its row count and max last updated timestamp, which
+     * means that the tables must have a lastupdated column. Returns an empty
+     * list by default.
+     *
+     * @return the source tables.
+     */
+    public List<String> getSourceTables()
+    {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the source join tables of this resource table mapped to their
+     * columns. The state of each join table is given by a checksum of its
+     * rows, so that changed memberships are detected also when the number of
+     * rows is unchanged. Returns an empty map by default.
+     *
+     * @return the source join tables mapped to their columns.
+     */
+    public Map<String, List<String>> getSourceJoinTables()
+    {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Returns the name of the column uniquely identifying rows of the resource
+     * table. Resource tables with a key column are updated incrementally by
+     * applying the difference against the existing table, provided that the
+     * table structure is unchanged. Returns an empty optional by default.
+     *
+     * @return the name of the key column.
+     */
+    public Optional<String> getKeyColumn()
+    {
+        return Optional.empty();
+    }
+
     // -------------------------------------------------------------------------
     // Protected methods
     // -------------------------------------------------------------------------
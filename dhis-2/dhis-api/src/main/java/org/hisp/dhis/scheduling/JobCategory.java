@@ -0,0 +1,70 @@
+package org.hisp.dhis.scheduling;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * Enum describing categories of jobs. Jobs of each category are executed on a
+ * separate executor pool with its own concurrency limit and queue, so that long
+ * running jobs of one category cannot starve jobs of other categories.
+ */
+public enum JobCategory
+{
+    ANALYTICS( "analytics", true ),
+    IMPORT( "import", true ),
+    SYNC( "sync", true ),
+    NOTIFICATIONS( "notifications", true ),
+    MAINTENANCE( "maintenance", true ),
+
+    // Short system jobs which must not be delayed, executed by the scheduler directly
+    SYSTEM( "system", false );
+
+    private final String key;
+
+    private final boolean pooled;
+
+    JobCategory( String key, boolean pooled )
+    {
+        this.key = key;
+        this.pooled = pooled;
+    }
+
+    public String getKey()
+    {
+        return key;
+    }
+
+    /**
+     * Indicates whether jobs of this category are executed on a dedicated
+     * executor pool.
+     */
+    public boolean isPooled()
+    {
+        return pooled;
+    }
+}
@@ -37,6 +37,7 @@ import org.hisp.dhis.scheduling.parameters.EventProgramsDataSynchronizationJobPa
 import org.hisp.dhis.scheduling.parameters.MetadataSyncJobParameters;
 import org.hisp.dhis.scheduling.parameters.MockJobParameters;
 import org.hisp.dhis.scheduling.parameters.MonitoringJobParameters;
+import org.hisp.dhis.scheduling.parameters.OutlierDetectionJobParameters;
 import org.hisp.dhis.scheduling.parameters.PredictorJobParameters;
 import org.hisp.dhis.scheduling.parameters.PushAnalysisJobParameters;
 import org.hisp.dhis.scheduling.parameters.SmsJobParameters;
@@ -74,8 +75,11 @@ public enum JobType
         "pushAnalysis", "/api/pushAnalysis"  ) ),
     PREDICTOR( "predictorJob", true, PredictorJobParameters.class, ImmutableMap.of(
         "predictors", "/api/predictors", "predictorGroups", "/api/predictorGroups" ) ),
+    OUTLIER_DETECTION( "outlierDetectionJob", true, OutlierDetectionJobParameters.class, ImmutableMap.of(
+        "dataElementGroups", "/api/dataElementGroups", "organisationUnits", "/api/organisationUnits" ) ),
     DATA_SET_NOTIFICATION( "dataSetNotificationJob", false ),
     REMOVE_EXPIRED_RESERVED_VALUES( "removeExpiredReservedValuesJob", false ),
+    DATA_VALUE_CHANGE_PRUNE( "dataValueChangePruneJob", false ),
 
     // Testing purposes
     MOCK( "mockJob", false, MockJobParameters.class, null ),
@@ -134,4 +138,48 @@ public enum JobType
     {
         return relativeApiElements;
     }
+
+    /**
+     * Returns the category of this job type, which determines the executor
+     * pool used for running jobs of this type.
+     */
+    public JobCategory getCategory()
+    {
+        switch ( this )
+        {
+            case ANALYTICS_TABLE:
+            case ANALYTICSTABLE_UPDATE:
+            case RESOURCE_TABLE:
+            case PREDICTOR:
+            case OUTLIER_DETECTION:
+            case PUSH_ANALYSIS:
+                return JobCategory.ANALYTICS;
+            case DATAVALUE_IMPORT:
+            case DATAVALUE_IMPORT_INTERNAL:
+            case METADATA_IMPORT:
+            case GML_IMPORT:
+            case EVENT_IMPORT:
+            case ENROLLMENT_IMPORT:
+            case TEI_IMPORT:
+            case COMPLETE_DATA_SET_REGISTRATION_IMPORT:
+                return JobCategory.IMPORT;
+            case DATA_SYNC:
+            case TRACKER_PROGRAMS_DATA_SYNC:
+            case EVENT_PROGRAMS_DATA_SYNC:
+            case META_DATA_SYNC:
+                return JobCategory.SYNC;
+            case SMS_SEND:
+            case SEND_SCHEDULED_MESSAGE:
+            case PROGRAM_NOTIFICATIONS:
+            case VALIDATION_RESULTS_NOTIFICATION:
+            case CREDENTIALS_EXPIRY_ALERT:
+            case DATA_SET_NOTIFICATION:
+                return JobCategory.NOTIFICATIONS;
+            case LEADER_ELECTION:
+            case LEADER_RENEWAL:
+                return JobCategory.SYSTEM;
+            default:
+                return JobCategory.MAINTENANCE;
+        }
+    }
 }
@@ -97,10 +97,19 @@ public interface SchedulingManager
     void scheduleJobWithStartTime( JobConfiguration jobConfiguration, Date startTime );
 
     /**
-     * Stops one job.
+     * Stops one job. Cancels future executions of the job, an execution which
+     * is in progress is not interrupted.
      */
     void stopJob( JobConfiguration jobConfiguration );
 
+    /**
+     * Cancels one job. Cancels future executions of the job and interrupts an
+     * execution which is in progress.
+     *
+     * @param jobConfiguration the job configuration.
+     */
+    void cancelJob( JobConfiguration jobConfiguration );
+
     /**
      * Get a job based on the job type.
      *
@@ -117,20 +126,24 @@ public interface SchedulingManager
     boolean executeJob( JobConfiguration jobConfiguration );
 
     /**
-     * Execute an actual job without validation
+     * Execute an actual job without validation, on the executor pool of the
+     * category of the given job type.
      *
+     * @param jobType the type of the job.
      * @param job The job to be executed
      */
-    void executeJob( Runnable job );
+    void executeJob( JobType jobType, Runnable job );
 
     /**
-     * Execute the given job immediately and return a ListenableFuture.
+     * Execute the given job immediately, on the executor pool of the category
+     * of the given job type, and return a ListenableFuture.
      *
+     * @param jobType the type of the job.
      * @param callable the job to execute.
      * @param <T> return type of the supplied {@link Callable}.
      * @return a ListenableFuture representing the result of the job.
      */
-    <T> ListenableFuture<T> executeJob( Callable<T> callable );
+    <T> ListenableFuture<T> executeJob( JobType jobType, Callable<T> callable );
 
     /**
      * Returns a list of all scheduled jobs sorted based on cron expression and the current time.
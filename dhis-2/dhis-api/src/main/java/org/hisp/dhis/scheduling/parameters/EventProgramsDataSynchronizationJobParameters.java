@@ -51,9 +51,13 @@ public class EventProgramsDataSynchronizationJobParameters
 
     static final int EVENT_PAGE_SIZE_MIN = 5;
     static final int EVENT_PAGE_SIZE_MAX = 200;
+    static final int CONCURRENT_REQUESTS_MIN = 1;
+    static final int CONCURRENT_REQUESTS_MAX = 10;
 
     private int pageSize = 60;
 
+    private int concurrentRequests = 2;
+
     public EventProgramsDataSynchronizationJobParameters()
     {
     }
@@ -75,6 +79,18 @@ public class EventProgramsDataSynchronizationJobParameters
         this.pageSize = pageSize;
     }
 
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public int getConcurrentRequests()
+    {
+        return concurrentRequests;
+    }
+
+    public void setConcurrentRequests( final int concurrentRequests )
+    {
+        this.concurrentRequests = concurrentRequests;
+    }
+
     @Override
     public Optional<ErrorReport> validate()
     {
@@ -83,6 +99,11 @@ public class EventProgramsDataSynchronizationJobParameters
             return Optional.of( new ErrorReport( this.getClass(), ErrorCode.E4008, "pageSize", EVENT_PAGE_SIZE_MIN, EVENT_PAGE_SIZE_MAX, pageSize  ) );
         }
 
+        if ( concurrentRequests < CONCURRENT_REQUESTS_MIN || concurrentRequests > CONCURRENT_REQUESTS_MAX )
+        {
+            return Optional.of( new ErrorReport( this.getClass(), ErrorCode.E4008, "concurrentRequests", CONCURRENT_REQUESTS_MIN, CONCURRENT_REQUESTS_MAX, concurrentRequests ) );
+        }
+
         return Optional.empty();
     }
 }
\ No newline at end of file
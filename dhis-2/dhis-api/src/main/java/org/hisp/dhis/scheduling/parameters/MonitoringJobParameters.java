@@ -67,6 +67,8 @@ public class MonitoringJobParameters
 
     private boolean persistResults;
 
+    private boolean incremental;
+
     public MonitoringJobParameters()
     {
     }
@@ -142,6 +144,22 @@ public class MonitoringJobParameters
         this.persistResults = persistResults;
     }
 
+    /**
+     * If true, only data changed since the start of the last successful run
+     * of the job is validated.
+     */
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public boolean isIncremental()
+    {
+        return incremental;
+    }
+
+    public void setIncremental( boolean incremental )
+    {
+        this.incremental = incremental;
+    }
+
     @Override
     public Optional<ErrorReport> validate()
     {
@@ -0,0 +1,186 @@
+package org.hisp.dhis.scheduling.parameters;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlElementWrapper;
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
+import org.hisp.dhis.common.DxfNamespaces;
+import org.hisp.dhis.feedback.ErrorCode;
+import org.hisp.dhis.feedback.ErrorReport;
+import org.hisp.dhis.outlierdetection.OutlierDetectionAlgorithm;
+import org.hisp.dhis.outlierdetection.OutlierDetectionParams;
+import org.hisp.dhis.scheduling.JobParameters;
+import org.hisp.dhis.scheduling.parameters.jackson.OutlierDetectionJobParametersDeserializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Parameters of the outlier detection job. Relative start and end are days
+ * relative to the time of execution, where the data start is the start of
+ * the data used for computing measures.
+ */
+@JacksonXmlRootElement( localName = "jobParameters", namespace = DxfNamespaces.DXF_2_0 )
+@JsonDeserialize( using = OutlierDetectionJobParametersDeserializer.class )
+public class OutlierDetectionJobParameters
+    implements JobParameters
+{
+    private static final long serialVersionUID = 3217306185446727512L;
+
+    private int relativeDataStart = -1825;
+
+    private int relativeStart = -365;
+
+    private int relativeEnd = 0;
+
+    private OutlierDetectionAlgorithm algorithm = OutlierDetectionAlgorithm.Z_SCORE;
+
+    private double threshold = OutlierDetectionParams.DEFAULT_THRESHOLD;
+
+    private List<String> dataElementGroups = new ArrayList<>();
+
+    private List<String> organisationUnits = new ArrayList<>();
+
+    public OutlierDetectionJobParameters()
+    {
+    }
+
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public int getRelativeDataStart()
+    {
+        return relativeDataStart;
+    }
+
+    public void setRelativeDataStart( int relativeDataStart )
+    {
+        this.relativeDataStart = relativeDataStart;
+    }
+
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public int getRelativeStart()
+    {
+        return relativeStart;
+    }
+
+    public void setRelativeStart( int relativeStart )
+    {
+        this.relativeStart = relativeStart;
+    }
+
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public int getRelativeEnd()
+    {
+        return relativeEnd;
+    }
+
+    public void setRelativeEnd( int relativeEnd )
+    {
+        this.relativeEnd = relativeEnd;
+    }
+
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public OutlierDetectionAlgorithm getAlgorithm()
+    {
+        return algorithm;
+    }
+
+    public void setAlgorithm( OutlierDetectionAlgorithm algorithm )
+    {
+        this.algorithm = algorithm;
+    }
+
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public double getThreshold()
+    {
+        return threshold;
+    }
+
+    public void setThreshold( double threshold )
+    {
+        this.threshold = threshold;
+    }
+
+    @JsonProperty
+    @JacksonXmlElementWrapper( localName = "dataElementGroups", namespace = DxfNamespaces.DXF_2_0 )
+    @JacksonXmlProperty( localName = "dataElementGroup", namespace = DxfNamespaces.DXF_2_0 )
+    public List<String> getDataElementGroups()
+    {
+        return dataElementGroups;
+    }
+
+    public void setDataElementGroups( List<String> dataElementGroups )
+    {
+        this.dataElementGroups = dataElementGroups;
+    }
+
+    @JsonProperty
+    @JacksonXmlElementWrapper( localName = "organisationUnits", namespace = DxfNamespaces.DXF_2_0 )
+    @JacksonXmlProperty( localName = "organisationUnit", namespace = DxfNamespaces.DXF_2_0 )
+    public List<String> getOrganisationUnits()
+    {
+        return organisationUnits;
+    }
+
+    public void setOrganisationUnits( List<String> organisationUnits )
+    {
+        this.organisationUnits = organisationUnits;
+    }
+
+    @Override
+    public Optional<ErrorReport> validate()
+    {
+        if ( dataElementGroups == null || dataElementGroups.isEmpty() )
+        {
+            return Optional.of( new ErrorReport( this.getClass(), ErrorCode.E4000, "dataElementGroups" ) );
+        }
+
+        if ( relativeStart < relativeDataStart || relativeStart > relativeEnd )
+        {
+            return Optional.of( new ErrorReport( this.getClass(), ErrorCode.E4008, "relativeStart",
+                relativeDataStart, relativeEnd, relativeStart ) );
+        }
+
+        if ( threshold <= 0 )
+        {
+            return Optional.of( new ErrorReport( this.getClass(), ErrorCode.E4008, "threshold",
+                0, Double.MAX_VALUE, threshold ) );
+        }
+
+        return Optional.empty();
+    }
+}
@@ -51,9 +51,13 @@ public class TrackerProgramsDataSynchronizationJobParameters
 
     static final int TRACKER_PAGE_SIZE_MIN = 5;
     static final int TRACKER_PAGE_SIZE_MAX = 100;
+    static final int CONCURRENT_REQUESTS_MIN = 1;
+    static final int CONCURRENT_REQUESTS_MAX = 10;
 
     private int pageSize = 20;
 
+    private int concurrentRequests = 2;
+
     public TrackerProgramsDataSynchronizationJobParameters()
     {
     }
@@ -75,6 +79,18 @@ public class TrackerProgramsDataSynchronizationJobParameters
         this.pageSize = pageSize;
     }
 
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public int getConcurrentRequests()
+    {
+        return concurrentRequests;
+    }
+
+    public void setConcurrentRequests( final int concurrentRequests )
+    {
+        this.concurrentRequests = concurrentRequests;
+    }
+
     @Override
     public Optional<ErrorReport> validate()
     {
@@ -83,6 +99,11 @@ public class TrackerProgramsDataSynchronizationJobParameters
             return Optional.of( new ErrorReport( this.getClass(), ErrorCode.E4008, "pageSize", TRACKER_PAGE_SIZE_MIN, TRACKER_PAGE_SIZE_MAX, pageSize  ) );
         }
 
+        if ( concurrentRequests < CONCURRENT_REQUESTS_MIN || concurrentRequests > CONCURRENT_REQUESTS_MAX )
+        {
+            return Optional.of( new ErrorReport( this.getClass(), ErrorCode.E4008, "concurrentRequests", CONCURRENT_REQUESTS_MIN, CONCURRENT_REQUESTS_MAX, concurrentRequests ) );
+        }
+
         return Optional.empty();
     }
 }
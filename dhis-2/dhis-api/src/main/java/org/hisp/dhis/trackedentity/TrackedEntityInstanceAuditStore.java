@@ -45,6 +45,13 @@ public interface TrackedEntityInstanceAuditStore
      * @param trackedEntityInstanceAudit the audit to add
      */
     void addTrackedEntityInstanceAudit( TrackedEntityInstanceAudit trackedEntityInstanceAudit );
+
+    /**
+     * Adds the given tracked entity instance audits in a single batch
+     *
+     * @param trackedEntityInstanceAudits the audits to add
+     */
+    void addTrackedEntityInstanceAudits( List<TrackedEntityInstanceAudit> trackedEntityInstanceAudits );
     
     /**
      * Deletes tracked entity instance audit for the given tracked entity instance
@@ -231,6 +231,13 @@ public class TrackedEntityInstanceQueryParams
      */
     private Date skipChangedBefore;
 
+    /**
+     * For synchronization queries, only TEIs with a uid greater than this uid
+     * are returned, ordered by uid. Allows keyset paging while the previous
+     * pages are not yet marked as synchronized.
+     */
+    private String synchronizationUidAfter;
+
     /**
      * TEI order params
      */
@@ -771,6 +778,7 @@ public class TrackedEntityInstanceQueryParams
             .add( "internalSearch", internalSearch )
             .add( "synchronizationQuery", synchronizationQuery )
             .add( "skipChangedBefore", skipChangedBefore )
+            .add( "synchronizationUidAfter", synchronizationUidAfter )
             .add( "orders", orders )
             .add( "user", user ).toString();
     }
@@ -1098,6 +1106,17 @@ public class TrackedEntityInstanceQueryParams
         return this;
     }
 
+    public String getSynchronizationUidAfter()
+    {
+        return synchronizationUidAfter;
+    }
+
+    public TrackedEntityInstanceQueryParams setSynchronizationUidAfter( String synchronizationUidAfter )
+    {
+        this.synchronizationUidAfter = synchronizationUidAfter;
+        return this;
+    }
+
     public User getUser()
     {
         return user;
@@ -0,0 +1,213 @@
+package org.hisp.dhis.user;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Immutable snapshot of the current user, taken once per request. Holds the
+ * identifiers, authorities and organisation unit paths which access checks
+ * typically need, so that these do not have to be resolved from the user,
+ * its credentials and lazily loaded associations on every check.
+ * <p>
+ * The snapshot reflects the user at the time it was taken, and does not see
+ * changes to the user made later in the same request.
+ *
+ * @see CurrentUserService#getCurrentUserContext()
+ */
+public final class CurrentUserContext
+{
+    private final long userId;
+
+    private final String userUid;
+
+    private final String username;
+
+    private final boolean superUser;
+
+    private final Set<String> authorities;
+
+    private final Set<String> userRoleUids;
+
+    private final Set<String> userGroupUids;
+
+    private final Set<String> dataCaptureOrgUnitPaths;
+
+    private final Set<String> searchOrgUnitPaths;
+
+    private CurrentUserContext( User user )
+    {
+        UserCredentials credentials = user.getUserCredentials();
+
+        this.userId = user.getId();
+        this.userUid = user.getUid();
+        this.username = user.getUsername();
+        this.superUser = user.isSuper();
+        this.authorities = credentials != null ? ImmutableSet.copyOf( credentials.getAllAuthorities() ) : ImmutableSet.of();
+        this.userRoleUids = credentials != null ? collect( credentials.getUserAuthorityGroups(), IdentifiableObject::getUid ) : ImmutableSet.of();
+        this.userGroupUids = collect( user.getGroups(), IdentifiableObject::getUid );
+        this.dataCaptureOrgUnitPaths = collect( user.getOrganisationUnits(), OrganisationUnit::getPath );
+        this.searchOrgUnitPaths = collect( user.getTeiSearchOrganisationUnitsWithFallback(), OrganisationUnit::getPath );
+    }
+
+    /**
+     * Takes a snapshot of the given user.
+     *
+     * @param user the user, can be null.
+     * @return a snapshot, or null if the user is null.
+     */
+    public static CurrentUserContext of( User user )
+    {
+        return user != null ? new CurrentUserContext( user ) : null;
+    }
+
+    // -------------------------------------------------------------------------
+    // Logic
+    // -------------------------------------------------------------------------
+
+    /**
+     * Indicates whether the user has the given authority. Returns true in any
+     * case if the user has the ALL authority.
+     *
+     * @param auth the authority.
+     */
+    public boolean isAuthorized( String auth )
+    {
+        return superUser || authorities.contains( auth );
+    }
+
+    /**
+     * Indicates whether the organisation unit with the given path is within
+     * the data capture hierarchy of the user.
+     *
+     * @param path the organisation unit path.
+     */
+    public boolean isInDataCaptureHierarchy( String path )
+    {
+        return isInHierarchy( dataCaptureOrgUnitPaths, path );
+    }
+
+    /**
+     * Indicates whether the organisation unit with the given path is within
+     * the search hierarchy of the user, falling back to data capture
+     * organisation units.
+     *
+     * @param path the organisation unit path.
+     */
+    public boolean isInSearchHierarchy( String path )
+    {
+        return isInHierarchy( searchOrgUnitPaths, path );
+    }
+
+    private static boolean isInHierarchy( Set<String> paths, String path )
+    {
+        return path != null && paths.stream().anyMatch( path::startsWith );
+    }
+
+    private static <T> Set<String> collect( Collection<T> objects, Function<T, String> mapper )
+    {
+        if ( objects == null )
+        {
+            return ImmutableSet.of();
+        }
+
+        ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+
+        objects.stream().map( mapper ).filter( value -> value != null ).forEach( builder::add );
+
+        return builder.build();
+    }
+
+    // -------------------------------------------------------------------------
+    // Get methods
+    // -------------------------------------------------------------------------
+
+    public long getUserId()
+    {
+        return userId;
+    }
+
+    public String getUserUid()
+    {
+        return userUid;
+    }
+
+    public String getUsername()
+    {
+        return username;
+    }
+
+    public boolean isSuper()
+    {
+        return superUser;
+    }
+
+    public Set<String> getAuthorities()
+    {
+        return authorities;
+    }
+
+    public Set<String> getUserRoleUids()
+    {
+        return userRoleUids;
+    }
+
+    public Set<String> getUserGroupUids()
+    {
+        return userGroupUids;
+    }
+
+    public Set<String> getDataCaptureOrgUnitPaths()
+    {
+        return dataCaptureOrgUnitPaths;
+    }
+
+    public Set<String> getSearchOrgUnitPaths()
+    {
+        return searchOrgUnitPaths;
+    }
+
+    @Override
+    public String toString()
+    {
+        return MoreObjects.toStringHelper( this )
+            .add( "userUid", userUid )
+            .add( "username", username )
+            .add( "superUser", superUser )
+            .toString();
+    }
+}
@@ -68,6 +68,13 @@ public interface CurrentUserService
      */
     UserInfo getCurrentUserInfo();
 
+    /**
+     * @return the context snapshot of the currently logged in user. Within a
+     *          request the snapshot is taken once and reused for the rest of
+     *          the request. If no user is logged in, null is returned.
+     */
+    CurrentUserContext getCurrentUserContext();
+
     /**
      * @return the data capture organisation units of the current user, empty set
      *          if no current user.
@@ -32,8 +32,10 @@ import com.google.common.collect.ImmutableSet;
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.period.Period;
+import org.hisp.dhis.scheduling.JobConfiguration;
 
 import java.util.Collection;
+import java.util.Date;
 
 /**
  * This class represents the most fundamental parameters to run a validation rule analysis.
@@ -73,6 +75,10 @@ public final class ValidationAnalysisParams
 
     private int dayInPeriod = -1;
 
+    private JobConfiguration jobConfiguration;
+
+    private Date changedSince;
+
     /**
      * Gets the rules selected for analysis
      *
@@ -168,6 +174,36 @@ public final class ValidationAnalysisParams
         return maxResults;
     }
 
+    /**
+     * Gets the job which runs the analysis, if any. Progress and phase timings
+     * are reported to the notifier of this job.
+     *
+     * @return the job configuration, or null if not run as a job.
+     */
+    public JobConfiguration getJobConfiguration()
+    {
+        return jobConfiguration;
+    }
+
+    /**
+     * Gets the date from which data changes are considered for an incremental
+     * analysis. If set, only rules referencing data elements with values
+     * changed since this date are evaluated, and only for the organisation
+     * units and periods of those changes. Rules referencing items which are
+     * not sourced from data values are always evaluated in full.
+     *
+     * @return the date, or null if the analysis is not incremental.
+     */
+    public Date getChangedSince()
+    {
+        return changedSince;
+    }
+
+    public boolean isIncremental()
+    {
+        return changedSince != null;
+    }
+
     public static class Builder
     {
         private ValidationAnalysisParams params;
@@ -255,6 +291,31 @@ public final class ValidationAnalysisParams
             return this;
         }
 
+        /**
+         * The job which runs the analysis, used for progress notifications.
+         *
+         * @param jobConfiguration the job configuration
+         * @return the updated builder object
+         */
+        public Builder withJobConfiguration( JobConfiguration jobConfiguration )
+        {
+            this.params.jobConfiguration = jobConfiguration;
+            return this;
+        }
+
+        /**
+         * Makes the analysis incremental, considering data changed since the
+         * given date.
+         *
+         * @param changedSince the date, or null for a full analysis
+         * @return the updated builder object
+         */
+        public Builder withChangedSince( Date changedSince )
+        {
+            this.params.changedSince = changedSince;
+            return this;
+        }
+
         /**
          * Returns the params object
          * @return the final ValidationAnalysisParams object.
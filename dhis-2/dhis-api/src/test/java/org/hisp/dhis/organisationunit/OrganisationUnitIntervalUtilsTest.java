@@ -0,0 +1,97 @@
+package org.hisp.dhis.organisationunit;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class OrganisationUnitIntervalUtilsTest
+{
+    private OrganisationUnit ouA;
+    private OrganisationUnit ouB;
+    private OrganisationUnit ouC;
+    private OrganisationUnit ouD;
+    private OrganisationUnit ouE;
+
+    @Before
+    public void before()
+    {
+        ouA = createOrganisationUnit( "ouA", null, 1, 5 );
+        ouB = createOrganisationUnit( "ouB", ouA, 2, 3 );
+        ouC = createOrganisationUnit( "ouC", ouB, 3, 3 );
+        ouD = createOrganisationUnit( "ouD", ouA, 4, 5 );
+        ouE = createOrganisationUnit( "ouE", ouD, null, null );
+    }
+
+    @Test
+    public void testGetHighestOrganisationUnits()
+    {
+        assertEquals( Lists.newArrayList( ouA ), OrganisationUnitIntervalUtils.getHighestOrganisationUnits( Lists.newArrayList( ouC, ouA, ouB ) ) );
+        assertEquals( Lists.newArrayList( ouB, ouD ), OrganisationUnitIntervalUtils.getHighestOrganisationUnits( Lists.newArrayList( ouD, ouC, ouB, ouE ) ) );
+    }
+
+    @Test
+    public void testGetMergedIntervals()
+    {
+        List<int[]> intervals = OrganisationUnitIntervalUtils.getMergedIntervals( Lists.newArrayList( ouD, ouB ) );
+
+        assertEquals( 1, intervals.size() );
+        assertEquals( 2, intervals.get( 0 )[0] );
+        assertEquals( 5, intervals.get( 0 )[1] );
+    }
+
+    @Test
+    public void testGetDescendantsSqlPredicate()
+    {
+        assertEquals( "(ou.hierarchystart between 1 and 5)",
+            OrganisationUnitIntervalUtils.getDescendantsSqlPredicate( Lists.newArrayList( ouA, ouC, ouE ), "ou" ) );
+        assertEquals( "(ou.hierarchystart = 3 or ou.path like '/ouA/ouD/ouE%')",
+            OrganisationUnitIntervalUtils.getDescendantsSqlPredicate( Lists.newArrayList( ouC, ouE ), "ou" ) );
+        assertEquals( "(ou.hierarchyStart between 2 and 5)",
+            OrganisationUnitIntervalUtils.getDescendantsHqlPredicate( Lists.newArrayList( ouB, ouD ), "ou" ) );
+        assertNull( OrganisationUnitIntervalUtils.getDescendantsSqlPredicate( Lists.newArrayList(), "ou" ) );
+    }
+
+    private OrganisationUnit createOrganisationUnit( String uid, OrganisationUnit parent, Integer start, Integer end )
+    {
+        OrganisationUnit unit = new OrganisationUnit( uid );
+        unit.setUid( uid );
+        unit.setParent( parent );
+        unit.setHierarchyStart( start );
+        unit.setHierarchyEnd( end );
+        return unit;
+    }
+}
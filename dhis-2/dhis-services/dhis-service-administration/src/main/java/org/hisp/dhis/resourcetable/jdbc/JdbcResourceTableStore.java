@@ -28,8 +28,12 @@ package org.hisp.dhis.resourcetable.jdbc;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -37,6 +41,8 @@ import org.hisp.dhis.analytics.AnalyticsTableHook;
 import org.hisp.dhis.analytics.AnalyticsTableHookService;
 import org.hisp.dhis.analytics.AnalyticsTablePhase;
 import org.hisp.dhis.dbms.DbmsManager;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.jdbc.StatementBuilder;
 import org.hisp.dhis.resourcetable.ResourceTable;
 import org.hisp.dhis.resourcetable.ResourceTableStore;
@@ -44,6 +50,8 @@ import org.hisp.dhis.system.util.Clock;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import com.google.common.collect.Lists;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -55,6 +63,13 @@ public class JdbcResourceTableStore
 {
     private static final Log log = LogFactory.getLog( JdbcResourceTableStore.class );
 
+    /**
+     * State of the generated resource tables, mapped by table name. Kept in
+     * memory, which means that the first generation after a restart is always
+     * a full generation.
+     */
+    private final Map<String, TableState> tableStates = new ConcurrentHashMap<>();
+
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -67,18 +82,22 @@ public class JdbcResourceTableStore
 
     private final JdbcTemplate jdbcTemplate;
 
+    private final DhisConfigurationProvider config;
+
     public JdbcResourceTableStore( AnalyticsTableHookService analyticsTableHookService, DbmsManager dbmsManager,
-        StatementBuilder statementBuilder, JdbcTemplate jdbcTemplate )
+        StatementBuilder statementBuilder, JdbcTemplate jdbcTemplate, DhisConfigurationProvider config )
     {
         checkNotNull( analyticsTableHookService );
         checkNotNull( dbmsManager );
         checkNotNull( statementBuilder );
         checkNotNull( jdbcTemplate );
+        checkNotNull( config );
 
         this.analyticsTableHookService = analyticsTableHookService;
         this.dbmsManager = dbmsManager;
         this.statementBuilder = statementBuilder;
         this.jdbcTemplate = jdbcTemplate;
+        this.config = config;
     }
 
     // -------------------------------------------------------------------------
@@ -93,10 +112,25 @@ public class JdbcResourceTableStore
         final Clock clock = new Clock().startClock();
         final String createTableSql = resourceTable.getCreateTempTableStatement();
         final Optional<String> populateTableSql = resourceTable.getPopulateTempTableStatement();
-        final Optional<List<Object[]>> populateTableContent = resourceTable.getPopulateTempTableContent();
-        final List<String> createIndexSql = resourceTable.getCreateIndexStatements();
         final String analyzeTableSql = statementBuilder.getAnalyze( resourceTable.getTableName() );
 
+        // ---------------------------------------------------------------------
+        // Skip if structure and source tables are unchanged since last run
+        // ---------------------------------------------------------------------
+
+        final TableState state = getTableState( resourceTable, createTableSql );
+        final TableState previousState = dbmsManager.tableExists( resourceTable.getTableName() ) ?
+            tableStates.get( resourceTable.getTableName() ) : null;
+
+        if ( state != null && state.equals( previousState ) )
+        {
+            log.info( String.format( "Skipping resource table '%s', source tables are unchanged", resourceTable.getTableName() ) );
+            return;
+        }
+
+        final boolean incremental = state != null && previousState != null &&
+            resourceTable.getKeyColumn().isPresent() && state.structure.equals( previousState.structure );
+
         // ---------------------------------------------------------------------
         // Drop temporary table if it exists
         // ---------------------------------------------------------------------
@@ -124,9 +158,9 @@ public class JdbcResourceTableStore
 
             jdbcTemplate.execute( populateTableSql.get() );
         }
-        else if ( populateTableContent.isPresent() )
+        else
         {
-            List<Object[]> content = populateTableContent.get();
+            List<Object[]> content = resourceTable.getPopulateTempTableContent().orElse( Lists.newArrayList() );
 
             log.debug( String.format( "Populate table content rows: '%d'", content.size() ) );
 
@@ -152,29 +186,44 @@ public class JdbcResourceTableStore
             log.info( String.format( "Invoked resource table hooks: '%d'", hooks.size() ) );
         }
 
-        // ---------------------------------------------------------------------
-        // Create indexes
-        // ---------------------------------------------------------------------
-
-        for ( final String sql : createIndexSql )
+        if ( incremental )
         {
-            log.debug( String.format( "Create index SQL: '%s'", sql ) );
+            // -----------------------------------------------------------------
+            // Apply difference to existing table
+            // -----------------------------------------------------------------
 
-            jdbcTemplate.execute( sql );
-        }
+            int changes = applyTableDiff( resourceTable );
 
-        // ---------------------------------------------------------------------
-        // Swap tables
-        // ---------------------------------------------------------------------
+            jdbcTemplate.execute( resourceTable.getDropTempTableStatement() );
 
-        if ( dbmsManager.tableExists( resourceTable.getTableName() ) )
-        {
-            jdbcTemplate.execute( resourceTable.getDropTableStatement() );
+            log.info( String.format( "Applied '%d' changed rows to resource table: '%s'", changes, resourceTable.getTableName() ) );
         }
+        else
+        {
+            // -----------------------------------------------------------------
+            // Create indexes
+            // -----------------------------------------------------------------
+
+            for ( final String sql : resourceTable.getCreateIndexStatements() )
+            {
+                log.debug( String.format( "Create index SQL: '%s'", sql ) );
+
+                jdbcTemplate.execute( sql );
+            }
 
-        jdbcTemplate.execute( resourceTable.getRenameTempTableStatement() );
+            // -----------------------------------------------------------------
+            // Swap tables
+            // -----------------------------------------------------------------
+
+            if ( dbmsManager.tableExists( resourceTable.getTableName() ) )
+            {
+                jdbcTemplate.execute( resourceTable.getDropTableStatement() );
+            }
 
-        log.debug( String.format( "Swapped resource table: '%s'", resourceTable.getTableName() ) );
+            jdbcTemplate.execute( resourceTable.getRenameTempTableStatement() );
+
+            log.debug( String.format( "Swapped resource table: '%s'", resourceTable.getTableName() ) );
+        }
 
         // ---------------------------------------------------------------------
         // Analyze
@@ -189,6 +238,15 @@ public class JdbcResourceTableStore
 
         log.debug( String.format( "Analyzed resource table: '%s'", resourceTable.getTableName() ) );
 
+        if ( state != null )
+        {
+            tableStates.put( resourceTable.getTableName(), state );
+        }
+        else
+        {
+            tableStates.remove( resourceTable.getTableName() );
+        }
+
         log.info( String.format( "Resource table '%s' update done: '%s'", resourceTable.getTableName(), clock.time() ) );
     }
 
@@ -211,4 +269,137 @@ public class JdbcResourceTableStore
 
         jdbcTemplate.batchUpdate( builder.toString(), batchArgs );
     }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the current state of the given resource table, or null if the
+     * table does not provide a source state or incremental generation is
+     * disabled.
+     *
+     * @param resourceTable the resource table.
+     * @param createTableSql the create table statement of the resource table.
+     * @return the {@link TableState}, or null.
+     */
+    private TableState getTableState( ResourceTable<?> resourceTable, String createTableSql )
+    {
+        String sourceStateSql = resourceTable.getSourceStateStatement().orElseGet( () -> getSourceStateStatement( resourceTable ) );
+
+        if ( sourceStateSql == null || !config.isEnabled( ConfigurationKey.ANALYTICS_RESOURCE_TABLE_INCREMENTAL ) )
+        {
+            return null;
+        }
+
+        log.debug( String.format( "Source state SQL: '%s'", sourceStateSql ) );
+
+        List<Object> sourceState = Lists.newArrayList( jdbcTemplate.queryForList( sourceStateSql ).get( 0 ).values() );
+
+        return new TableState( createTableSql, sourceState.toString() );
+    }
+
+    /**
+     * Returns a select statement for the state of the source tables of the
+     * given resource table. The state of each source table is given by the row
+     * count and max last updated timestamp, and the state of each source join
+     * table is given by a checksum of its rows.
+     *
+     * @param resourceTable the resource table.
+     * @return a select statement, or null if the table has no source tables.
+     */
+    private String getSourceStateStatement( ResourceTable<?> resourceTable )
+    {
+        List<String> columns = new ArrayList<>();
+
+        for ( String table : resourceTable.getSourceTables() )
+        {
+            columns.add( "(select count(*) from " + table + ")" );
+            columns.add( "(select max(lastupdated) from " + table + ")" );
+        }
+
+        for ( Map.Entry<String, List<String>> joinTable : resourceTable.getSourceJoinTables().entrySet() )
+        {
+            columns.add( statementBuilder.getTableChecksum( joinTable.getKey(), joinTable.getValue() ) );
+        }
+
+        return columns.isEmpty() ? null : "select " + String.join( ", ", columns );
+    }
+
+    /**
+     * Applies the difference between the temporary table and the existing
+     * resource table to the existing table. Rows which are not identical in
+     * both tables are removed from the existing table, and rows which are
+     * missing in the existing table are inserted from the temporary table.
+     *
+     * @param resourceTable the resource table.
+     * @return the number of deleted and inserted rows.
+     */
+    private int applyTableDiff( ResourceTable<?> resourceTable )
+    {
+        final String table = resourceTable.getTableName();
+        final String tempTable = resourceTable.getTempTableName();
+        final String key = resourceTable.getKeyColumn().get();
+
+        final String deleteSql =
+            "delete from " + table + " where " + key + " in (" +
+                "select " + key + " from (" +
+                    "select * from " + table + " except select * from " + tempTable + ") as diff)";
+
+        final String insertSql =
+            "insert into " + table + " " +
+            "select tt.* from " + tempTable + " tt " +
+            "where not exists (select 1 from " + table + " t where t." + key + " = tt." + key + ")";
+
+        log.debug( String.format( "Delete diff SQL: '%s'", deleteSql ) );
+
+        int deleted = jdbcTemplate.update( deleteSql );
+
+        log.debug( String.format( "Insert diff SQL: '%s'", insertSql ) );
+
+        int inserted = jdbcTemplate.update( insertSql );
+
+        return deleted + inserted;
+    }
+
+    /**
+     * State of a generated resource table, consisting of the table structure
+     * and the state of the source tables.
+     */
+    private static class TableState
+    {
+        private final String structure;
+
+        private final String source;
+
+        TableState( String structure, String source )
+        {
+            this.structure = structure;
+            this.source = source;
+        }
+
+        @Override
+        public boolean equals( Object o )
+        {
+            if ( this == o )
+            {
+                return true;
+            }
+
+            if ( o == null || getClass() != o.getClass() )
+            {
+                return false;
+            }
+
+            TableState that = (TableState) o;
+
+            return Objects.equals( structure, that.structure ) && Objects.equals( source, that.source );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash( structure, source );
+        }
+    }
 }
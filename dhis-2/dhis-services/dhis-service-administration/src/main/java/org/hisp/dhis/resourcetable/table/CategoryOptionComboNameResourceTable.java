@@ -28,6 +28,7 @@ package org.hisp.dhis.resourcetable.table;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 
 import org.hisp.dhis.category.CategoryCombo;
@@ -37,6 +38,7 @@ import org.hisp.dhis.resourcetable.ResourceTableType;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.hisp.dhis.dataapproval.DataApprovalLevelService.APPROVAL_LEVEL_HIGHEST;
@@ -103,6 +105,26 @@ public class CategoryOptionComboNameResourceTable
         return Optional.of( batchArgs );
     }
 
+    @Override
+    public List<String> getSourceTables()
+    {
+        return Lists.newArrayList( "categorycombo", "categoryoptioncombo", "dataelementcategoryoption" );
+    }
+
+    @Override
+    public Map<String, List<String>> getSourceJoinTables()
+    {
+        return ImmutableMap.of(
+            "categorycombos_optioncombos", Lists.newArrayList( "categorycomboid", "categoryoptioncomboid" ),
+            "categoryoptioncombos_categoryoptions", Lists.newArrayList( "categoryoptioncomboid", "categoryoptionid" ) );
+    }
+
+    @Override
+    public Optional<String> getKeyColumn()
+    {
+        return Optional.of( "categoryoptioncomboid" );
+    }
+
     @Override
     public List<String> getCreateIndexStatements()
     {
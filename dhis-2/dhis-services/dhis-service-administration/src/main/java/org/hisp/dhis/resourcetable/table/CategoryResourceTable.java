@@ -28,6 +28,7 @@ package org.hisp.dhis.resourcetable.table;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import org.hisp.dhis.commons.util.TextUtils;
 import org.hisp.dhis.category.Category;
@@ -36,6 +37,7 @@ import org.hisp.dhis.resourcetable.ResourceTable;
 import org.hisp.dhis.resourcetable.ResourceTableType;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.hisp.dhis.system.util.SqlUtils.quote;
@@ -144,6 +146,28 @@ public class CategoryResourceTable
         return Optional.empty();
     }
 
+    @Override
+    public List<String> getSourceTables()
+    {
+        return Lists.newArrayList( "categoryoptioncombo", "dataelementcategoryoption", "categoryoptiongroup" );
+    }
+
+    @Override
+    public Map<String, List<String>> getSourceJoinTables()
+    {
+        return ImmutableMap.of(
+            "categoryoptioncombos_categoryoptions", Lists.newArrayList( "categoryoptioncomboid", "categoryoptionid" ),
+            "categories_categoryoptions", Lists.newArrayList( "categoryid", "categoryoptionid", "sort_order" ),
+            "categoryoptiongroupmembers", Lists.newArrayList( "categoryoptiongroupid", "categoryoptionid" ),
+            "categoryoptiongroupsetmembers", Lists.newArrayList( "categoryoptiongroupsetid", "categoryoptiongroupid", "sort_order" ) );
+    }
+
+    @Override
+    public Optional<String> getKeyColumn()
+    {
+        return Optional.of( "categoryoptioncomboid" );
+    }
+
     @Override
     public List<String> getCreateIndexStatements()
     {
@@ -32,6 +32,7 @@ import static org.hisp.dhis.dataapproval.DataApprovalLevelService.APPROVAL_LEVEL
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.hisp.dhis.dataelement.DataElement;
@@ -40,6 +41,7 @@ import org.hisp.dhis.period.PeriodType;
 import org.hisp.dhis.resourcetable.ResourceTable;
 import org.hisp.dhis.resourcetable.ResourceTableType;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 
 /**
@@ -117,6 +119,25 @@ public class DataElementResourceTable
         return Optional.of( batchArgs );
     }
 
+    @Override
+    public List<String> getSourceTables()
+    {
+        return Lists.newArrayList( "dataelement", "dataset", "dataapprovalworkflow" );
+    }
+
+    @Override
+    public Map<String, List<String>> getSourceJoinTables()
+    {
+        return ImmutableMap.of(
+            "datasetelement", Lists.newArrayList( "datasetelementid", "datasetid", "dataelementid", "categorycomboid" ) );
+    }
+
+    @Override
+    public Optional<String> getKeyColumn()
+    {
+        return Optional.of( "dataelementid" );
+    }
+
     @Override
     public List<String> getCreateIndexStatements()
     {
@@ -138,6 +138,18 @@ public class OrganisationUnitStructureResourceTable
         return Optional.of( batchArgs );
     }
 
+    @Override
+    public List<String> getSourceTables()
+    {
+        return Lists.newArrayList( "organisationunit" );
+    }
+
+    @Override
+    public Optional<String> getKeyColumn()
+    {
+        return Optional.of( "organisationunitid" );
+    }
+
     @Override
     public List<String> getCreateIndexStatements()
     {
@@ -129,6 +129,18 @@ public class PeriodResourceTable
         return Optional.of( batchArgs );
     }
 
+    @Override
+    public Optional<String> getSourceStateStatement()
+    {
+        return Optional.of( "select count(*), max(periodid), '" + PeriodType.getCalendar().name() + "' from period" );
+    }
+
+    @Override
+    public Optional<String> getKeyColumn()
+    {
+        return Optional.of( "periodid" );
+    }
+
     @Override
     public List<String> getCreateIndexStatements()
     {
@@ -35,11 +35,18 @@ import org.hisp.dhis.dataelement.DataElementGroup;
 import org.hisp.dhis.dataelement.DataElementGroupSet;
 import org.hisp.dhis.dataset.DataSet;
 import org.hisp.dhis.dataset.DataSetService;
+import org.hisp.dhis.jdbc.StatementBuilder;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.period.MonthlyPeriodType;
 import org.hisp.dhis.period.PeriodType;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.google.common.collect.Lists;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 /**
  * @author Lars Helge Overland
@@ -55,14 +62,27 @@ public class ResourceTableServiceTest
 
     @Autowired
     private DataSetService dataSetService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StatementBuilder statementBuilder;
+
+    private DataElement deA;
+    private DataElement deB;
+
+    private OrganisationUnit ouB;
+
+    private DataSet dsB;
     
     @Override
     public void setUpTest()
     {
         PeriodType pt = new MonthlyPeriodType();
         
-        DataElement deA = createDataElement( 'A' );
-        DataElement deB = createDataElement( 'B' );
+        deA = createDataElement( 'A' );
+        deB = createDataElement( 'B' );
         
         idObjectManager.save( deA );
         idObjectManager.save( deB );
@@ -93,7 +113,7 @@ public class ResourceTableServiceTest
         idObjectManager.save( degsB );
         
         OrganisationUnit ouA = createOrganisationUnit( 'A' );
-        OrganisationUnit ouB = createOrganisationUnit( 'B' );
+        ouB = createOrganisationUnit( 'B' );
         OrganisationUnit ouC = createOrganisationUnit( 'C' );
         
         ouB.setParent( ouA );
@@ -106,7 +126,7 @@ public class ResourceTableServiceTest
         idObjectManager.save( ouC );
         
         DataSet dsA = createDataSet( 'A', pt );
-        DataSet dsB = createDataSet( 'B', pt );
+        dsB = createDataSet( 'B', pt );
         
         dsA.addDataSetElement( deA );
         dsB.addDataSetElement( deA );
@@ -138,4 +158,76 @@ public class ResourceTableServiceTest
         resourceTableService.generateDatePeriodTable();
         resourceTableService.generateCategoryOptionComboTable();
     }
+
+    @Test
+    public void testGenerateOrganisationUnitStructuresIncremental()
+    {
+        resourceTableService.generateOrganisationUnitStructures();
+
+        assertEquals( 3, countRows( "_orgunitstructure" ) );
+
+        resourceTableService.generateOrganisationUnitStructures();
+
+        assertEquals( 3, countRows( "_orgunitstructure" ) );
+
+        idObjectManager.save( createOrganisationUnit( 'D' ) );
+
+        resourceTableService.generateOrganisationUnitStructures();
+
+        assertEquals( 4, countRows( "_orgunitstructure" ) );
+    }
+
+    @Test
+    public void testGenerateOrganisationUnitStructuresUnchanged()
+    {
+        resourceTableService.generateOrganisationUnitStructures();
+
+        jdbcTemplate.update( "update _orgunitstructure set namelevel1 = 'Unchanged'" );
+
+        resourceTableService.generateOrganisationUnitStructures();
+
+        assertEquals( 3, countRows( "_orgunitstructure" ) );
+        assertEquals( "Unchanged", getNameLevel( ouB, 1 ) );
+    }
+
+    @Test
+    public void testGenerateOrganisationUnitStructuresChangedRow()
+    {
+        resourceTableService.generateOrganisationUnitStructures();
+
+        assertEquals( "OrganisationUnitB", getNameLevel( ouB, 2 ) );
+
+        ouB.setName( "OrganisationUnitRenamed" );
+        idObjectManager.update( ouB );
+
+        resourceTableService.generateOrganisationUnitStructures();
+
+        assertEquals( 3, countRows( "_orgunitstructure" ) );
+        assertEquals( "OrganisationUnitRenamed", getNameLevel( ouB, 2 ) );
+    }
+
+    @Test
+    public void testTableChecksumSwappedMembership()
+    {
+        String sql = "select " + statementBuilder.getTableChecksum( "datasetelement",
+            Lists.newArrayList( "datasetelementid", "datasetid", "dataelementid", "categorycomboid" ) );
+
+        String checksum = jdbcTemplate.queryForObject( sql, String.class );
+
+        jdbcTemplate.update( "update datasetelement set dataelementid = " + deB.getId() + " where datasetid = " + dsB.getId() );
+
+        assertEquals( 2, countRows( "datasetelement" ) );
+        assertNotEquals( checksum, jdbcTemplate.queryForObject( sql, String.class ) );
+    }
+
+    private String getNameLevel( OrganisationUnit unit, int level )
+    {
+        return jdbcTemplate.queryForObject( "select namelevel" + level + " from _orgunitstructure " +
+            "where organisationunitid = " + unit.getId(), String.class );
+    }
+
+    private int countRows( String table )
+    {
+        return jdbcTemplate.queryForObject( "select count(*) from " + table, Integer.class );
+    }
 }
@@ -330,6 +330,11 @@ public class DataQueryParams
      */
     protected transient String tableName;
 
+    /**
+     * The organisation unit level of the rollup table to use for this query.
+     */
+    protected transient Integer rollupLevel;
+
     /**
      * The data type for this query.
      */
@@ -485,6 +490,7 @@ public class DataQueryParams
         params.currentUser = this.currentUser;
         params.partitions = new Partitions( this.partitions );
         params.tableName = this.tableName;
+        params.rollupLevel = this.rollupLevel;
         params.dataType = this.dataType;
         params.periodType = this.periodType;
         params.dataPeriodType = this.dataPeriodType;
@@ -1198,6 +1204,14 @@ public class DataQueryParams
         return partitions != null && partitions.hasAny();
     }
 
+    /**
+     * Indicates whether this query is answered from a rollup table.
+     */
+    public boolean hasRollupLevel()
+    {
+        return rollupLevel != null;
+    }
+
     /**
      * Indicates whether this query has a data period type.
      */
@@ -2038,6 +2052,11 @@ public class DataQueryParams
         return tableName;
     }
 
+    public Integer getRollupLevel()
+    {
+        return rollupLevel;
+    }
+
     public DataType getDataType()
     {
         return dataType;
@@ -2847,6 +2866,12 @@ public class DataQueryParams
             return this;
         }
 
+        public Builder withRollupLevel( Integer rollupLevel )
+        {
+            this.params.rollupLevel = rollupLevel;
+            return this;
+        }
+
         public Builder withDataType( DataType dataType )
         {
             this.params.dataType = dataType;
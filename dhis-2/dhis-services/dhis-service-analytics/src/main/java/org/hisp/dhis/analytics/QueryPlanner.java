@@ -117,4 +117,17 @@ public interface QueryPlanner
      * @return a list of data query parameters.
      */
     List<DataQueryParams> groupByStartEndDateRestriction( DataQueryParams params );
+
+    /**
+     * Returns the table type to use for the given completeness query. Returns
+     * the corresponding pre-aggregated table type if the pre-aggregated table
+     * exists and the query only contains data, period and organisation unit
+     * dimensions and filters, including at least one organisation unit.
+     * Otherwise returns the given table type.
+     *
+     * @param params the data query parameters.
+     * @param tableType the completeness or completeness target table type.
+     * @return an {@link AnalyticsTableType}.
+     */
+    AnalyticsTableType getCompletenessTableType( DataQueryParams params, AnalyticsTableType tableType );
 }
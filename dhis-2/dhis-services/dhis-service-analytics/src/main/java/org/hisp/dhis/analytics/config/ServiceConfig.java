@@ -38,6 +38,7 @@ import org.hisp.dhis.system.notification.Notifier;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 
 /**
  * @author Luciano Fiandesio
@@ -45,7 +46,13 @@ import org.springframework.context.annotation.Configuration;
 @Configuration("analyticsServiceConfig")
 public class ServiceConfig
 {
+    /**
+     * Ordered first as other tables are populated from the analytics table.
+     * Table services without an explicit order are updated after the ordered
+     * table services.
+     */
     @Bean( "org.hisp.dhis.analytics.AnalyticsTableService" )
+    @Order( 1 )
     public DefaultAnalyticsTableService analyticsTableService(
         @Qualifier( "org.hisp.dhis.analytics.AnalyticsTableManager" ) AnalyticsTableManager tableManager,
         OrganisationUnitService organisationUnitService, DataElementService dataElementService,
@@ -55,6 +62,21 @@ public class ServiceConfig
             resourceTableService, notifier, systemSettingManager );
     }
 
+    /**
+     * Ordered after the analytics table service as the rollup table is
+     * populated from the analytics table.
+     */
+    @Bean( "org.hisp.dhis.analytics.AnalyticsRollupTableService" )
+    @Order( 2 )
+    public DefaultAnalyticsTableService analyticsRollupTableService(
+            @Qualifier( "org.hisp.dhis.analytics.AnalyticsRollupTableManager" ) AnalyticsTableManager tableManager,
+            OrganisationUnitService organisationUnitService, DataElementService dataElementService,
+            ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager )
+    {
+        return new DefaultAnalyticsTableService( tableManager, organisationUnitService, dataElementService,
+                resourceTableService, notifier, systemSettingManager );
+    }
+
     @Bean( "org.hisp.dhis.analytics.CompletenessTableService" )
     public DefaultAnalyticsTableService completenessTableService(
             @Qualifier( "org.hisp.dhis.analytics.CompletenessTableManager" ) AnalyticsTableManager tableManager,
@@ -75,6 +97,26 @@ public class ServiceConfig
                 resourceTableService, notifier, systemSettingManager );
     }
 
+    @Bean( "org.hisp.dhis.analytics.CompletenessAggregateTableService" )
+    public DefaultAnalyticsTableService completenessAggregateTableService(
+            @Qualifier( "org.hisp.dhis.analytics.CompletenessAggregateTableManager" ) AnalyticsTableManager tableManager,
+            OrganisationUnitService organisationUnitService, DataElementService dataElementService,
+            ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager )
+    {
+        return new DefaultAnalyticsTableService( tableManager, organisationUnitService, dataElementService,
+                resourceTableService, notifier, systemSettingManager );
+    }
+
+    @Bean( "org.hisp.dhis.analytics.CompletenessTargetAggregateTableService" )
+    public DefaultAnalyticsTableService completenessTargetAggregateTableService(
+            @Qualifier( "org.hisp.dhis.analytics.CompletenessTargetAggregateTableManager" ) AnalyticsTableManager tableManager,
+            OrganisationUnitService organisationUnitService, DataElementService dataElementService,
+            ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager )
+    {
+        return new DefaultAnalyticsTableService( tableManager, organisationUnitService, dataElementService,
+                resourceTableService, notifier, systemSettingManager );
+    }
+
     @Bean( "org.hisp.dhis.analytics.OrgUnitTargetTableService" )
     public DefaultAnalyticsTableService orgUnitTargetTableService(
             @Qualifier( "org.hisp.dhis.analytics.OrgUnitTargetTableManager" ) AnalyticsTableManager tableManager,
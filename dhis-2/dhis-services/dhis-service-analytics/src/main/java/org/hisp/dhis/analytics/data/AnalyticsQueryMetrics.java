@@ -0,0 +1,110 @@
+package org.hisp.dhis.analytics.data;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * Records the cost of each aggregate analytics query, being the execution
+ * time, the number of partitions and the number of rows returned, per
+ * analytics table and rollup level. Metrics are exported once bound to a
+ * meter registry, see {@link org.hisp.dhis.monitoring.metrics.AnalyticsMetricsConfig}.
+ */
+@Component( "org.hisp.dhis.analytics.data.AnalyticsQueryMetrics" )
+public class AnalyticsQueryMetrics
+    implements MeterBinder
+{
+    private static final Log log = LogFactory.getLog( AnalyticsQueryMetrics.class );
+
+    private static final String METRIC_PREFIX = "dhis.analytics.query.";
+
+    private static final String NO_ROLLUP_LEVEL = "none";
+
+    /**
+     * Meters are registered with a composite registry which has no effect until
+     * a registry is added in {@link #bindTo(MeterRegistry)}.
+     */
+    private final CompositeMeterRegistry registry = new CompositeMeterRegistry();
+
+    /**
+     * Records the cost of the given query.
+     *
+     * @param params the {@link DataQueryParams}.
+     * @param nanos the execution time in nanoseconds.
+     * @param rows the number of rows returned.
+     */
+    public void record( DataQueryParams params, long nanos, int rows )
+    {
+        String table = String.valueOf( params.getTableName() );
+        String level = params.hasRollupLevel() ? String.valueOf( params.getRollupLevel() ) : NO_ROLLUP_LEVEL;
+        int partitions = params.hasPartitions() ? params.getPartitions().getPartitions().size() : 0;
+
+        Timer.builder( METRIC_PREFIX + "time" )
+            .tags( "table", table, "rollupLevel", level )
+            .description( "Execution time of aggregate analytics queries" )
+            .register( registry )
+            .record( nanos, TimeUnit.NANOSECONDS );
+
+        DistributionSummary.builder( METRIC_PREFIX + "rows" )
+            .tags( "table", table, "rollupLevel", level )
+            .description( "Number of rows returned by aggregate analytics queries" )
+            .register( registry )
+            .record( rows );
+
+        DistributionSummary.builder( METRIC_PREFIX + "partitions" )
+            .tags( "table", table, "rollupLevel", level )
+            .description( "Number of partitions read by aggregate analytics queries" )
+            .register( registry )
+            .record( partitions );
+
+        log.debug( String.format( "Analytics query cost, table: %s, rollup level: %s, partitions: %d, rows: %d, time: %d ms",
+            table, level, partitions, rows, TimeUnit.NANOSECONDS.toMillis( nanos ) ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // MeterBinder implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void bindTo( MeterRegistry meterRegistry )
+    {
+        registry.add( meterRegistry );
+    }
+}
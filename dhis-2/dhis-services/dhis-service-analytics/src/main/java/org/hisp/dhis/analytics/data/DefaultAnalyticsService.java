@@ -1124,13 +1124,24 @@ public class DefaultAnalyticsService
      * Generates aggregated values for the given query. Creates a mapping between
      * a dimension key and the aggregated value. The dimension key is a
      * concatenation of the identifiers of the dimension items separated by "-".
+     * Uses the pre-aggregated completeness table when it can answer the query.
      *
      * @param params the {@link DataQueryParams}.
      * @return a mapping between a dimension key and the aggregated value.
      */
     private Map<String, Double> getAggregatedCompletenessValueMap( DataQueryParams params )
     {
-        return AnalyticsUtils.getDoubleMap( getAggregatedValueMap( params, AnalyticsTableType.COMPLETENESS, Lists.newArrayList() ) );
+        AnalyticsTableType tableType = queryPlanner.getCompletenessTableType( params, AnalyticsTableType.COMPLETENESS );
+
+        if ( AnalyticsTableType.COMPLETENESS_AGGREGATE == tableType )
+        {
+            // Pre-aggregated table holds counts of registrations which must be summed
+
+            params = DataQueryParams.newBuilder( params )
+                .withAggregationType( AnalyticsAggregationType.SUM ).build();
+        }
+
+        return AnalyticsUtils.getDoubleMap( getAggregatedValueMap( params, tableType, Lists.newArrayList() ) );
     }
 
     /**
@@ -1146,7 +1157,9 @@ public class DefaultAnalyticsService
         List<Function<DataQueryParams, List<DataQueryParams>>> queryGroupers = Lists.newArrayList();
         queryGroupers.add( q -> queryPlanner.groupByStartEndDateRestriction( q ) );
 
-        return AnalyticsUtils.getDoubleMap( getAggregatedValueMap( params, AnalyticsTableType.COMPLETENESS_TARGET, queryGroupers ) );
+        AnalyticsTableType tableType = queryPlanner.getCompletenessTableType( params, AnalyticsTableType.COMPLETENESS_TARGET );
+
+        return AnalyticsUtils.getDoubleMap( getAggregatedValueMap( params, tableType, queryGroupers ) );
     }
 
     /**
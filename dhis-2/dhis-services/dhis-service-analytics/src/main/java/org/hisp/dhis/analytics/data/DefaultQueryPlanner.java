@@ -32,6 +32,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.analytics.AggregationType;
 import org.hisp.dhis.analytics.AnalyticsAggregationType;
+import org.hisp.dhis.analytics.AnalyticsTablePartition;
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.DataQueryGroups;
 import org.hisp.dhis.analytics.DataQueryParams;
@@ -42,20 +43,26 @@ import org.hisp.dhis.analytics.QueryPlannerParams;
 import org.hisp.dhis.analytics.QueryValidator;
 import org.hisp.dhis.analytics.partition.PartitionManager;
 import org.hisp.dhis.analytics.table.PartitionUtils;
+import org.hisp.dhis.analytics.util.AnalyticsUtils;
 import org.hisp.dhis.common.BaseDimensionalObject;
 import org.hisp.dhis.common.DimensionType;
 import org.hisp.dhis.common.DimensionalItemObject;
 import org.hisp.dhis.common.DimensionalObject;
 import org.hisp.dhis.common.IllegalQueryException;
 import org.hisp.dhis.common.ListMap;
+import org.hisp.dhis.commons.collection.ListUtils;
 import org.hisp.dhis.commons.collection.PaginatedList;
 import org.hisp.dhis.dataelement.DataElementGroup;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodType;
 import org.hisp.dhis.system.util.MathUtils;
 import org.hisp.dhis.util.ObjectUtils;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import org.springframework.stereotype.Component;
 
@@ -78,17 +85,33 @@ public class DefaultQueryPlanner
 {
     private static final Log log = LogFactory.getLog( DefaultQueryPlanner.class );
 
+    private static final ImmutableSet<DimensionType> COMPLETENESS_AGGREGATE_DIMENSION_TYPES = ImmutableSet.of(
+        DimensionType.DATA_X, DimensionType.PERIOD, DimensionType.ORGANISATION_UNIT );
+
+    private static final ImmutableMap<AnalyticsTableType, AnalyticsTableType> COMPLETENESS_AGGREGATE_TABLE_TYPES = ImmutableMap.of(
+        AnalyticsTableType.COMPLETENESS, AnalyticsTableType.COMPLETENESS_AGGREGATE,
+        AnalyticsTableType.COMPLETENESS_TARGET, AnalyticsTableType.COMPLETENESS_TARGET_AGGREGATE );
+
+    private static final ImmutableSet<DimensionType> ROLLUP_DIMENSION_TYPES = ImmutableSet.of(
+        DimensionType.DATA_X, DimensionType.CATEGORY_OPTION_COMBO, DimensionType.ATTRIBUTE_OPTION_COMBO,
+        DimensionType.PERIOD, DimensionType.ORGANISATION_UNIT );
+
     private final QueryValidator queryValidator;
 
     private final PartitionManager partitionManager;
 
-    public DefaultQueryPlanner( QueryValidator queryValidator, PartitionManager partitionManager )
+    private final DhisConfigurationProvider config;
+
+    public DefaultQueryPlanner( QueryValidator queryValidator, PartitionManager partitionManager,
+        DhisConfigurationProvider config )
     {
         checkNotNull( queryValidator );
         checkNotNull( partitionManager );
+        checkNotNull( config );
 
         this.queryValidator = queryValidator;
         this.partitionManager = partitionManager;
+        this.config = config;
     }
 
     // -------------------------------------------------------------------------
@@ -129,6 +152,15 @@ public class DefaultQueryPlanner
             currentQueries.forEach( query -> queries.addAll( grouper.apply( query ) ) );
         }
 
+        if ( AnalyticsTableType.DATA_VALUE == plannerParams.getTableType() )
+        {
+            assignRollupTables( params, queries );
+        }
+        else if ( COMPLETENESS_AGGREGATE_TABLE_TYPES.containsValue( plannerParams.getTableType() ) )
+        {
+            assignCompletenessAggregateLevels( queries );
+        }
+
         // ---------------------------------------------------------------------
         // Split queries until optimal number
         // ---------------------------------------------------------------------
@@ -186,6 +218,152 @@ public class DefaultQueryPlanner
             .build();
     }
 
+    @Override
+    public AnalyticsTableType getCompletenessTableType( DataQueryParams params, AnalyticsTableType tableType )
+    {
+        AnalyticsTableType aggregateTableType = COMPLETENESS_AGGREGATE_TABLE_TYPES.get( tableType );
+
+        if ( aggregateTableType == null || params.isDataApproval() || !params.hasOrganisationUnits() ||
+            !params.containsOnlyDimensionsAndFilters( COMPLETENESS_AGGREGATE_DIMENSION_TYPES ) ||
+            !partitionManager.tableExists( aggregateTableType.getTableName() ) )
+        {
+            return tableType;
+        }
+
+        // Aggregate tables are not updated by latest partition updates
+
+        if ( tableType.hasLatestPartition() && partitionManager.tableExists(
+            PartitionUtils.getPartitionName( tableType.getTableName(), AnalyticsTablePartition.LATEST_PARTITION ) ) )
+        {
+            return tableType;
+        }
+
+        log.debug( String.format( "Using aggregate table type: %s for table type: %s", aggregateTableType, tableType ) );
+
+        return aggregateTableType;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive rollup methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Replaces each of the given queries which can be answered from the rollup
+     * table with a query against the coarsest rollup level which holds the
+     * organisation units of the query. Queries are left unchanged if the
+     * rollup table does not cover all partitions of the query.
+     *
+     * @param params the query before grouping.
+     * @param queries the grouped queries.
+     */
+    private void assignRollupTables( DataQueryParams params, List<DataQueryParams> queries )
+    {
+        final List<Integer> rollupLevels = AnalyticsUtils.getRollupLevels( config );
+
+        if ( rollupLevels.isEmpty() || params.isDataApproval() || params.isSkipPartitioning() || !params.hasPartitions() )
+        {
+            return;
+        }
+
+        final String rollupTable = AnalyticsTableType.DATA_VALUE_ROLLUP.getTableName();
+
+        // Rollup tables are not updated by latest partition updates
+
+        if ( !partitionManager.tableExists( rollupTable ) || partitionManager.tableExists(
+            PartitionUtils.getPartitionName( AnalyticsTableType.DATA_VALUE.getTableName(), AnalyticsTablePartition.LATEST_PARTITION ) ) )
+        {
+            return;
+        }
+
+        final Partitions rollupPartitions = new Partitions( params.getPartitions() );
+
+        partitionManager.filterNonExistingPartitions( rollupPartitions, rollupTable );
+
+        queries.replaceAll( query -> {
+            Integer rollupLevel = getRollupLevel( query, rollupLevels );
+
+            if ( rollupLevel == null || !query.hasPartitions() ||
+                !rollupPartitions.getPartitions().containsAll( query.getPartitions().getPartitions() ) )
+            {
+                return query;
+            }
+
+            log.debug( String.format( "Using rollup table: %s with level: %d", rollupTable, rollupLevel ) );
+
+            return DataQueryParams.newBuilder( query )
+                .withTableName( rollupTable )
+                .withRollupLevel( rollupLevel )
+                .build();
+        } );
+    }
+
+    /**
+     * Returns the coarsest rollup level which can answer the given query, or
+     * null if the query cannot be answered from the rollup table. Rollup tables
+     * hold sums of numeric values per data element, category option combo,
+     * attribute option combo, organisation unit and period, for period types
+     * of monthly or lower frequency.
+     *
+     * @param params the query.
+     * @param rollupLevels the sorted list of rollup levels.
+     * @return a rollup level, or null.
+     */
+    private Integer getRollupLevel( DataQueryParams params, List<Integer> rollupLevels )
+    {
+        AnalyticsAggregationType aggregationType = params.getAggregationType();
+
+        if ( aggregationType == null || !aggregationType.isAggregationType( AggregationType.SUM ) ||
+            !( aggregationType.isPeriodAggregationType( AggregationType.SUM ) || aggregationType.isPeriodAggregationType( AggregationType.AVERAGE ) ) ||
+            params.isDataType( DataType.TEXT ) || params.hasStartEndDate() || params.hasPreAggregateMeasureCriteria() ||
+            !params.containsOnlyDimensionsAndFilters( ROLLUP_DIMENSION_TYPES ) )
+        {
+            return null;
+        }
+
+        boolean rollupPeriods = params.getAllPeriods().stream()
+            .allMatch( pe -> AnalyticsUtils.isRollupPeriodType( ((Period) pe).getPeriodType() ) );
+
+        if ( !rollupPeriods || ( params.isDisaggregation() && params.hasDataPeriodType() &&
+            !AnalyticsUtils.isRollupPeriodType( params.getDataPeriodType() ) ) )
+        {
+            return null;
+        }
+
+        final int orgUnitLevel = getMaxOrgUnitLevel( params );
+
+        return rollupLevels.stream()
+            .filter( level -> level >= orgUnitLevel )
+            .findFirst().orElse( null );
+    }
+
+    /**
+     * Restricts each of the given queries against a pre-aggregated completeness
+     * table to the rows of the deepest organisation unit level of the query,
+     * as the pre-aggregated tables hold one set of rows per level.
+     *
+     * @param queries the grouped queries.
+     */
+    private void assignCompletenessAggregateLevels( List<DataQueryParams> queries )
+    {
+        queries.replaceAll( query -> DataQueryParams.newBuilder( query )
+            .withRollupLevel( getMaxOrgUnitLevel( query ) )
+            .build() );
+    }
+
+    /**
+     * Returns the deepest level of the organisation unit dimension items and
+     * filter items of the given query, or 0 if the query has none.
+     *
+     * @param params the query.
+     * @return an organisation unit level.
+     */
+    private int getMaxOrgUnitLevel( DataQueryParams params )
+    {
+        return ListUtils.union( params.getOrganisationUnits(), params.getFilterOrganisationUnits() ).stream()
+            .mapToInt( ou -> ((OrganisationUnit) ou).getLevel() )
+            .max().orElse( 0 );
+    }
+
     // -------------------------------------------------------------------------
     // Supportive split methods
     // -------------------------------------------------------------------------
@@ -113,6 +113,7 @@ public class JdbcAnalyticsManager
     private static final Log log = LogFactory.getLog( JdbcAnalyticsManager.class );
 
     private static final String COL_APPROVALLEVEL = "approvallevel";
+    private static final String COL_ROLLUPLEVEL = "rolluplevel";
     private static final int LAST_VALUE_YEARS_OFFSET = -10;
 
     private static final Map<MeasureFilter, String> OPERATOR_SQL_MAP = ImmutableMap.<MeasureFilter, String>builder()
@@ -125,14 +126,19 @@ public class JdbcAnalyticsManager
 
     private final QueryPlanner queryPlanner;
 
+    private final AnalyticsQueryMetrics analyticsQueryMetrics;
+
     private final JdbcTemplate jdbcTemplate;
 
-    public JdbcAnalyticsManager( QueryPlanner queryPlanner, @Qualifier( "readOnlyJdbcTemplate" ) JdbcTemplate jdbcTemplate )
+    public JdbcAnalyticsManager( QueryPlanner queryPlanner, AnalyticsQueryMetrics analyticsQueryMetrics,
+        @Qualifier( "readOnlyJdbcTemplate" ) JdbcTemplate jdbcTemplate )
     {
         checkNotNull( queryPlanner );
+        checkNotNull( analyticsQueryMetrics );
         checkNotNull( jdbcTemplate );
 
         this.queryPlanner = queryPlanner;
+        this.analyticsQueryMetrics = analyticsQueryMetrics;
         this.jdbcTemplate = jdbcTemplate;
     }
 
@@ -179,7 +185,11 @@ public class JdbcAnalyticsManager
 
             try
             {
+                final long startTime = System.nanoTime();
+
                 map = getKeyValueMap( params, sql, maxLimit );
+
+                analyticsQueryMetrics.record( params, System.nanoTime() - startTime, map.size() );
             }
             catch ( BadSqlGrammarException ex )
             {
@@ -463,6 +473,15 @@ public class JdbcAnalyticsManager
             sql = removeLastOr( sql ) + ") ";
         }
 
+        // ---------------------------------------------------------------------
+        // Rollup level
+        // ---------------------------------------------------------------------
+
+        if ( params.hasRollupLevel() )
+        {
+            sql += sqlHelper.whereAnd() + " " + quoteAlias( COL_ROLLUPLEVEL ) + " = " + params.getRollupLevel() + " ";
+        }
+
         // ---------------------------------------------------------------------
         // Restrictions
         // ---------------------------------------------------------------------
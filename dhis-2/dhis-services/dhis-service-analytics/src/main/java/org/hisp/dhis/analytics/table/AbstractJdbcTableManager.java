@@ -31,6 +31,8 @@ package org.hisp.dhis.analytics.table;
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.ImmutableSet;
@@ -97,6 +99,14 @@ public abstract class AbstractJdbcTableManager
     public static final String PREFIX_ORGUNITGROUPSET = "ougs_";
     public static final String PREFIX_ORGUNITLEVEL = "uidlevel";
 
+    /**
+     * Column holding the organisation unit level of rows in tables which are
+     * materialised once per organisation unit level.
+     */
+    protected static final String COL_ROLLUPLEVEL = quote( "rolluplevel" );
+
+    private static final Pattern ORG_UNIT_LEVEL_COLUMN = Pattern.compile( quote( PREFIX_ORGUNITLEVEL + "(\\d+)" ) );
+
     protected IdentifiableObjectManager idObjectManager;
 
     protected OrganisationUnitService organisationUnitService;
@@ -543,6 +553,21 @@ public abstract class AbstractJdbcTableManager
             .collect( Collectors.toList() );
     }
 
+    /**
+     * Indicates whether the given column is an organisation unit level column
+     * for a level below the given level, i.e. with a higher level number.
+     *
+     * @param column the {@link AnalyticsTableColumn}.
+     * @param level the organisation unit level.
+     * @return true if the column is an organisation unit level column below the level.
+     */
+    protected boolean isOrgUnitLevelColumnBelow( AnalyticsTableColumn column, int level )
+    {
+        Matcher matcher = ORG_UNIT_LEVEL_COLUMN.matcher( column.getName() );
+
+        return matcher.matches() && Integer.parseInt( matcher.group( 1 ) ) > level;
+    }
+
     /**
      * Executes the given  SQL statement. Logs and times the operation.
      *
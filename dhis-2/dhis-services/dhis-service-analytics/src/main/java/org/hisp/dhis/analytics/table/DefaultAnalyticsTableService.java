@@ -55,9 +55,13 @@ import com.google.common.collect.Lists;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.hisp.dhis.util.DateUtils.getLongDateString;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -70,6 +74,12 @@ public class DefaultAnalyticsTableService
 {
     private static final Log log = LogFactory.getLog( DefaultAnalyticsTableService.class );
 
+    /**
+     * Interval in seconds between progress notifications of asynchronous
+     * table operations.
+     */
+    private static final int PROGRESS_INTERVAL_SECONDS = 10;
+
     private AnalyticsTableManager tableManager;
 
     private OrganisationUnitService organisationUnitService;
@@ -188,7 +198,7 @@ public class DefaultAnalyticsTableService
 
         notifier.notify( jobId, "Creating indexes" );
 
-        createIndexes( tables );
+        createIndexes( jobId, tables );
 
         clock.logTime( "Created indexes" );
         notifier.notify( jobId, "Analyzing analytics tables" );
@@ -275,7 +285,7 @@ public class DefaultAnalyticsTableService
             futures.add( tableManager.populateTablesAsync( params, partitionQ ) );
         }
 
-        ConcurrentUtils.waitForCompletion( futures );
+        waitForCompletion( params.getJobId(), "Populating analytics table partitions", futures, partitionQ, partitions.size() );
     }
 
     /**
@@ -345,9 +355,10 @@ public class DefaultAnalyticsTableService
     /**
      * Creates indexes on the given analytics tables.
      *
+     * @param jobId the {@link JobConfiguration}.
      * @param tables the list of {@link AnalyticsTable}.
      */
-    private void createIndexes( List<AnalyticsTable> tables )
+    private void createIndexes( JobConfiguration jobId, List<AnalyticsTable> tables )
     {
         List<AnalyticsTablePartition> partitions = PartitionUtils.getTablePartitions( tables );
 
@@ -370,6 +381,8 @@ public class DefaultAnalyticsTableService
 
         log.info( "No of analytics table indexes: " + indexes.size() );
 
+        final int indexNo = indexes.size();
+
         List<Future<?>> futures = new ArrayList<>();
 
         for ( int i = 0; i < getProcessNo(); i++ )
@@ -377,7 +390,53 @@ public class DefaultAnalyticsTableService
             futures.add( tableManager.createIndexesAsync( indexes ) );
         }
 
+        waitForCompletion( jobId, "Creating analytics table indexes", futures, indexes, indexNo );
+    }
+
+    /**
+     * Waits for the given futures, which process the items of the given queue,
+     * to complete, and reports the progress in the meantime. Each future which
+     * is not done is assumed to process one item taken from the queue.
+     *
+     * @param jobId the {@link JobConfiguration}.
+     * @param message the progress message.
+     * @param futures the futures.
+     * @param queue the queue of items to process.
+     * @param total the total number of items.
+     */
+    private void waitForCompletion( JobConfiguration jobId, String message, List<Future<?>> futures, Queue<?> queue, int total )
+    {
+        for ( Future<?> future : futures )
+        {
+            while ( !future.isDone() )
+            {
+                long running = futures.stream().filter( f -> !f.isDone() ).count();
+
+                notifier.updateProgress( jobId, message, Math.max( 0, total - queue.size() - running ), total );
+
+                try
+                {
+                    future.get( PROGRESS_INTERVAL_SECONDS, TimeUnit.SECONDS );
+                }
+                catch ( TimeoutException ex )
+                {
+                    // Report progress and keep waiting
+                }
+                catch ( ExecutionException ex )
+                {
+                    break;
+                }
+                catch ( InterruptedException ex )
+                {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+
         ConcurrentUtils.waitForCompletion( futures );
+
+        notifier.updateProgress( jobId, message, total, total );
     }
 
     /**
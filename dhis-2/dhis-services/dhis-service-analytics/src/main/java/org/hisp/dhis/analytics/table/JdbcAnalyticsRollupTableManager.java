@@ -0,0 +1,308 @@
+package org.hisp.dhis.analytics.table;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.hisp.dhis.analytics.ColumnDataType.*;
+import static org.hisp.dhis.analytics.ColumnNotNullConstraint.NOT_NULL;
+import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.quote;
+import static org.hisp.dhis.util.DateUtils.getLongDateString;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.hisp.dhis.analytics.AnalyticsTable;
+import org.hisp.dhis.analytics.AnalyticsTableColumn;
+import org.hisp.dhis.analytics.AnalyticsTableHookService;
+import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.partition.PartitionManager;
+import org.hisp.dhis.analytics.util.AnalyticsUtils;
+import org.hisp.dhis.category.CategoryService;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.commons.collection.ListUtils;
+import org.hisp.dhis.commons.util.ConcurrentUtils;
+import org.hisp.dhis.commons.util.TextUtils;
+import org.hisp.dhis.dataapproval.DataApprovalLevelService;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.jdbc.StatementBuilder;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.period.PeriodType;
+import org.hisp.dhis.resourcetable.ResourceTableService;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.hisp.dhis.system.database.DatabaseInfo;
+import org.hisp.dhis.util.DateUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Manager for the rollup table, which holds numeric data values summed per
+ * data element, category option combo, attribute option combo, year, period
+ * of monthly or lower frequency and organisation unit for each of the levels
+ * configured through <code>analytics.rollup.levels</code>. Rows of a rollup
+ * level only hold the organisation unit columns up to and including that level.
+ * <p>
+ * The rollup table is populated from the analytics table and must hence be
+ * updated after the analytics table. This table is partitioned by year.
+ */
+@Service( "org.hisp.dhis.analytics.AnalyticsRollupTableManager" )
+public class JdbcAnalyticsRollupTableManager
+    extends AbstractJdbcTableManager
+{
+    private final DhisConfigurationProvider config;
+
+    public JdbcAnalyticsRollupTableManager( IdentifiableObjectManager idObjectManager,
+        OrganisationUnitService organisationUnitService, CategoryService categoryService,
+        SystemSettingManager systemSettingManager, DataApprovalLevelService dataApprovalLevelService,
+        ResourceTableService resourceTableService, AnalyticsTableHookService tableHookService,
+        StatementBuilder statementBuilder, PartitionManager partitionManager, DatabaseInfo databaseInfo,
+        JdbcTemplate jdbcTemplate, DhisConfigurationProvider config )
+    {
+        super( idObjectManager, organisationUnitService, categoryService, systemSettingManager,
+            dataApprovalLevelService, resourceTableService, tableHookService, statementBuilder, partitionManager,
+            databaseInfo, jdbcTemplate );
+
+        checkNotNull( config );
+
+        this.config = config;
+    }
+
+    private static final List<AnalyticsTableColumn> FIXED_COLS = Lists.newArrayList(
+        new AnalyticsTableColumn( quote( "dx" ), CHARACTER_11, NOT_NULL, quote( "dx" ) ),
+        new AnalyticsTableColumn( quote( "co" ), CHARACTER_11, NOT_NULL, quote( "co" ) ),
+        new AnalyticsTableColumn( quote( "ao" ), CHARACTER_11, NOT_NULL, quote( "ao" ) ),
+        new AnalyticsTableColumn( quote( "year" ), INTEGER, NOT_NULL, quote( "year" ) ) );
+
+    @Override
+    public AnalyticsTableType getAnalyticsTableType()
+    {
+        return AnalyticsTableType.DATA_VALUE_ROLLUP;
+    }
+
+    @Override
+    @Transactional
+    public List<AnalyticsTable> getAnalyticsTables( AnalyticsTableUpdateParams params )
+    {
+        List<Integer> rollupLevels = AnalyticsUtils.getRollupLevels( config );
+
+        if ( params.isLatestUpdate() || rollupLevels.isEmpty() )
+        {
+            return Lists.newArrayList();
+        }
+
+        AnalyticsTable table = getRegularAnalyticsTable( params, getDataYears( params ),
+            getDimensionColumns( rollupLevels ), getValueColumns() );
+
+        return table.hasPartitionTables() ? Lists.newArrayList( table ) : Lists.newArrayList();
+    }
+
+    @Override
+    public Set<String> getExistingDatabaseTables()
+    {
+        return Sets.newHashSet( getTableName() );
+    }
+
+    @Override
+    public String validState()
+    {
+        if ( !partitionManager.tableExists( AnalyticsTableType.DATA_VALUE.getTableName() ) )
+        {
+            return "No analytics tables exist, not updating rollup analytics tables";
+        }
+
+        return null;
+    }
+
+    @Override
+    protected boolean hasUpdatedLatestData( Date startDate, Date endDate )
+    {
+        return false;
+    }
+
+    @Override
+    protected List<String> getPartitionChecks( AnalyticsTablePartition partition )
+    {
+        return Lists.newArrayList( "year = " + partition.getYear() + "" );
+    }
+
+    @Override
+    protected void populateTable( AnalyticsTableUpdateParams params, AnalyticsTablePartition partition )
+    {
+        for ( Integer level : AnalyticsUtils.getRollupLevels( config ) )
+        {
+            populateTable( partition, level );
+        }
+    }
+
+    /**
+     * Populates the given partition with the rows of the given rollup level,
+     * summed from the corresponding analytics table partition. Organisation
+     * unit level columns below the rollup level are left empty.
+     *
+     * @param partition the {@link AnalyticsTablePartition}.
+     * @param level the rollup level.
+     */
+    private void populateTable( AnalyticsTablePartition partition, int level )
+    {
+        final String tableName = partition.getTempTableName();
+        final String sourceTable = PartitionUtils.getPartitionName( AnalyticsTableType.DATA_VALUE.getTableName(), partition.getYear() );
+
+        String sql = "insert into " + tableName + " (";
+
+        List<AnalyticsTableColumn> columns = partition.getMasterTable().getDimensionColumns();
+        List<AnalyticsTableColumn> values = partition.getMasterTable().getValueColumns();
+
+        validateDimensionColumns( columns );
+
+        for ( AnalyticsTableColumn col : ListUtils.union( columns, values ) )
+        {
+            sql += col.getName() + ",";
+        }
+
+        sql = TextUtils.removeLastComma( sql ) + ") select ";
+
+        String groupBy = "group by ";
+
+        for ( int i = 0; i < columns.size(); i++ )
+        {
+            AnalyticsTableColumn col = columns.get( i );
+
+            if ( COL_ROLLUPLEVEL.equals( col.getName() ) )
+            {
+                sql += level + ",";
+            }
+            else if ( isOrgUnitLevelColumnBelow( col, level ) )
+            {
+                sql += "null,";
+            }
+            else
+            {
+                sql += col.getAlias() + ",";
+                groupBy += ( i + 1 ) + ",";
+            }
+        }
+
+        sql +=
+            "sum(daysxvalue) as daysxvalue, " +
+            "sum(value) as value " +
+            "from " + sourceTable + " " +
+            "where value is not null " +
+            TextUtils.removeLastComma( groupBy );
+
+        invokeTimeAndLog( sql, String.format( "Populate %s level %d", tableName, level ) );
+    }
+
+    private List<AnalyticsTableColumn> getDimensionColumns( List<Integer> rollupLevels )
+    {
+        final int maxLevel = rollupLevels.get( rollupLevels.size() - 1 );
+
+        List<AnalyticsTableColumn> columns = new ArrayList<>();
+
+        columns.add( new AnalyticsTableColumn( COL_ROLLUPLEVEL, INTEGER, NOT_NULL, COL_ROLLUPLEVEL ) );
+
+        organisationUnitService.getFilledOrganisationUnitLevels().stream()
+            .filter( lv -> lv.getLevel() <= maxLevel )
+            .forEach( lv -> {
+                String column = quote( PREFIX_ORGUNITLEVEL + lv.getLevel() );
+                columns.add( new AnalyticsTableColumn( column, CHARACTER_11, column ).withCreated( lv.getCreated() ) );
+            } );
+
+        PeriodType.getAvailablePeriodTypes().stream()
+            .filter( AnalyticsUtils::isRollupPeriodType )
+            .forEach( pt -> {
+                String column = quote( pt.getName().toLowerCase() );
+                columns.add( new AnalyticsTableColumn( column, TEXT, column ) );
+            } );
+
+        columns.addAll( getFixedColumns() );
+
+        return filterDimensionColumns( columns );
+    }
+
+    private List<AnalyticsTableColumn> getValueColumns()
+    {
+        return Lists.newArrayList(
+            new AnalyticsTableColumn( quote( "daysxvalue" ), DOUBLE, "daysxvalue" ),
+            new AnalyticsTableColumn( quote( "value" ), DOUBLE, "value" ) );
+    }
+
+    /**
+     * Returns the data years for which a partition of the analytics table exists.
+     */
+    private List<Integer> getDataYears( AnalyticsTableUpdateParams params )
+    {
+        String sql =
+            "select distinct(extract(year from pe.startdate)) " +
+            "from datavalue dv " +
+            "inner join period pe on dv.periodid=pe.periodid " +
+            "where pe.startdate is not null " +
+            "and dv.lastupdated < '" + getLongDateString( params.getStartTime() ) + "' ";
+
+        if ( params.getFromDate() != null )
+        {
+            sql += "and pe.startdate >= '" + DateUtils.getMediumDateString( params.getFromDate() ) + "'";
+        }
+
+        return jdbcTemplate.queryForList( sql, Integer.class ).stream()
+            .filter( year -> partitionManager.tableExists( PartitionUtils.getPartitionName( AnalyticsTableType.DATA_VALUE.getTableName(), year ) ) )
+            .collect( Collectors.toList() );
+    }
+
+    @Override
+    @Async
+    public Future<?> applyAggregationLevels( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions, Collection<String> dataElements, int aggregationLevel )
+    {
+        return ConcurrentUtils.getImmediateFuture();
+    }
+
+    @Override
+    @Async
+    public Future<?> vacuumTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions )
+    {
+        return ConcurrentUtils.getImmediateFuture();
+    }
+
+    @Override
+    public List<AnalyticsTableColumn> getFixedColumns()
+    {
+        return FIXED_COLS;
+    }
+}
@@ -0,0 +1,288 @@
+package org.hisp.dhis.analytics.table;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.analytics.ColumnDataType.*;
+import static org.hisp.dhis.analytics.ColumnNotNullConstraint.NOT_NULL;
+import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.quote;
+import static org.hisp.dhis.util.DateUtils.getLongDateString;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+
+import org.hisp.dhis.analytics.AnalyticsTable;
+import org.hisp.dhis.analytics.AnalyticsTableColumn;
+import org.hisp.dhis.analytics.AnalyticsTableHookService;
+import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.partition.PartitionManager;
+import org.hisp.dhis.category.CategoryService;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.commons.collection.ListUtils;
+import org.hisp.dhis.commons.util.ConcurrentUtils;
+import org.hisp.dhis.commons.util.TextUtils;
+import org.hisp.dhis.dataapproval.DataApprovalLevelService;
+import org.hisp.dhis.jdbc.StatementBuilder;
+import org.hisp.dhis.organisationunit.OrganisationUnitLevel;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.resourcetable.ResourceTableService;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.hisp.dhis.system.database.DatabaseInfo;
+import org.hisp.dhis.util.DateUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Manager for the pre-aggregated completeness table, which holds the number
+ * of complete data set registrations per data set, period, organisation unit
+ * and timeliness for each organisation unit level. Rows of a level only hold
+ * the organisation unit columns up to and including that level. Reporting rate
+ * queries which do not involve other dimensions are answered from the rows of
+ * the organisation unit level of the query instead of the completeness table.
+ */
+@Service( "org.hisp.dhis.analytics.CompletenessAggregateTableManager" )
+public class JdbcCompletenessAggregateTableManager
+    extends AbstractJdbcTableManager
+{
+    public JdbcCompletenessAggregateTableManager( IdentifiableObjectManager idObjectManager,
+        OrganisationUnitService organisationUnitService, CategoryService categoryService,
+        SystemSettingManager systemSettingManager, DataApprovalLevelService dataApprovalLevelService,
+        ResourceTableService resourceTableService, AnalyticsTableHookService tableHookService,
+        StatementBuilder statementBuilder, PartitionManager partitionManager, DatabaseInfo databaseInfo,
+        JdbcTemplate jdbcTemplate )
+    {
+        super( idObjectManager, organisationUnitService, categoryService, systemSettingManager,
+            dataApprovalLevelService, resourceTableService, tableHookService, statementBuilder, partitionManager,
+            databaseInfo, jdbcTemplate );
+    }
+
+    private static final List<AnalyticsTableColumn> FIXED_COLS = Lists.newArrayList(
+        new AnalyticsTableColumn( quote( "dx" ), CHARACTER_11, NOT_NULL, "ds.uid" ),
+        new AnalyticsTableColumn( quote( "year" ), INTEGER, NOT_NULL, "ps.year" ) );
+
+    @Override
+    public AnalyticsTableType getAnalyticsTableType()
+    {
+        return AnalyticsTableType.COMPLETENESS_AGGREGATE;
+    }
+
+    @Override
+    @Transactional
+    public List<AnalyticsTable> getAnalyticsTables( AnalyticsTableUpdateParams params )
+    {
+        if ( params.isLatestUpdate() )
+        {
+            return Lists.newArrayList();
+        }
+
+        AnalyticsTable table = getRegularAnalyticsTable( params, getDataYears( params ), getDimensionColumns(), getValueColumns() );
+
+        return table.hasPartitionTables() ? Lists.newArrayList( table ) : Lists.newArrayList();
+    }
+
+    @Override
+    public Set<String> getExistingDatabaseTables()
+    {
+        return Sets.newHashSet( getTableName() );
+    }
+
+    @Override
+    public String validState()
+    {
+        boolean hasData = jdbcTemplate.queryForRowSet( "select datasetid from completedatasetregistration limit 1" ).next();
+
+        if ( !hasData )
+        {
+            return "No complete registrations exist, not updating completeness aggregate analytics tables";
+        }
+
+        return null;
+    }
+
+    @Override
+    protected boolean hasUpdatedLatestData( Date startDate, Date endDate )
+    {
+        return false;
+    }
+
+    @Override
+    protected List<String> getPartitionChecks( AnalyticsTablePartition partition )
+    {
+        return Lists.newArrayList( "year = " + partition.getYear() + "" );
+    }
+
+    @Override
+    protected void populateTable( AnalyticsTableUpdateParams params, AnalyticsTablePartition partition )
+    {
+        for ( OrganisationUnitLevel level : organisationUnitService.getFilledOrganisationUnitLevels() )
+        {
+            populateTable( params, partition, level.getLevel() );
+        }
+    }
+
+    /**
+     * Populates the given partition with the rows of the given organisation
+     * unit level. Organisation unit level columns below the level are left
+     * empty.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param partition the {@link AnalyticsTablePartition}.
+     * @param level the organisation unit level.
+     */
+    private void populateTable( AnalyticsTableUpdateParams params, AnalyticsTablePartition partition, int level )
+    {
+        final String tableName = partition.getTempTableName();
+
+        String sql = "insert into " + tableName + " (";
+
+        List<AnalyticsTableColumn> columns = partition.getMasterTable().getDimensionColumns();
+        List<AnalyticsTableColumn> values = partition.getMasterTable().getValueColumns();
+
+        validateDimensionColumns( columns );
+
+        for ( AnalyticsTableColumn col : ListUtils.union( columns, values ) )
+        {
+            sql += col.getName() + ",";
+        }
+
+        sql = TextUtils.removeLastComma( sql ) + ") select ";
+
+        String groupBy = "group by ";
+
+        for ( int i = 0; i < columns.size(); i++ )
+        {
+            AnalyticsTableColumn col = columns.get( i );
+
+            if ( COL_ROLLUPLEVEL.equals( col.getName() ) )
+            {
+                sql += level + ",";
+            }
+            else if ( isOrgUnitLevelColumnBelow( col, level ) )
+            {
+                sql += "null,";
+            }
+            else
+            {
+                sql += col.getAlias() + ",";
+                groupBy += ( i + 1 ) + ",";
+            }
+        }
+
+        // Joins are kept identical to the completeness table to get equal counts
+
+        sql +=
+            "count(*) as value " +
+            "from completedatasetregistration cdr " +
+            "inner join dataset ds on cdr.datasetid=ds.datasetid " +
+            "inner join period pe on cdr.periodid=pe.periodid " +
+            "inner join _periodstructure ps on cdr.periodid=ps.periodid " +
+            "inner join organisationunit ou on cdr.sourceid=ou.organisationunitid " +
+            "inner join _organisationunitgroupsetstructure ougs on cdr.sourceid=ougs.organisationunitid " +
+                "and (cast(date_trunc('month', pe.startdate) as date)=ougs.startdate or ougs.startdate is null) " +
+            "left join _orgunitstructure ous on cdr.sourceid=ous.organisationunitid " +
+            "inner join _categorystructure acs on cdr.attributeoptioncomboid=acs.categoryoptioncomboid " +
+            "inner join categoryoptioncombo ao on cdr.attributeoptioncomboid=ao.categoryoptioncomboid " +
+            "where cdr.date is not null " +
+            "and ps.year = " + partition.getYear() + " " +
+            "and cdr.lastupdated < '" + getLongDateString( params.getStartTime() ) + "' " +
+            "and cdr.completed = true " +
+            TextUtils.removeLastComma( groupBy );
+
+        invokeTimeAndLog( sql, String.format( "Populate %s level %d", tableName, level ) );
+    }
+
+    private List<AnalyticsTableColumn> getDimensionColumns()
+    {
+        List<AnalyticsTableColumn> columns = new ArrayList<>();
+
+        columns.add( new AnalyticsTableColumn( COL_ROLLUPLEVEL, INTEGER, NOT_NULL, COL_ROLLUPLEVEL ) );
+        columns.addAll( addOrganisationUnitLevels() );
+        columns.addAll( addPeriodColumns( "ps" ) );
+
+        String timelyDateDiff = statementBuilder.getDaysBetweenDates( "pe.enddate", statementBuilder.getCastToDate( "cdr.date" ) );
+        String timelyAlias = "(select (" + timelyDateDiff + ") <= ds.timelydays) as timely";
+
+        columns.add( new AnalyticsTableColumn( quote( "timely" ), BOOLEAN, timelyAlias ) );
+        columns.addAll( getFixedColumns() );
+        return filterDimensionColumns( columns );
+    }
+
+    private List<AnalyticsTableColumn> getValueColumns()
+    {
+        return Lists.newArrayList( new AnalyticsTableColumn( quote( "value" ), INTEGER, "value" ) );
+    }
+
+    private List<Integer> getDataYears( AnalyticsTableUpdateParams params )
+    {
+        String sql =
+            "select distinct(extract(year from pe.startdate)) " +
+            "from completedatasetregistration cdr " +
+            "inner join period pe on cdr.periodid=pe.periodid " +
+            "where pe.startdate is not null " +
+            "and cdr.date < '" + getLongDateString( params.getStartTime() ) + "' ";
+
+        if ( params.getFromDate() != null )
+        {
+            sql += "and pe.startdate >= '" + DateUtils.getMediumDateString( params.getFromDate() ) + "'";
+        }
+
+        return jdbcTemplate.queryForList( sql, Integer.class );
+    }
+
+    @Override
+    @Async
+    public Future<?> applyAggregationLevels( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions, Collection<String> dataElements, int aggregationLevel )
+    {
+        return ConcurrentUtils.getImmediateFuture();
+    }
+
+    @Override
+    @Async
+    public Future<?> vacuumTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions )
+    {
+        return ConcurrentUtils.getImmediateFuture();
+    }
+
+    @Override
+    public List<AnalyticsTableColumn> getFixedColumns()
+    {
+        return FIXED_COLS;
+    }
+}
@@ -0,0 +1,241 @@
+package org.hisp.dhis.analytics.table;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.analytics.ColumnDataType.*;
+import static org.hisp.dhis.analytics.ColumnNotNullConstraint.NOT_NULL;
+import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.quote;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+
+import org.hisp.dhis.analytics.AnalyticsTable;
+import org.hisp.dhis.analytics.AnalyticsTableColumn;
+import org.hisp.dhis.analytics.AnalyticsTableHookService;
+import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.partition.PartitionManager;
+import org.hisp.dhis.category.CategoryService;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.commons.collection.ListUtils;
+import org.hisp.dhis.commons.util.ConcurrentUtils;
+import org.hisp.dhis.commons.util.TextUtils;
+import org.hisp.dhis.dataapproval.DataApprovalLevelService;
+import org.hisp.dhis.jdbc.StatementBuilder;
+import org.hisp.dhis.organisationunit.OrganisationUnitLevel;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.resourcetable.ResourceTableService;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.hisp.dhis.system.database.DatabaseInfo;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Manager for the pre-aggregated completeness target table, which holds the
+ * number of expected data set reports per data set and organisation unit for
+ * each organisation unit level, including the opening and closing dates needed
+ * for restricting targets to the query period. Rows of a level only hold the
+ * organisation unit columns up to and including that level.
+ */
+@Service( "org.hisp.dhis.analytics.CompletenessTargetAggregateTableManager" )
+public class JdbcCompletenessTargetAggregateTableManager
+    extends AbstractJdbcTableManager
+{
+    public JdbcCompletenessTargetAggregateTableManager( IdentifiableObjectManager idObjectManager,
+        OrganisationUnitService organisationUnitService, CategoryService categoryService,
+        SystemSettingManager systemSettingManager, DataApprovalLevelService dataApprovalLevelService,
+        ResourceTableService resourceTableService, AnalyticsTableHookService tableHookService,
+        StatementBuilder statementBuilder, PartitionManager partitionManager, DatabaseInfo databaseInfo,
+        JdbcTemplate jdbcTemplate )
+    {
+        super( idObjectManager, organisationUnitService, categoryService, systemSettingManager,
+            dataApprovalLevelService, resourceTableService, tableHookService, statementBuilder, partitionManager,
+            databaseInfo, jdbcTemplate );
+    }
+
+    private static final List<AnalyticsTableColumn> FIXED_COLS = Lists.newArrayList(
+        new AnalyticsTableColumn( quote( "ouopeningdate" ), DATE, "ou.openingdate" ),
+        new AnalyticsTableColumn( quote( "oucloseddate" ), DATE, "ou.closeddate" ),
+        new AnalyticsTableColumn( quote( "costartdate" ), DATE, "doc.costartdate" ),
+        new AnalyticsTableColumn( quote( "coenddate" ), DATE, "doc.coenddate" ),
+        new AnalyticsTableColumn( quote( "dx" ), CHARACTER_11, NOT_NULL, "ds.uid" ) );
+
+    @Override
+    public AnalyticsTableType getAnalyticsTableType()
+    {
+        return AnalyticsTableType.COMPLETENESS_TARGET_AGGREGATE;
+    }
+
+    @Override
+    @Transactional
+    public List<AnalyticsTable> getAnalyticsTables( AnalyticsTableUpdateParams params )
+    {
+        return params.isLatestUpdate() ?
+            Lists.newArrayList() :
+            Lists.newArrayList( new AnalyticsTable( getAnalyticsTableType(), getDimensionColumns(), getValueColumns() ) );
+    }
+
+    @Override
+    public Set<String> getExistingDatabaseTables()
+    {
+        return Sets.newHashSet( getTableName() );
+    }
+
+    @Override
+    public String validState()
+    {
+        return null;
+    }
+
+    @Override
+    protected boolean hasUpdatedLatestData( Date startDate, Date endDate )
+    {
+        return false;
+    }
+
+    @Override
+    protected List<String> getPartitionChecks( AnalyticsTablePartition partition )
+    {
+        return Lists.newArrayList();
+    }
+
+    @Override
+    protected void populateTable( AnalyticsTableUpdateParams params, AnalyticsTablePartition partition )
+    {
+        for ( OrganisationUnitLevel level : organisationUnitService.getFilledOrganisationUnitLevels() )
+        {
+            populateTable( partition, level.getLevel() );
+        }
+    }
+
+    /**
+     * Populates the given partition with the rows of the given organisation
+     * unit level. Organisation unit level columns below the level are left
+     * empty.
+     *
+     * @param partition the {@link AnalyticsTablePartition}.
+     * @param level the organisation unit level.
+     */
+    private void populateTable( AnalyticsTablePartition partition, int level )
+    {
+        final String tableName = partition.getTempTableName();
+
+        String sql = "insert into " + tableName + " (";
+
+        List<AnalyticsTableColumn> columns = partition.getMasterTable().getDimensionColumns();
+        List<AnalyticsTableColumn> values = partition.getMasterTable().getValueColumns();
+
+        validateDimensionColumns( columns );
+
+        for ( AnalyticsTableColumn col : ListUtils.union( columns, values ) )
+        {
+            sql += col.getName() + ",";
+        }
+
+        sql = TextUtils.removeLastComma( sql ) + ") select ";
+
+        String groupBy = "group by ";
+
+        for ( int i = 0; i < columns.size(); i++ )
+        {
+            AnalyticsTableColumn col = columns.get( i );
+
+            if ( COL_ROLLUPLEVEL.equals( col.getName() ) )
+            {
+                sql += level + ",";
+            }
+            else if ( isOrgUnitLevelColumnBelow( col, level ) )
+            {
+                sql += "null,";
+            }
+            else
+            {
+                sql += col.getAlias() + ",";
+                groupBy += ( i + 1 ) + ",";
+            }
+        }
+
+        sql +=
+            "count(*) as value " +
+            "from _datasetorganisationunitcategory doc " +
+            "inner join dataset ds on doc.datasetid=ds.datasetid " +
+            "inner join organisationunit ou on doc.organisationunitid=ou.organisationunitid " +
+            "left join _orgunitstructure ous on doc.organisationunitid=ous.organisationunitid " +
+            TextUtils.removeLastComma( groupBy );
+
+        invokeTimeAndLog( sql, String.format( "Populate %s level %d", tableName, level ) );
+    }
+
+    private List<AnalyticsTableColumn> getDimensionColumns()
+    {
+        List<AnalyticsTableColumn> columns = new ArrayList<>();
+
+        columns.add( new AnalyticsTableColumn( COL_ROLLUPLEVEL, INTEGER, NOT_NULL, COL_ROLLUPLEVEL ) );
+        columns.addAll( addOrganisationUnitLevels() );
+        columns.addAll( getFixedColumns() );
+
+        return filterDimensionColumns( columns );
+    }
+
+    private List<AnalyticsTableColumn> getValueColumns()
+    {
+        return Lists.newArrayList( new AnalyticsTableColumn( quote( "value" ), INTEGER, "value" ) );
+    }
+
+    @Override
+    @Async
+    public Future<?> applyAggregationLevels( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions, Collection<String> dataElements, int aggregationLevel )
+    {
+        return ConcurrentUtils.getImmediateFuture();
+    }
+
+    @Override
+    @Async
+    public Future<?> vacuumTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions )
+    {
+        return ConcurrentUtils.getImmediateFuture();
+    }
+
+    @Override
+    public List<AnalyticsTableColumn> getFixedColumns()
+    {
+        return FIXED_COLS;
+    }
+}
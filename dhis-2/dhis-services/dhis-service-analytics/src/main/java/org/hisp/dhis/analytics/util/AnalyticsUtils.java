@@ -40,15 +40,18 @@ import static org.hisp.dhis.expression.ExpressionService.SYMBOL_WILDCARD;
 import static org.hisp.dhis.util.DateUtils.getMediumDateString;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.commons.math3.util.Precision;
 import org.hisp.dhis.analytics.ColumnDataType;
 import org.hisp.dhis.analytics.DataQueryParams;
@@ -78,9 +81,12 @@ import org.hisp.dhis.dataelement.DataElementOperand;
 import org.hisp.dhis.dxf2.datavalue.DataValue;
 import org.hisp.dhis.dxf2.datavalueset.DataValueSet;
 import org.hisp.dhis.expression.ExpressionService;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.indicator.Indicator;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.period.FinancialPeriodType;
+import org.hisp.dhis.period.MonthlyPeriodType;
 import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodType;
 import org.hisp.dhis.program.Program;
@@ -861,4 +867,38 @@ public class AnalyticsUtils
 
         return 0D;
     }
+
+    /**
+     * Returns the organisation unit levels for which rollup tables are
+     * generated, as configured through <code>analytics.rollup.levels</code>.
+     * An empty value disables rollup tables.
+     *
+     * @param config the {@link DhisConfigurationProvider}.
+     * @return a sorted list of distinct levels.
+     */
+    public static List<Integer> getRollupLevels( DhisConfigurationProvider config )
+    {
+        String levels = config.getProperty( ConfigurationKey.ANALYTICS_ROLLUP_LEVELS );
+
+        return Arrays.stream( StringUtils.split( StringUtils.trimToEmpty( levels ), ',' ) )
+            .map( StringUtils::trim )
+            .filter( NumberUtils::isDigits )
+            .map( Integer::valueOf )
+            .filter( level -> level > 0 )
+            .distinct()
+            .sorted()
+            .collect( Collectors.toList() );
+    }
+
+    /**
+     * Indicates whether the given period type is retained in rollup tables.
+     * Period types with a higher frequency than monthly are aggregated away.
+     *
+     * @param periodType the period type.
+     * @return true if the period type is retained in rollup tables.
+     */
+    public static boolean isRollupPeriodType( PeriodType periodType )
+    {
+        return periodType != null && periodType.getFrequencyOrder() >= MonthlyPeriodType.FREQUENCY_ORDER;
+    }
 }
@@ -65,7 +65,7 @@ public abstract class AnalyticsServiceBaseTest {
     private AnalyticsSecurityManager securityManager;
 
     @Mock
-    private QueryPlanner queryPlanner;
+    protected QueryPlanner queryPlanner;
 
     @Mock
     private ExpressionService expressionService;
@@ -121,5 +121,7 @@ public abstract class AnalyticsServiceBaseTest {
         when( securityManager.withDimensionConstraints( any( DataQueryParams.class ) ) ).thenReturn( params );
         when( queryPlanner.planQuery( any( DataQueryParams.class ), any( QueryPlannerParams.class ) ) ).thenReturn(
                 DataQueryGroups.newBuilder().withQueries( newArrayList( DataQueryParams.newBuilder().build() ) ).build() );
+        when( queryPlanner.getCompletenessTableType( any( DataQueryParams.class ), any( AnalyticsTableType.class ) ) )
+                .thenAnswer( invocation -> invocation.getArgument( 1 ) );
     }
 }
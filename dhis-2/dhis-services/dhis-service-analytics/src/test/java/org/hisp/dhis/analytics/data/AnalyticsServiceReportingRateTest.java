@@ -28,6 +28,7 @@ package org.hisp.dhis.analytics.data;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import org.hisp.dhis.analytics.AggregationType;
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.common.*;
@@ -280,6 +281,54 @@ public class AnalyticsServiceReportingRateTest
         assertReportingRatesGrid( grid, dataSetA, "201901" );
     }
     
+    @Test
+    public void verifyReportingRatesAreQueriedFromAggregateTables()
+    {
+        DataSet dataSetA = createDataSet( 'A' );
+        ReportingRate reportingRateA = new ReportingRate( dataSetA );
+        reportingRateA.setMetric( ReportingRateMetric.REPORTING_RATE );
+
+        List<DimensionalItemObject> periods = new ArrayList<>();
+        periods.add( PeriodType.getPeriodFromIsoString( "201901" ) );
+
+        OrganisationUnit ou = new OrganisationUnit( "aaaa" );
+
+        DataQueryParams params = DataQueryParams.newBuilder()
+            .withDataElements( newArrayList( reportingRateA ) ).withIgnoreLimit( true )
+            .withPeriods( periods )
+            .withFilters( singletonList(
+                new BaseDimensionalObject( "ou", DimensionType.ORGANISATION_UNIT, singletonList( ou ) ) ) )
+            .build();
+
+        initMock( params );
+
+        when( queryPlanner.getCompletenessTableType( any( DataQueryParams.class ), eq( AnalyticsTableType.COMPLETENESS ) ) )
+            .thenReturn( AnalyticsTableType.COMPLETENESS_AGGREGATE );
+        when( queryPlanner.getCompletenessTableType( any( DataQueryParams.class ), eq( AnalyticsTableType.COMPLETENESS_TARGET ) ) )
+            .thenReturn( AnalyticsTableType.COMPLETENESS_TARGET_AGGREGATE );
+
+        Map<String, Object> targets = new HashMap<>();
+        targets.put( dataSetA.getUid() + "-" + "201901", 4D );
+
+        Map<String, Object> actuals = new HashMap<>();
+        actuals.put( dataSetA.getUid() + "-" + "201901", 2D );
+
+        when( analyticsManager.getAggregatedDataValues( any( DataQueryParams.class ),
+            eq( AnalyticsTableType.COMPLETENESS_TARGET_AGGREGATE ), eq( 0 ) ) )
+                .thenReturn( CompletableFuture.completedFuture( targets ) );
+
+        when( analyticsManager.getAggregatedDataValues( argThat( p -> p.getAggregationType().isAggregationType( AggregationType.SUM ) ),
+            eq( AnalyticsTableType.COMPLETENESS_AGGREGATE ), eq( 0 ) ) )
+                .thenReturn( CompletableFuture.completedFuture( actuals ) );
+
+        Grid grid = target.getAggregatedDataValues( params );
+
+        assertEquals( 50D,
+            getValueFromGrid( grid.getRows(), makeKey( dataSetA, ReportingRateMetric.REPORTING_RATE ) ).get(), 0 );
+        verify( analyticsManager, never() ).getAggregatedDataValues( any( DataQueryParams.class ),
+            eq( AnalyticsTableType.COMPLETENESS ), anyInt() );
+    }
+
     private void assertReportingRatesGrid( Grid grid, DataSet dataset, String period )
     {
         assertThat( grid.getRows(), hasSize( 1 ) );
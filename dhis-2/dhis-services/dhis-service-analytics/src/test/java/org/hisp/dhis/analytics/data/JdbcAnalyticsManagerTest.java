@@ -41,6 +41,7 @@ import org.hisp.dhis.common.BaseDimensionalObject;
 import org.hisp.dhis.common.DimensionType;
 import org.hisp.dhis.common.ValueType;
 import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodType;
@@ -70,6 +71,9 @@ public class JdbcAnalyticsManagerTest
     @Mock
     private PartitionManager partitionManager;
 
+    @Mock
+    private DhisConfigurationProvider config;
+
     @Mock
     private JdbcTemplate jdbcTemplate;
 
@@ -89,13 +93,13 @@ public class JdbcAnalyticsManagerTest
     {
         QueryPlanner queryPlanner = new DefaultQueryPlanner(
             new DefaultQueryValidator( this.systemSettingManager, nestedIndicatorCyclicDependencyInspector ),
-            partitionManager );
+            partitionManager, config );
 
         mockRowSet();
 
         when( jdbcTemplate.queryForRowSet( sql.capture() ) ).thenReturn( rowSet );
 
-        subject = new JdbcAnalyticsManager( queryPlanner, jdbcTemplate );
+        subject = new JdbcAnalyticsManager( queryPlanner, new AnalyticsQueryMetrics(), jdbcTemplate );
     }
 
     @Test
@@ -118,6 +122,19 @@ public class JdbcAnalyticsManagerTest
         assertExpectedSql("desc");
     }
 
+    @Test
+    public void verifyQueryGeneratedWhenQueryHasRollupLevel()
+    {
+        DataQueryParams params = DataQueryParams.newBuilder( createParams( AggregationType.SUM ) )
+            .withTableName( AnalyticsTableType.DATA_VALUE_ROLLUP.getTableName() )
+            .withRollupLevel( 2 ).build();
+
+        subject.getAggregatedDataValues( params, AnalyticsTableType.DATA_VALUE, 20000 );
+
+        assertThat( sql.getValue(), containsString( "from analytics_rollup as ax" ) );
+        assertThat( sql.getValue(), containsString( "ax.\"rolluplevel\" = 2" ) );
+    }
+
     private void mockRowSet()
     {
         // Simulate no rows
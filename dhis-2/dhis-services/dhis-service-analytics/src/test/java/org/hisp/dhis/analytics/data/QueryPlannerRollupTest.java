@@ -0,0 +1,214 @@
+package org.hisp.dhis.analytics.data;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.DhisConvenienceTest.createDataElement;
+import static org.hisp.dhis.DhisConvenienceTest.createOrganisationUnit;
+import static org.hisp.dhis.DhisConvenienceTest.createPeriod;
+import static org.hisp.dhis.DhisConvenienceTest.getDate;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.hisp.dhis.analytics.AggregationType;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.DataQueryGroups;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.QueryPlanner;
+import org.hisp.dhis.analytics.QueryPlannerParams;
+import org.hisp.dhis.analytics.QueryValidator;
+import org.hisp.dhis.analytics.partition.PartitionManager;
+import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.period.DailyPeriodType;
+import org.hisp.dhis.period.MonthlyPeriodType;
+import org.hisp.dhis.period.Period;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import com.google.common.collect.Lists;
+
+public class QueryPlannerRollupTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private QueryValidator queryValidator;
+
+    @Mock
+    private PartitionManager partitionManager;
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    private QueryPlanner queryPlanner;
+
+    private OrganisationUnit ouA;
+    private OrganisationUnit ouB;
+    private OrganisationUnit ouC;
+    private OrganisationUnit ouD;
+
+    private Period peMonthly;
+    private Period peDaily;
+
+    @Before
+    public void setUp()
+    {
+        when( config.getProperty( ConfigurationKey.ANALYTICS_ROLLUP_LEVELS ) ).thenReturn( "1,3" );
+        when( partitionManager.tableExists( anyString() ) ).thenReturn( false );
+        when( partitionManager.tableExists( AnalyticsTableType.DATA_VALUE_ROLLUP.getTableName() ) ).thenReturn( true );
+
+        queryPlanner = new DefaultQueryPlanner( queryValidator, partitionManager, config );
+
+        ouA = createOrganisationUnit( 'A' );
+        ouB = createOrganisationUnit( 'B', ouA );
+        ouC = createOrganisationUnit( 'C', ouB );
+        ouD = createOrganisationUnit( 'D', ouC );
+
+        ouA.getPath();
+        ouB.getPath();
+        ouC.getPath();
+        ouD.getPath();
+
+        peMonthly = createPeriod( new MonthlyPeriodType(), getDate( 2020, 1, 1 ), getDate( 2020, 1, 31 ) );
+        peDaily = createPeriod( new DailyPeriodType(), getDate( 2020, 1, 1 ), getDate( 2020, 1, 1 ) );
+    }
+
+    @Test
+    public void testPlanQueryRollupCoarsestLevel()
+    {
+        DataQueryParams query = getSingleQuery( AggregationType.SUM, peMonthly, ouB );
+
+        assertEquals( AnalyticsTableType.DATA_VALUE_ROLLUP.getTableName(), query.getTableName() );
+        assertEquals( Integer.valueOf( 3 ), query.getRollupLevel() );
+
+        query = getSingleQuery( AggregationType.SUM, peMonthly, ouA );
+
+        assertEquals( AnalyticsTableType.DATA_VALUE_ROLLUP.getTableName(), query.getTableName() );
+        assertEquals( Integer.valueOf( 1 ), query.getRollupLevel() );
+    }
+
+    @Test
+    public void testPlanQueryNoRollupForOrgUnitBelowLevels()
+    {
+        DataQueryParams query = getSingleQuery( AggregationType.SUM, peMonthly, ouD );
+
+        assertEquals( AnalyticsTableType.DATA_VALUE.getTableName(), query.getTableName() );
+        assertFalse( query.hasRollupLevel() );
+    }
+
+    @Test
+    public void testPlanQueryNoRollupForDailyPeriod()
+    {
+        DataQueryParams query = getSingleQuery( AggregationType.SUM, peDaily, ouA );
+
+        assertEquals( AnalyticsTableType.DATA_VALUE.getTableName(), query.getTableName() );
+        assertNull( query.getRollupLevel() );
+    }
+
+    @Test
+    public void testPlanQueryNoRollupForAverage()
+    {
+        DataQueryParams query = getSingleQuery( AggregationType.AVERAGE, peMonthly, ouA );
+
+        assertEquals( AnalyticsTableType.DATA_VALUE.getTableName(), query.getTableName() );
+        assertNull( query.getRollupLevel() );
+    }
+
+    @Test
+    public void testPlanQueryNoRollupWithLatestPartition()
+    {
+        when( partitionManager.tableExists( "analytics_0" ) ).thenReturn( true );
+
+        DataQueryParams query = getSingleQuery( AggregationType.SUM, peMonthly, ouA );
+
+        assertEquals( AnalyticsTableType.DATA_VALUE.getTableName(), query.getTableName() );
+        assertNull( query.getRollupLevel() );
+    }
+
+    @Test
+    public void testPlanQueryCompletenessAggregateLevel()
+    {
+        DataElement deA = createDataElement( 'A', ValueType.INTEGER, AggregationType.SUM );
+
+        DataQueryParams params = DataQueryParams.newBuilder()
+            .withDataElements( Lists.newArrayList( deA ) )
+            .withPeriods( Lists.newArrayList( peMonthly ) )
+            .withOrganisationUnits( Lists.newArrayList( ouB, ouD ) ).build();
+
+        QueryPlannerParams plannerParams = QueryPlannerParams.newBuilder()
+            .withOptimalQueries( 1 )
+            .withTableType( AnalyticsTableType.COMPLETENESS_AGGREGATE ).build();
+
+        List<DataQueryParams> queries = queryPlanner.planQuery( params, plannerParams ).getAllQueries();
+
+        assertEquals( 2, queries.size() );
+
+        for ( DataQueryParams query : queries )
+        {
+            OrganisationUnit orgUnit = (OrganisationUnit) query.getOrganisationUnits().get( 0 );
+
+            assertEquals( Integer.valueOf( orgUnit.getLevel() ), query.getRollupLevel() );
+        }
+    }
+
+    private DataQueryParams getSingleQuery( AggregationType aggregationType, Period period, OrganisationUnit orgUnit )
+    {
+        DataElement deA = createDataElement( 'A', ValueType.INTEGER, aggregationType );
+
+        DataQueryParams params = DataQueryParams.newBuilder()
+            .withDataElements( Lists.newArrayList( deA ) )
+            .withPeriods( Lists.newArrayList( period ) )
+            .withOrganisationUnits( Lists.newArrayList( orgUnit ) ).build();
+
+        QueryPlannerParams plannerParams = QueryPlannerParams.newBuilder()
+            .withOptimalQueries( 1 )
+            .withTableType( AnalyticsTableType.DATA_VALUE ).build();
+
+        DataQueryGroups queryGroups = queryPlanner.planQuery( params, plannerParams );
+
+        List<DataQueryParams> queries = queryGroups.getAllQueries();
+
+        assertEquals( 1, queries.size() );
+
+        return queries.get( 0 );
+    }
+}
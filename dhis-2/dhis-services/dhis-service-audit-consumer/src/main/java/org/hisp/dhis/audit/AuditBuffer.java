@@ -0,0 +1,258 @@
+package org.hisp.dhis.audit;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Buffer which collects decoded audit items from the message listener
+ * thread and hands them to a writer in batches, so that consumers can
+ * persist many audits per transaction instead of one audit per message.
+ * <p>
+ * Every item carries an acknowledgement callback, which is invoked only once
+ * the batch holding the item has been written, so that the message of an
+ * audit which was not persisted is redelivered after a crash. JMS sessions
+ * must only be used by the thread which owns them, hence acknowledgements of
+ * written items are queued and invoked by the listener thread on its next
+ * call to {@link #add(Object, Runnable)}.
+ * <p>
+ * A flush stops at the first batch which fails, and further flushes are
+ * skipped until a backoff, which doubles with every consecutive failed flush
+ * up to {@link #MAX_BACKOFF_MILLIS}, has passed. The items of a failed batch
+ * are retried on the next flush, up to {@link #MAX_ATTEMPTS} flushes, after
+ * which they are logged as lost and acknowledged so that they do not hold
+ * back the subscription.
+ * <p>
+ * The buffer is flushed by the listener thread when it fills up a batch, and
+ * otherwise periodically by the owning consumer.
+ *
+ * @param <T> the audit item type.
+ */
+public class AuditBuffer<T>
+{
+    private static final Log log = LogFactory.getLog( AuditBuffer.class );
+
+    static final int MAX_ATTEMPTS = 10;
+
+    static final long MIN_BACKOFF_MILLIS = 5_000;
+
+    static final long MAX_BACKOFF_MILLIS = 300_000;
+
+    private final BlockingQueue<Entry<T>> queue = new LinkedBlockingQueue<>();
+
+    private final Queue<Runnable> acknowledgements = new ConcurrentLinkedQueue<>();
+
+    private final int batchSize;
+
+    private final Consumer<List<T>> writer;
+
+    private final LongSupplier clock;
+
+    private int failures = 0;
+
+    private volatile long retryAt = 0;
+
+    public AuditBuffer( int batchSize, Consumer<List<T>> writer )
+    {
+        this( batchSize, writer, System::currentTimeMillis );
+    }
+
+    AuditBuffer( int batchSize, Consumer<List<T>> writer, LongSupplier clock )
+    {
+        checkArgument( batchSize > 0 );
+        checkNotNull( writer );
+        checkNotNull( clock );
+
+        this.batchSize = batchSize;
+        this.writer = writer;
+        this.clock = clock;
+    }
+
+    /**
+     * Adds the given item to the buffer, and writes a batch if the buffer
+     * holds at least a full batch of items and the buffer is not backing off
+     * after a failed flush. Acknowledges the items written since the last
+     * call. Must be invoked by the listener thread only.
+     *
+     * @param item the item to add.
+     * @param acknowledgement invoked once the item has been written.
+     */
+    public void add( T item, Runnable acknowledgement )
+    {
+        queue.offer( new Entry<>( item, acknowledgement ) );
+
+        if ( queue.size() >= batchSize && !isBackingOff() )
+        {
+            flush();
+        }
+
+        acknowledge();
+    }
+
+    /**
+     * Writes all buffered items in batches of at most the batch size, unless
+     * the buffer is backing off after a failed flush. Stops at the first batch
+     * which fails, and buffers its items again for the next flush.
+     *
+     * @return the number of items written.
+     */
+    public synchronized int flush()
+    {
+        if ( isBackingOff() )
+        {
+            return 0;
+        }
+
+        int count = 0;
+
+        List<Entry<T>> batch = new ArrayList<>( batchSize );
+
+        while ( queue.drainTo( batch, batchSize ) > 0 )
+        {
+            try
+            {
+                writer.accept( batch.stream().map( entry -> entry.item ).collect( Collectors.toList() ) );
+            }
+            catch ( Exception e )
+            {
+                fail( batch, e );
+
+                return count;
+            }
+
+            batch.forEach( entry -> acknowledgements.offer( entry.acknowledgement ) );
+
+            count += batch.size();
+
+            batch = new ArrayList<>( batchSize );
+        }
+
+        failures = 0;
+        retryAt = 0;
+
+        return count;
+    }
+
+    /**
+     * Invokes the acknowledgements of the items written so far. Must be
+     * invoked by the listener thread only.
+     */
+    public void acknowledge()
+    {
+        Runnable acknowledgement;
+
+        while ( (acknowledgement = acknowledgements.poll()) != null )
+        {
+            try
+            {
+                acknowledgement.run();
+            }
+            catch ( RuntimeException e )
+            {
+                log.warn( "Failed to acknowledge audit message: " + e.getMessage() );
+            }
+        }
+    }
+
+    /**
+     * Returns the number of items currently buffered.
+     */
+    public int size()
+    {
+        return queue.size();
+    }
+
+    /**
+     * Indicates whether flushes are skipped after a failed flush.
+     */
+    public boolean isBackingOff()
+    {
+        return clock.getAsLong() < retryAt;
+    }
+
+    /**
+     * Registers a failed flush of the given batch. Items which have reached
+     * the max number of attempts are given up, the other items are buffered
+     * again.
+     */
+    private void fail( List<Entry<T>> batch, Exception e )
+    {
+        long backoff = Math.min( MIN_BACKOFF_MILLIS << Math.min( failures, 16 ), MAX_BACKOFF_MILLIS );
+
+        failures++;
+        retryAt = clock.getAsLong() + backoff;
+
+        log.warn( String.format( "An error occurred persisting a batch of %d audit items, retrying in %d ms",
+            batch.size(), backoff ), e );
+
+        for ( Entry<T> entry : batch )
+        {
+            if ( ++entry.attempts < MAX_ATTEMPTS )
+            {
+                queue.offer( entry );
+            }
+            else
+            {
+                log.error( String.format( "Giving up persisting audit item after %d attempts: %s",
+                    entry.attempts, entry.item ) );
+
+                acknowledgements.offer( entry.acknowledgement );
+            }
+        }
+    }
+
+    private static class Entry<T>
+    {
+        private final T item;
+
+        private final Runnable acknowledgement;
+
+        private int attempts = 0;
+
+        Entry( T item, Runnable acknowledgement )
+        {
+            this.item = item;
+            this.acknowledgement = acknowledgement;
+        }
+    }
+}
@@ -28,9 +28,31 @@ package org.hisp.dhis.audit;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import javax.jms.JMSException;
+import javax.jms.Message;
+
+import org.apache.commons.logging.LogFactory;
+
 /**
  * @author Luciano Fiandesio
  */
 public interface AuditConsumer
 {
+    /**
+     * Acknowledges the given message. Audit consumers acknowledge messages
+     * individually, once the audit has been persisted or has been discarded.
+     *
+     * @param message the message.
+     */
+    default void acknowledge( Message message )
+    {
+        try
+        {
+            message.acknowledge();
+        }
+        catch ( JMSException e )
+        {
+            LogFactory.getLog( getClass() ).warn( "Failed to acknowledge audit message: " + e.getMessage() );
+        }
+    }
 }
@@ -33,6 +33,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.artemis.Topics;
 import org.hisp.dhis.artemis.audit.Audit;
+import org.hisp.dhis.audit.AuditBuffer;
 import org.hisp.dhis.audit.AuditConsumer;
 import org.hisp.dhis.external.conf.ConfigurationKey;
 import org.hisp.dhis.external.conf.DhisConfigurationProvider;
@@ -40,15 +41,19 @@ import org.hisp.dhis.render.RenderService;
 import org.hisp.dhis.schema.audit.MetadataAudit;
 import org.hisp.dhis.schema.audit.MetadataAuditService;
 import org.springframework.jms.annotation.JmsListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import javax.jms.TextMessage;
 import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.Objects;
 
 /**
- * A MetadataAudit object consumer.
+ * A MetadataAudit object consumer. Audits to persist are buffered and written
+ * to the database in batches. Messages are acknowledged once their audit has
+ * been written.
  *
  * @author Luciano Fiandesio
  */
@@ -57,10 +62,12 @@ public class MetadataAuditConsumer implements AuditConsumer
 {
     private static final Log log = LogFactory.getLog( MetadataAuditConsumer.class );
 
+    private static final int BATCH_SIZE = 200;
+
     private final ObjectMapper mapper = new ObjectMapper();
 
-    private final MetadataAuditService metadataAuditService;
     private final RenderService renderService;
+    private final AuditBuffer<MetadataAudit> buffer;
     private final boolean metadataAuditLog;
     private final boolean metadataAuditPersist;
 
@@ -69,14 +76,14 @@ public class MetadataAuditConsumer implements AuditConsumer
         RenderService renderService,
         DhisConfigurationProvider dhisConfig )
     {
-        this.metadataAuditService = metadataAuditService;
+        this.buffer = new AuditBuffer<>( BATCH_SIZE, metadataAuditService::addMetadataAudits );
         this.renderService = renderService;
 
         this.metadataAuditPersist = Objects.equals( dhisConfig.getProperty( ConfigurationKey.METADATA_AUDIT_PERSIST ), "on" );
         this.metadataAuditLog = Objects.equals( dhisConfig.getProperty( ConfigurationKey.METADATA_AUDIT_LOG ), "on" );
     }
 
-    @JmsListener( destination = Topics.METADATA_TOPIC_NAME )
+    @JmsListener( destination = Topics.METADATA_TOPIC_NAME, subscription = "dhis2.audit.metadata", containerFactory = "auditListenerContainerFactory" )
     public void consume( TextMessage message )
     {
         try
@@ -93,7 +100,11 @@ public class MetadataAuditConsumer implements AuditConsumer
 
             if ( metadataAuditPersist )
             {
-                metadataAuditService.addMetadataAudit( audit );
+                buffer.add( audit, () -> acknowledge( message ) );
+            }
+            else
+            {
+                acknowledge( message );
             }
         }
         catch ( IOException e )
@@ -101,13 +112,24 @@ public class MetadataAuditConsumer implements AuditConsumer
             log.error(
                 "An error occurred de-serializing the message payload. The message can not be de-serialized to an Audit object.",
                 e );
+
+            acknowledge( message );
         }
         catch ( Exception e )
         {
             log.error( "An error occurred persisting an Audit message of type 'METADATA'", e );
+
+            acknowledge( message );
         }
     }
 
+    @Scheduled( fixedDelay = 5_000 )
+    @PreDestroy
+    public void flush()
+    {
+        buffer.flush();
+    }
+
     @SuppressWarnings( "unchecked" )
     private MetadataAudit toMetadataAudit( Object map )
     {
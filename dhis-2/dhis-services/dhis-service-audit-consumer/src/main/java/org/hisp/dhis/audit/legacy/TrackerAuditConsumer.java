@@ -28,23 +28,32 @@ package org.hisp.dhis.audit.legacy;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.artemis.Topics;
 import org.hisp.dhis.artemis.audit.Audit;
+import org.hisp.dhis.audit.AuditBuffer;
 import org.hisp.dhis.audit.AuditConsumer;
+import org.hisp.dhis.hibernate.objectmapper.ParseDateStdDeserializer;
 import org.hisp.dhis.render.RenderService;
 import org.hisp.dhis.trackedentity.TrackedEntityInstanceAudit;
 import org.hisp.dhis.trackedentity.TrackedEntityInstanceAuditService;
 import org.springframework.jms.annotation.JmsListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import javax.jms.TextMessage;
 import java.io.IOException;
+import java.util.Date;
 
 /**
- * Tracker audits consumer.
+ * Tracker audits consumer. Audits are decoded once and buffered, and written
+ * to the database in batches. Messages are acknowledged once their audit has
+ * been written.
  *
  * @author Morten Olav Hansen <morten@dhis2.org>
  */
@@ -53,20 +62,25 @@ public class TrackerAuditConsumer implements AuditConsumer
 {
     private static final Log log = LogFactory.getLog( TrackerAuditConsumer.class );
 
-    private final ObjectMapper mapper = new ObjectMapper();
+    private static final int BATCH_SIZE = 500;
+
+    private final ObjectMapper mapper = new ObjectMapper()
+        .registerModule( new SimpleModule().addDeserializer( Date.class, new ParseDateStdDeserializer() ) )
+        .disable( DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES );
 
-    private final TrackedEntityInstanceAuditService trackedEntityInstanceAuditService;
     private final RenderService renderService;
 
+    private final AuditBuffer<TrackedEntityInstanceAudit> buffer;
+
     public TrackerAuditConsumer(
         TrackedEntityInstanceAuditService trackedEntityInstanceAuditService,
         RenderService renderService )
     {
-        this.trackedEntityInstanceAuditService = trackedEntityInstanceAuditService;
         this.renderService = renderService;
+        this.buffer = new AuditBuffer<>( BATCH_SIZE, trackedEntityInstanceAuditService::addTrackedEntityInstanceAudits );
     }
 
-    @JmsListener( destination = Topics.TRACKER_TOPIC_NAME )
+    @JmsListener( destination = Topics.TRACKER_TOPIC_NAME, subscription = "dhis2.audit.tracker", containerFactory = "auditListenerContainerFactory" )
     public void consume( TextMessage message )
     {
         try
@@ -75,23 +89,43 @@ public class TrackerAuditConsumer implements AuditConsumer
 
             Audit auditMessage = renderService.fromJson( payload, Audit.class );
 
-            TrackedEntityInstanceAudit audit = toTrackedEntityInstanceAudit( (String) auditMessage.getData() );
-            trackedEntityInstanceAuditService.addTrackedEntityInstanceAudit( audit );
+            buffer.add( toTrackedEntityInstanceAudit( auditMessage.getData() ), () -> acknowledge( message ) );
         }
         catch ( IOException e )
         {
             log.error(
                 "An error occurred de-serializing the message payload. The message can not be de-serialized to an Audit object.",
                 e );
+
+            acknowledge( message );
         }
         catch ( Exception e )
         {
             log.error( "An error occurred persisting an Audit message of type 'TRACKER'", e );
+
+            acknowledge( message );
         }
     }
 
-    private TrackedEntityInstanceAudit toTrackedEntityInstanceAudit( String payload ) throws IOException
+    @Scheduled( fixedDelay = 5_000 )
+    @PreDestroy
+    public void flush()
+    {
+        buffer.flush();
+    }
+
+    /**
+     * Converts the audit data to a tracked entity instance audit. The data is
+     * an already decoded JSON object, or a JSON string for messages published
+     * by earlier versions.
+     */
+    private TrackedEntityInstanceAudit toTrackedEntityInstanceAudit( Object data ) throws IOException
     {
-        return renderService.fromJson( payload, TrackedEntityInstanceAudit.class );
+        if ( data instanceof String )
+        {
+            return renderService.fromJson( (String) data, TrackedEntityInstanceAudit.class );
+        }
+
+        return mapper.convertValue( data, TrackedEntityInstanceAudit.class );
     }
 }
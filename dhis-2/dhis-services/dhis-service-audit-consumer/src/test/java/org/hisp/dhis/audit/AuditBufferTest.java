@@ -0,0 +1,201 @@
+package org.hisp.dhis.audit;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class AuditBufferTest
+{
+    private List<List<String>> written;
+
+    private int failures;
+
+    private int attempts;
+
+    private long now;
+
+    private AtomicInteger acknowledged;
+
+    private AuditBuffer<String> buffer;
+
+    @Before
+    public void setUp()
+    {
+        written = new ArrayList<>();
+        failures = 0;
+        attempts = 0;
+        now = 1_000_000;
+        acknowledged = new AtomicInteger();
+
+        buffer = new AuditBuffer<>( 2, this::write, () -> now );
+    }
+
+    @Test
+    public void testAddFlushesFullBatch()
+    {
+        buffer.add( "A", acknowledged::incrementAndGet );
+
+        assertEquals( 0, written.size() );
+        assertEquals( 0, acknowledged.get() );
+
+        buffer.add( "B", acknowledged::incrementAndGet );
+
+        assertEquals( 1, written.size() );
+        assertEquals( Lists.newArrayList( "A", "B" ), written.get( 0 ) );
+        assertEquals( 2, acknowledged.get() );
+        assertEquals( 0, buffer.size() );
+    }
+
+    @Test
+    public void testFlushAcknowledgesOnListenerThread()
+    {
+        buffer.add( "A", acknowledged::incrementAndGet );
+
+        assertEquals( 1, buffer.flush() );
+        assertEquals( 1, written.size() );
+        assertEquals( 0, acknowledged.get() );
+
+        buffer.add( "B", acknowledged::incrementAndGet );
+
+        assertEquals( 1, acknowledged.get() );
+    }
+
+    @Test
+    public void testFailedFlushBacksOff()
+    {
+        failures = 1;
+
+        buffer.add( "A", acknowledged::incrementAndGet );
+        buffer.add( "B", acknowledged::incrementAndGet );
+
+        assertEquals( 1, attempts );
+        assertEquals( 2, buffer.size() );
+        assertTrue( buffer.isBackingOff() );
+
+        buffer.add( "C", acknowledged::incrementAndGet );
+        buffer.add( "D", acknowledged::incrementAndGet );
+
+        assertEquals( 0, buffer.flush() );
+        assertEquals( 1, attempts );
+        assertEquals( 4, buffer.size() );
+        assertEquals( 0, acknowledged.get() );
+
+        now += AuditBuffer.MIN_BACKOFF_MILLIS;
+
+        assertFalse( buffer.isBackingOff() );
+        assertEquals( 4, buffer.flush() );
+        assertEquals( 3, attempts );
+        assertEquals( 0, buffer.size() );
+
+        buffer.acknowledge();
+
+        assertEquals( 4, acknowledged.get() );
+    }
+
+    @Test
+    public void testBackoffDoublesPerFailedFlush()
+    {
+        failures = 2;
+
+        buffer.add( "A", acknowledged::incrementAndGet );
+        buffer.add( "B", acknowledged::incrementAndGet );
+
+        now += AuditBuffer.MIN_BACKOFF_MILLIS;
+
+        assertEquals( 0, buffer.flush() );
+        assertEquals( 2, attempts );
+
+        now += AuditBuffer.MIN_BACKOFF_MILLIS;
+
+        assertTrue( buffer.isBackingOff() );
+        assertEquals( 0, buffer.flush() );
+        assertEquals( 2, attempts );
+
+        now += AuditBuffer.MIN_BACKOFF_MILLIS;
+
+        assertEquals( 2, buffer.flush() );
+        assertEquals( 3, attempts );
+    }
+
+    @Test
+    public void testGiveUpAfterMaxAttempts()
+    {
+        failures = Integer.MAX_VALUE;
+
+        buffer.add( "A", acknowledged::incrementAndGet );
+        buffer.add( "B", acknowledged::incrementAndGet );
+
+        for ( int i = 2; i < AuditBuffer.MAX_ATTEMPTS; i++ )
+        {
+            now += AuditBuffer.MAX_BACKOFF_MILLIS;
+
+            buffer.flush();
+            buffer.acknowledge();
+
+            assertEquals( 2, buffer.size() );
+            assertEquals( 0, acknowledged.get() );
+        }
+
+        now += AuditBuffer.MAX_BACKOFF_MILLIS;
+
+        buffer.flush();
+
+        assertEquals( AuditBuffer.MAX_ATTEMPTS, attempts );
+        assertEquals( 0, buffer.size() );
+        assertEquals( 0, acknowledged.get() );
+
+        buffer.acknowledge();
+
+        assertEquals( 2, acknowledged.get() );
+        assertEquals( 0, written.size() );
+    }
+
+    private void write( List<String> items )
+    {
+        attempts++;
+
+        if ( failures-- > 0 )
+        {
+            throw new IllegalStateException( "Database unavailable" );
+        }
+
+        written.add( items );
+    }
+}
@@ -38,9 +38,11 @@ import org.hisp.dhis.external.conf.ConfigurationKey;
 import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.keyjsonvalue.KeyJsonValueService;
 import org.hisp.dhis.query.QueryParserException;
+import org.hisp.dhis.render.DefaultRenderService;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
 import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
@@ -95,6 +97,20 @@ public class DefaultAppManager
 
     private Cache<App> appCache;
 
+    /**
+     * Resolved local app resources by app key and page name. Resources which
+     * do not exist are cached as {@link #MISSING_RESOURCE}. Only existence is
+     * cached, content and modification time are read from the file.
+     */
+    private Cache<Resource> appResourceCache;
+
+    /**
+     * Rendered app manifests by app key and context path.
+     */
+    private Cache<byte[]> appManifestCache;
+
+    private static final Resource MISSING_RESOURCE = new ByteArrayResource( new byte[0], "Missing app resource" );
+
     // -------------------------------------------------------------------------
     // AppManagerService implementation
     // -------------------------------------------------------------------------
@@ -103,6 +119,10 @@ public class DefaultAppManager
     public void initCache()
     {
         appCache = cacheProvider.newCacheBuilder( App.class ).forRegion( "appCache" ).build();
+        appResourceCache = cacheProvider.newCacheBuilder( Resource.class ).forRegion( "appResourceCache" )
+            .withMaximumSize( 20000 ).forceInMemory().build();
+        appManifestCache = cacheProvider.newCacheBuilder( byte[].class ).forRegion( "appManifestCache" )
+            .withMaximumSize( 1000 ).forceInMemory().build();
         reloadApps();
     }
 
@@ -227,6 +247,7 @@ public class DefaultAppManager
         if ( app.getAppState().ok() )
         {
             appCache.put( app.getKey(), app );
+            invalidateAppResources();
         }
 
         return app.getAppState();
@@ -254,6 +275,7 @@ public class DefaultAppManager
         }
 
         appCache.invalidate( app.getKey() );
+        invalidateAppResources();
     }
 
     @Override
@@ -293,6 +315,8 @@ public class DefaultAppManager
         jCloudsAppStorageService.discoverInstalledApps().entrySet().stream()
             .filter( entry -> !appCache.getIfPresent( entry.getKey() ).isPresent() )
             .forEach( entry -> appCache.put( entry.getKey(), entry.getValue() ) );
+
+        invalidateAppResources();
     }
 
     @Override
@@ -326,7 +350,58 @@ public class DefaultAppManager
     public Resource getAppResource( App app, String pageName )
         throws IOException
     {
-        return getAppStorageServiceByApp( app ).getAppResource( app, pageName );
+        String key = app.getKey() + ":" + pageName;
+
+        Optional<Resource> cached = appResourceCache.getIfPresent( key );
+
+        if ( cached.isPresent() )
+        {
+            return cached.get() != MISSING_RESOURCE ? cached.get() : null;
+        }
+
+        Resource resource = getAppStorageServiceByApp( app ).getAppResource( app, pageName );
+
+        // Remote resources are resolved to signed and expiring URLs, and are not cached
+
+        if ( resource == null )
+        {
+            appResourceCache.put( key, MISSING_RESOURCE );
+        }
+        else if ( resource.isFile() )
+        {
+            appResourceCache.put( key, resource );
+        }
+
+        return resource;
+    }
+
+    @Override
+    public byte[] getAppManifest( App app, String contextPath )
+        throws IOException
+    {
+        String key = app.getKey() + ":" + contextPath;
+
+        Optional<byte[]> cached = appManifestCache.getIfPresent( key );
+
+        if ( cached.isPresent() )
+        {
+            return cached.get();
+        }
+
+        // Replace wildcard href with context path
+
+        if ( "*".equals( app.getActivities().getDhis().getHref() ) )
+        {
+            log.debug( String.format( "Manifest context path: '%s'", contextPath ) );
+
+            app.getActivities().getDhis().setHref( contextPath );
+        }
+
+        byte[] manifest = DefaultRenderService.getJsonMapper().writeValueAsBytes( app );
+
+        appManifestCache.put( key, manifest );
+
+        return manifest;
     }
 
     @Override
@@ -334,6 +409,7 @@ public class DefaultAppManager
     public void handleApplicationCachesCleared( ApplicationCacheClearedEvent event )
     {
         appCache.invalidateAll();
+        invalidateAppResources();
         log.info( "App cache cleared" );
     }
 
@@ -341,6 +417,12 @@ public class DefaultAppManager
     // Supportive methods
     // -------------------------------------------------------------------------
 
+    private void invalidateAppResources()
+    {
+        appResourceCache.invalidateAll();
+        appManifestCache.invalidateAll();
+    }
+
     private AppStorageService getAppStorageServiceByApp( App app )
     {
         if ( app != null && app.getAppStorageSource().equals( AppStorageSource.LOCAL ) )
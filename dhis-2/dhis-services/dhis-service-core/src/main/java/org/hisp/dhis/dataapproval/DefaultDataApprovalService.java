@@ -30,10 +30,15 @@ package org.hisp.dhis.dataapproval;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.IdentifiableObjectUtils;
 import org.hisp.dhis.common.ListMap;
+import org.hisp.dhis.commons.util.SystemUtils;
 import org.hisp.dhis.dataapproval.exceptions.DataApprovalNotFound;
 import org.hisp.dhis.dataapproval.exceptions.DataMayNotBeAcceptedException;
 import org.hisp.dhis.dataapproval.exceptions.DataMayNotBeApprovedException;
@@ -50,16 +55,24 @@ import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserCredentials;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -74,6 +87,12 @@ public class DefaultDataApprovalService
 {
     private final static Log log = LogFactory.getLog( DefaultDataApprovalService.class );
 
+    /**
+     * Maximum number of organisation units for which approval statuses are
+     * fetched in one query.
+     */
+    private static final int MAX_ORG_UNITS_PER_QUERY = 1000;
+
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -94,11 +113,15 @@ public class DefaultDataApprovalService
 
     private final SystemSettingManager systemSettingManager;
 
+    private final CacheProvider cacheProvider;
+
+    private final Environment env;
+
     public DefaultDataApprovalService( DataApprovalStore dataApprovalStore,
         DataApprovalAuditStore dataApprovalAuditStore, DataApprovalWorkflowStore workflowStore,
         DataApprovalLevelService dataApprovalLevelService, CurrentUserService currentUserService,
         OrganisationUnitService organisationUnitService, PeriodService periodService,
-        SystemSettingManager systemSettingManager )
+        SystemSettingManager systemSettingManager, CacheProvider cacheProvider, Environment env )
     {
         checkNotNull( dataApprovalStore );
         checkNotNull( dataApprovalAuditStore );
@@ -108,6 +131,8 @@ public class DefaultDataApprovalService
         checkNotNull( organisationUnitService );
         checkNotNull( periodService );
         checkNotNull( systemSettingManager );
+        checkNotNull( cacheProvider );
+        checkNotNull( env );
 
         this.dataApprovalStore = dataApprovalStore;
         this.dataApprovalAuditStore = dataApprovalAuditStore;
@@ -117,6 +142,27 @@ public class DefaultDataApprovalService
         this.organisationUnitService = organisationUnitService;
         this.periodService = periodService;
         this.systemSettingManager = systemSettingManager;
+        this.cacheProvider = cacheProvider;
+        this.env = env;
+    }
+
+    /**
+     * Cache of evaluated approval statuses, keyed by the signature of the
+     * user properties and the version of the data that the statuses depend
+     * on, and by the query.
+     */
+    private Cache<CachedStatus[]> statusCache;
+
+    @PostConstruct
+    public void init()
+    {
+        statusCache = cacheProvider.newCacheBuilder( CachedStatus[].class )
+            .forRegion( "dataApprovalStatus" )
+            .expireAfterWrite( 5, TimeUnit.MINUTES )
+            .withInitialCapacity( 1000 )
+            .forceInMemory()
+            .withMaximumSize( SystemUtils.isTestRun( env.getActiveProfiles() ) ? 0 : 20000 )
+            .build();
     }
 
     /**
@@ -146,6 +192,8 @@ public class DefaultDataApprovalService
     public void updateWorkflow( DataApprovalWorkflow dataApprovalWorkflow )
     {
         workflowStore.update( dataApprovalWorkflow );
+
+        statusCache.invalidateAll();
     }
 
     @Override
@@ -153,6 +201,8 @@ public class DefaultDataApprovalService
     public void deleteWorkflow( DataApprovalWorkflow workflow )
     {
         workflowStore.delete( workflow );
+
+        statusCache.invalidateAll();
     }
 
     @Override
@@ -192,7 +242,7 @@ public class DefaultDataApprovalService
 
         validateAttributeOptionCombos( dataApprovalList );
 
-        Map<String, DataApprovalStatus> statusMap = getStatusMap( dataApprovalList );
+        Map<String, DataApprovalStatus> statusMap = getStatusMap( dataApprovalList, false );
 
         List<DataApproval> checkedList = new ArrayList<>();
 
@@ -288,6 +338,8 @@ public class DefaultDataApprovalService
             dataApprovalStore.addDataApproval( da );
         }
 
+        statusCache.invalidateAll();
+
         log.info( "Approvals saved: " + checkedList.size() );
     }
 
@@ -299,7 +351,7 @@ public class DefaultDataApprovalService
 
         User currentUser = currentUserService.getCurrentUser();
 
-        Map<String, DataApprovalStatus> statusMap = getStatusMap( dataApprovalList );
+        Map<String, DataApprovalStatus> statusMap = getStatusMap( dataApprovalList, false );
 
         List<DataApproval> checkedList = new ArrayList<>();
 
@@ -339,6 +391,8 @@ public class DefaultDataApprovalService
             dataApprovalStore.deleteDataApproval( da );
         }
 
+        statusCache.invalidateAll();
+
         log.info( "Approvals deleted: " + dataApprovalList.size() );
     }
 
@@ -350,7 +404,7 @@ public class DefaultDataApprovalService
 
         User currentUser = currentUserService.getCurrentUser();
 
-        Map<String, DataApprovalStatus> statusMap = getStatusMap( dataApprovalList );
+        Map<String, DataApprovalStatus> statusMap = getStatusMap( dataApprovalList, false );
 
         List<DataApproval> checkedList = new ArrayList<>();
 
@@ -393,6 +447,8 @@ public class DefaultDataApprovalService
             dataApprovalStore.updateDataApproval( da );
         }
 
+        statusCache.invalidateAll();
+
         log.info( "Accepts saved: " + dataApprovalList.size() );
     }
 
@@ -404,7 +460,7 @@ public class DefaultDataApprovalService
 
         User currentUser = currentUserService.getCurrentUser();
 
-        Map<String, DataApprovalStatus> statusMap = getStatusMap( dataApprovalList );
+        Map<String, DataApprovalStatus> statusMap = getStatusMap( dataApprovalList, false );
 
         List<DataApproval> checkedList = new ArrayList<>();
 
@@ -446,6 +502,8 @@ public class DefaultDataApprovalService
             dataApprovalStore.updateDataApproval( da );
         }
 
+        statusCache.invalidateAll();
+
         log.info( "Accepts deleted: " + dataApprovalList.size() );
     }
 
@@ -477,21 +535,12 @@ public class DefaultDataApprovalService
     @Transactional
     public Map<DataApproval, DataApprovalStatus> getDataApprovalStatuses( List<DataApproval> dataApprovalList )
     {
-        Map<String, DataApprovalStatus> statusMap = getStatusMap( dataApprovalList );
-
-        DataApprovalPermissionsEvaluator permissionsEvaluator = makePermissionsEvaluator();
+        Map<String, DataApprovalStatus> statusMap = getStatusMap( dataApprovalList, true );
 
         Map<DataApproval, DataApprovalStatus> returnMap = new HashMap<>();
 
         for ( DataApproval da : dataApprovalList )
         {
-            DataApprovalStatus status = statusMap.get( daKey( da ) );
-
-            if ( status != null )
-            {
-                permissionsEvaluator.evaluatePermissions( status, da.getWorkflow() );
-            }
-
             returnMap.put( da, statusMap.get( daKey( da ) ) );
         }
 
@@ -550,20 +599,18 @@ public class DefaultDataApprovalService
     public List<DataApprovalStatus> getUserDataApprovalsAndPermissions( DataApprovalWorkflow workflow,
         Period period, OrganisationUnit orgUnit, CategoryCombo attributeCombo )
     {
-        List<DataApprovalStatus> statusList = dataApprovalStore.getDataApprovalStatuses(
-            workflow, period, orgUnit == null ? null : Lists.newArrayList( orgUnit ),
-            orgUnit == null ? 0 : orgUnit.getHierarchyLevel(), attributeCombo, null, dataApprovalLevelService
-                .getUserDataApprovalLevelsOrLowestLevel( currentUserService.getCurrentUser(), workflow ),
-            dataApprovalLevelService.getDataApprovalLevelMap() );
+        User user = currentUserService.getCurrentUser();
 
-        DataApprovalPermissionsEvaluator permissionsEvaluator = makePermissionsEvaluator();
+        List<OrganisationUnit> orgUnits = orgUnit == null ? null : Lists.newArrayList( orgUnit );
+        int orgUnitLevel = orgUnit == null ? 0 : orgUnit.getHierarchyLevel();
 
-        for ( DataApprovalStatus status : statusList )
-        {
-            permissionsEvaluator.evaluatePermissions( status, workflow );
-        }
+        String cacheKey = getCacheKey( getUserSignature( user ), workflow, period, orgUnits, orgUnitLevel, attributeCombo, null );
+
+        Map<Integer, DataApprovalLevel> levelMap = dataApprovalLevelService.getDataApprovalLevelMap();
 
-        return statusList;
+        return getStatuses( cacheKey, workflow, makePermissionsEvaluator(), levelMap, () -> dataApprovalStore.getDataApprovalStatuses(
+            workflow, period, orgUnits, orgUnitLevel, attributeCombo, null,
+            dataApprovalLevelService.getUserDataApprovalLevelsOrLowestLevel( user, workflow ), levelMap ) );
     }
 
     @Override
@@ -571,6 +618,8 @@ public class DefaultDataApprovalService
     public void deleteDataApprovals( OrganisationUnit organisationUnit )
     {
         dataApprovalStore.deleteDataApprovals( organisationUnit );
+
+        statusCache.invalidateAll();
     }
 
     // -------------------------------------------------------------------------
@@ -653,40 +702,205 @@ public class DefaultDataApprovalService
     /**
      * Returns a mapping from data approval key to data approval status for the given
      * list of data approvals.
+     *
+     * The statuses for all organisation units at the same hierarchy level,
+     * with the same period, workflow and set of attribute option combos, are
+     * fetched together in one query.
+     *
+     * @param dataApprovalList the data approvals.
+     * @param useCache whether statuses may come from the status cache. Must
+     *        be false when the statuses are used to check an approval action.
+     * @return map from data approval key to data approval status.
      */
-    private Map<String, DataApprovalStatus> getStatusMap( List<DataApproval> dataApprovalList )
+    private Map<String, DataApprovalStatus> getStatusMap( List<DataApproval> dataApprovalList, boolean useCache )
     {
         Map<String, DataApprovalStatus> statusMap = new HashMap<>();
 
+        if ( dataApprovalList.isEmpty() )
+        {
+            return statusMap;
+        }
+
+        User user = currentUserService.getCurrentUser();
+
+        Set<OrganisationUnit> userOrgUnits = user.getDataViewOrganisationUnitsWithFallback();
+
         DataApprovalPermissionsEvaluator evaluator = makePermissionsEvaluator();
 
-        ListMap<String, DataApproval> listMap = getIndexedListMap( dataApprovalList );
+        String signature = useCache ? getUserSignature( user ) : null;
+
+        Map<Integer, DataApprovalLevel> levelMap = dataApprovalLevelService.getDataApprovalLevelMap();
+
+        Map<DataApprovalWorkflow, List<DataApprovalLevel>> userApprovalLevelsMap = new HashMap<>();
 
-        for ( Map.Entry<String, List<DataApproval>> entry : listMap.entrySet() )
+        ListMap<String, List<DataApproval>> bulkMap = new ListMap<>();
+
+        for ( List<DataApproval> dataApprovals : getIndexedListMap( dataApprovalList ).values() )
         {
-            List<DataApproval> dataApprovals = entry.getValue();
+            OrganisationUnit orgUnit = dataApprovals.get( 0 ).getOrganisationUnit();
 
-            Set<OrganisationUnit> orgUnits = dataApprovals.stream().map( DataApproval::getOrganisationUnit ).collect( Collectors.toSet() );
+            if ( !orgUnit.isDescendant( userOrgUnits ) )
+            {
+                log.debug( "User " + user.getUsername() + " can't see orgUnit " + orgUnit.getName() );
 
-            DataApproval da = dataApprovals.get( 0 );
+                continue; // No status for org units the user can't see.
+            }
 
-            List<DataApprovalStatus> statuses = dataApprovalStore.getDataApprovalStatuses( da.getWorkflow(),
-                da.getPeriod(), orgUnits, da.getOrganisationUnit().getHierarchyLevel(), null,
-                getCategoryOptionCombos( dataApprovals ), dataApprovalLevelService
-                    .getUserDataApprovalLevelsOrLowestLevel( currentUserService.getCurrentUser(), da.getWorkflow() ),
-                dataApprovalLevelService.getDataApprovalLevelMap() );
+            bulkMap.putValue( bulkKey( dataApprovals ), dataApprovals );
+        }
 
-            for ( DataApprovalStatus status : statuses )
+        for ( List<List<DataApproval>> orgUnitApprovals : bulkMap.values() )
+        {
+            DataApproval da = orgUnitApprovals.get( 0 ).get( 0 );
+
+            Set<CategoryOptionCombo> attributeOptionCombos = getCategoryOptionCombos( orgUnitApprovals.get( 0 ) );
+
+            int orgUnitLevel = da.getOrganisationUnit().getHierarchyLevel();
+
+            List<DataApprovalLevel> userApprovalLevels = userApprovalLevelsMap.computeIfAbsent( da.getWorkflow(),
+                workflow -> dataApprovalLevelService.getUserDataApprovalLevelsOrLowestLevel( user, workflow ) );
+
+            List<OrganisationUnit> orgUnits = orgUnitApprovals.stream()
+                .map( approvals -> approvals.get( 0 ).getOrganisationUnit() )
+                .collect( Collectors.toList() );
+
+            for ( List<OrganisationUnit> orgUnitPartition : Lists.partition( orgUnits, MAX_ORG_UNITS_PER_QUERY ) )
             {
-                evaluator.evaluatePermissions( status, da.getWorkflow() );
+                String cacheKey = useCache ? getCacheKey( signature, da.getWorkflow(), da.getPeriod(),
+                    orgUnitPartition, orgUnitLevel, null, attributeOptionCombos ) : null;
 
-                statusMap.put( daKey( da, status.getOrganisationUnitUid(), status.getAttributeOptionComboUid() ), status );
+                List<DataApprovalStatus> statuses = getStatuses( cacheKey, da.getWorkflow(), evaluator, levelMap,
+                    () -> dataApprovalStore.getDataApprovalStatuses( da.getWorkflow(), da.getPeriod(), orgUnitPartition,
+                        orgUnitLevel, null, attributeOptionCombos, userApprovalLevels, levelMap ) );
+
+                for ( DataApprovalStatus status : statuses )
+                {
+                    statusMap.put( daKey( da, status.getOrganisationUnitUid(), status.getAttributeOptionComboUid() ), status );
+                }
             }
         }
 
         return statusMap;
     }
 
+    /**
+     * Gets approval statuses with their permissions evaluated, from the
+     * status cache if a cache key is given. Statuses are cached as immutable
+     * copies without persistent objects, and each call returns new statuses.
+     *
+     * @param cacheKey the cache key, or null to bypass the cache.
+     * @param workflow the workflow of the statuses.
+     * @param evaluator the permissions evaluator for the current user.
+     * @param levelMap map from level number to data approval level.
+     * @param query the query that fetches the statuses.
+     * @return the approval statuses.
+     */
+    private List<DataApprovalStatus> getStatuses( String cacheKey, DataApprovalWorkflow workflow,
+        DataApprovalPermissionsEvaluator evaluator, Map<Integer, DataApprovalLevel> levelMap,
+        Supplier<List<DataApprovalStatus>> query )
+    {
+        Supplier<List<DataApprovalStatus>> evaluatedQuery = () -> {
+            List<DataApprovalStatus> statuses = query.get();
+
+            for ( DataApprovalStatus status : statuses )
+            {
+                evaluator.evaluatePermissions( status, workflow );
+            }
+
+            return statuses;
+        };
+
+        if ( cacheKey == null )
+        {
+            return evaluatedQuery.get();
+        }
+
+        CachedStatus[] cachedStatuses = statusCache.get( cacheKey, key -> evaluatedQuery.get().stream()
+            .map( CachedStatus::new ).toArray( CachedStatus[]::new ) ).orElse( new CachedStatus[0] );
+
+        return Arrays.stream( cachedStatuses )
+            .map( cachedStatus -> cachedStatus.toStatus( levelMap ) )
+            .collect( Collectors.toList() );
+    }
+
+    /**
+     * Returns a signature of the user properties that approval statuses and
+     * permissions depend on: authorities, user groups, organisation units,
+     * dimension constraints and the approval system settings, together with
+     * the version of the persisted data they depend on. Users with the same
+     * signature see the same statuses, so they can share cached results, and
+     * a change of the data on any server leads to a new signature.
+     * <p>
+     * Category options may also be visible to the user who owns them, so the
+     * signature of a user who may create category options includes the user.
+     *
+     * @param user the user.
+     * @return the user signature.
+     */
+    private String getUserSignature( User user )
+    {
+        UserCredentials credentials = user.getUserCredentials();
+
+        boolean mayOwnCategoryOptions = !credentials.isSuper() &&
+            ( credentials.isAuthorized( "F_CATEGORY_OPTION_PUBLIC_ADD" ) || credentials.isAuthorized( "F_CATEGORY_OPTION_PRIVATE_ADD" ) );
+
+        String signature = credentials.isSuper()
+            + "|" + getSortedJoined( credentials.getAllAuthorities() )
+            + "|" + getSortedUids( user.getGroups() )
+            + "|" + getSortedUids( user.getOrganisationUnits() )
+            + "|" + getSortedUids( user.getDataViewOrganisationUnitsWithFallback() )
+            + "|" + getSortedUids( credentials.getCogsDimensionConstraints() )
+            + "|" + getSortedUids( credentials.getCatDimensionConstraints() )
+            + "|" + systemSettingManager.getSystemSetting( SettingKey.ACCEPTANCE_REQUIRED_FOR_APPROVAL )
+            + "|" + systemSettingManager.hideUnapprovedDataInAnalytics()
+            + "|" + ( mayOwnCategoryOptions ? user.getUid() : "" )
+            + "|" + dataApprovalStore.getDataApprovalVersion();
+
+        return Hashing.sha256().hashString( signature, StandardCharsets.UTF_8 ).toString();
+    }
+
+    /**
+     * Returns a status cache key for a user signature and query.
+     */
+    private String getCacheKey( String signature, DataApprovalWorkflow workflow, Period period,
+        Collection<OrganisationUnit> orgUnits, int orgUnitLevel, CategoryCombo attributeCombo,
+        Set<CategoryOptionCombo> attributeOptionCombos )
+    {
+        return signature
+            + "-" + workflow.getUid()
+            + "-" + period.getIsoDate()
+            + "-" + ( orgUnits == null ? "all" : getSortedUids( orgUnits ) )
+            + "-" + orgUnitLevel
+            + "-" + ( attributeCombo == null ? "" : attributeCombo.getUid() )
+            + "-" + ( attributeOptionCombos == null ? "" : getSortedUids( attributeOptionCombos ) );
+    }
+
+    private String getSortedUids( Collection<? extends IdentifiableObject> objects )
+    {
+        return objects == null ? "" : getSortedJoined( IdentifiableObjectUtils.getUids( objects ) );
+    }
+
+    private String getSortedJoined( Collection<String> strings )
+    {
+        return strings == null ? "" : strings.stream().sorted().collect( Collectors.joining( "," ) );
+    }
+
+    /**
+     * Returns a key for the statuses of an organisation unit, period and
+     * workflow that can be fetched in one query together with those of other
+     * organisation units: the organisation unit hierarchy level, period,
+     * workflow and the set of attribute option combos.
+     */
+    private String bulkKey( List<DataApproval> dataApprovals )
+    {
+        DataApproval approval = dataApprovals.get( 0 );
+
+        return approval.getOrganisationUnit().getHierarchyLevel() +
+            IdentifiableObjectUtils.SEPARATOR + approval.getPeriod().getIsoDate() +
+            IdentifiableObjectUtils.SEPARATOR + approval.getWorkflow().getId() +
+            IdentifiableObjectUtils.SEPARATOR + getSortedUids( getCategoryOptionCombos( dataApprovals ) );
+    }
+
     /**
      * Returns an indexed map where the key is based on each distinct
      * combination of organisation unit level, period, and workflow.
@@ -835,4 +1049,76 @@ public class DefaultDataApprovalService
         return DataApprovalPermissionsEvaluator.makePermissionsEvaluator(
             currentUserService, organisationUnitService, systemSettingManager, dataApprovalLevelService );
     }
+
+    /**
+     * Immutable copy of an evaluated approval status for the status cache,
+     * which refers to approval levels by level number instead of holding
+     * persistent objects.
+     */
+    private static final class CachedStatus
+    {
+        private final DataApprovalState state;
+
+        private final Integer approvedLevel;
+
+        private final int approvedOrgUnitId;
+
+        private final Integer actionLevel;
+
+        private final String organisationUnitUid;
+
+        private final String organisationUnitName;
+
+        private final String attributeOptionComboUid;
+
+        private final boolean accepted;
+
+        private final boolean mayApprove;
+
+        private final boolean mayUnapprove;
+
+        private final boolean mayAccept;
+
+        private final boolean mayUnaccept;
+
+        private final boolean mayReadData;
+
+        private final String permissionsState;
+
+        private CachedStatus( DataApprovalStatus status )
+        {
+            DataApprovalPermissions permissions = status.getPermissions();
+
+            this.state = status.getState();
+            this.approvedLevel = status.getApprovedLevel() == null ? null : status.getApprovedLevel().getLevel();
+            this.approvedOrgUnitId = status.getApprovedOrgUnitId();
+            this.actionLevel = status.getActionLevel() == null ? null : status.getActionLevel().getLevel();
+            this.organisationUnitUid = status.getOrganisationUnitUid();
+            this.organisationUnitName = status.getOrganisationUnitName();
+            this.attributeOptionComboUid = status.getAttributeOptionComboUid();
+            this.accepted = status.isAccepted();
+            this.mayApprove = permissions != null && permissions.isMayApprove();
+            this.mayUnapprove = permissions != null && permissions.isMayUnapprove();
+            this.mayAccept = permissions != null && permissions.isMayAccept();
+            this.mayUnaccept = permissions != null && permissions.isMayUnaccept();
+            this.mayReadData = permissions != null && permissions.isMayReadData();
+            this.permissionsState = permissions == null ? null : permissions.getState();
+        }
+
+        private DataApprovalStatus toStatus( Map<Integer, DataApprovalLevel> levelMap )
+        {
+            DataApprovalPermissions permissions = new DataApprovalPermissions();
+            permissions.setMayApprove( mayApprove );
+            permissions.setMayUnapprove( mayUnapprove );
+            permissions.setMayAccept( mayAccept );
+            permissions.setMayUnaccept( mayUnaccept );
+            permissions.setMayReadData( mayReadData );
+            permissions.setState( permissionsState );
+
+            return new DataApprovalStatus( state,
+                approvedLevel == null ? null : levelMap.get( approvedLevel ), approvedOrgUnitId,
+                actionLevel == null ? null : levelMap.get( actionLevel ),
+                organisationUnitUid, organisationUnitName, attributeOptionComboUid, accepted, permissions );
+        }
+    }
 }
@@ -269,6 +269,14 @@ public class HibernateDataApprovalStore
         return jdbcTemplate.queryForList( sql ).size() > 0;
     }
 
+    @Override
+    public String getDataApprovalVersion()
+    {
+        Long version = jdbcTemplate.queryForObject( "select max(version) from dataapprovalversion", Long.class );
+
+        return String.valueOf( version );
+    }
+
     @Override
     public List<DataApprovalStatus> getDataApprovalStatuses( DataApprovalWorkflow workflow,
         Period period, Collection<OrganisationUnit> orgUnits, int orgUnitLevel,
@@ -421,7 +429,7 @@ public class HibernateDataApprovalStore
         {
             orgUnitIds = StringUtils.join( IdentifiableObjectUtils.getIdentifiers( orgUnits ), "," );
 
-            highestApprovedOrgUnitCompare = "da.organisationunitid in (" + orgUnitIds + ") ";
+            highestApprovedOrgUnitCompare = "da.organisationunitid = o.organisationunitid ";
         }
         else
         {
@@ -36,6 +36,7 @@ import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -333,6 +334,13 @@ public class DefaultDataValueService
         return dataValueStore.getDeflatedDataValues( params );
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void getDeflatedDataValues( DataExportParams params, Consumer<DeflatedDataValue> consumer )
+    {
+        dataValueStore.getDeflatedDataValues( params, consumer );
+    }
+
     @Override
     @Transactional(readOnly = true)
     public int getDataValueCount( int days )
@@ -32,11 +32,13 @@ import static org.hisp.dhis.common.IdentifiableObjectUtils.getIdentifiers;
 import static org.hisp.dhis.commons.util.TextUtils.getCommaDelimitedString;
 import static org.hisp.dhis.commons.util.TextUtils.removeLastOr;
 
+import java.sql.PreparedStatement;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -64,6 +66,7 @@ import org.hisp.dhis.period.PeriodStore;
 import org.hisp.dhis.util.DateUtils;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 
 import com.google.common.collect.Sets;
@@ -78,6 +81,8 @@ public class HibernateDataValueStore extends HibernateGenericStore<DataValue>
 {
     private static final Log log = LogFactory.getLog( HibernateDataValueStore.class );
 
+    private static final int DEFLATED_FETCH_SIZE = 10000;
+
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -335,6 +340,55 @@ public class HibernateDataValueStore extends HibernateGenericStore<DataValue>
 
     @Override
     public List<DeflatedDataValue> getDeflatedDataValues( DataExportParams params )
+    {
+        String sql = getDeflatedDataValuesSql( params );
+
+        SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
+
+        List<DeflatedDataValue> result = new ArrayList<>();
+
+        while ( rowSet.next() )
+        {
+            Integer dataElementId = rowSet.getInt( 1 );
+            Integer periodId = rowSet.getInt( 2 );
+            Integer organisationUnitId = rowSet.getInt( 3 );
+            Integer categoryOptionComboId = rowSet.getInt( 4 );
+            Integer attributeOptionComboId = rowSet.getInt( 5 );
+            String value = rowSet.getString( 6 );
+            String storedBy = rowSet.getString( 7 );
+            Date created = rowSet.getDate( 8 );
+            Date lastUpdated = rowSet.getDate( 9 );
+            String comment = rowSet.getString( 10 );
+            boolean followup = rowSet.getBoolean( 11 );
+
+            result.add( new DeflatedDataValue( dataElementId, periodId,
+                organisationUnitId, categoryOptionComboId, attributeOptionComboId,
+                value, storedBy, created, lastUpdated, comment, followup ) );
+        }
+
+        log.debug( result.size() + " DeflatedDataValues returned from: " + sql );
+
+        return result;
+    }
+
+    @Override
+    public void getDeflatedDataValues( DataExportParams params, Consumer<DeflatedDataValue> consumer )
+    {
+        String sql = getDeflatedDataValuesSql( params );
+
+        log.debug( "Streaming DeflatedDataValues from: " + sql );
+
+        jdbcTemplate.query( con -> {
+            PreparedStatement statement = con.prepareStatement( sql );
+            statement.setFetchSize( DEFLATED_FETCH_SIZE );
+            return statement;
+        }, ( RowCallbackHandler ) rs -> consumer.accept( new DeflatedDataValue(
+            rs.getInt( 1 ), rs.getInt( 2 ), rs.getInt( 3 ), rs.getInt( 4 ), rs.getInt( 5 ),
+            rs.getString( 6 ), rs.getString( 7 ), rs.getDate( 8 ), rs.getDate( 9 ),
+            rs.getString( 10 ), rs.getBoolean( 11 ) ) ) );
+    }
+
+    private String getDeflatedDataValuesSql( DataExportParams params )
     {
         SqlHelper sqlHelper = new SqlHelper( true );
 
@@ -391,7 +445,9 @@ public class HibernateDataValueStore extends HibernateGenericStore<DataValue>
             }
             else if ( params.hasIncludedDate() )
             {
-                where += sqlHelper.whereAnd() + "p.startdate <= '" + DateUtils.getMediumDateString( params.getIncludedDate() ) + "'"
+                Date includedEndDate = params.hasIncludedEndDate() ? params.getIncludedEndDate() : params.getIncludedDate();
+
+                where += sqlHelper.whereAnd() + "p.startdate <= '" + DateUtils.getMediumDateString( includedEndDate ) + "'"
                     + " and p.enddate >= '" + DateUtils.getMediumDateString( params.getIncludedDate() ) + "'";
             }
         }
@@ -443,7 +499,7 @@ public class HibernateDataValueStore extends HibernateGenericStore<DataValue>
 
         if ( params.hasLastUpdated() )
         {
-            where += sqlHelper.whereAnd() + "dv.lastupdated >= " + DateUtils.getMediumDateString( params.getLastUpdated() );
+            where += sqlHelper.whereAnd() + "dv.lastupdated >= '" + DateUtils.getLongDateString( params.getLastUpdated() ) + "'";
         }
 
         if ( !params.isIncludeDeleted() )
@@ -453,32 +509,7 @@ public class HibernateDataValueStore extends HibernateGenericStore<DataValue>
 
         sql += where;
 
-        SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
-
-        List<DeflatedDataValue> result = new ArrayList<>();
-
-        while ( rowSet.next() )
-        {
-            Integer dataElementId = rowSet.getInt( 1 );
-            Integer periodId = rowSet.getInt( 2 );
-            Integer organisationUnitId = rowSet.getInt( 3 );
-            Integer categoryOptionComboId = rowSet.getInt( 4 );
-            Integer attributeOptionComboId = rowSet.getInt( 5 );
-            String value = rowSet.getString( 6 );
-            String storedBy = rowSet.getString( 7 );
-            Date created = rowSet.getDate( 8 );
-            Date lastUpdated = rowSet.getDate( 9 );
-            String comment = rowSet.getString( 10 );
-            boolean followup = rowSet.getBoolean( 11 );
-
-            result.add( new DeflatedDataValue( dataElementId, periodId,
-                organisationUnitId, categoryOptionComboId, attributeOptionComboId,
-                value, storedBy, created, lastUpdated, comment, followup ) );
-        }
-
-        log.debug( result.size() + " DeflatedDataValues returned from: " + sql );
-
-        return result;
+        return sql;
     }
 
     @Override
@@ -54,6 +54,7 @@ import org.hisp.dhis.organisationunit.comparator.OrganisationUnitLevelComparator
 import org.hisp.dhis.system.filter.OrganisationUnitPolygonCoveringCoordinateFilter;
 import org.hisp.dhis.system.util.GeoUtils;
 import org.hisp.dhis.system.util.ValidationUtils;
+import org.hisp.dhis.user.CurrentUserContext;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.user.UserSettingKey;
@@ -61,6 +62,8 @@ import org.hisp.dhis.user.UserSettingService;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.google.common.collect.Sets;
 
@@ -73,6 +76,8 @@ public class DefaultOrganisationUnitService
 {
     private static final String LEVEL_PREFIX = "Level ";
 
+    private static final Object HIERARCHY_INTERVALS_UPDATE_KEY = new Object();
+
     private static Cache<Boolean> IN_USER_ORG_UNIT_HIERARCHY_CACHE;
     
     private static Cache<Boolean> IN_USER_ORG_UNIT_SEARCH_HIERARCHY_CACHE;
@@ -164,6 +169,8 @@ public class DefaultOrganisationUnitService
             user.getOrganisationUnits().add( organisationUnit );
         }
 
+        updateHierarchyIntervalsBeforeCommit( organisationUnit.getId() );
+
         return organisationUnit.getId();
     }
 
@@ -171,7 +178,14 @@ public class DefaultOrganisationUnitService
     @Transactional
     public void updateOrganisationUnit( OrganisationUnit organisationUnit )
     {
+        boolean moved = !organisationUnit.getPath().equals( organisationUnitStore.getPersistedPath( organisationUnit.getId() ) );
+
         organisationUnitStore.update( organisationUnit );
+
+        if ( moved )
+        {
+            updateHierarchyIntervalsBeforeCommit( organisationUnit.getId() );
+        }
     }
 
     @Override
@@ -468,7 +482,9 @@ public class DefaultOrganisationUnitService
     @Transactional(readOnly = true)
     public boolean isInUserHierarchy( OrganisationUnit organisationUnit )
     {
-        return isInUserHierarchy( currentUserService.getCurrentUser(), organisationUnit );
+        CurrentUserContext context = currentUserService.getCurrentUserContext();
+
+        return context != null && context.isInDataCaptureHierarchy( organisationUnit.getPath() );
     }
 
     @Override
@@ -503,7 +519,9 @@ public class DefaultOrganisationUnitService
     @Transactional(readOnly = true)
     public boolean isInUserSearchHierarchy( OrganisationUnit organisationUnit )
     {
-        return isInUserSearchHierarchy( currentUserService.getCurrentUser(), organisationUnit );
+        CurrentUserContext context = currentUserService.getCurrentUserContext();
+
+        return context != null && context.isInSearchHierarchy( organisationUnit.getPath() );
     }
 
     @Override
@@ -775,6 +793,62 @@ public class DefaultOrganisationUnitService
     public void forceUpdatePaths()
     {
         organisationUnitStore.forceUpdatePaths();
+        organisationUnitStore.updateHierarchyIntervals();
+    }
+
+    @Override
+    @Transactional
+    public void updateHierarchyIntervals()
+    {
+        organisationUnitStore.updateHierarchyIntervals();
+    }
+
+    @Override
+    @Transactional
+    public void updateHierarchyIntervals( Collection<Long> organisationUnitIds )
+    {
+        organisationUnitStore.updateHierarchyIntervals( organisationUnitIds );
+    }
+
+    /**
+     * Updates the hierarchy intervals of the given added or moved organisation
+     * unit just before the current transaction commits, together with the
+     * other organisation units added or moved in the same transaction. Updates
+     * the intervals immediately when there is no active transaction.
+     */
+    @SuppressWarnings( "unchecked" )
+    private void updateHierarchyIntervalsBeforeCommit( long organisationUnitId )
+    {
+        if ( !TransactionSynchronizationManager.isSynchronizationActive() )
+        {
+            organisationUnitStore.updateHierarchyIntervals( Sets.newHashSet( organisationUnitId ) );
+            return;
+        }
+
+        if ( TransactionSynchronizationManager.hasResource( HIERARCHY_INTERVALS_UPDATE_KEY ) )
+        {
+            ( (Set<Long>) TransactionSynchronizationManager.getResource( HIERARCHY_INTERVALS_UPDATE_KEY ) ).add( organisationUnitId );
+            return;
+        }
+
+        Set<Long> organisationUnitIds = Sets.newHashSet( organisationUnitId );
+
+        TransactionSynchronizationManager.bindResource( HIERARCHY_INTERVALS_UPDATE_KEY, organisationUnitIds );
+
+        TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter()
+        {
+            @Override
+            public void beforeCommit( boolean readOnly )
+            {
+                organisationUnitStore.updateHierarchyIntervals( organisationUnitIds );
+            }
+
+            @Override
+            public void afterCompletion( int status )
+            {
+                TransactionSynchronizationManager.unbindResourceIfPossible( HIERARCHY_INTERVALS_UPDATE_KEY );
+            }
+        } );
     }
 
     @Override
@@ -32,8 +32,10 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.hibernate.Cache;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionImplementor;
 import org.hibernate.query.Query;
 import org.hisp.dhis.common.IdentifiableObjectUtils;
 import org.hisp.dhis.common.hibernate.HibernateIdentifiableObjectStore;
@@ -55,14 +57,20 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.Assert;
 
+import com.google.common.collect.Lists;
+
 import java.sql.Timestamp;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -76,6 +84,20 @@ public class HibernateOrganisationUnitStore
 {
     private static final Log log = LogFactory.getLog( HibernateOrganisationUnitStore.class );
 
+    private static final int MAX_EVICTED_ENTITIES = 1000;
+
+    /**
+     * Highest hierarchy interval value.
+     */
+    private static final long MAX_HIERARCHY_END = Integer.MAX_VALUE;
+
+    /**
+     * Number of interval values reserved per organisation unit when a subtree
+     * is placed in free space, which leaves room for organisation units added
+     * later without renumbering the rest of the hierarchy.
+     */
+    private static final long HIERARCHY_GAP = 16;
+
     private final DbmsManager dbmsManager;
 
     public HibernateOrganisationUnitStore( SessionFactory sessionFactory, JdbcTemplate jdbcTemplate,
@@ -328,6 +350,326 @@ public class HibernateOrganisationUnitStore
         updatePaths( organisationUnits );
     }
 
+    @Override
+    public int updateHierarchyIntervals()
+    {
+        getSession().flush();
+
+        return updateHierarchyIntervals( getInvalidHierarchyIntervals( null ) );
+    }
+
+    @Override
+    public int updateHierarchyIntervals( Collection<Long> organisationUnitIds )
+    {
+        if ( organisationUnitIds == null || organisationUnitIds.isEmpty() )
+        {
+            return 0;
+        }
+
+        getSession().flush();
+
+        Map<Long, String> invalid = new HashMap<>();
+
+        for ( List<Long> ids : Lists.partition( new ArrayList<>( organisationUnitIds ), MAX_EVICTED_ENTITIES ) )
+        {
+            invalid.putAll( getInvalidHierarchyIntervals( "x.organisationunitid in (" + TextUtils.getCommaDelimitedString( ids ) + ")" ) );
+        }
+
+        return updateHierarchyIntervals( invalid );
+    }
+
+    /**
+     * Returns the organisation units with a missing or inconsistent hierarchy
+     * interval, which is an interval not strictly within the interval of the
+     * parent, or overlapping the interval of a sibling.
+     *
+     * @param filter an optional SQL restriction on the organisation unit
+     *        aliased as x.
+     * @return a mapping of organisation unit identifier to path.
+     */
+    private Map<Long, String> getInvalidHierarchyIntervals( String filter )
+    {
+        final String sql =
+            "select x.organisationunitid, x.path from organisationunit x " +
+            "left join organisationunit p on x.parentid = p.organisationunitid " +
+            "where x.path is not null " + ( filter != null ? "and " + filter + " " : "" ) +
+            "and (x.hierarchystart is null or x.hierarchyend is null or x.hierarchyend < x.hierarchystart " +
+            "or (p.organisationunitid is not null and (p.hierarchystart is null or p.hierarchyend is null " +
+            "or x.hierarchystart <= p.hierarchystart or x.hierarchyend > p.hierarchyend)) " +
+            "or exists (select 1 from organisationunit s " +
+            "where (s.parentid = x.parentid or (s.parentid is null and x.parentid is null)) " +
+            "and s.organisationunitid <> x.organisationunitid " +
+            "and s.hierarchystart <= x.hierarchyend and s.hierarchyend >= x.hierarchystart))";
+
+        Map<Long, String> invalid = new HashMap<>();
+
+        jdbcTemplate.query( sql, rs -> {
+            invalid.put( rs.getLong( "organisationunitid" ), rs.getString( "path" ) );
+        } );
+
+        return invalid;
+    }
+
+    /**
+     * Places the subtrees of the given organisation units, topmost first, in
+     * free space of the parent interval. When the parent interval has no room
+     * left, the subtree of the closest ancestor with enough room is renumbered
+     * within the interval of that ancestor, and as a last resort the whole
+     * hierarchy is renumbered.
+     *
+     * @param invalid a mapping of organisation unit identifier to path.
+     * @return the number of organisation units which were updated.
+     */
+    private int updateHierarchyIntervals( Map<Long, String> invalid )
+    {
+        if ( invalid.isEmpty() )
+        {
+            return 0;
+        }
+
+        List<String> paths = invalid.values().stream().sorted().collect( Collectors.toList() );
+        List<String> renumbered = new ArrayList<>();
+        int count = 0;
+
+        for ( String path : paths )
+        {
+            if ( renumbered.stream().noneMatch( path::startsWith ) )
+            {
+                count += placeSubtree( path, invalid.keySet(), renumbered );
+            }
+        }
+
+        log.info( String.format( "Updated hierarchy intervals for %d organisation units", count ) );
+
+        return count;
+    }
+
+    private int placeSubtree( String path, Set<Long> invalidIds, List<String> renumbered )
+    {
+        List<Object[]> subtree = getHierarchySubtree( path );
+        Long parentId = (Long) subtree.get( 0 )[1];
+        Long unitId = (Long) subtree.get( 0 )[0];
+
+        Object[] parent = parentId != null ? getHierarchyInterval( parentId ) : new Object[] { 0, (int) MAX_HIERARCHY_END };
+
+        if ( parent[0] != null && parent[1] != null )
+        {
+            final String sql = "select organisationunitid, hierarchyend from organisationunit where " +
+                ( parentId != null ? "parentid = " + parentId : "parentid is null" ) + " and hierarchyend is not null";
+
+            long used = (Integer) parent[0];
+
+            for ( Object[] sibling : jdbcTemplate.query( sql, ( rs, rowNum ) -> new Object[] {
+                rs.getLong( "organisationunitid" ), rs.getInt( "hierarchyend" ) } ) )
+            {
+                if ( !unitId.equals( sibling[0] ) && !invalidIds.contains( sibling[0] ) )
+                {
+                    used = Math.max( used, (Integer) sibling[1] );
+                }
+            }
+
+            long available = (Integer) parent[1] - used;
+            long size = subtree.size();
+
+            if ( available >= size )
+            {
+                long width = Math.min( available, Math.max( size, Math.min( size * HIERARCHY_GAP, available / 2 ) ) );
+
+                renumbered.add( path );
+                return numberHierarchySubtree( subtree, used + 1, used + width );
+            }
+        }
+
+        String ancestorPath = getParentPath( path );
+
+        while ( !ancestorPath.isEmpty() )
+        {
+            List<Object[]> ancestorSubtree = getHierarchySubtree( ancestorPath );
+            Integer start = (Integer) ancestorSubtree.get( 0 )[3];
+            Integer end = (Integer) ancestorSubtree.get( 0 )[4];
+
+            if ( start != null && end != null && end - start + 1 >= ancestorSubtree.size() )
+            {
+                renumbered.add( ancestorPath );
+                return numberHierarchySubtree( ancestorSubtree, start, end );
+            }
+
+            ancestorPath = getParentPath( ancestorPath );
+        }
+
+        renumbered.add( "" );
+        return numberHierarchySubtree( getHierarchySubtree( "" ), 1, MAX_HIERARCHY_END );
+    }
+
+    /**
+     * Returns the given organisation unit and its descendants as identifier,
+     * parent identifier, path, hierarchy start and hierarchy end, ordered by
+     * path, which corresponds to a pre-order traversal. An empty path returns
+     * the whole hierarchy.
+     */
+    private List<Object[]> getHierarchySubtree( String path )
+    {
+        final String sql = "select organisationunitid, parentid, path, hierarchystart, hierarchyend " +
+            "from organisationunit where path like ?";
+
+        List<Object[]> units = jdbcTemplate.query( sql, ( rs, rowNum ) -> new Object[] {
+            rs.getLong( "organisationunitid" ), rs.getObject( "parentid", Long.class ), rs.getString( "path" ),
+            rs.getObject( "hierarchystart", Integer.class ), rs.getObject( "hierarchyend", Integer.class ) },
+            path + "%" );
+
+        units.sort( Comparator.comparing( ( Object[] unit ) -> (String) unit[2] ) );
+
+        return units;
+    }
+
+    private Object[] getHierarchyInterval( long id )
+    {
+        return jdbcTemplate.queryForObject( "select hierarchystart, hierarchyend from organisationunit where organisationunitid = ?",
+            ( rs, rowNum ) -> new Object[] { rs.getObject( "hierarchystart", Integer.class ), rs.getObject( "hierarchyend", Integer.class ) }, id );
+    }
+
+    private static String getParentPath( String path )
+    {
+        return path.substring( 0, path.lastIndexOf( "/" ) );
+    }
+
+    /**
+     * Numbers the given subtrees in pre-order within the given bounds. Each
+     * organisation unit gets an interval as wide as its number of descendants,
+     * including itself, times the gap, which leaves free space at the end of
+     * each interval for organisation units added later. Only rows with a
+     * changed interval are written.
+     *
+     * @param units the subtrees ordered by path.
+     * @param lower the lowest interval value to use.
+     * @param upper the highest interval value to use.
+     * @return the number of organisation units which were updated.
+     */
+    private int numberHierarchySubtree( List<Object[]> units, long lower, long upper )
+    {
+        long gap = ( upper - lower + 1 ) / units.size();
+        int[] sizes = new int[units.size()];
+        Deque<Integer> ancestors = new ArrayDeque<>();
+
+        for ( int i = 0; i < units.size(); i++ )
+        {
+            while ( !ancestors.isEmpty() && !isDescendant( units.get( i ), units.get( ancestors.peek() ) ) )
+            {
+                int ancestor = ancestors.pop();
+                sizes[ancestor] = i - ancestor;
+            }
+
+            ancestors.push( i );
+        }
+
+        while ( !ancestors.isEmpty() )
+        {
+            int ancestor = ancestors.pop();
+            sizes[ancestor] = units.size() - ancestor;
+        }
+
+        long[] next = new long[units.size()];
+        long nextRoot = lower;
+        List<Object[]> changes = new ArrayList<>();
+
+        for ( int i = 0; i < units.size(); i++ )
+        {
+            while ( !ancestors.isEmpty() && !isDescendant( units.get( i ), units.get( ancestors.peek() ) ) )
+            {
+                ancestors.pop();
+            }
+
+            long start = ancestors.isEmpty() ? nextRoot : next[ancestors.peek()];
+            long end = start + sizes[i] * gap - 1;
+
+            if ( ancestors.isEmpty() )
+            {
+                nextRoot = end + 1;
+            }
+            else
+            {
+                next[ancestors.peek()] = end + 1;
+            }
+
+            next[i] = start + 1;
+            ancestors.push( i );
+
+            Object[] unit = units.get( i );
+
+            if ( !Integer.valueOf( (int) start ).equals( unit[3] ) || !Integer.valueOf( (int) end ).equals( unit[4] ) )
+            {
+                changes.add( new Object[] { (int) start, (int) end, unit[0] } );
+            }
+        }
+
+        if ( !changes.isEmpty() )
+        {
+            jdbcTemplate.batchUpdate( "update organisationunit set hierarchystart = ?, hierarchyend = ? where organisationunitid = ?", changes );
+
+            refreshHierarchyIntervals( changes );
+        }
+
+        return changes.size();
+    }
+
+    private static boolean isDescendant( Object[] unit, Object[] ancestor )
+    {
+        return ( (String) unit[2] ).startsWith( ancestor[2] + "/" );
+    }
+
+    /**
+     * Sets the given changed intervals on the organisation units loaded in
+     * the current session, and evicts the changed organisation units from the
+     * second-level cache, which removes them on other nodes of a cluster
+     * through cache replication. The interval properties are not updatable,
+     * so setting them does not make the organisation units dirty.
+     *
+     * @param changes the changes as start, end and identifier.
+     */
+    private void refreshHierarchyIntervals( List<Object[]> changes )
+    {
+        Map<Long, Object[]> changesById = new HashMap<>();
+
+        for ( Object[] change : changes )
+        {
+            changesById.put( (Long) change[2], change );
+        }
+
+        for ( Object entity : getSession().unwrap( SessionImplementor.class ).getPersistenceContext().getEntitiesByKey().values() )
+        {
+            if ( entity instanceof OrganisationUnit )
+            {
+                OrganisationUnit unit = (OrganisationUnit) entity;
+                Object[] change = changesById.get( unit.getId() );
+
+                if ( change != null )
+                {
+                    unit.setHierarchyStart( (Integer) change[0] );
+                    unit.setHierarchyEnd( (Integer) change[1] );
+                }
+            }
+        }
+
+        Cache cache = getSession().getSessionFactory().getCache();
+
+        if ( changes.size() > MAX_EVICTED_ENTITIES )
+        {
+            cache.evictEntityRegion( OrganisationUnit.class );
+        }
+        else
+        {
+            changesById.keySet().forEach( id -> cache.evictEntity( OrganisationUnit.class, id ) );
+        }
+    }
+
+    @Override
+    public String getPersistedPath( long id )
+    {
+        List<String> paths = jdbcTemplate.queryForList( "select path from organisationunit where organisationunitid = ?", String.class, id );
+
+        return paths.isEmpty() ? null : paths.get( 0 );
+    }
+
     @Override
     public int getMaxLevel()
     {
@@ -154,8 +154,10 @@ public class CriteriaQueryEngine<T extends IdentifiableObject>
             return 0;
         }
 
+        // Sub query returns distinct identifiers, a plain row count is sufficient
+
         return ((Number) criteria.add( Subqueries.propertyIn( "id", detachedCriteria ) )
-            .setProjection( Projections.countDistinct( "id" ) )
+            .setProjection( Projections.rowCount() )
             .uniqueResult()).intValue();
     }
 
@@ -35,9 +35,11 @@ import org.hisp.dhis.fieldfilter.Defaults;
 import org.hisp.dhis.preheat.Preheat;
 import org.hisp.dhis.query.planner.QueryPlan;
 import org.hisp.dhis.query.planner.QueryPlanner;
+import org.hisp.dhis.schema.Schema;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -53,6 +55,12 @@ public class DefaultQueryService
 {
     private static final Log log = LogFactory.getLog( DefaultQueryService.class );
 
+    /**
+     * Number of objects loaded per batch when non-persisted criterions are
+     * evaluated in memory.
+     */
+    private static final int IN_MEMORY_BATCH_SIZE = 1000;
+
     private final QueryParser queryParser;
 
     private final QueryPlanner queryPlanner;
@@ -103,7 +111,40 @@ public class DefaultQueryService
         query.setFirstResult( 0 );
         query.setMaxResults( Integer.MAX_VALUE );
 
-        return queryObjects( query ).size();
+        if ( query.getObjects() != null )
+        {
+            return queryObjects( query ).size();
+        }
+
+        // Orders do not affect the count and would otherwise force in-memory evaluation
+
+        query.clearOrders();
+
+        boolean excludeDefaults = excludeDefaults( query );
+
+        QueryPlan queryPlan = queryPlanner.planQuery( query );
+
+        Query pQuery = queryPlan.getPersistedQuery();
+        Query npQuery = queryPlan.getNonPersistedQuery();
+
+        if ( npQuery.isEmpty() && !excludeDefaults )
+        {
+            return criteriaQueryEngine.count( pQuery );
+        }
+
+        int count = 0;
+
+        for ( int firstResult = 0; ; firstResult += IN_MEMORY_BATCH_SIZE )
+        {
+            List<? extends IdentifiableObject> batch = queryBatch( pQuery, firstResult );
+
+            count += filterInMemory( query, npQuery, batch ).size();
+
+            if ( batch.size() < IN_MEMORY_BATCH_SIZE )
+            {
+                return count;
+            }
+        }
     }
 
     @Override
@@ -137,13 +178,24 @@ public class DefaultQueryService
             return objects;
         }
 
+        excludeDefaults( query );
+
         QueryPlan queryPlan = queryPlanner.planQuery( query );
 
         Query pQuery = queryPlan.getPersistedQuery();
         Query npQuery = queryPlan.getNonPersistedQuery();
 
+        if ( !npQuery.getCriterions().isEmpty() && npQuery.ordersPersisted() && query.getMaxResults() < Integer.MAX_VALUE )
+        {
+            return queryObjectsInBatches( query, pQuery, npQuery );
+        }
+
         objects = criteriaQueryEngine.query( pQuery );
 
+        // Defaults are removed before in-memory paging so that pages are not cut short
+
+        clearDefaults( query.getSchema().getKlass(), objects, query.getDefaults() );
+
         if ( !npQuery.isEmpty() )
         {
             if ( log.isDebugEnabled() )
@@ -157,11 +209,133 @@ public class DefaultQueryService
             objects = inMemoryQueryEngine.query( npQuery );
         }
 
+        return objects;
+    }
+
+    /**
+     * Evaluates the non-persisted criterions of the query in memory on batches
+     * of objects loaded through the persisted query, and stops as soon as the
+     * requested page is filled. Requires all orders to be persisted so that
+     * batches are loaded in the final order.
+     *
+     * @param query the original query.
+     * @param pQuery the persisted query.
+     * @param npQuery the non-persisted query.
+     * @return the objects of the requested page.
+     */
+    private List<? extends IdentifiableObject> queryObjectsInBatches( Query query, Query pQuery, Query npQuery )
+    {
+        final int firstResult = query.getFirstResult();
+        final int maxResults = query.getMaxResults();
+
+        pQuery.addOrders( npQuery.getOrders() );
+        npQuery.clearOrders();
+
+        if ( log.isDebugEnabled() )
+        {
+            log.debug( "Doing in-memory in batches for " + npQuery.getCriterions().size() + " criterions, first result: " +
+                firstResult + ", max results: " + maxResults );
+        }
+
+        List<IdentifiableObject> objects = new ArrayList<>();
+
+        int skipped = 0;
+
+        for ( int batchStart = 0; ; batchStart += IN_MEMORY_BATCH_SIZE )
+        {
+            List<? extends IdentifiableObject> batch = queryBatch( pQuery, batchStart );
+
+            for ( IdentifiableObject object : filterInMemory( query, npQuery, batch ) )
+            {
+                if ( skipped < firstResult )
+                {
+                    skipped++;
+                }
+                else if ( objects.size() < maxResults )
+                {
+                    objects.add( object );
+                }
+            }
+
+            if ( objects.size() >= maxResults || batch.size() < IN_MEMORY_BATCH_SIZE )
+            {
+                return objects;
+            }
+        }
+    }
+
+    /**
+     * Loads a batch of objects through the given persisted query, ordered by
+     * the query orders and by identifier to make paging stable.
+     */
+    private List<? extends IdentifiableObject> queryBatch( Query pQuery, int firstResult )
+    {
+        Schema schema = pQuery.getSchema();
+
+        if ( schema.havePersistedProperty( "id" ) && pQuery.getOrders().stream()
+            .noneMatch( order -> schema.getPersistedProperty( "id" ).equals( order.getProperty() ) ) )
+        {
+            pQuery.addOrder( Order.asc( schema.getPersistedProperty( "id" ) ) );
+        }
+
+        pQuery.setSkipPaging( false );
+        pQuery.setFirstResult( firstResult );
+        pQuery.setMaxResults( IN_MEMORY_BATCH_SIZE );
+
+        return criteriaQueryEngine.query( pQuery );
+    }
+
+    /**
+     * Returns the objects of the given batch which match the non-persisted
+     * criterions, excluding default objects if requested.
+     */
+    private List<? extends IdentifiableObject> filterInMemory( Query query, Query npQuery, List<? extends IdentifiableObject> batch )
+    {
+        List<? extends IdentifiableObject> objects;
+
+        if ( !npQuery.getCriterions().isEmpty() )
+        {
+            npQuery.setSkipPaging( true );
+            npQuery.setObjects( batch );
+
+            objects = inMemoryQueryEngine.query( npQuery );
+        }
+        else
+        {
+            objects = new ArrayList<>( batch );
+        }
+
         clearDefaults( query.getSchema().getKlass(), objects, query.getDefaults() );
 
         return objects;
     }
 
+    /**
+     * Excludes default objects through a persisted restriction if default
+     * objects are to be excluded and the root junction of the query is a
+     * conjunction, so that paging in the database is not affected by default
+     * objects.
+     *
+     * @param query the query.
+     * @return true if default objects must still be excluded in memory.
+     */
+    private boolean excludeDefaults( Query query )
+    {
+        if ( Defaults.INCLUDE == query.getDefaults() || !Preheat.isDefaultClass( query.getSchema().getKlass() ) )
+        {
+            return false;
+        }
+
+        if ( Junction.Type.AND == query.getRootJunctionType() )
+        {
+            query.add( Restrictions.ne( "name", "default" ) );
+
+            return false;
+        }
+
+        return true;
+    }
+
     private void clearDefaults( Class<?> klass, List<? extends IdentifiableObject> objects, Defaults defaults )
     {
         if ( Defaults.INCLUDE == defaults || !Preheat.isDefaultClass( klass ) )
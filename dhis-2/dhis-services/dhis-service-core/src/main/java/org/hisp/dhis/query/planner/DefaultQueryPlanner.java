@@ -28,6 +28,11 @@ package org.hisp.dhis.query.planner;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
 import org.hisp.dhis.query.Conjunction;
 import org.hisp.dhis.query.Criterion;
 import org.hisp.dhis.query.Disjunction;
@@ -53,10 +58,24 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * @author Morten Olav Hansen <mortenoh@gmail.com>
  */
 @Component( "org.hisp.dhis.query.planner.QueryPlanner" )
-public class DefaultQueryPlanner implements QueryPlanner
+public class DefaultQueryPlanner implements QueryPlanner, MeterBinder
 {
+    private static final long QUERY_PATH_CACHE_SIZE = 10000;
+
+    private static final String QUERY_PATH_CACHE_NAME = "queryPath";
+
     private final SchemaService schemaService;
 
+    /**
+     * Resolved query paths by schema class and property path. Resolution only
+     * depends on the schemas, which do not change after startup, so the same
+     * filter and order shapes are resolved once and shared across queries.
+     */
+    private final Cache<String, QueryPath> queryPathCache = CacheBuilder.newBuilder()
+        .maximumSize( QUERY_PATH_CACHE_SIZE )
+        .recordStats()
+        .build();
+
     @Autowired
     public DefaultQueryPlanner( SchemaService schemaService )
     {
@@ -104,6 +123,25 @@ public class DefaultQueryPlanner implements QueryPlanner
 
     @Override
     public QueryPath getQueryPath( Schema schema, String path )
+    {
+        String key = schema.getKlass().getName() + ":" + path;
+
+        QueryPath queryPath = queryPathCache.getIfPresent( key );
+
+        if ( queryPath == null )
+        {
+            queryPath = resolveQueryPath( schema, path );
+
+            if ( queryPath != null )
+            {
+                queryPathCache.put( key, queryPath );
+            }
+        }
+
+        return queryPath;
+    }
+
+    private QueryPath resolveQueryPath( Schema schema, String path )
     {
         Schema curSchema = schema;
         Property curProperty = null;
@@ -299,4 +337,14 @@ public class DefaultQueryPlanner implements QueryPlanner
 
         return criteriaJunction;
     }
+
+    // -------------------------------------------------------------------------
+    // MeterBinder implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void bindTo( MeterRegistry registry )
+    {
+        GuavaCacheMetrics.monitor( registry, queryPathCache, QUERY_PATH_CACHE_NAME );
+    }
 }
@@ -37,6 +37,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledFuture;
 import javax.annotation.PostConstruct;
@@ -46,7 +47,7 @@ import org.hisp.dhis.leader.election.LeaderManager;
 import org.hisp.dhis.message.MessageService;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationContext;
-import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.support.CronTrigger;
 import org.springframework.stereotype.Service;
@@ -69,7 +70,7 @@ public class DefaultSchedulingManager
 
     private Map<String, ScheduledFuture<?>> futures = new HashMap<>();
 
-    private Map<String, ListenableFuture<?>> currentTasks = new HashMap<>();
+    private Map<String, ListenableFuture<?>> currentTasks = new ConcurrentHashMap<>();
 
     // -------------------------------------------------------------------------
     // Dependencies
@@ -83,26 +84,26 @@ public class DefaultSchedulingManager
 
     private final TaskScheduler jobScheduler;
 
-    private final AsyncListenableTaskExecutor jobExecutor;
+    private final JobExecutorPools jobExecutorPools;
 
     private final ApplicationContext applicationContext;
 
     public DefaultSchedulingManager( JobConfigurationService jobConfigurationService, MessageService messageService,
         LeaderManager leaderManager, @Qualifier( "taskScheduler" ) TaskScheduler jobScheduler,
-        @Qualifier( "taskScheduler" ) AsyncListenableTaskExecutor jobExecutor, ApplicationContext applicationContext )
+        JobExecutorPools jobExecutorPools, ApplicationContext applicationContext )
     {
         checkNotNull( jobConfigurationService );
         checkNotNull( messageService );
         checkNotNull( leaderManager );
         checkNotNull( jobScheduler );
-        checkNotNull( jobExecutor );
+        checkNotNull( jobExecutorPools );
         checkNotNull( applicationContext );
 
         this.jobConfigurationService = jobConfigurationService;
         this.messageService = messageService;
         this.leaderManager = leaderManager;
         this.jobScheduler = jobScheduler;
-        this.jobExecutor = jobExecutor;
+        this.jobExecutorPools = jobExecutorPools;
         this.applicationContext = applicationContext;
     }
 
@@ -180,7 +181,7 @@ public class DefaultSchedulingManager
                 log.info( String.format( "Scheduling job: %s", jobConfiguration ) );
 
                 ScheduledFuture<?> future = jobScheduler.schedule( () ->
-                    jobInstance.execute( jobConfiguration ),
+                    dispatchScheduledJob( jobConfiguration, jobInstance ),
                     new CronTrigger( jobConfiguration.getCronExpression() ) );
 
                 futures.put( jobConfiguration.getUid(), future );
@@ -200,7 +201,7 @@ public class DefaultSchedulingManager
             if ( jobConfiguration.getUid() != null && !futures.containsKey( jobConfiguration.getUid() ) )
             {
                 ScheduledFuture<?> future = jobScheduler.schedule( () ->
-                    jobInstance.execute( jobConfiguration ),
+                    dispatchScheduledJob( jobConfiguration, jobInstance ),
                     startTime );
 
                 futures.put( jobConfiguration.getUid(), future );
@@ -222,13 +223,37 @@ public class DefaultSchedulingManager
         }
     }
 
+    @Override
+    public void cancelJob( JobConfiguration jobConfiguration )
+    {
+        stopJob( jobConfiguration );
+
+        ListenableFuture<?> currentTask = currentTasks.remove( jobConfiguration.getUid() );
+
+        if ( currentTask != null && !currentTask.isDone() )
+        {
+            boolean result = currentTask.cancel( true );
+
+            log.info( String.format( "Cancelled running job with key: '%s' with successful result: '%b'",
+                jobConfiguration.getUid(), result ) );
+        }
+    }
+
     @Override
     public boolean executeJob( JobConfiguration jobConfiguration )
     {
         if ( jobConfiguration != null && !isJobConfigurationRunning( jobConfiguration ) )
         {
-            internalExecuteJobConfiguration( jobConfiguration );
-            return true;
+            try
+            {
+                internalExecuteJobConfiguration( jobConfiguration );
+                return true;
+            }
+            catch ( TaskRejectedException ex )
+            {
+                log.warn( String.format( "Job executor pool is full, could not execute job: %s", jobConfiguration ) );
+                return false;
+            }
         }
         else
         {
@@ -237,9 +262,9 @@ public class DefaultSchedulingManager
     }
 
     @Override
-    public void executeJob( Runnable job )
+    public void executeJob( JobType jobType, Runnable job )
     {
-        jobExecutor.execute( job );
+        jobExecutorPools.submit( jobType, job );
     }
 
     @Override
@@ -255,9 +280,9 @@ public class DefaultSchedulingManager
     }
 
     @Override
-    public <T> ListenableFuture<T> executeJob( Callable<T> callable )
+    public <T> ListenableFuture<T> executeJob( JobType jobType, Callable<T> callable )
     {
-        return jobExecutor.submitListenable( callable );
+        return jobExecutorPools.submit( jobType, callable );
     }
 
     // -------------------------------------------------------------------------
@@ -268,13 +293,46 @@ public class DefaultSchedulingManager
     {
         JobInstance jobInstance = new DefaultJobInstance( this, messageService, leaderManager );
 
-        ListenableFuture<?> future = jobExecutor.submitListenable( () -> jobInstance.execute( jobConfiguration ) );
+        ListenableFuture<?> future = jobExecutorPools.submit( jobConfiguration.getJobType(), () -> jobInstance.execute( jobConfiguration ) );
 
         currentTasks.put( jobConfiguration.getUid(), future );
 
         log.info( String.format( "Scheduler initiated execution of job: %s", jobConfiguration ) );
     }
 
+    /**
+     * Hands a triggered job over to the executor pool of its category, so that
+     * the scheduler threads are never occupied by long running jobs. A trigger
+     * is skipped if the previous execution of the job is still queued or
+     * running. Jobs of categories which are not pooled run directly.
+     */
+    private void dispatchScheduledJob( JobConfiguration jobConfiguration, JobInstance jobInstance )
+    {
+        if ( !jobConfiguration.getJobType().getCategory().isPooled() )
+        {
+            jobInstance.execute( jobConfiguration );
+            return;
+        }
+
+        ListenableFuture<?> previous = jobConfiguration.getUid() != null ? currentTasks.get( jobConfiguration.getUid() ) : null;
+
+        if ( previous != null && !previous.isDone() )
+        {
+            log.debug( String.format( "Skipping trigger, previous execution still in progress for job: %s", jobConfiguration ) );
+            return;
+        }
+
+        try
+        {
+            internalExecuteJobConfiguration( jobConfiguration );
+        }
+        catch ( TaskRejectedException ex )
+        {
+            log.warn( String.format( "Job executor pool for category: '%s' is full, skipping trigger for job: %s",
+                jobConfiguration.getJobType().getCategory().getKey(), jobConfiguration ) );
+        }
+    }
+
     private boolean internalStopJob( String uid )
     {
         if ( uid != null )
@@ -0,0 +1,410 @@
+package org.hisp.dhis.scheduling;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.hisp.dhis.external.conf.ConfigurationKey.SCHEDULING_QUEUE_IMPORT_CAPACITY;
+import static org.hisp.dhis.external.conf.ConfigurationKey.SCHEDULING_QUEUE_IMPORT_CONCURRENCY;
+
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.system.notification.Notifier;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * Admission control for asynchronous imports. Each job type has its own
+ * bounded queue and concurrency limit, configured through
+ * <code>scheduling.queue.import.capacity</code> and
+ * <code>scheduling.queue.import.concurrency</code>. Queued jobs are
+ * dispatched to the {@link JobExecutorPools} round-robin over the users which
+ * submitted them, so a single user uploading many payloads does not hold up
+ * the imports of other users.
+ * <p>
+ * Only the task is held while a job is queued. Callers are expected to keep
+ * the payload of the import on disk and read it when the task runs.
+ * <p>
+ * If the executor pool rejects a job, the job is put back at the head of its
+ * user's queue and dispatching is retried after a delay.
+ */
+@Component( "org.hisp.dhis.scheduling.ImportJobQueue" )
+public class ImportJobQueue
+    implements MeterBinder
+{
+    private static final Log log = LogFactory.getLog( ImportJobQueue.class );
+
+    private static final String METRIC_PREFIX = "dhis.import.queue.";
+
+    private static final long DEFAULT_RUN_TIME_MILLIS = TimeUnit.SECONDS.toMillis( 30 );
+
+    private static final int MAX_RETRY_AFTER_SECONDS = 3600;
+
+    private static final long REDISPATCH_DELAY_MILLIS = TimeUnit.SECONDS.toMillis( 5 );
+
+    private final Map<JobType, TypeQueue> queues = new ConcurrentHashMap<>();
+
+    private final CompositeMeterRegistry registry = new CompositeMeterRegistry();
+
+    private final int concurrency;
+
+    private final int capacity;
+
+    private final JobExecutorPools jobExecutorPools;
+
+    private final Notifier notifier;
+
+    private final TaskScheduler taskScheduler;
+
+    public ImportJobQueue( DhisConfigurationProvider config, JobExecutorPools jobExecutorPools, Notifier notifier,
+        @Qualifier( "taskScheduler" ) TaskScheduler taskScheduler )
+    {
+        checkNotNull( config );
+        checkNotNull( jobExecutorPools );
+        checkNotNull( notifier );
+        checkNotNull( taskScheduler );
+
+        this.concurrency = Math.max( 1, Integer.parseInt( config.getProperty( SCHEDULING_QUEUE_IMPORT_CONCURRENCY ) ) );
+        this.capacity = Math.max( 0, Integer.parseInt( config.getProperty( SCHEDULING_QUEUE_IMPORT_CAPACITY ) ) );
+        this.jobExecutorPools = jobExecutorPools;
+        this.notifier = notifier;
+        this.taskScheduler = taskScheduler;
+    }
+
+    // -------------------------------------------------------------------------
+    // Queue
+    // -------------------------------------------------------------------------
+
+    /**
+     * Submits the given import task. The task runs right away if fewer than
+     * the concurrency limit of imports of the job type are running, and is
+     * queued otherwise.
+     *
+     * @param jobConfiguration the job configuration of the import.
+     * @param task the task.
+     * @return true if the task was accepted, false if the queue of the job
+     *         type is full.
+     */
+    public boolean submit( JobConfiguration jobConfiguration, Runnable task )
+    {
+        TypeQueue queue = getQueue( jobConfiguration.getJobType() );
+
+        int position = queue.offer( new QueuedJob( jobConfiguration, task ) );
+
+        if ( position < 0 )
+        {
+            queue.rejected.increment();
+
+            log.info( String.format( "Import queue for job type: '%s' is full, rejected job of user: '%s'",
+                jobConfiguration.getJobType(), jobConfiguration.getUserUid() ) );
+
+            return false;
+        }
+
+        if ( position > 0 )
+        {
+            notifier.notify( jobConfiguration, "Import queued at position " + position );
+        }
+
+        queue.dispatch();
+
+        return true;
+    }
+
+    /**
+     * Returns an estimate of the number of seconds until the queue of the
+     * given job type has room for another job, based on the number of queued
+     * jobs and the average run time of recent jobs.
+     *
+     * @param jobType the job type.
+     * @return the number of seconds, at least 1.
+     */
+    public int getRetryAfterSeconds( JobType jobType )
+    {
+        return getQueue( jobType ).getRetryAfterSeconds();
+    }
+
+    /**
+     * Returns the number of queued jobs of the given type.
+     *
+     * @param jobType the job type.
+     * @return the number of queued jobs.
+     */
+    public int getQueuedCount( JobType jobType )
+    {
+        return getQueue( jobType ).getQueued();
+    }
+
+    // -------------------------------------------------------------------------
+    // MeterBinder implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void bindTo( MeterRegistry meterRegistry )
+    {
+        registry.add( meterRegistry );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private TypeQueue getQueue( JobType jobType )
+    {
+        return queues.computeIfAbsent( jobType, TypeQueue::new );
+    }
+
+    private static class QueuedJob
+    {
+        final JobConfiguration jobConfiguration;
+
+        final Runnable task;
+
+        final long queuedAt = System.nanoTime();
+
+        QueuedJob( JobConfiguration jobConfiguration, Runnable task )
+        {
+            this.jobConfiguration = jobConfiguration;
+            this.task = task;
+        }
+    }
+
+    /**
+     * Queue of a single job type. Jobs are kept per user, and users are
+     * served in the order of the map, moving a user to the end once one of
+     * their jobs is dispatched.
+     */
+    private class TypeQueue
+    {
+        private final JobType jobType;
+
+        private final LinkedHashMap<String, Deque<QueuedJob>> jobsByUser = new LinkedHashMap<>();
+
+        private int queued = 0;
+
+        private int running = 0;
+
+        private long averageRunTimeMillis = DEFAULT_RUN_TIME_MILLIS;
+
+        private boolean redispatchScheduled = false;
+
+        private final Counter rejected;
+
+        private final Timer waitTime;
+
+        TypeQueue( JobType jobType )
+        {
+            this.jobType = jobType;
+
+            String type = jobType.name();
+
+            Gauge.builder( METRIC_PREFIX + "queued", this, TypeQueue::getQueued )
+                .tag( "jobType", type )
+                .description( "Number of imports waiting in the queue" )
+                .register( registry );
+
+            Gauge.builder( METRIC_PREFIX + "running", this, TypeQueue::getRunning )
+                .tag( "jobType", type )
+                .description( "Number of imports dispatched from the queue which have not finished" )
+                .register( registry );
+
+            rejected = Counter.builder( METRIC_PREFIX + "rejected" )
+                .tag( "jobType", type )
+                .description( "Number of imports rejected because the queue was full" )
+                .register( registry );
+
+            waitTime = Timer.builder( METRIC_PREFIX + "wait.time" )
+                .tag( "jobType", type )
+                .description( "Time imports spent in the queue" )
+                .register( registry );
+        }
+
+        /**
+         * Adds the given job to the queue.
+         *
+         * @return -1 if the queue is full, 0 if the job can run right away,
+         *         and the number of queued jobs otherwise.
+         */
+        synchronized int offer( QueuedJob job )
+        {
+            if ( running >= concurrency && queued >= capacity )
+            {
+                return -1;
+            }
+
+            jobsByUser.computeIfAbsent( String.valueOf( job.jobConfiguration.getUserUid() ), user -> new ArrayDeque<>() ).add( job );
+            queued++;
+
+            return running >= concurrency ? queued : 0;
+        }
+
+        void dispatch()
+        {
+            QueuedJob job;
+
+            while ( (job = next()) != null )
+            {
+                QueuedJob dispatched = job;
+
+                waitTime.record( System.nanoTime() - dispatched.queuedAt, TimeUnit.NANOSECONDS );
+
+                try
+                {
+                    jobExecutorPools.submit( jobType, () -> run( dispatched ) );
+                }
+                catch ( TaskRejectedException ex )
+                {
+                    log.warn( String.format( "Job executor pool rejected import of type: '%s', keeping it queued", jobType ) );
+
+                    requeue( dispatched );
+                    scheduleRedispatch();
+                    return;
+                }
+            }
+        }
+
+        private void run( QueuedJob job )
+        {
+            long startedAt = System.currentTimeMillis();
+
+            try
+            {
+                job.task.run();
+            }
+            finally
+            {
+                finished( System.currentTimeMillis() - startedAt );
+                dispatch();
+            }
+        }
+
+        /**
+         * Takes the next job of the user next in turn if the concurrency
+         * limit allows another job to run.
+         */
+        private synchronized QueuedJob next()
+        {
+            if ( running >= concurrency || queued == 0 )
+            {
+                return null;
+            }
+
+            Iterator<Map.Entry<String, Deque<QueuedJob>>> iterator = jobsByUser.entrySet().iterator();
+            Map.Entry<String, Deque<QueuedJob>> entry = iterator.next();
+            iterator.remove();
+
+            QueuedJob job = entry.getValue().poll();
+
+            if ( !entry.getValue().isEmpty() )
+            {
+                jobsByUser.put( entry.getKey(), entry.getValue() );
+            }
+
+            queued--;
+            running++;
+
+            return job;
+        }
+
+        /**
+         * Schedules a dispatch after a delay, unless one is scheduled already,
+         * so that jobs put back after a rejection run even if no running job
+         * finishes in the meantime.
+         */
+        private void scheduleRedispatch()
+        {
+            synchronized ( this )
+            {
+                if ( redispatchScheduled )
+                {
+                    return;
+                }
+
+                redispatchScheduled = true;
+            }
+
+            taskScheduler.schedule( () -> {
+                synchronized ( this )
+                {
+                    redispatchScheduled = false;
+                }
+
+                dispatch();
+            }, new Date( System.currentTimeMillis() + REDISPATCH_DELAY_MILLIS ) );
+        }
+
+        private synchronized void requeue( QueuedJob job )
+        {
+            jobsByUser.computeIfAbsent( String.valueOf( job.jobConfiguration.getUserUid() ), user -> new ArrayDeque<>() ).addFirst( job );
+            queued++;
+            running--;
+        }
+
+        private synchronized void finished( long runTimeMillis )
+        {
+            running--;
+            averageRunTimeMillis = (averageRunTimeMillis * 4 + runTimeMillis) / 5;
+        }
+
+        synchronized int getRetryAfterSeconds()
+        {
+            long millis = averageRunTimeMillis * (queued + 1) / concurrency;
+
+            return (int) Math.min( MAX_RETRY_AFTER_SECONDS, Math.max( 1, TimeUnit.MILLISECONDS.toSeconds( millis ) ) );
+        }
+
+        synchronized int getQueued()
+        {
+            return queued;
+        }
+
+        synchronized int getRunning()
+        {
+            return running;
+        }
+    }
+}
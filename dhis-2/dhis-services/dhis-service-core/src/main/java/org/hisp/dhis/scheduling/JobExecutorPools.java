@@ -0,0 +1,343 @@
+package org.hisp.dhis.scheduling;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.hisp.dhis.external.conf.ConfigurationKey.*;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.datasource.StatementProfile;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.monitoring.sql.StatementProfiler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * Isolated executor pools for each {@link JobCategory}. Each pool has its own
+ * concurrency limit and bounded queue, configured through
+ * <code>scheduling.pool.{category}.size</code> and
+ * <code>scheduling.pool.{category}.queue</code>. When the queue of a pool is
+ * full, submissions are rejected with a
+ * {@link org.springframework.core.task.TaskRejectedException}.
+ * <p>
+ * Queue time, run time and the number of active jobs are recorded per
+ * {@link JobType}. Metrics are exported once the pools are bound to a meter
+ * registry, see {@link org.hisp.dhis.monitoring.metrics.JobMetricsConfig}.
+ * The SQL statements of jobs are profiled by the {@link StatementProfiler}
+ * when it is enabled.
+ */
+@Component( "org.hisp.dhis.scheduling.JobExecutorPools" )
+public class JobExecutorPools
+    implements MeterBinder
+{
+    private static final Log log = LogFactory.getLog( JobExecutorPools.class );
+
+    private static final String METRIC_PREFIX = "dhis.jobs.";
+
+    private static final String UNSPECIFIED_JOB_TYPE = "UNSPECIFIED";
+
+    private final Map<JobCategory, ThreadPoolTaskExecutor> executors = new EnumMap<>( JobCategory.class );
+
+    private final Map<String, AtomicInteger> activeJobs = new ConcurrentHashMap<>();
+
+    private final StatementProfiler statementProfiler;
+
+    /**
+     * Meters are registered with a composite registry which has no effect until
+     * a registry is added in {@link #bindTo(MeterRegistry)}.
+     */
+    private final CompositeMeterRegistry registry = new CompositeMeterRegistry();
+
+    public JobExecutorPools( DhisConfigurationProvider config, StatementProfiler statementProfiler )
+    {
+        checkNotNull( config );
+        checkNotNull( statementProfiler );
+
+        this.statementProfiler = statementProfiler;
+
+        for ( JobCategory category : JobCategory.values() )
+        {
+            if ( category.isPooled() )
+            {
+                executors.put( category, createExecutor( category,
+                    getIntProperty( config, getSizeKey( category ) ), getIntProperty( config, getQueueKey( category ) ) ) );
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Execution
+    // -------------------------------------------------------------------------
+
+    /**
+     * Submits the given task on the pool of the category of the given job type.
+     *
+     * @param jobType the job type.
+     * @param task the task.
+     * @return a future for the task.
+     */
+    public ListenableFuture<?> submit( JobType jobType, Runnable task )
+    {
+        return submit( jobType, toCallable( task ) );
+    }
+
+    /**
+     * Submits the given task on the pool of the category of the given job type.
+     * Jobs of categories which are not pooled run on the maintenance pool.
+     *
+     * @param jobType the job type.
+     * @param task the task.
+     * @return a future for the task.
+     */
+    public <T> ListenableFuture<T> submit( JobType jobType, Callable<T> task )
+    {
+        return submit( jobType.getCategory(), jobType.name(), task );
+    }
+
+    /**
+     * Submits the given task of unspecified job type on the pool of the given
+     * category.
+     *
+     * @param category the job category.
+     * @param task the task.
+     * @return a future for the task.
+     */
+    public ListenableFuture<?> submit( JobCategory category, Runnable task )
+    {
+        return submit( category, UNSPECIFIED_JOB_TYPE, toCallable( task ) );
+    }
+
+    /**
+     * Submits the given task of unspecified job type on the pool of the given
+     * category.
+     *
+     * @param category the job category.
+     * @param task the task.
+     * @return a future for the task.
+     */
+    public <T> ListenableFuture<T> submit( JobCategory category, Callable<T> task )
+    {
+        return submit( category, UNSPECIFIED_JOB_TYPE, task );
+    }
+
+    private <T> ListenableFuture<T> submit( JobCategory category, String jobType, Callable<T> task )
+    {
+        ThreadPoolTaskExecutor executor = getExecutor( category );
+
+        final long queuedAt = System.nanoTime();
+
+        return executor.submitListenable( () -> {
+            long startedAt = System.nanoTime();
+
+            getTimer( "queue.time", category, jobType ).record( startedAt - queuedAt, TimeUnit.NANOSECONDS );
+
+            AtomicInteger active = getActiveJobs( category, jobType );
+            active.incrementAndGet();
+
+            StatementProfile profile = statementProfiler.start();
+
+            try
+            {
+                return task.call();
+            }
+            finally
+            {
+                statementProfiler.finish( profile, StatementProfiler.SOURCE_JOB, jobType, "job of type " + jobType );
+
+                active.decrementAndGet();
+
+                getTimer( "run.time", category, jobType ).record( System.nanoTime() - startedAt, TimeUnit.NANOSECONDS );
+            }
+        } );
+    }
+
+    /**
+     * Returns the number of currently running jobs of the given type.
+     *
+     * @param jobType the job type.
+     * @return the number of running jobs.
+     */
+    public int getActiveCount( JobType jobType )
+    {
+        AtomicInteger active = activeJobs.get( jobType.name() );
+
+        return active != null ? active.get() : 0;
+    }
+
+    /**
+     * Returns the number of jobs waiting in the queue of the given category.
+     *
+     * @param category the job category.
+     * @return the number of queued jobs.
+     */
+    public int getQueueSize( JobCategory category )
+    {
+        return getExecutor( category ).getThreadPoolExecutor().getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        executors.values().forEach( ThreadPoolTaskExecutor::shutdown );
+    }
+
+    // -------------------------------------------------------------------------
+    // MeterBinder implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void bindTo( MeterRegistry meterRegistry )
+    {
+        registry.add( meterRegistry );
+
+        executors.forEach( ( category, executor ) -> {
+            Gauge.builder( METRIC_PREFIX + "pool.active", executor, ThreadPoolTaskExecutor::getActiveCount )
+                .tag( "category", category.getKey() )
+                .description( "Number of threads executing jobs" )
+                .register( meterRegistry );
+
+            Gauge.builder( METRIC_PREFIX + "pool.queued", executor, e -> e.getThreadPoolExecutor().getQueue().size() )
+                .tag( "category", category.getKey() )
+                .description( "Number of jobs waiting for a thread" )
+                .register( meterRegistry );
+        } );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private ThreadPoolTaskExecutor getExecutor( JobCategory category )
+    {
+        ThreadPoolTaskExecutor executor = executors.get( category );
+
+        return executor != null ? executor : executors.get( JobCategory.MAINTENANCE );
+    }
+
+    private AtomicInteger getActiveJobs( JobCategory category, String jobType )
+    {
+        return activeJobs.computeIfAbsent( jobType, type -> {
+            AtomicInteger active = new AtomicInteger();
+
+            Gauge.builder( METRIC_PREFIX + "active", active, AtomicInteger::get )
+                .tags( "jobType", type, "category", category.getKey() )
+                .description( "Number of running jobs" )
+                .register( registry );
+
+            return active;
+        } );
+    }
+
+    private Timer getTimer( String name, JobCategory category, String jobType )
+    {
+        return Timer.builder( METRIC_PREFIX + name )
+            .tags( "jobType", jobType, "category", category.getKey() )
+            .register( registry );
+    }
+
+    private static Callable<Object> toCallable( Runnable task )
+    {
+        return () -> {
+            task.run();
+            return null;
+        };
+    }
+
+    private static ThreadPoolTaskExecutor createExecutor( JobCategory category, int size, int queueCapacity )
+    {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize( size );
+        executor.setMaxPoolSize( size );
+        executor.setQueueCapacity( queueCapacity );
+        executor.setThreadNamePrefix( "dhis2-job-" + category.getKey() + "-" );
+        executor.initialize();
+
+        log.info( String.format( "Created job executor pool for category: '%s' with size: %d and queue capacity: %d",
+            category.getKey(), size, queueCapacity ) );
+
+        return executor;
+    }
+
+    private static int getIntProperty( DhisConfigurationProvider config, ConfigurationKey key )
+    {
+        return Integer.parseInt( config.getProperty( key ) );
+    }
+
+    private static ConfigurationKey getSizeKey( JobCategory category )
+    {
+        switch ( category )
+        {
+            case ANALYTICS:
+                return SCHEDULING_POOL_ANALYTICS_SIZE;
+            case IMPORT:
+                return SCHEDULING_POOL_IMPORT_SIZE;
+            case SYNC:
+                return SCHEDULING_POOL_SYNC_SIZE;
+            case NOTIFICATIONS:
+                return SCHEDULING_POOL_NOTIFICATIONS_SIZE;
+            default:
+                return SCHEDULING_POOL_MAINTENANCE_SIZE;
+        }
+    }
+
+    private static ConfigurationKey getQueueKey( JobCategory category )
+    {
+        switch ( category )
+        {
+            case ANALYTICS:
+                return SCHEDULING_POOL_ANALYTICS_QUEUE;
+            case IMPORT:
+                return SCHEDULING_POOL_IMPORT_QUEUE;
+            case SYNC:
+                return SCHEDULING_POOL_SYNC_QUEUE;
+            case NOTIFICATIONS:
+                return SCHEDULING_POOL_NOTIFICATIONS_QUEUE;
+            default:
+                return SCHEDULING_POOL_MAINTENANCE_QUEUE;
+        }
+    }
+}
@@ -61,6 +61,8 @@ public class ModelUpgrader
     {
         organisationUnitService.updatePaths();
 
+        organisationUnitService.updateHierarchyIntervals();
+
         categoryService.updateCategoryOptionComboNames();
     }
 }
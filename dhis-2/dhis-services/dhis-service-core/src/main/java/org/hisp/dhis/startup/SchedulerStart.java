@@ -75,6 +75,8 @@ public class SchedulerStart extends AbstractStartupRoutine
     private final String DEFAULT_DATA_SET_NOTIFICATION = "Dataset notification";
     private final String DEFAULT_REMOVE_EXPIRED_RESERVED_VALUES_UID = "uwWCT2BMmlq";
     private final String DEFAULT_REMOVE_EXPIRED_RESERVED_VALUES = "Remove expired reserved values";
+    private final String DEFAULT_DATA_VALUE_CHANGE_PRUNE_UID = "Rq9vKPmT2xL";
+    private final String DEFAULT_DATA_VALUE_CHANGE_PRUNE = "Data value change log clean up";
     private final String DEFAULT_LEADER_ELECTION_UID = "MoUd5BTQ3lY";
     private final String DEFAULT_LEADER_ELECTION = "Leader election in cluster";
 
@@ -212,6 +214,15 @@ public class SchedulerStart extends AbstractStartupRoutine
             addAndScheduleJob( removeExpiredReservedValues );
         }
 
+        if ( verifyNoJobExist( DEFAULT_DATA_VALUE_CHANGE_PRUNE, jobConfigurations ) )
+        {
+            JobConfiguration dataValueChangePrune = new JobConfiguration( DEFAULT_DATA_VALUE_CHANGE_PRUNE,
+                DATA_VALUE_CHANGE_PRUNE, CRON_DAILY_2AM, null, false, true );
+            dataValueChangePrune.setLeaderOnlyJob( true );
+            dataValueChangePrune.setUid( DEFAULT_DATA_VALUE_CHANGE_PRUNE_UID );
+            addAndScheduleJob( dataValueChangePrune );
+        }
+
         if ( verifyNoJobExist( DEFAULT_LEADER_ELECTION, jobConfigurations ) && "true".equalsIgnoreCase( redisEnabled ) )
         {
             JobConfiguration leaderElectionJobConfiguration = new JobConfiguration( DEFAULT_LEADER_ELECTION,
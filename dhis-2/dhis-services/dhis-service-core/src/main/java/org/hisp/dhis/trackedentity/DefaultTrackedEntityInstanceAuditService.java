@@ -69,6 +69,13 @@ public class DefaultTrackedEntityInstanceAuditService
         trackedEntityInstanceAuditStore.addTrackedEntityInstanceAudit( trackedEntityInstanceAudit );
     }
 
+    @Override
+    @Transactional
+    public void addTrackedEntityInstanceAudits( List<TrackedEntityInstanceAudit> trackedEntityInstanceAudits )
+    {
+        trackedEntityInstanceAuditStore.addTrackedEntityInstanceAudits( trackedEntityInstanceAudits );
+    }
+
     @Override
     @Transactional
     public void deleteTrackedEntityInstanceAudit( TrackedEntityInstance trackedEntityInstance )
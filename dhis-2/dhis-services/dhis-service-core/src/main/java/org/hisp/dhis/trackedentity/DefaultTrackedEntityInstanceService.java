@@ -47,7 +47,6 @@ import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.program.Program;
 import org.hisp.dhis.program.ProgramService;
 import org.hisp.dhis.program.ProgramStatus;
-import org.hisp.dhis.render.RenderService;
 import org.hisp.dhis.security.Authorities;
 import org.hisp.dhis.security.acl.AclService;
 import org.hisp.dhis.system.grid.ListGrid;
@@ -96,8 +95,6 @@ public class DefaultTrackedEntityInstanceService
 
     private final AuditManager auditManager;
 
-    private final RenderService renderService;
-
     // FIXME luciano using @Lazy here because we have circular dependencies:
     // TrackedEntityInstanceService --> TrackerOwnershipManager --> TrackedEntityProgramOwnerService --> TrackedEntityInstanceService
     public DefaultTrackedEntityInstanceService( TrackedEntityInstanceStore trackedEntityInstanceStore,
@@ -105,7 +102,7 @@ public class DefaultTrackedEntityInstanceService
         TrackedEntityTypeService trackedEntityTypeService, ProgramService programService,
         OrganisationUnitService organisationUnitService, CurrentUserService currentUserService,
         TrackedEntityAttributeValueAuditService attributeValueAuditService, AclService aclService,
-        @Lazy TrackerOwnershipManager trackerOwnershipAccessManager, AuditManager auditManager, RenderService renderService )
+        @Lazy TrackerOwnershipManager trackerOwnershipAccessManager, AuditManager auditManager )
     {
         checkNotNull( trackedEntityInstanceStore );
         checkNotNull( attributeValueService );
@@ -118,7 +115,6 @@ public class DefaultTrackedEntityInstanceService
         checkNotNull( aclService );
         checkNotNull( trackerOwnershipAccessManager );
         checkNotNull( auditManager );
-        checkNotNull( renderService );
 
         this.trackedEntityInstanceStore = trackedEntityInstanceStore;
         this.attributeValueService = attributeValueService;
@@ -131,7 +127,6 @@ public class DefaultTrackedEntityInstanceService
         this.aclService = aclService;
         this.trackerOwnershipAccessManager = trackerOwnershipAccessManager;
         this.auditManager = auditManager;
-        this.renderService = renderService;
     }
 
     // -------------------------------------------------------------------------
@@ -997,7 +992,7 @@ public class DefaultTrackedEntityInstanceService
             .withCreatedBy( trackedEntityInstanceAudit.getAccessedBy() )
             .withClass( TrackedEntityInstance.class )
             .withUid( trackedEntityInstanceAudit.getTrackedEntityInstance() )
-            .withData( renderService.toJsonAsString( trackedEntityInstanceAudit ) )
+            .withData( trackedEntityInstanceAudit )
             .build() );
     }
 
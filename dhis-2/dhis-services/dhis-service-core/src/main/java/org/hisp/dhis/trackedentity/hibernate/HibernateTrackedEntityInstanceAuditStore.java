@@ -28,6 +28,7 @@ package org.hisp.dhis.trackedentity.hibernate;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
@@ -71,6 +72,33 @@ public class HibernateTrackedEntityInstanceAuditStore
         getSession().save( trackedEntityInstanceAudit );
     }
 
+    @Override
+    public void addTrackedEntityInstanceAudits( List<TrackedEntityInstanceAudit> trackedEntityInstanceAudits )
+    {
+        if ( trackedEntityInstanceAudits.isEmpty() )
+        {
+            return;
+        }
+
+        final String sql = "insert into trackedentityinstanceaudit " +
+            "(trackedentityinstanceauditid, trackedentityinstance, created, accessedby, audittype, comment) " +
+            "values (nextval('trackedentityinstanceaudit_sequence'), ?, ?, ?, ?, ?)";
+
+        List<Object[]> batchArgs = new ArrayList<>( trackedEntityInstanceAudits.size() );
+
+        for ( TrackedEntityInstanceAudit audit : trackedEntityInstanceAudits )
+        {
+            batchArgs.add( new Object[] {
+                audit.getTrackedEntityInstance(),
+                audit.getCreated() != null ? new Timestamp( audit.getCreated().getTime() ) : null,
+                audit.getAccessedBy(),
+                audit.getAuditType() != null ? audit.getAuditType().name() : null,
+                audit.getComment() } );
+        }
+
+        jdbcTemplate.batchUpdate( sql, batchArgs );
+    }
+
     @Override
     public void deleteTrackedEntityInstanceAudit( TrackedEntityInstance trackedEntityInstance )
     {
@@ -32,6 +32,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static org.hisp.dhis.common.IdentifiableObjectUtils.getIdentifiers;
 import static org.hisp.dhis.common.IdentifiableObjectUtils.getUids;
 import static org.hisp.dhis.commons.util.TextUtils.*;
+import static org.hisp.dhis.organisationunit.OrganisationUnitIntervalUtils.getDescendantsHqlPredicate;
+import static org.hisp.dhis.organisationunit.OrganisationUnitIntervalUtils.getDescendantsSqlPredicate;
 import static org.hisp.dhis.trackedentity.TrackedEntityInstanceQueryParams.*;
 import static org.hisp.dhis.util.DateUtils.*;
 
@@ -151,7 +153,8 @@ public class HibernateTrackedEntityInstanceStore
             .replaceFirst( "inner join fetch psi.assignedUser", "inner join psi.assignedUser" )
             .replaceFirst( "inner join fetch tei.programOwners", "inner join tei.programOwners" )
             .replaceFirst( "order by case when pi.status = 'ACTIVE' then 1 when pi.status = 'COMPLETED' then 2 else 3 end asc, tei.lastUpdated desc ", "" )
-            .replaceFirst( "order by tei.lastUpdated desc ", "" );
+            .replaceFirst( "order by tei.lastUpdated desc ", "" )
+            .replaceFirst( "order by tei.uid asc ", "" );
     }
 
     private String buildTrackedEntityInstanceHql( TrackedEntityInstanceQueryParams params )
@@ -265,6 +268,11 @@ public class HibernateTrackedEntityInstanceStore
         if ( params.isSynchronizationQuery() )
         {
             hql += hlp.whereAnd() + "tei.lastUpdated > tei.lastSynchronized";
+
+            if ( params.getSynchronizationUidAfter() != null )
+            {
+                hql += hlp.whereAnd() + "tei.uid > " + statementBuilder.encode( params.getSynchronizationUidAfter() );
+            }
         }
 
         // Comparing milliseconds instead of always creating new Date( 0 )
@@ -281,18 +289,7 @@ public class HibernateTrackedEntityInstanceStore
 
             if ( params.isOrganisationUnitMode( OrganisationUnitSelectionMode.DESCENDANTS ) )
             {
-                String ouClause = "(";
-
-                SqlHelper orHlp = new SqlHelper( true );
-
-                for ( OrganisationUnit organisationUnit : params.getOrganisationUnits() )
-                {
-                    ouClause += orHlp.or() + teiOuSource + ".path LIKE '" + organisationUnit.getPath() + "%'";
-                }
-
-                ouClause += ")";
-
-                hql += hlp.whereAnd() + ouClause;
+                hql += hlp.whereAnd() + getDescendantsHqlPredicate( params.getOrganisationUnits(), teiOuSource );
             }
             else
             {
@@ -344,6 +341,10 @@ public class HibernateTrackedEntityInstanceStore
         {
             hql += " order by case when pi.status = 'ACTIVE' then 1 when pi.status = 'COMPLETED' then 2 else 3 end asc, tei.lastUpdated desc ";
         }
+        else if ( params.isSynchronizationQuery() )
+        {
+            hql += " order by tei.uid asc ";
+        }
         else
         {
             hql += " order by tei.lastUpdated desc ";
@@ -593,18 +594,7 @@ public class HibernateTrackedEntityInstanceStore
         }
         else if ( params.isOrganisationUnitMode( OrganisationUnitSelectionMode.DESCENDANTS ) )
         {
-            String ouClause = " (";
-
-            SqlHelper orHlp = new SqlHelper( true );
-
-            for ( OrganisationUnit organisationUnit : params.getOrganisationUnits() )
-            {
-                ouClause += orHlp.or() + "ou.path like '" + organisationUnit.getPath() + "%'";
-            }
-
-            ouClause += ")";
-
-            sql += hlp.whereAnd() + ouClause;
+            sql += hlp.whereAnd() + " " + getDescendantsSqlPredicate( params.getOrganisationUnits(), "ou" ) + " ";
         }
         else // SELECTED (default)
         {
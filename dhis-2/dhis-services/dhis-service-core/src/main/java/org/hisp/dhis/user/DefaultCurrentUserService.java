@@ -41,6 +41,8 @@ import org.springframework.security.core.session.SessionRegistry;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import javax.annotation.PostConstruct;
 import java.util.HashSet;
@@ -70,6 +72,11 @@ public class DefaultCurrentUserService
      */
     private static Cache<Long> USERNAME_ID_CACHE;
 
+    /**
+     * Request attribute under which the current user context is kept.
+     */
+    private static final String CONTEXT_ATTRIBUTE = CurrentUserContext.class.getName();
+
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -158,6 +165,41 @@ public class DefaultCurrentUserService
         return new UserInfo( userId, userDetails.getUsername(), authorities );
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CurrentUserContext getCurrentUserContext()
+    {
+        String username = getCurrentUsername();
+
+        if ( username == null )
+        {
+            return null;
+        }
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+        if ( attributes == null )
+        {
+            return CurrentUserContext.of( getCurrentUser() );
+        }
+
+        Object cached = attributes.getAttribute( CONTEXT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST );
+
+        if ( cached instanceof CurrentUserContext && username.equals( ((CurrentUserContext) cached).getUsername() ) )
+        {
+            return (CurrentUserContext) cached;
+        }
+
+        CurrentUserContext context = CurrentUserContext.of( getCurrentUser() );
+
+        if ( context != null )
+        {
+            attributes.setAttribute( CONTEXT_ATTRIBUTE, context, RequestAttributes.SCOPE_REQUEST );
+        }
+
+        return context;
+    }
+
     private Long getUserId( String username )
     {
         UserCredentials credentials = userStore.getUserCredentialsByUsername( username );
@@ -169,9 +211,9 @@ public class DefaultCurrentUserService
     @Transactional(readOnly = true)
     public boolean currentUserIsSuper()
     {
-        User user = getCurrentUser();
+        CurrentUserContext context = getCurrentUserContext();
 
-        return user != null && user.isSuper();
+        return context != null && context.isSuper();
     }
 
     @Override
@@ -187,9 +229,9 @@ public class DefaultCurrentUserService
     @Transactional(readOnly = true)
     public boolean currentUserIsAuthorized( String auth )
     {
-        User user = getCurrentUser();
+        CurrentUserContext context = getCurrentUserContext();
 
-        return user != null && user.getUserCredentials().isAuthorized( auth );
+        return context != null && context.isAuthorized( auth );
     }
 
     @Override
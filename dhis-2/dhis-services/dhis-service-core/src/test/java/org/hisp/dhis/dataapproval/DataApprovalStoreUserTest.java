@@ -43,13 +43,19 @@ import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodService;
 import org.hisp.dhis.period.PeriodType;
 import org.hisp.dhis.user.CurrentUserService;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserService;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static com.google.common.collect.Sets.newHashSet;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 /**
  * @author Jim Grace
@@ -78,6 +84,9 @@ public class DataApprovalStoreUserTest
     @Autowired
     private OrganisationUnitService organisationUnitService;
 
+    @Autowired
+    private UserService userService;
+
     // -------------------------------------------------------------------------
     // Supporting data
     // -------------------------------------------------------------------------
@@ -224,4 +233,35 @@ public class DataApprovalStoreUserTest
 
         assertEquals( 0, statuses.size() );
     }
+
+    @Test
+    public void testGetDataApprovalStatusesForOrgUnitsAtSameLevel()
+    {
+        User user = createUser( 'A' );
+        userService.addUser( user );
+
+        CategoryOptionCombo defaultOptionCombo = categoryService.getDefaultCategoryOptionCombo();
+
+        dataApprovalStore.addDataApproval( new DataApproval( level2, workflowA, periodA, orgUnitD, defaultOptionCombo, false, new Date(), user ) );
+
+        List<DataApprovalStatus> statuses = dataApprovalStore.getDataApprovalStatuses( workflowA, periodA,
+            Lists.newArrayList( orgUnitB, orgUnitD ), orgUnitB.getHierarchyLevel(), categoryService.getDefaultCategoryCombo(), null,
+            dataApprovalLevelService.getUserDataApprovalLevelsOrLowestLevel( mockCurrentUserService.getCurrentUser(), workflowA ),
+            dataApprovalLevelService.getDataApprovalLevelMap() );
+
+        assertEquals( 2, statuses.size() );
+
+        Map<String, DataApprovalStatus> statusMap = statuses.stream()
+            .collect( Collectors.toMap( DataApprovalStatus::getOrganisationUnitUid, status -> status ) );
+
+        // The approval of D must not be applied to B
+
+        DataApprovalStatus status = statusMap.get( orgUnitB.getUid() );
+        assertEquals( DataApprovalState.UNAPPROVED_WAITING, status.getState() );
+        assertNull( status.getApprovedLevel() );
+
+        status = statusMap.get( orgUnitD.getUid() );
+        assertEquals( DataApprovalState.APPROVED_HERE, status.getState() );
+        assertEquals( level2.getLevel(), status.getApprovedLevel().getLevel() );
+    }
 }
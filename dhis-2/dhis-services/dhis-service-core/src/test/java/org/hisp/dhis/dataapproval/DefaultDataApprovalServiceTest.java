@@ -0,0 +1,202 @@
+package org.hisp.dhis.dataapproval;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.hisp.dhis.DhisConvenienceTest;
+import org.hisp.dhis.cache.DefaultCacheProvider;
+import org.hisp.dhis.category.CategoryOptionCombo;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.period.Period;
+import org.hisp.dhis.period.PeriodService;
+import org.hisp.dhis.period.PeriodType;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.hisp.dhis.user.CurrentUserService;
+import org.hisp.dhis.user.User;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.core.env.Environment;
+
+import com.google.common.collect.Sets;
+
+public class DefaultDataApprovalServiceTest
+    extends DhisConvenienceTest
+{
+    @Rule
+    public MockitoRule rule = MockitoJUnit.rule();
+
+    @Mock
+    private DataApprovalStore dataApprovalStore;
+
+    @Mock
+    private DataApprovalAuditStore dataApprovalAuditStore;
+
+    @Mock
+    private DataApprovalWorkflowStore workflowStore;
+
+    @Mock
+    private DataApprovalLevelService dataApprovalLevelService;
+
+    @Mock
+    private CurrentUserService currentUserService;
+
+    @Mock
+    private OrganisationUnitService organisationUnitService;
+
+    @Mock
+    private PeriodService periodService;
+
+    @Mock
+    private SystemSettingManager systemSettingManager;
+
+    @Mock
+    private Environment env;
+
+    private DefaultDataApprovalService dataApprovalService;
+
+    private DataApprovalWorkflow workflow;
+
+    private Period period;
+
+    private CategoryOptionCombo attributeOptionCombo;
+
+    private OrganisationUnit root;
+
+    @Before
+    public void init()
+    {
+        root = createOrganisationUnit( 'A' );
+        root.setId( 1 );
+
+        User user = createUser( 'A' );
+        user.setOrganisationUnits( Sets.newHashSet( root ) );
+
+        workflow = new DataApprovalWorkflow( "workflowA", PeriodType.getPeriodTypeByName( "Monthly" ), Sets.newHashSet() );
+        workflow.setAutoFields();
+
+        period = createPeriod( "201801" );
+
+        attributeOptionCombo = new CategoryOptionCombo();
+        attributeOptionCombo.setAutoFields();
+
+        when( currentUserService.getCurrentUser() ).thenReturn( user );
+        when( systemSettingManager.getSystemSetting( SettingKey.ACCEPTANCE_REQUIRED_FOR_APPROVAL ) ).thenReturn( false );
+        when( env.getActiveProfiles() ).thenReturn( new String[] {} );
+        when( dataApprovalStore.getDataApprovalVersion() ).thenReturn( "1" );
+        when( dataApprovalStore.getDataApprovalStatuses( any(), any(), anyCollection(), anyInt(), any(), any(), any(), any() ) )
+            .thenAnswer( invocation -> getUnapprovedStatuses( invocation.getArgument( 2 ) ) );
+
+        dataApprovalService = new DefaultDataApprovalService( dataApprovalStore, dataApprovalAuditStore, workflowStore,
+            dataApprovalLevelService, currentUserService, organisationUnitService, periodService, systemSettingManager,
+            new DefaultCacheProvider(), env );
+        dataApprovalService.init();
+    }
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void testStatusesAreFetchedPerLevelInChunks()
+    {
+        List<DataApproval> approvals = new ArrayList<>();
+        approvals.add( new DataApproval( null, workflow, period, root, attributeOptionCombo ) );
+
+        for ( int i = 0; i < 1500; i++ )
+        {
+            OrganisationUnit unit = createOrganisationUnit( "Unit" + i, root );
+            unit.setId( i + 2 );
+
+            approvals.add( new DataApproval( null, workflow, period, unit, attributeOptionCombo ) );
+        }
+
+        Map<DataApproval, DataApprovalStatus> statuses = dataApprovalService.getDataApprovalStatuses( approvals );
+
+        assertEquals( 1501, statuses.size() );
+        assertEquals( 1501, statuses.values().stream().filter( s -> s.getState() == DataApprovalState.UNAPPROVED_READY ).count() );
+
+        ArgumentCaptor<Collection<OrganisationUnit>> orgUnits = ArgumentCaptor.forClass( Collection.class );
+
+        verify( dataApprovalStore, times( 3 ) ).getDataApprovalStatuses( any(), any(), orgUnits.capture(), anyInt(), any(), any(), any(), any() );
+
+        assertEquals( Sets.newHashSet( 1, 1000, 500 ), orgUnits.getAllValues().stream().map( Collection::size ).collect( Collectors.toSet() ) );
+    }
+
+    @Test
+    public void testCachedStatusesAreCopiedAndKeyedOnDataVersion()
+    {
+        OrganisationUnit unit = createOrganisationUnit( 'B', root );
+        unit.setId( 2 );
+
+        DataApproval approval = new DataApproval( null, workflow, period, unit, attributeOptionCombo );
+        List<DataApproval> approvals = new ArrayList<>();
+        approvals.add( approval );
+
+        DataApprovalStatus first = dataApprovalService.getDataApprovalStatuses( approvals ).get( approval );
+        first.setState( DataApprovalState.APPROVED_HERE );
+
+        DataApprovalStatus second = dataApprovalService.getDataApprovalStatuses( approvals ).get( approval );
+
+        assertNotSame( first, second );
+        assertEquals( DataApprovalState.UNAPPROVED_READY, second.getState() );
+        verify( dataApprovalStore, times( 1 ) ).getDataApprovalStatuses( any(), any(), anyCollection(), anyInt(), any(), any(), any(), any() );
+
+        when( dataApprovalStore.getDataApprovalVersion() ).thenReturn( "2" );
+
+        dataApprovalService.getDataApprovalStatuses( approvals );
+
+        verify( dataApprovalStore, times( 2 ) ).getDataApprovalStatuses( any(), any(), anyCollection(), anyInt(), any(), any(), any(), any() );
+    }
+
+    private List<DataApprovalStatus> getUnapprovedStatuses( Collection<OrganisationUnit> orgUnits )
+    {
+        return orgUnits.stream()
+            .map( unit -> new DataApprovalStatus( DataApprovalState.UNAPPROVED_READY, null, 0, null,
+                unit.getUid(), unit.getName(), attributeOptionCombo.getUid(), false, null ) )
+            .collect( Collectors.toList() );
+    }
+}
@@ -36,8 +36,11 @@ import org.hisp.dhis.dataset.DataSet;
 import org.hisp.dhis.dataset.DataSetService;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 
@@ -62,6 +65,9 @@ public class OrganisationUnitStoreTest
     @Autowired
     private IdentifiableObjectManager idObjectManager;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private OrganisationUnit ouA;
     private OrganisationUnit ouB;
     private OrganisationUnit ouC;
@@ -404,5 +410,142 @@ public class OrganisationUnitStoreTest
         orgUnitStore.save( ouG );
         
         assertEquals( 3, orgUnitStore.getMaxLevel() );
-    }        
-}
\ No newline at end of file
+    }
+
+    @Test
+    public void testUpdateHierarchyIntervals()
+    {
+        orgUnitStore.save( ouA );
+        orgUnitStore.save( ouB );
+        orgUnitStore.save( ouC );
+        orgUnitStore.save( ouD );
+        orgUnitStore.save( ouE );
+        orgUnitStore.save( ouF );
+        orgUnitStore.save( ouG );
+
+        assertEquals( 7, orgUnitStore.updateHierarchyIntervals() );
+        assertEquals( 0, orgUnitStore.updateHierarchyIntervals() );
+
+        int[] a = getHierarchyInterval( ouA );
+        int[] b = getHierarchyInterval( ouB );
+        int[] c = getHierarchyInterval( ouC );
+        int[] d = getHierarchyInterval( ouD );
+        int[] e = getHierarchyInterval( ouE );
+        int[] g = getHierarchyInterval( ouG );
+
+        assertEquals( 1, a[0] );
+        assertWithin( b, a );
+        assertWithin( c, a );
+        assertWithin( d, b );
+        assertWithin( e, b );
+        assertWithin( g, c );
+        assertDisjoint( b, c );
+        assertDisjoint( d, e );
+        assertTrue( d[1] > d[0] );
+
+        assertEquals( Integer.valueOf( a[0] ), ouA.getHierarchyStart() );
+        assertEquals( Integer.valueOf( a[1] ), ouA.getHierarchyEnd() );
+        assertEquals( Integer.valueOf( d[0] ), ouD.getHierarchyStart() );
+    }
+
+    @Test
+    public void testUpdateHierarchyIntervalsAddAndMove()
+    {
+        orgUnitStore.save( ouA );
+        orgUnitStore.save( ouB );
+        orgUnitStore.save( ouC );
+        orgUnitStore.save( ouD );
+        orgUnitStore.save( ouE );
+        orgUnitStore.save( ouF );
+        orgUnitStore.save( ouG );
+
+        assertEquals( 7, orgUnitStore.updateHierarchyIntervals() );
+
+        int[] a = getHierarchyInterval( ouA );
+        int[] b = getHierarchyInterval( ouB );
+        int[] d = getHierarchyInterval( ouD );
+        int[] e = getHierarchyInterval( ouE );
+
+        OrganisationUnit ouH = createOrganisationUnit( 'H', ouD );
+        orgUnitStore.save( ouH );
+
+        assertEquals( 1, orgUnitStore.updateHierarchyIntervals( Sets.newHashSet( ouH.getId() ) ) );
+        assertWithin( getHierarchyInterval( ouH ), d );
+
+        ouG.setParent( ouB );
+        orgUnitStore.update( ouG );
+
+        assertEquals( 1, orgUnitStore.updateHierarchyIntervals( Sets.newHashSet( ouG.getId() ) ) );
+        assertWithin( getHierarchyInterval( ouG ), b );
+        assertDisjoint( getHierarchyInterval( ouG ), d );
+        assertDisjoint( getHierarchyInterval( ouG ), e );
+
+        assertArrayEquals( a, getHierarchyInterval( ouA ) );
+        assertArrayEquals( b, getHierarchyInterval( ouB ) );
+        assertArrayEquals( d, getHierarchyInterval( ouD ) );
+        assertEquals( 0, orgUnitStore.updateHierarchyIntervals() );
+    }
+
+    @Test
+    public void testUpdateHierarchyIntervalsNoSpaceLeft()
+    {
+        orgUnitStore.save( ouA );
+        orgUnitStore.save( ouB );
+        orgUnitStore.save( ouC );
+        orgUnitStore.save( ouD );
+        orgUnitStore.save( ouE );
+        orgUnitStore.save( ouF );
+        orgUnitStore.save( ouG );
+
+        assertEquals( 7, orgUnitStore.updateHierarchyIntervals() );
+
+        int[] a = getHierarchyInterval( ouA );
+        int[] c = getHierarchyInterval( ouC );
+
+        List<OrganisationUnit> children = new ArrayList<>();
+
+        for ( char uniqueCharacter = 'H'; uniqueCharacter <= 'W'; uniqueCharacter++ )
+        {
+            OrganisationUnit child = createOrganisationUnit( uniqueCharacter, ouD );
+            orgUnitStore.save( child );
+            children.add( child );
+        }
+
+        assertTrue( orgUnitStore.updateHierarchyIntervals( children.stream().map( OrganisationUnit::getId ).collect( Collectors.toSet() ) ) > 0 );
+
+        int[] b = getHierarchyInterval( ouB );
+        int[] d = getHierarchyInterval( ouD );
+
+        assertWithin( d, b );
+
+        for ( int i = 0; i < children.size(); i++ )
+        {
+            assertWithin( getHierarchyInterval( children.get( i ) ), d );
+
+            for ( int j = i + 1; j < children.size(); j++ )
+            {
+                assertDisjoint( getHierarchyInterval( children.get( i ) ), getHierarchyInterval( children.get( j ) ) );
+            }
+        }
+
+        assertArrayEquals( a, getHierarchyInterval( ouA ) );
+        assertArrayEquals( c, getHierarchyInterval( ouC ) );
+        assertEquals( 0, orgUnitStore.updateHierarchyIntervals() );
+    }
+
+    private void assertWithin( int[] interval, int[] parent )
+    {
+        assertTrue( interval[0] > parent[0] && interval[1] <= parent[1] );
+    }
+
+    private void assertDisjoint( int[] interval, int[] other )
+    {
+        assertTrue( interval[1] < other[0] || other[1] < interval[0] );
+    }
+
+    private int[] getHierarchyInterval( OrganisationUnit unit )
+    {
+        return jdbcTemplate.queryForObject( "select hierarchystart, hierarchyend from organisationunit where organisationunitid = ?",
+            ( rs, rowNum ) -> new int[] { rs.getInt( 1 ), rs.getInt( 2 ) }, unit.getId() );
+    }
+}
@@ -30,11 +30,13 @@ package org.hisp.dhis.query;
 
 import com.google.common.collect.Lists;
 import org.hisp.dhis.DhisSpringTest;
+import org.hisp.dhis.category.CategoryOption;
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.common.ValueType;
 import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.dataelement.DataElementGroup;
+import org.hisp.dhis.fieldfilter.Defaults;
 import org.hisp.dhis.query.operators.MatchMode;
 import org.hisp.dhis.schema.Schema;
 import org.hisp.dhis.schema.SchemaService;
@@ -140,6 +142,113 @@ public class QueryServiceTest
         assertEquals( 2, queryService.query( query ).size() );
     }
 
+    @Test
+    public void countAllQuery()
+    {
+        Query query = Query.from( schemaService.getDynamicSchema( DataElement.class ) );
+        query.setFirstResult( 2 );
+        query.setMaxResults( 2 );
+
+        assertEquals( 6, queryService.count( query ) );
+    }
+
+    @Test
+    public void countEqQuery()
+    {
+        Query query = Query.from( schemaService.getDynamicSchema( DataElement.class ) );
+        query.add( Restrictions.eq( "valueType", ValueType.NUMBER ) );
+
+        assertEquals( 2, queryService.count( query ) );
+    }
+
+    @Test
+    public void pageExcludeDefaultsQuery()
+    {
+        createCategoryOptions();
+
+        Query countQuery = Query.from( schemaService.getDynamicSchema( CategoryOption.class ) );
+
+        assertEquals( 5, queryService.count( countQuery ) );
+
+        List<IdentifiableObject> objects = new ArrayList<>();
+
+        for ( int firstResult = 0; firstResult < 6; firstResult += 2 )
+        {
+            Query query = Query.from( schemaService.getDynamicSchema( CategoryOption.class ) );
+            query.addOrder( Order.asc( schemaService.getDynamicSchema( CategoryOption.class ).getProperty( "name" ) ) );
+            query.setFirstResult( firstResult );
+            query.setMaxResults( 2 );
+
+            List<? extends IdentifiableObject> page = queryService.query( query );
+
+            assertEquals( Math.min( 2, 5 - firstResult ), page.size() );
+
+            objects.addAll( page );
+        }
+
+        assertEquals( 5, objects.size() );
+        assertEquals( 5, objects.stream().map( IdentifiableObject::getUid ).distinct().count() );
+        assertTrue( objects.stream().noneMatch( object -> "default".equals( object.getName() ) ) );
+    }
+
+    @Test
+    public void pageIncludeDefaultsQuery()
+    {
+        createCategoryOptions();
+
+        Query query = Query.from( schemaService.getDynamicSchema( CategoryOption.class ) );
+        query.setDefaults( Defaults.INCLUDE );
+
+        assertEquals( 6, queryService.count( query ) );
+
+        query = Query.from( schemaService.getDynamicSchema( CategoryOption.class ) );
+        query.setDefaults( Defaults.INCLUDE );
+        query.setFirstResult( 4 );
+        query.setMaxResults( 2 );
+
+        assertEquals( 2, queryService.query( query ).size() );
+    }
+
+    @Test
+    public void pageInMemoryCriterionQuery()
+    {
+        Query query = Query.from( schemaService.getDynamicSchema( DataElement.class ) );
+        query.add( Restrictions.like( "displayName", "DataElement", MatchMode.START ) );
+        query.addOrder( Order.asc( schemaService.getDynamicSchema( DataElement.class ).getProperty( "name" ) ) );
+        query.setFirstResult( 2 );
+        query.setMaxResults( 2 );
+
+        List<? extends IdentifiableObject> objects = queryService.query( query );
+
+        assertEquals( 2, objects.size() );
+        assertEquals( "deabcdefghC", objects.get( 0 ).getUid() );
+        assertEquals( "deabcdefghD", objects.get( 1 ).getUid() );
+
+        query = Query.from( schemaService.getDynamicSchema( DataElement.class ) );
+        query.add( Restrictions.like( "displayName", "DataElement", MatchMode.START ) );
+        query.setFirstResult( 2 );
+        query.setMaxResults( 2 );
+
+        assertEquals( 6, queryService.count( query ) );
+    }
+
+    @Test
+    public void pageInMemoryCriterionExcludeDefaultsQuery()
+    {
+        createCategoryOptions();
+
+        Query query = Query.from( schemaService.getDynamicSchema( CategoryOption.class ) );
+        query.add( Restrictions.like( "displayName", "e", MatchMode.ANYWHERE ) );
+        query.addOrder( Order.asc( schemaService.getDynamicSchema( CategoryOption.class ).getProperty( "name" ) ) );
+        query.setFirstResult( 4 );
+        query.setMaxResults( 2 );
+
+        List<? extends IdentifiableObject> objects = queryService.query( query );
+
+        assertEquals( 1, objects.size() );
+        assertEquals( "CategoryOptionE", objects.get( 0 ).getName() );
+    }
+
     @Test
     public void getEqQuery()
     {
@@ -643,6 +752,20 @@ public class QueryServiceTest
         assertEquals( 1, objects.size() );
     }
 
+    private void createCategoryOptions()
+    {
+        if ( identifiableObjectManager.getByName( CategoryOption.class, "default" ) == null )
+        {
+            identifiableObjectManager.save( new CategoryOption( "default" ) );
+        }
+
+        identifiableObjectManager.save( createCategoryOption( 'A' ) );
+        identifiableObjectManager.save( createCategoryOption( 'B' ) );
+        identifiableObjectManager.save( createCategoryOption( 'C' ) );
+        identifiableObjectManager.save( createCategoryOption( 'D' ) );
+        identifiableObjectManager.save( createCategoryOption( 'E' ) );
+    }
+
     private boolean collectionContainsUid( Collection<? extends IdentifiableObject> collection, String uid )
     {
         for ( IdentifiableObject identifiableObject : collection )
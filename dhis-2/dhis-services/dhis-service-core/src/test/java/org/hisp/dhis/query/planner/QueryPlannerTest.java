@@ -0,0 +1,82 @@
+package org.hisp.dhis.query.planner;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.DhisSpringTest;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.query.Query;
+import org.hisp.dhis.query.Restrictions;
+import org.hisp.dhis.schema.Schema;
+import org.hisp.dhis.schema.SchemaService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class QueryPlannerTest
+    extends DhisSpringTest
+{
+    @Autowired
+    private QueryPlanner queryPlanner;
+
+    @Autowired
+    private SchemaService schemaService;
+
+    @Test
+    public void testGetQueryPathIsShared()
+    {
+        Schema schema = schemaService.getDynamicSchema( DataElement.class );
+
+        QueryPath queryPath = queryPlanner.getQueryPath( schema, "dataElementGroups.id" );
+
+        assertSame( queryPath, queryPlanner.getQueryPath( schema, "dataElementGroups.id" ) );
+        assertTrue( queryPath.isPersisted() );
+        assertTrue( queryPath.haveAlias() );
+    }
+
+    @Test
+    public void testPlanQueryWithSharedQueryPaths()
+    {
+        Schema schema = schemaService.getDynamicSchema( DataElement.class );
+
+        for ( int i = 0; i < 2; i++ )
+        {
+            Query query = Query.from( schema );
+            query.add( Restrictions.eq( "id", "deabcdefghA" ) );
+            query.add( Restrictions.eq( "displayName", "DataElementA" ) );
+
+            QueryPlan queryPlan = queryPlanner.planQuery( query );
+
+            assertEquals( 1, queryPlan.getPersistedQuery().getCriterions().size() );
+            assertEquals( 1, queryPlan.getNonPersistedQuery().getCriterions().size() );
+        }
+    }
+}
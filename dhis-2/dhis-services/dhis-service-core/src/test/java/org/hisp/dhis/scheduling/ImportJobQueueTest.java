@@ -0,0 +1,218 @@
+package org.hisp.dhis.scheduling;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.monitoring.sql.StatementProfiler;
+import org.hisp.dhis.system.notification.Notifier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ImportJobQueueTest
+{
+    @Rule
+    public MockitoRule rule = MockitoJUnit.rule();
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    @Mock
+    private Notifier notifier;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    private JobExecutorPools pools;
+
+    private ImportJobQueue queue;
+
+    private final CountDownLatch release = new CountDownLatch( 1 );
+
+    private final List<String> executed = Collections.synchronizedList( new ArrayList<>() );
+
+    @Before
+    public void init()
+    {
+        when( config.getProperty( any( ConfigurationKey.class ) ) ).thenReturn( "1" );
+        when( config.getProperty( ConfigurationKey.SCHEDULING_POOL_IMPORT_SIZE ) ).thenReturn( "2" );
+        when( config.getProperty( ConfigurationKey.SCHEDULING_POOL_IMPORT_QUEUE ) ).thenReturn( "10" );
+        when( config.getProperty( ConfigurationKey.SCHEDULING_QUEUE_IMPORT_CAPACITY ) ).thenReturn( "3" );
+
+        pools = new JobExecutorPools( config, new StatementProfiler( config ) );
+        queue = new ImportJobQueue( config, pools, notifier, taskScheduler );
+    }
+
+    @After
+    public void shutdown()
+    {
+        release.countDown();
+        pools.shutdown();
+    }
+
+    @Test
+    public void testQueueIsBounded()
+    {
+        assertTrue( submit( "A", "A1", true ) ); // Running
+        assertTrue( submit( "A", "A2", false ) ); // Queued
+        assertTrue( submit( "A", "A3", false ) );
+        assertTrue( submit( "B", "B1", false ) );
+        assertFalse( submit( "B", "B2", false ) ); // Rejected
+
+        assertEquals( 3, queue.getQueuedCount( JobType.DATAVALUE_IMPORT ) );
+        assertTrue( queue.getRetryAfterSeconds( JobType.DATAVALUE_IMPORT ) >= 1 );
+    }
+
+    @Test
+    public void testUsersAreServedInTurn()
+        throws Exception
+    {
+        CountDownLatch done = new CountDownLatch( 4 );
+
+        submit( "A", "A1", true, done );
+        submit( "A", "A2", false, done );
+        submit( "A", "A3", false, done );
+        submit( "B", "B1", false, done );
+
+        release.countDown();
+
+        assertTrue( done.await( 5, TimeUnit.SECONDS ) );
+        assertEquals( Arrays.asList( "A1", "A2", "B1", "A3" ), executed );
+    }
+
+    @Test
+    public void testJobTypesAreIndependent()
+    {
+        assertTrue( submit( "A", "A1", true ) );
+        assertTrue( queue.submit( new JobConfiguration( "eventImport", JobType.EVENT_IMPORT, "A", true ), () -> {} ) );
+
+        assertEquals( 0, queue.getQueuedCount( JobType.EVENT_IMPORT ) );
+    }
+
+    @Test
+    public void testRejectedJobIsRedispatched()
+        throws Exception
+    {
+        JobExecutorPools rejectingPools = spy( pools );
+
+        doThrow( new TaskRejectedException( "Pool is full" ) ).doCallRealMethod()
+            .when( rejectingPools ).submit( eq( JobType.DATAVALUE_IMPORT ), any( Runnable.class ) );
+
+        queue = new ImportJobQueue( config, rejectingPools, notifier, taskScheduler );
+
+        CountDownLatch done = new CountDownLatch( 1 );
+
+        assertTrue( submit( "A", "A1", false, done ) );
+        assertEquals( 1, queue.getQueuedCount( JobType.DATAVALUE_IMPORT ) );
+
+        ArgumentCaptor<Runnable> redispatch = ArgumentCaptor.forClass( Runnable.class );
+        verify( taskScheduler ).schedule( redispatch.capture(), any( Date.class ) );
+
+        redispatch.getValue().run();
+
+        assertTrue( done.await( 5, TimeUnit.SECONDS ) );
+        assertEquals( Collections.singletonList( "A1" ), executed );
+        assertEquals( 0, queue.getQueuedCount( JobType.DATAVALUE_IMPORT ) );
+    }
+
+    @Test
+    public void testMetrics()
+    {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        queue.bindTo( registry );
+
+        submit( "A", "A1", true );
+        submit( "A", "A2", false );
+
+        assertEquals( 1, registry.get( "dhis.import.queue.queued" ).tag( "jobType", "DATAVALUE_IMPORT" ).gauge().value(), 0 );
+        assertEquals( 1, registry.get( "dhis.import.queue.running" ).tag( "jobType", "DATAVALUE_IMPORT" ).gauge().value(), 0 );
+    }
+
+    private boolean submit( String user, String name, boolean block )
+    {
+        return submit( user, name, block, new CountDownLatch( 1 ) );
+    }
+
+    private boolean submit( String user, String name, boolean block, CountDownLatch done )
+    {
+        JobConfiguration jobConfiguration = new JobConfiguration( "dataValueImport", JobType.DATAVALUE_IMPORT, user, true );
+
+        return queue.submit( jobConfiguration, () -> {
+            executed.add( name );
+
+            if ( block )
+            {
+                await( release );
+            }
+
+            done.countDown();
+        } );
+    }
+
+    private static void await( CountDownLatch latch )
+    {
+        try
+        {
+            latch.await( 5, TimeUnit.SECONDS );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
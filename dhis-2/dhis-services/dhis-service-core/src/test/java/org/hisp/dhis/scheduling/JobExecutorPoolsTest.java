@@ -0,0 +1,155 @@
+package org.hisp.dhis.scheduling;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.monitoring.sql.StatementProfiler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class JobExecutorPoolsTest
+{
+    @Rule
+    public MockitoRule rule = MockitoJUnit.rule();
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    private JobExecutorPools pools;
+
+    @Before
+    public void init()
+    {
+        when( config.getProperty( any( ConfigurationKey.class ) ) ).thenReturn( "1" );
+
+        pools = new JobExecutorPools( config, new StatementProfiler( config ) );
+    }
+
+    @After
+    public void shutdown()
+    {
+        pools.shutdown();
+    }
+
+    @Test
+    public void testJobTypeCategory()
+    {
+        assertEquals( JobCategory.ANALYTICS, JobType.ANALYTICS_TABLE.getCategory() );
+        assertEquals( JobCategory.SYNC, JobType.EVENT_PROGRAMS_DATA_SYNC.getCategory() );
+        assertEquals( JobCategory.NOTIFICATIONS, JobType.PROGRAM_NOTIFICATIONS.getCategory() );
+        assertEquals( JobCategory.MAINTENANCE, JobType.MONITORING.getCategory() );
+        assertEquals( JobCategory.SYSTEM, JobType.LEADER_RENEWAL.getCategory() );
+    }
+
+    @Test
+    public void testPoolsAreIsolated()
+        throws Exception
+    {
+        CountDownLatch release = new CountDownLatch( 1 );
+        CountDownLatch started = new CountDownLatch( 1 );
+
+        ListenableFuture<?> analytics = pools.submit( JobType.ANALYTICS_TABLE, () -> {
+            started.countDown();
+            await( release );
+        } );
+
+        assertTrue( started.await( 5, TimeUnit.SECONDS ) );
+        assertEquals( 1, pools.getActiveCount( JobType.ANALYTICS_TABLE ) );
+
+        // Sync pool is not blocked by the running analytics job
+
+        pools.submit( JobType.DATA_SYNC, () -> "done" ).get( 5, TimeUnit.SECONDS );
+
+        release.countDown();
+        analytics.get( 5, TimeUnit.SECONDS );
+
+        assertEquals( 0, pools.getActiveCount( JobType.ANALYTICS_TABLE ) );
+    }
+
+    @Test( expected = TaskRejectedException.class )
+    public void testQueueIsBounded()
+        throws Exception
+    {
+        CountDownLatch release = new CountDownLatch( 1 );
+
+        try
+        {
+            pools.submit( JobType.PREDICTOR, () -> await( release ) ); // Running
+            pools.submit( JobType.PREDICTOR, () -> await( release ) ); // Queued
+            pools.submit( JobType.PREDICTOR, () -> await( release ) ); // Rejected
+        }
+        finally
+        {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testMetrics()
+        throws Exception
+    {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        pools.bindTo( registry );
+
+        pools.submit( JobType.DATA_STATISTICS, () -> "done" ).get( 5, TimeUnit.SECONDS );
+
+        assertEquals( 1, registry.get( "dhis.jobs.run.time" ).tag( "jobType", "DATA_STATISTICS" ).timer().count() );
+        assertEquals( 1, registry.get( "dhis.jobs.queue.time" ).tag( "category", "maintenance" ).timer().count() );
+    }
+
+    private static void await( CountDownLatch latch )
+    {
+        try
+        {
+            latch.await( 5, TimeUnit.SECONDS );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.hisp.dhis.trackedentity;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.hisp.dhis.DhisSpringTest;
+import org.hisp.dhis.common.AuditType;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class TrackedEntityInstanceAuditStoreTest
+    extends DhisSpringTest
+{
+    @Autowired
+    private TrackedEntityInstanceAuditService auditService;
+
+    @Test
+    public void testAddTrackedEntityInstanceAudits()
+    {
+        TrackedEntityInstanceAudit auditA = new TrackedEntityInstanceAudit( "teiUidA", "userA", AuditType.READ );
+        TrackedEntityInstanceAudit auditB = new TrackedEntityInstanceAudit( "teiUidA", "userB", AuditType.SEARCH );
+        TrackedEntityInstanceAudit auditC = new TrackedEntityInstanceAudit( "teiUidB", "userA", AuditType.UPDATE );
+        auditC.setComment( "Updated" );
+
+        auditService.addTrackedEntityInstanceAudits( Lists.newArrayList( auditA, auditB, auditC ) );
+
+        TrackedEntityInstanceAuditQueryParams params = new TrackedEntityInstanceAuditQueryParams();
+        params.setSkipPaging( true );
+
+        assertEquals( 3, auditService.getTrackedEntityInstanceAuditsCount( params ) );
+
+        params.setTrackedEntityInstances( Sets.newHashSet( "teiUidB" ) );
+
+        List<TrackedEntityInstanceAudit> audits = auditService.getTrackedEntityInstanceAudits( params );
+
+        assertEquals( 1, audits.size() );
+        assertEquals( "userA", audits.get( 0 ).getAccessedBy() );
+        assertEquals( AuditType.UPDATE, audits.get( 0 ).getAuditType() );
+        assertEquals( "Updated", audits.get( 0 ).getComment() );
+    }
+
+    @Test
+    public void testAddEmptyTrackedEntityInstanceAudits()
+    {
+        auditService.addTrackedEntityInstanceAudits( Lists.newArrayList() );
+
+        assertEquals( 0, auditService.getTrackedEntityInstanceAuditsCount( new TrackedEntityInstanceAuditQueryParams() ) );
+    }
+}
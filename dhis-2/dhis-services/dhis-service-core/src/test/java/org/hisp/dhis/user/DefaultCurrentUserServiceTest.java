@@ -0,0 +1,197 @@
+package org.hisp.dhis.user;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import org.hisp.dhis.DhisConvenienceTest;
+import org.hisp.dhis.cache.DefaultCacheProvider;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.core.env.Environment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class DefaultCurrentUserServiceTest
+    extends DhisConvenienceTest
+{
+    @Rule
+    public MockitoRule rule = MockitoJUnit.rule();
+
+    @Mock
+    private UserStore userStore;
+
+    @Mock
+    private SessionRegistry sessionRegistry;
+
+    @Mock
+    private Environment env;
+
+    private DefaultCurrentUserService currentUserService;
+
+    private User userA;
+
+    private User userB;
+
+    private OrganisationUnit ouB;
+
+    private OrganisationUnit ouC;
+
+    @Before
+    public void init()
+    {
+        OrganisationUnit ouA = createOrganisationUnit( 'A' );
+        ouB = createOrganisationUnit( 'B', ouA );
+        ouC = createOrganisationUnit( 'C' );
+
+        userA = createUser( 'A', Lists.newArrayList( "F_DATAVALUE_ADD" ) );
+        userA.setOrganisationUnits( Sets.newHashSet( ouA ) );
+        userB = createUser( 'B' );
+        userB.setOrganisationUnits( Sets.newHashSet( ouC ) );
+
+        mockUser( userA, 1L );
+        mockUser( userB, 2L );
+
+        when( env.getActiveProfiles() ).thenReturn( new String[] {} );
+
+        currentUserService = new DefaultCurrentUserService( env, new DefaultCacheProvider(), sessionRegistry, userStore );
+        currentUserService.init();
+    }
+
+    @After
+    public void tearDown()
+    {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testGetCurrentUserContextReusedWithinRequest()
+    {
+        RequestContextHolder.setRequestAttributes( new ServletRequestAttributes( new MockHttpServletRequest() ) );
+        authenticate( userA );
+
+        CurrentUserContext context = currentUserService.getCurrentUserContext();
+
+        assertEquals( userA.getUsername(), context.getUsername() );
+        assertEquals( userA.getUid(), context.getUserUid() );
+        assertTrue( context.isAuthorized( "F_DATAVALUE_ADD" ) );
+        assertTrue( context.isInDataCaptureHierarchy( ouB.getPath() ) );
+        assertFalse( context.isInDataCaptureHierarchy( ouC.getPath() ) );
+        assertSame( context, currentUserService.getCurrentUserContext() );
+        assertTrue( currentUserService.currentUserIsAuthorized( "F_DATAVALUE_ADD" ) );
+
+        verify( userStore, times( 1 ) ).getUser( 1L );
+    }
+
+    @Test
+    public void testGetCurrentUserContextRebuiltOnUsernameChange()
+    {
+        RequestContextHolder.setRequestAttributes( new ServletRequestAttributes( new MockHttpServletRequest() ) );
+        authenticate( userA );
+
+        CurrentUserContext contextA = currentUserService.getCurrentUserContext();
+
+        authenticate( userB );
+
+        CurrentUserContext contextB = currentUserService.getCurrentUserContext();
+
+        assertNotSame( contextA, contextB );
+        assertEquals( userB.getUsername(), contextB.getUsername() );
+        assertEquals( Collections.emptySet(), contextB.getAuthorities() );
+        assertSame( contextB, currentUserService.getCurrentUserContext() );
+
+        verify( userStore, times( 1 ) ).getUser( 2L );
+    }
+
+    @Test
+    public void testGetCurrentUserContextOutsideRequest()
+    {
+        authenticate( userA );
+
+        CurrentUserContext contextA = currentUserService.getCurrentUserContext();
+        CurrentUserContext contextB = currentUserService.getCurrentUserContext();
+
+        assertNotSame( contextA, contextB );
+        assertEquals( userA.getUsername(), contextA.getUsername() );
+        assertEquals( userA.getUsername(), contextB.getUsername() );
+
+        verify( userStore, times( 2 ) ).getUser( 1L );
+    }
+
+    @Test
+    public void testGetCurrentUserContextNotAuthenticated()
+    {
+        RequestContextHolder.setRequestAttributes( new ServletRequestAttributes( new MockHttpServletRequest() ) );
+
+        assertNull( currentUserService.getCurrentUserContext() );
+    }
+
+    private void mockUser( User user, long id )
+    {
+        user.setId( id );
+        user.getUserCredentials().setId( id );
+
+        when( userStore.getUserCredentialsByUsername( user.getUsername() ) ).thenReturn( user.getUserCredentials() );
+        when( userStore.getUser( id ) ).thenReturn( user );
+    }
+
+    private void authenticate( User user )
+    {
+        UserDetails userDetails = new org.springframework.security.core.userdetails.User(
+            user.getUsername(), user.getUserCredentials().getPassword(), Collections.emptyList() );
+
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken( userDetails, "", Collections.emptyList() ) );
+    }
+}
@@ -0,0 +1,119 @@
+package org.hisp.dhis.dxf2.datavalueset;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.hisp.dhis.category.CategoryOptionCombo;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+
+/**
+ * Parameters for reading the data value change log. Changes are restricted to
+ * the hierarchies of the given organisation units, to the given data elements
+ * and to attribute option combos other than the excluded ones.
+ */
+public class DataValueChangeParams
+{
+    private long since;
+
+    private int limit;
+
+    /**
+     * Roots of the organisation unit hierarchies to include changes for.
+     */
+    private Set<OrganisationUnit> organisationUnits = new HashSet<>();
+
+    /**
+     * Data elements to include changes for, null means all data elements.
+     */
+    private Set<DataElement> dataElements;
+
+    private Set<CategoryOptionCombo> excludedAttributeOptionCombos = new HashSet<>();
+
+    // -------------------------------------------------------------------------
+    // Get and set methods
+    // -------------------------------------------------------------------------
+
+    public long getSince()
+    {
+        return since;
+    }
+
+    public DataValueChangeParams setSince( long since )
+    {
+        this.since = since;
+        return this;
+    }
+
+    public int getLimit()
+    {
+        return limit;
+    }
+
+    public DataValueChangeParams setLimit( int limit )
+    {
+        this.limit = limit;
+        return this;
+    }
+
+    public Set<OrganisationUnit> getOrganisationUnits()
+    {
+        return organisationUnits;
+    }
+
+    public DataValueChangeParams setOrganisationUnits( Set<OrganisationUnit> organisationUnits )
+    {
+        this.organisationUnits = organisationUnits;
+        return this;
+    }
+
+    public Set<DataElement> getDataElements()
+    {
+        return dataElements;
+    }
+
+    public DataValueChangeParams setDataElements( Set<DataElement> dataElements )
+    {
+        this.dataElements = dataElements;
+        return this;
+    }
+
+    public Set<CategoryOptionCombo> getExcludedAttributeOptionCombos()
+    {
+        return excludedAttributeOptionCombos;
+    }
+
+    public DataValueChangeParams setExcludedAttributeOptionCombos( Set<CategoryOptionCombo> excludedAttributeOptionCombos )
+    {
+        this.excludedAttributeOptionCombos = excludedAttributeOptionCombos;
+        return this;
+    }
+}
@@ -0,0 +1,85 @@
+package org.hisp.dhis.dxf2.datavalueset;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.apache.commons.lang3.time.DateUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.scheduling.AbstractJob;
+import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.scheduling.JobType;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+
+/**
+ * Deletes entries of the data value change log which are older than the
+ * configured retention period.
+ */
+@Component( "dataValueChangePruneJob" )
+public class DataValueChangePruneJob
+    extends AbstractJob
+{
+    private static final Log log = LogFactory.getLog( DataValueChangePruneJob.class );
+
+    private final DataValueSetService dataValueSetService;
+
+    private final DhisConfigurationProvider config;
+
+    public DataValueChangePruneJob( DataValueSetService dataValueSetService, DhisConfigurationProvider config )
+    {
+        checkNotNull( dataValueSetService );
+        checkNotNull( config );
+
+        this.dataValueSetService = dataValueSetService;
+        this.config = config;
+    }
+
+    @Override
+    public JobType getJobType()
+    {
+        return JobType.DATA_VALUE_CHANGE_PRUNE;
+    }
+
+    @Override
+    public void execute( JobConfiguration jobConfiguration )
+    {
+        int retentionDays = Integer.parseInt( config.getProperty( ConfigurationKey.DATAVALUE_CHANGELOG_RETENTION_DAYS ) );
+
+        Date before = DateUtils.addDays( new Date(), -retentionDays );
+
+        int deleted = dataValueSetService.deleteDataValueChanges( before );
+
+        log.info( String.format( "Deleted %d data value changes recorded before %s", deleted, before ) );
+    }
+}
@@ -104,6 +104,29 @@ public interface DataValueSetService
 
     void writeDataValueSetCsv( DataExportParams params, Writer writer );
 
+    /**
+     * Writes entries of the data value change log with a sequence number
+     * greater than the given sequence as JSON. Clients pass the returned
+     * {@code lastSequence} as {@code since} on the next request to receive
+     * subsequent changes. Changes are restricted to the organisation unit
+     * hierarchy, data sets and attribute option combos the current user can
+     * read data for.
+     *
+     * @param since the sequence number of the last change seen by the client.
+     * @param limit the maximum number of changes to write.
+     * @param outputStream the stream to write to.
+     */
+    void writeDataValueChangesJson( long since, int limit, OutputStream outputStream );
+
+    /**
+     * Deletes entries of the data value change log recorded before the given
+     * date.
+     *
+     * @param before the date before which to delete entries.
+     * @return the number of deleted entries.
+     */
+    int deleteDataValueChanges( Date before );
+
     RootNode getDataValueSetTemplate( DataSet dataSet, Period period, List<String> orgUnits, boolean writeComments,
         String ouScheme, String deScheme );
 
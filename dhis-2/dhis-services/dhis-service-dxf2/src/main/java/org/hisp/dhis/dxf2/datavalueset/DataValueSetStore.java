@@ -66,4 +66,24 @@ public interface DataValueSetStore
      */
     void writeDataValueSetJson( Date lastUpdated, OutputStream outputStream, IdSchemes idSchemes, int pageSize,
         int page );
+
+    /**
+     * Writes entries of the data value change log with a sequence number
+     * greater than the given sequence as JSON, in ascending sequence order.
+     * Sequence numbers are first assigned to the changes of all transactions
+     * which have completed, so that no change is later recorded below them.
+     *
+     * @param params the parameters with the sequence, limit and user scope.
+     * @param outputStream the stream to write to.
+     */
+    void writeDataValueChangesJson( DataValueChangeParams params, OutputStream outputStream );
+
+    /**
+     * Deletes entries of the data value change log recorded before the given
+     * date.
+     *
+     * @param before the date.
+     * @return the number of deleted entries.
+     */
+    int deleteDataValueChanges( Date before );
 }
@@ -71,6 +71,7 @@ import org.hisp.dhis.dataelement.DataElementGroup;
 import org.hisp.dhis.dataset.CompleteDataSetRegistration;
 import org.hisp.dhis.dataset.CompleteDataSetRegistrationService;
 import org.hisp.dhis.dataset.DataSet;
+import org.hisp.dhis.dataset.DataSetService;
 import org.hisp.dhis.dataset.LockExceptionStore;
 import org.hisp.dhis.datavalue.AggregateAccessManager;
 import org.hisp.dhis.datavalue.DataExportParams;
@@ -179,6 +180,8 @@ public class DefaultDataValueSetService
 
     private AggregateAccessManager accessManager;
 
+    private final DataSetService dataSetService;
+
     public DefaultDataValueSetService( IdentifiableObjectManager identifiableObjectManager,
         CategoryService categoryService, OrganisationUnitService organisationUnitService, PeriodService periodService,
         DataApprovalService approvalService, BatchHandlerFactory batchHandlerFactory,
@@ -186,7 +189,7 @@ public class DefaultDataValueSetService
         DataValueSetStore dataValueSetStore, SystemSettingManager systemSettingManager,
         LockExceptionStore lockExceptionStore, I18nManager i18nManager, Notifier notifier, InputUtils inputUtils,
         CalendarService calendarService, DataValueService dataValueService, FileResourceService fileResourceService,
-        AclService aclService, AggregateAccessManager accessManager )
+        AclService aclService, AggregateAccessManager accessManager, DataSetService dataSetService )
     {
         checkNotNull( identifiableObjectManager );
         checkNotNull( categoryService );
@@ -207,6 +210,7 @@ public class DefaultDataValueSetService
         checkNotNull( fileResourceService );
         checkNotNull( aclService );
         checkNotNull( accessManager );
+        checkNotNull( dataSetService );
 
         this.identifiableObjectManager = identifiableObjectManager;
         this.categoryService = categoryService;
@@ -227,6 +231,7 @@ public class DefaultDataValueSetService
         this.fileResourceService = fileResourceService;
         this.aclService = aclService;
         this.accessManager = accessManager;
+        this.dataSetService = dataSetService;
     }
 
     /**
@@ -422,6 +427,43 @@ public class DefaultDataValueSetService
         dataValueSetStore.writeDataValueSetJson( lastUpdated, outputStream, idSchemes, pageSize, page );
     }
 
+    @Override
+    @Transactional
+    public void writeDataValueChangesJson( long since, int limit, OutputStream outputStream )
+    {
+        User user = currentUserService.getCurrentUser();
+
+        DataValueChangeParams params = new DataValueChangeParams()
+            .setSince( since )
+            .setLimit( limit );
+
+        if ( user != null )
+        {
+            params.setOrganisationUnits( user.getDataViewOrganisationUnitsWithFallback() );
+
+            if ( !user.isSuper() )
+            {
+                params.setDataElements( dataSetService.getUserDataRead( user ).stream()
+                    .flatMap( dataSet -> dataSet.getDataElements().stream() )
+                    .collect( Collectors.toSet() ) );
+
+                params.setExcludedAttributeOptionCombos( categoryService.getAttributeCategoryCombos().stream()
+                    .flatMap( categoryCombo -> categoryCombo.getOptionCombos().stream() )
+                    .filter( optionCombo -> !aclService.canDataRead( user, optionCombo ) )
+                    .collect( Collectors.toSet() ) );
+            }
+        }
+
+        dataValueSetStore.writeDataValueChangesJson( params, outputStream );
+    }
+
+    @Override
+    @Transactional
+    public int deleteDataValueChanges( Date before )
+    {
+        return dataValueSetStore.deleteDataValueChanges( before );
+    }
+
     @Override
     @Transactional
     public void writeDataValueSetCsv( DataExportParams params, Writer writer )
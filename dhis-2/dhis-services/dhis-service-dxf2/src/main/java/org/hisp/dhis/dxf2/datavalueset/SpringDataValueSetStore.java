@@ -33,10 +33,8 @@ import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.calendar.Calendar;
 import org.hisp.dhis.common.IdScheme;
 import org.hisp.dhis.common.IdSchemes;
-import org.hisp.dhis.commons.util.TextUtils;
 import org.hisp.dhis.datavalue.DataExportParams;
 import org.hisp.dhis.dxf2.datavalue.DataValue;
-import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.period.PeriodType;
 import org.hisp.dhis.system.util.CsvUtils;
 import org.hisp.dhis.util.DateUtils;
@@ -45,15 +43,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.OutputStream;
 import java.io.Writer;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.hisp.dhis.common.IdentifiableObjectUtils.getIdentifiers;
 import static org.hisp.dhis.commons.util.TextUtils.getCommaDelimitedString;
+import static org.hisp.dhis.organisationunit.OrganisationUnitIntervalUtils.getDescendantsSqlPredicate;
 import static org.hisp.dhis.util.DateUtils.getLongGmtDateString;
 import static org.hisp.dhis.util.DateUtils.getMediumDateString;
 
@@ -66,9 +71,32 @@ public class SpringDataValueSetStore
 {
     private static final Log log = LogFactory.getLog( SpringDataValueSetStore.class );
 
+    private static final int CHANGES_FETCH_SIZE = 1000;
+
+    /**
+     * Advisory lock key serializing the assignment of change sequence numbers.
+     */
+    private static final long CHANGES_SEQUENCE_LOCK = 3051203;
+
+    /**
+     * Assigns sequence numbers to changes of transactions older than the
+     * oldest running transaction. All such transactions have completed, so no
+     * change can later appear below the assigned sequence numbers.
+     */
+    private static final String SQL_ASSIGN_CHANGE_SEQUENCES =
+        "update datavaluechange dvc set sequence = s.sequence " +
+        "from (select u.changeid, nextval('datavaluechange_sequence') as sequence from (" +
+            "select changeid from datavaluechange " +
+            "where sequence is null and txid < txid_snapshot_xmin(txid_current_snapshot()) " +
+            "order by txid, changeid) u) s " +
+        "where dvc.changeid = s.changeid";
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     //--------------------------------------------------------------------------
     // DataValueSetStore implementation
     //--------------------------------------------------------------------------
@@ -126,6 +154,90 @@ public class SpringDataValueSetStore
         writeDataValueSet( sql, new DataExportParams(), null, dataValueSet );
     }
 
+    @Override
+    public void writeDataValueChangesJson( DataValueChangeParams params, OutputStream outputStream )
+    {
+        assignDataValueChangeSequences();
+
+        String sql =
+            "select dvc.sequence, dvc.changetype, de.uid as deid, pe.periodid, pe.startdate as pestart, pt.name as ptname, " +
+            "ou.uid as ouid, coc.uid as cocid, aoc.uid as aocid, dvc.value, dvc.deleted, dvc.lastupdated, dvc.changed " +
+            "from datavaluechange dvc " +
+            "left join dataelement de on (dvc.dataelementid=de.dataelementid) " +
+            "left join period pe on (dvc.periodid=pe.periodid) " +
+            "left join periodtype pt on (pe.periodtypeid=pt.periodtypeid) " +
+            "inner join organisationunit ou on (dvc.sourceid=ou.organisationunitid) " +
+            "left join categoryoptioncombo coc on (dvc.categoryoptioncomboid=coc.categoryoptioncomboid) " +
+            "left join categoryoptioncombo aoc on (dvc.attributeoptioncomboid=aoc.categoryoptioncomboid) " +
+            "where dvc.sequence > " + params.getSince() + " ";
+
+        if ( params.getOrganisationUnits().isEmpty() )
+        {
+            sql += "and false ";
+        }
+        else
+        {
+            sql += "and " + getDescendantsSqlPredicate( params.getOrganisationUnits(), "ou" ) + " ";
+        }
+
+        if ( params.getDataElements() != null )
+        {
+            sql += "and dvc.dataelementid in (" + ( params.getDataElements().isEmpty() ? "null" :
+                getCommaDelimitedString( getIdentifiers( params.getDataElements() ) ) ) + ") ";
+        }
+
+        if ( !params.getExcludedAttributeOptionCombos().isEmpty() )
+        {
+            sql += "and dvc.attributeoptioncomboid not in (" +
+                getCommaDelimitedString( getIdentifiers( params.getExcludedAttributeOptionCombos() ) ) + ") ";
+        }
+
+        sql +=
+            "order by dvc.sequence asc " +
+            "limit " + params.getLimit();
+
+        log.debug( "Get data value changes SQL: " + sql );
+
+        final String changesSql = sql;
+        final StreamingJsonDataValueChanges changes = new StreamingJsonDataValueChanges( outputStream, params.getSince() );
+        final Calendar calendar = PeriodType.getCalendar();
+        final Map<Long, String> periodIsoCache = new HashMap<>();
+
+        jdbcTemplate.query( con -> {
+            PreparedStatement statement = con.prepareStatement( changesSql );
+            statement.setFetchSize( CHANGES_FETCH_SIZE );
+            return statement;
+        }, ( RowCallbackHandler ) rs -> {
+            String period = null;
+
+            if ( rs.getString( "ptname" ) != null )
+            {
+                period = periodIsoCache.computeIfAbsent( rs.getLong( "periodid" ), k -> getIsoPeriod( rs, calendar ) );
+            }
+
+            changes.writeChange(
+                rs.getLong( "sequence" ),
+                rs.getString( "changetype" ),
+                rs.getString( "deid" ),
+                period,
+                rs.getString( "ouid" ),
+                rs.getString( "cocid" ),
+                rs.getString( "aocid" ),
+                rs.getString( "value" ),
+                rs.getBoolean( "deleted" ),
+                getLongGmtDateString( rs.getTimestamp( "lastupdated" ) ),
+                getLongGmtDateString( rs.getTimestamp( "changed" ) ) );
+        } );
+
+        changes.close( params.getLimit() );
+    }
+
+    @Override
+    public int deleteDataValueChanges( Date before )
+    {
+        return jdbcTemplate.update( "delete from datavaluechange where changed < ?", before );
+    }
+
     private String buildDataValueSql( Date lastUpdated, IdSchemes idSchemes )
     {
         String deScheme = idSchemes.getDataElementIdScheme().getIdentifiableString().toLowerCase();
@@ -201,6 +313,35 @@ public class SpringDataValueSetStore
     // Supportive methods
     //--------------------------------------------------------------------------
 
+    /**
+     * Assigns change sequence numbers in a separate transaction, so that the
+     * advisory lock is held only for the assignment and not while changes are
+     * streamed to the client.
+     */
+    private void assignDataValueChangeSequences()
+    {
+        TransactionTemplate transactionTemplate = new TransactionTemplate( transactionManager );
+        transactionTemplate.setPropagationBehavior( TransactionDefinition.PROPAGATION_REQUIRES_NEW );
+
+        transactionTemplate.execute( status -> {
+            jdbcTemplate.execute( "select pg_advisory_xact_lock(" + CHANGES_SEQUENCE_LOCK + ")" );
+            return jdbcTemplate.update( SQL_ASSIGN_CHANGE_SEQUENCES );
+        } );
+    }
+
+    private static String getIsoPeriod( ResultSet rs, Calendar calendar )
+    {
+        try
+        {
+            PeriodType pt = PeriodType.getPeriodTypeByName( rs.getString( "ptname" ) );
+            return pt.createPeriod( rs.getDate( "pestart" ), calendar ).getIsoDate();
+        }
+        catch ( SQLException ex )
+        {
+            throw new IllegalStateException( ex );
+        }
+    }
+
     private String getDataValueSql( DataExportParams params )
     {
         IdSchemes idScheme = params.getOutputIdSchemes() != null ? params.getOutputIdSchemes() : new IdSchemes();
@@ -261,14 +402,7 @@ public class SpringDataValueSetStore
 
         if ( params.isIncludeChildren() )
         {
-            sql += "and (";
-
-            for ( OrganisationUnit parent : params.getOrganisationUnits() )
-            {
-                sql += "ou.path like '" + parent.getPath() + "%' or ";
-            }
-
-            sql = TextUtils.removeLastOr( sql ) + ") ";
+            sql += "and " + getDescendantsSqlPredicate( params.getOrganisationUnits(), "ou" ) + " ";
         }
         else
         {
@@ -0,0 +1,143 @@
+package org.hisp.dhis.dxf2.datavalueset;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Streaming JSON writer for entries of the data value change log. Entries are
+ * written straight to the output stream as they are read from the database,
+ * so memory use does not depend on the number of changes returned.
+ * <p>
+ * Write failures are propagated as {@link UncheckedIOException} so that the
+ * underlying query is aborted when the client disconnects.
+ */
+public class StreamingJsonDataValueChanges
+{
+    private final JsonGenerator generator;
+
+    private long lastSequence;
+
+    private int count;
+
+    public StreamingJsonDataValueChanges( OutputStream out, long since )
+    {
+        try
+        {
+            JsonFactory factory = new ObjectMapper().getFactory();
+            factory.disable( JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM );
+            factory.disable( JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT );
+            generator = factory.createGenerator( out );
+            generator.writeStartObject();
+            generator.writeNumberField( "since", since );
+            generator.writeArrayFieldStart( "changes" );
+        }
+        catch ( IOException ex )
+        {
+            throw new UncheckedIOException( ex );
+        }
+
+        this.lastSequence = since;
+    }
+
+    public void writeChange( long sequence, String type, String dataElement, String period, String orgUnit,
+        String categoryOptionCombo, String attributeOptionCombo, String value, boolean deleted,
+        String lastUpdated, String changed )
+    {
+        try
+        {
+            generator.writeStartObject();
+            generator.writeNumberField( "sequence", sequence );
+            generator.writeStringField( "type", type );
+            writeStringField( "dataElement", dataElement );
+            writeStringField( "period", period );
+            writeStringField( "orgUnit", orgUnit );
+            writeStringField( "categoryOptionCombo", categoryOptionCombo );
+            writeStringField( "attributeOptionCombo", attributeOptionCombo );
+            writeStringField( "value", value );
+            generator.writeBooleanField( "deleted", deleted );
+            writeStringField( "lastUpdated", lastUpdated );
+            writeStringField( "changed", changed );
+            generator.writeEndObject();
+        }
+        catch ( IOException ex )
+        {
+            throw new UncheckedIOException( ex );
+        }
+
+        lastSequence = sequence;
+        count++;
+    }
+
+    /**
+     * Completes the document with the sequence number to pass as {@code since}
+     * on the next request, and whether the page was filled up to the limit.
+     *
+     * @param limit the maximum number of changes requested.
+     */
+    public void close( int limit )
+    {
+        try
+        {
+            generator.writeEndArray();
+            generator.writeNumberField( "lastSequence", lastSequence );
+            generator.writeBooleanField( "hasMore", count >= limit );
+            generator.writeEndObject();
+        }
+        catch ( IOException ex )
+        {
+            throw new UncheckedIOException( ex );
+        }
+        finally
+        {
+            IOUtils.closeQuietly( generator );
+        }
+    }
+
+    public int getCount()
+    {
+        return count;
+    }
+
+    private void writeStringField( String fieldName, String value )
+        throws IOException
+    {
+        if ( value != null )
+        {
+            generator.writeStringField( fieldName, value );
+        }
+    }
+}
@@ -28,6 +28,9 @@ package org.hisp.dhis.dxf2.datavalueset.tasks;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.commons.util.DebugUtils;
 import org.hisp.dhis.scheduling.JobConfiguration;
 import org.hisp.dhis.security.SecurityContextRunnable;
 import org.hibernate.SessionFactory;
@@ -35,15 +38,32 @@ import org.hisp.dhis.dbms.DbmsUtils;
 import org.hisp.dhis.dxf2.adx.AdxDataService;
 import org.hisp.dhis.dxf2.common.ImportOptions;
 import org.hisp.dhis.dxf2.datavalueset.DataValueSetService;
+import org.hisp.dhis.dxf2.importsummary.ImportStatus;
+import org.hisp.dhis.dxf2.importsummary.ImportSummary;
+import org.hisp.dhis.system.notification.NotificationLevel;
+import org.hisp.dhis.system.notification.Notifier;
 
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 
 /**
+ * Imports a data value set from a payload file. The file is read when the
+ * task runs, so the payload is not held in memory while the task is queued,
+ * and is deleted when the task has finished. A failure, such as a payload
+ * which can not be parsed, completes the job with an error notification and
+ * summary.
+ *
  * @author Lars Helge Overland
  */
 public class ImportDataValueTask
     extends SecurityContextRunnable
 {
+    private static final Log log = LogFactory.getLog( ImportDataValueTask.class );
+
     public static final String FORMAT_XML = "xml";
     public static final String FORMAT_JSON = "json";
     public static final String FORMAT_CSV = "csv";
@@ -56,7 +76,7 @@ public class ImportDataValueTask
     
     private SessionFactory sessionFactory;
     
-    private InputStream inputStream;
+    private final File payload;
 
     private final ImportOptions importOptions;
 
@@ -64,22 +84,37 @@ public class ImportDataValueTask
 
     private final String format;
 
+    private final Notifier notifier;
+
     // TODO: Re-factor as bean to avoid injecting session factory / dependencies
     
     public ImportDataValueTask( DataValueSetService dataValueSetService, AdxDataService adxDataService, SessionFactory sessionFactory,
-        InputStream inputStream, ImportOptions importOptions, JobConfiguration jobId, String format )
+        File payload, ImportOptions importOptions, JobConfiguration jobId, String format, Notifier notifier )
     {
         this.dataValueSetService = dataValueSetService;
         this.adxDataService = adxDataService;
         this.sessionFactory = sessionFactory;
-        this.inputStream = inputStream;
+        this.payload = payload;
         this.importOptions = importOptions;
         this.jobId = jobId;
         this.format = format;
+        this.notifier = notifier;
     }
 
     @Override
     public void call()
+    {
+        try ( InputStream inputStream = new BufferedInputStream( new FileInputStream( payload ) ) )
+        {
+            importDataValueSet( inputStream );
+        }
+        catch ( IOException ex )
+        {
+            throw new UncheckedIOException( ex );
+        }
+    }
+
+    private void importDataValueSet( InputStream inputStream )
     {
         if ( FORMAT_JSON.equals( format ) )
         {
@@ -109,9 +144,22 @@ public class ImportDataValueTask
         DbmsUtils.bindSessionToThread( sessionFactory );
     }
     
+    @Override
+    public void handleError( Throwable ex )
+    {
+        log.error( DebugUtils.getStackTrace( ex ) );
+
+        ImportSummary summary = new ImportSummary( ImportStatus.ERROR, "Import failed: " + ex.getMessage() );
+
+        notifier.notify( jobId, NotificationLevel.ERROR, "Import failed: " + ex.getMessage(), true )
+            .addJobSummary( jobId, NotificationLevel.ERROR, summary, ImportSummary.class );
+    }
+
     @Override
     public void after()
     {
         DbmsUtils.unbindSessionFromThread( sessionFactory );
+
+        payload.delete();
     }
 }
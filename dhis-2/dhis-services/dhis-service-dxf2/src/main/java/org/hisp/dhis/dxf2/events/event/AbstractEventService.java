@@ -314,8 +314,13 @@ public abstract class AbstractEventService
 
         List<List<Event>> partitions = Lists.partition( events, FLUSH_FREQUENCY );
 
+        int eventsDone = 0;
+
         for ( List<Event> _events : partitions )
         {
+            notifier.updateProgress( jobId, "Importing events " + (eventsDone + 1) + " to " +
+                (eventsDone + _events.size()) + " of " + events.size(), eventsDone, events.size() );
+
             reloadUser( importOptions );
             prepareCaches( importOptions.getUser(), _events );
 
@@ -365,6 +370,8 @@ public abstract class AbstractEventService
             {
                 clearSession( importOptions.getUser() );
             }
+
+            eventsDone += _events.size();
         }
 
         if ( jobId != null )
@@ -832,15 +839,18 @@ public abstract class AbstractEventService
     }
 
     @Override
-    public Events getAnonymousEventsForSync( int pageSize, Date skipChangedBefore, Map<String, Set<String>> psdesWithSkipSyncTrue )
+    public Events getAnonymousEventsForSync( int pageSize, Date skipChangedBefore, Map<String, Set<String>> psdesWithSkipSyncTrue,
+        String uidAfter )
     {
         // A page is not specified here as it would lead to SQLGrammarException after a successful sync of few pages
-        // (total count will change and offset won't be valid)
+        // (total count will change and offset won't be valid). Pages are instead delimited by the last uid of the
+        // previous page, which stays valid while previous pages are still being synchronized.
 
         EventSearchParams params = new EventSearchParams()
             .setProgramType( ProgramType.WITHOUT_REGISTRATION )
             .setIncludeDeleted( true )
             .setSynchronizationQuery( true )
+            .setSynchronizationUidAfter( uidAfter )
             .setPageSize( pageSize )
             .setSkipChangedBefore( skipChangedBefore );
 
@@ -1706,7 +1716,11 @@ public abstract class AbstractEventService
 
         if ( params.getOrgUnit() != null )
         {
-            if ( OrganisationUnitSelectionMode.DESCENDANTS.equals( orgUnitSelectionMode ) )
+            if ( params.isOrgUnitDescendantsByHierarchyInterval() )
+            {
+                organisationUnits.add( orgUnit ); // Descendants resolved as interval in store
+            }
+            else if ( OrganisationUnitSelectionMode.DESCENDANTS.equals( orgUnitSelectionMode ) )
             {
                 organisationUnits.addAll( organisationUnitService.getOrganisationUnitWithChildren( orgUnit.getUid() ) );
             }
@@ -166,6 +166,13 @@ public class EventSearchParams
      */
     private Date skipChangedBefore;
 
+    /**
+     * For synchronization queries, only events with a uid greater than this
+     * uid are returned, ordered by uid. Allows keyset paging while the
+     * previous pages are not yet marked as synchronized.
+     */
+    private String synchronizationUidAfter;
+
     // -------------------------------------------------------------------------
     // Constructors
     // -------------------------------------------------------------------------
@@ -258,6 +265,17 @@ public class EventSearchParams
         return skipEventId != null && skipEventId;
     }
 
+    /**
+     * Indicates whether the descendants of the organisation unit can be
+     * resolved through its pre-order hierarchy interval instead of an
+     * explicit list of descendant organisation units.
+     */
+    public boolean isOrgUnitDescendantsByHierarchyInterval()
+    {
+        return OrganisationUnitSelectionMode.DESCENDANTS.equals( orgUnitSelectionMode ) &&
+            orgUnit != null && orgUnit.hasHierarchyInterval();
+    }
+
     /**
      * Returns a list of dataElements and filters combined.
      */
@@ -699,6 +717,17 @@ public class EventSearchParams
         return this;
     }
 
+    public String getSynchronizationUidAfter()
+    {
+        return synchronizationUidAfter;
+    }
+
+    public EventSearchParams setSynchronizationUidAfter( String synchronizationUidAfter )
+    {
+        this.synchronizationUidAfter = synchronizationUidAfter;
+        return this;
+    }
+
     public void handleCurrentUserSelectionMode( User currentUser )
     {
         if ( AssignedUserSelectionMode.CURRENT.equals( this.assignedUserSelectionMode ) && currentUser != null )
@@ -95,10 +95,12 @@ public interface EventService
      * @param pageSize Specifies the max number for the events returned.
      * @param skipChangedBefore the point in time specifying which events will be synchronized and which not
      * @param psdesWithSkipSyncTrue Holds information about PSDEs for which the data should not be synchronized
+     * @param uidAfter if not null, only events with a greater uid are returned. Events are ordered by uid, so
+     *        passing the uid of the last event of the previous page fetches the next page.
      * @return the anonymous events that are supposed to be synchronized (lastUpdated > lastSynchronized)
      */
     Events getAnonymousEventsForSync( int pageSize, Date skipChangedBefore,
-        Map<String, Set<String>> psdesWithSkipSyncTrue );
+        Map<String, Set<String>> psdesWithSkipSyncTrue, String uidAfter );
 
     // -------------------------------------------------------------------------
     // CREATE
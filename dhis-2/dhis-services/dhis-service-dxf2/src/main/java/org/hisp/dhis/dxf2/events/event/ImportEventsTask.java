@@ -28,38 +28,118 @@ package org.hisp.dhis.dxf2.events.event;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.commons.util.DebugUtils;
 import org.hisp.dhis.scheduling.JobConfiguration;
 import org.hisp.dhis.security.SecurityContextRunnable;
 import org.hisp.dhis.dxf2.common.ImportOptions;
+import org.hisp.dhis.dxf2.importsummary.ImportStatus;
+import org.hisp.dhis.dxf2.importsummary.ImportSummaries;
+import org.hisp.dhis.dxf2.importsummary.ImportSummary;
+import org.hisp.dhis.system.notification.NotificationLevel;
+import org.hisp.dhis.system.notification.Notifier;
 
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 /**
+ * Imports events, either given as a list or read from a payload file when the
+ * task runs. A payload file is deleted when the task has finished. A failure,
+ * such as a payload which can not be parsed, completes the job with an error
+ * notification and summary.
+ *
  * @author Morten Olav Hansen <mortenoh@gmail.com>
  */
 public class ImportEventsTask
     extends SecurityContextRunnable
 {
+    private static final Log log = LogFactory.getLog( ImportEventsTask.class );
+
+    public static final String FORMAT_JSON = "json";
+    public static final String FORMAT_XML = "xml";
+
     private final List<Event> events;
 
+    private final File payload;
+
+    private final String format;
+
     private final EventService eventService;
 
     private final ImportOptions importOptions;
 
     private final JobConfiguration id;
 
-    public ImportEventsTask( List<Event> events, EventService eventService, ImportOptions importOptions, JobConfiguration id )
+    private final Notifier notifier;
+
+    public ImportEventsTask( List<Event> events, EventService eventService, ImportOptions importOptions, JobConfiguration id,
+        Notifier notifier )
     {
         super();
         this.events = events;
+        this.payload = null;
+        this.format = null;
+        this.eventService = eventService;
+        this.importOptions = importOptions;
+        this.id = id;
+        this.notifier = notifier;
+    }
+
+    public ImportEventsTask( File payload, String format, EventService eventService, ImportOptions importOptions, JobConfiguration id,
+        Notifier notifier )
+    {
+        super();
+        this.events = null;
+        this.payload = payload;
+        this.format = format;
         this.eventService = eventService;
         this.importOptions = importOptions;
         this.id = id;
+        this.notifier = notifier;
     }
 
     @Override
     public void call()
     {
-        eventService.processEventImport( events, importOptions, id );
+        eventService.processEventImport( payload != null ? readEvents() : events, importOptions, id );
+    }
+
+    @Override
+    public void handleError( Throwable ex )
+    {
+        log.error( DebugUtils.getStackTrace( ex ) );
+
+        ImportSummaries importSummaries = new ImportSummaries();
+        importSummaries.addImportSummary( new ImportSummary( ImportStatus.ERROR, "Import failed: " + ex.getMessage() ) );
+
+        notifier.notify( id, NotificationLevel.ERROR, "Import failed: " + ex.getMessage(), true )
+            .addJobSummary( id, NotificationLevel.ERROR, importSummaries, ImportSummaries.class );
+    }
+
+    @Override
+    public void after()
+    {
+        if ( payload != null )
+        {
+            payload.delete();
+        }
+    }
+
+    private List<Event> readEvents()
+    {
+        try ( InputStream inputStream = new BufferedInputStream( new FileInputStream( payload ) ) )
+        {
+            return FORMAT_XML.equals( format ) ? eventService.getEventsXml( inputStream ) : eventService.getEventsJson( inputStream );
+        }
+        catch ( IOException ex )
+        {
+            throw new UncheckedIOException( ex );
+        }
     }
 }
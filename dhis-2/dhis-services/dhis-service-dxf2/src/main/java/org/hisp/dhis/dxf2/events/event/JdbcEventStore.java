@@ -74,6 +74,7 @@ import org.springframework.stereotype.Repository;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -87,6 +88,7 @@ import static org.hisp.dhis.common.IdentifiableObjectUtils.getIdentifiers;
 import static org.hisp.dhis.commons.util.TextUtils.*;
 import static org.hisp.dhis.dxf2.events.event.AbstractEventService.STATIC_EVENT_COLUMNS;
 import static org.hisp.dhis.dxf2.events.event.EventSearchParams.*;
+import static org.hisp.dhis.organisationunit.OrganisationUnitIntervalUtils.getDescendantsSqlPredicate;
 import static org.hisp.dhis.util.DateUtils.*;
 
 /**
@@ -849,7 +851,11 @@ public class JdbcEventStore
             sql += hlp.whereAnd() + " psi.attributeoptioncomboid = " + params.getCategoryOptionCombo().getId() + " ";
         }
 
-        if ( orgUnitIds != null && !orgUnitIds.isEmpty() )
+        if ( params.isOrgUnitDescendantsByHierarchyInterval() )
+        {
+            sql += hlp.whereAnd() + " " + getDescendantsSqlPredicate( Collections.singleton( params.getOrgUnit() ), "ou" ) + " ";
+        }
+        else if ( orgUnitIds != null && !orgUnitIds.isEmpty() )
         {
             sql += hlp.whereAnd() + " psi.organisationunitid in (" + getCommaDelimitedString( orgUnitIds ) + ") ";
         }
@@ -926,6 +932,11 @@ public class JdbcEventStore
         if ( params.isSynchronizationQuery() )
         {
             sql += hlp.whereAnd() + " psi.lastupdated > psi.lastsynchronized ";
+
+            if ( params.getSynchronizationUidAfter() != null )
+            {
+                sql += hlp.whereAnd() + " psi.uid > " + statementBuilder.encode( params.getSynchronizationUidAfter() ) + " ";
+            }
         }
 
         return sql;
@@ -1005,7 +1016,11 @@ public class JdbcEventStore
             sql += hlp.whereAnd() + eventDataValuesWhereSql + " ";
         }
 
-        if ( organisationUnits != null && !organisationUnits.isEmpty() )
+        if ( params.isOrgUnitDescendantsByHierarchyInterval() )
+        {
+            sql += hlp.whereAnd() + " " + getDescendantsSqlPredicate( Collections.singleton( params.getOrgUnit() ), "ou" ) + " ";
+        }
+        else if ( organisationUnits != null && !organisationUnits.isEmpty() )
         {
             sql += hlp.whereAnd() + " psi.organisationunitid in ("
                 + getCommaDelimitedString( getIdentifiers( organisationUnits ) ) + ") ";
@@ -1281,6 +1296,10 @@ public class JdbcEventStore
         {
             return "order by " + StringUtils.join( orderFields, ',' ) + " ";
         }
+        else if ( params.isSynchronizationQuery() )
+        {
+            return "order by psi_uid asc ";
+        }
         else
         {
             return "order by psi_lastupdated desc ";
@@ -271,7 +271,7 @@ public class JobConfigurationObjectBundleHook
             return;
         }
 
-        schedulingManager.stopJob( (JobConfiguration) persistedObject );
+        schedulingManager.cancelJob( (JobConfiguration) persistedObject );
         sessionFactory.getCurrentSession().delete( persistedObject );
     }
 
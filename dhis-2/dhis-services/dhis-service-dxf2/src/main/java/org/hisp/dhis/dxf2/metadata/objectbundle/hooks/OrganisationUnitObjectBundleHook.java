@@ -34,13 +34,18 @@ import org.hisp.dhis.dxf2.metadata.objectbundle.ObjectBundle;
 import org.hisp.dhis.feedback.ErrorCode;
 import org.hisp.dhis.feedback.ErrorReport;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.organisationunit.comparator.OrganisationUnitParentCountComparator;
 import org.hisp.dhis.system.util.GeoUtils;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * @author Morten Olav Hansen <mortenoh@gmail.com>
@@ -48,6 +53,15 @@ import java.util.Map;
 @Component
 public class OrganisationUnitObjectBundleHook extends AbstractObjectBundleHook
 {
+    private final OrganisationUnitService organisationUnitService;
+
+    public OrganisationUnitObjectBundleHook( OrganisationUnitService organisationUnitService )
+    {
+        checkNotNull( organisationUnitService );
+
+        this.organisationUnitService = organisationUnitService;
+    }
+
     @Override
     public void preCommit( ObjectBundle objectBundle )
     {
@@ -72,10 +86,13 @@ public class OrganisationUnitObjectBundleHook extends AbstractObjectBundleHook
         Map<String, Map<String, Object>> objectReferences = bundle.getObjectReferences( OrganisationUnit.class );
 
         Session session = sessionFactory.getCurrentSession();
+        Set<Long> organisationUnitIds = new HashSet<>();
 
         for ( IdentifiableObject identifiableObject : objects )
         {
             identifiableObject = bundle.getPreheat().get( bundle.getPreheatIdentifier(), identifiableObject );
+            organisationUnitIds.add( identifiableObject.getId() );
+
             Map<String, Object> objectReferenceMap = objectReferences.get( identifiableObject.getUid() );
 
             if ( objectReferenceMap == null || objectReferenceMap.isEmpty() || !objectReferenceMap.containsKey( "parent" ) )
@@ -90,6 +107,8 @@ public class OrganisationUnitObjectBundleHook extends AbstractObjectBundleHook
             organisationUnit.setParent( parent );
             session.update( organisationUnit );
         }
+
+        organisationUnitService.updateHierarchyIntervals( organisationUnitIds );
     }
 
     @Override
@@ -83,7 +83,7 @@ public class EventProgramsDataSynchronizationJob extends AbstractJob
         {
             EventProgramsDataSynchronizationJobParameters jobParameters =
                 (EventProgramsDataSynchronizationJobParameters) jobConfiguration.getJobParameters();
-            eventSync.syncEventProgramData( jobParameters.getPageSize() );
+            eventSync.syncEventProgramData( jobParameters.getPageSize(), jobParameters.getConcurrentRequests() );
             notifier.notify( jobConfiguration, "Event programs data sync successful" );
         }
         catch ( Exception e )
@@ -39,8 +39,6 @@ import org.hisp.dhis.render.RenderService;
 import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.util.Clock;
-import org.hisp.dhis.system.util.CodecUtils;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RequestCallback;
 import org.springframework.web.client.RestTemplate;
@@ -81,6 +79,20 @@ public class EventSynchronization
     }
 
     public SynchronizationResult syncEventProgramData( final int pageSize )
+    {
+        return syncEventProgramData( pageSize, SyncPipeline.DEFAULT_CONCURRENT_REQUESTS );
+    }
+
+    /**
+     * Synchronizes anonymous events with the remote server. Pages are fetched
+     * while previous pages are being posted, with up to the given number of
+     * requests in flight.
+     *
+     * @param pageSize the number of events per request.
+     * @param concurrentRequests the maximum number of concurrent requests.
+     * @return the {@link SynchronizationResult}.
+     */
+    public SynchronizationResult syncEventProgramData( final int pageSize, final int concurrentRequests )
     {
         if ( !SyncUtils.testServerAvailability( systemSettingManager, restTemplate ).isAvailable() )
         {
@@ -109,9 +121,10 @@ public class EventSynchronization
 
         log.info( objectsToSynchronize + " anonymous Events to synchronize were found." );
         log.info( "Remote server URL for Event programs POST synchronization: " + instance.getUrl() );
-        log.info( "Event programs data synchronization job has " + pages + " pages to synchronize. With page size: " + pageSize );
+        log.info( "Event programs data synchronization job has " + pages + " pages to synchronize. With page size: " + pageSize +
+            " and concurrent requests: " + concurrentRequests );
 
-        boolean syncResult = runEventSyncWithPaging( instance, clock, skipChangedBefore, pageSize, pages );
+        boolean syncResult = runEventSyncWithPaging( instance, clock, skipChangedBefore, pageSize, pages, concurrentRequests );
 
         if ( syncResult )
         {
@@ -122,38 +135,33 @@ public class EventSynchronization
         return SynchronizationResult.newFailureResultWithMessage( "Event programs data synchronization failed." );
     }
 
-    private boolean runEventSyncWithPaging( SystemInstance instance,  Clock clock, Date skipChangedBefore,
-        int pageSize, int pages )
+    private boolean runEventSyncWithPaging( SystemInstance instance, Clock clock, Date skipChangedBefore,
+        int pageSize, int pages, int concurrentRequests )
     {
         final Map<String, Set<String>> psdesWithSkipSyncTrue = programStageDataElementService.getProgramStageDataElementsWithSkipSynchronizationSetToTrue();
-        boolean syncResult = true;
-
-        for ( int i = 1; i <= pages; i++ )
-        {
-            Events events = eventService.getAnonymousEventsForSync( pageSize, skipChangedBefore, psdesWithSkipSyncTrue );
-            filterOutDataValuesMarkedWithSkipSynchronizationFlag( events );
-            log.info( String.format( "Synchronizing page %d with page size %d", i, pageSize ) );
-
-            if ( log.isDebugEnabled() )
-            {
-                log.debug( "Events that are going to be synchronized are: " + events );
-            }
-
-            if ( sendEventsSyncRequest( events, instance ) )
-            {
-                List<String> eventsUIDs = events.getEvents().stream()
-                    .map( Event::getEvent )
-                    .collect( Collectors.toList() );
-                log.info( "The lastSynchronized flag of these Events will be updated: " + eventsUIDs );
-                eventService.updateEventsSyncTimestamp( eventsUIDs, new Date( clock.getStartTime() ) );
-            }
-            else
-            {
-                syncResult = false;
-            }
-        }
-
-        return syncResult;
+        final Date lastSynchronized = new Date( clock.getStartTime() );
+
+        SyncPipeline<Event> pipeline = new SyncPipeline<>(
+            uidAfter -> {
+                Events events = eventService.getAnonymousEventsForSync( pageSize, skipChangedBefore, psdesWithSkipSyncTrue, uidAfter );
+                filterOutDataValuesMarkedWithSkipSynchronizationFlag( events );
+
+                if ( log.isDebugEnabled() )
+                {
+                    log.debug( "Events that are going to be synchronized are: " + events );
+                }
+
+                return events.getEvents();
+            },
+            events -> sendEventsSyncRequest( events, instance ),
+            Event::getEvent,
+            eventsUIDs -> {
+                log.info( "The lastSynchronized flag of " + eventsUIDs.size() + " Events will be updated" );
+                eventService.updateEventsSyncTimestamp( eventsUIDs, lastSynchronized );
+            },
+            concurrentRequests, pages );
+
+        return pipeline.run();
     }
 
     private void filterOutDataValuesMarkedWithSkipSynchronizationFlag( Events events )
@@ -168,14 +176,12 @@ public class EventSynchronization
         }
     }
 
-    private boolean sendEventsSyncRequest( Events events, SystemInstance instance )
+    private boolean sendEventsSyncRequest( List<Event> events, SystemInstance instance )
     {
-        final RequestCallback requestCallback = request ->
-        {
-            request.getHeaders().setContentType( MediaType.APPLICATION_JSON );
-            request.getHeaders().add( SyncUtils.HEADER_AUTHORIZATION, CodecUtils.getBasicAuthString( instance.getUsername(), instance.getPassword() ) );
-            renderService.toJson( request.getBody(), events );
-        };
+        Events body = new Events();
+        body.setEvents( events );
+
+        final RequestCallback requestCallback = SyncUtils.getGzipJsonRequestCallback( renderService, body, instance );
 
         return SyncUtils.sendSyncRequest( systemSettingManager, restTemplate, requestCallback, instance, SyncEndpoint.EVENTS );
     }
@@ -0,0 +1,235 @@
+package org.hisp.dhis.dxf2.sync;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Runs a paged synchronization as a pipeline. Pages are fetched on the calling
+ * thread while up to {@code concurrentRequests} previously fetched pages are
+ * posted to the remote server, so fetching the next page overlaps with the
+ * requests in flight. The uids of successfully posted pages are collected and
+ * handed to the marker update in batches of {@link #MARKER_BATCH_SIZE}.
+ * <p>
+ * As the markers of pages in flight are not yet updated, the page fetcher
+ * must use keyset paging: it receives the uid of the last object of the
+ * previous page, or null for the first page, and must return the objects
+ * ordered by uid.
+ *
+ * @param <T> the type of the synchronized objects.
+ */
+public class SyncPipeline<T>
+{
+    private static final Log log = LogFactory.getLog( SyncPipeline.class );
+
+    public static final int DEFAULT_CONCURRENT_REQUESTS = 2;
+
+    static final int MARKER_BATCH_SIZE = 1000;
+
+    private final Function<String, List<T>> pageFetcher;
+
+    private final Predicate<List<T>> pageSender;
+
+    private final Function<T, String> uidMapper;
+
+    private final Consumer<List<String>> markerUpdater;
+
+    private final int concurrentRequests;
+
+    private final int maxPages;
+
+    private final List<String> pendingMarkers = new ArrayList<>();
+
+    /**
+     * @param pageFetcher returns the page following the given uid, empty when done.
+     * @param pageSender posts a page, returns true if successful. Invoked concurrently.
+     * @param uidMapper returns the uid of an object.
+     * @param markerUpdater updates the lastSynchronized marker of the given uids.
+     * @param concurrentRequests the maximum number of pages posted concurrently.
+     * @param maxPages the maximum number of pages to synchronize.
+     */
+    public SyncPipeline( Function<String, List<T>> pageFetcher, Predicate<List<T>> pageSender,
+        Function<T, String> uidMapper, Consumer<List<String>> markerUpdater, int concurrentRequests, int maxPages )
+    {
+        checkNotNull( pageFetcher );
+        checkNotNull( pageSender );
+        checkNotNull( uidMapper );
+        checkNotNull( markerUpdater );
+        checkArgument( concurrentRequests > 0 );
+
+        this.pageFetcher = pageFetcher;
+        this.pageSender = pageSender;
+        this.uidMapper = uidMapper;
+        this.markerUpdater = markerUpdater;
+        this.concurrentRequests = concurrentRequests;
+        this.maxPages = maxPages;
+    }
+
+    /**
+     * Runs the synchronization. Runtime exceptions thrown by the page sender
+     * stop the pipeline and are rethrown after the markers of the pages
+     * already posted have been updated.
+     *
+     * @return true if all pages were synchronized successfully.
+     */
+    public boolean run()
+    {
+        ExecutorService executor = Executors.newFixedThreadPool( concurrentRequests,
+            new ThreadFactoryBuilder().setNameFormat( "dhis2-sync-%d" ).setDaemon( true ).build() );
+
+        Deque<PageRequest> inFlight = new ArrayDeque<>();
+
+        boolean success = true;
+
+        try
+        {
+            int pageNo = 0;
+
+            List<T> page = maxPages > 0 ? pageFetcher.apply( null ) : Collections.emptyList();
+
+            while ( !page.isEmpty() )
+            {
+                final List<T> current = page;
+
+                pageNo++;
+
+                log.info( String.format( "Synchronizing page %d with %d objects", pageNo, current.size() ) );
+
+                inFlight.add( new PageRequest( pageNo, current, executor.submit( () -> pageSender.test( current ) ) ) );
+
+                // Prefetch the next page while the previous pages are in flight
+
+                page = pageNo < maxPages ? pageFetcher.apply( uidMapper.apply( current.get( current.size() - 1 ) ) ) : Collections.emptyList();
+
+                while ( inFlight.size() >= concurrentRequests || (!inFlight.isEmpty() && inFlight.peek().future.isDone()) )
+                {
+                    success &= complete( inFlight.poll() );
+                }
+            }
+
+            while ( !inFlight.isEmpty() )
+            {
+                success &= complete( inFlight.poll() );
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+
+            flushMarkers();
+        }
+
+        return success;
+    }
+
+    private boolean complete( PageRequest request )
+    {
+        boolean success;
+
+        try
+        {
+            success = request.future.get();
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException( "Synchronization was interrupted", ex );
+        }
+        catch ( ExecutionException ex )
+        {
+            if ( ex.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            throw new IllegalStateException( ex.getCause() );
+        }
+
+        if ( success )
+        {
+            request.page.forEach( object -> pendingMarkers.add( uidMapper.apply( object ) ) );
+
+            if ( pendingMarkers.size() >= MARKER_BATCH_SIZE )
+            {
+                flushMarkers();
+            }
+        }
+        else
+        {
+            log.warn( String.format( "Synchronization of page %d failed", request.pageNo ) );
+        }
+
+        return success;
+    }
+
+    private void flushMarkers()
+    {
+        if ( !pendingMarkers.isEmpty() )
+        {
+            markerUpdater.accept( new ArrayList<>( pendingMarkers ) );
+
+            pendingMarkers.clear();
+        }
+    }
+
+    private class PageRequest
+    {
+        private final int pageNo;
+
+        private final List<T> page;
+
+        private final Future<Boolean> future;
+
+        PageRequest( int pageNo, List<T> page, Future<Boolean> future )
+        {
+            this.pageNo = pageNo;
+            this.page = page;
+            this.future = future;
+        }
+    }
+}
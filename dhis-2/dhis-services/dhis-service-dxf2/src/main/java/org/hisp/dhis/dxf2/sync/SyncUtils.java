@@ -64,6 +64,7 @@ import org.hisp.dhis.dxf2.synch.AvailabilityStatus;
 import org.hisp.dhis.dxf2.synch.SystemInstance;
 import org.hisp.dhis.dxf2.webmessage.WebMessageParseException;
 import org.hisp.dhis.dxf2.webmessage.utils.WebMessageParseUtils;
+import org.hisp.dhis.render.RenderService;
 import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.util.CodecUtils;
@@ -71,6 +72,7 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
@@ -80,6 +82,7 @@ import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.Date;
+import java.util.zip.GZIPOutputStream;
 
 import static org.apache.commons.lang3.StringUtils.isEmpty;
 
@@ -100,6 +103,31 @@ public class SyncUtils
     {
     }
 
+    /**
+     * Creates a request callback which writes the given object as gzip
+     * compressed JSON, authenticated against the given remote instance. The
+     * receiving import endpoints detect compressed payloads by their signature.
+     *
+     * @param renderService Reference to RenderService
+     * @param body          The object to write as request body
+     * @param instance      SystemInstance of remote system
+     * @return The request callback
+     */
+    static RequestCallback getGzipJsonRequestCallback( RenderService renderService, Object body, SystemInstance instance )
+    {
+        return request ->
+        {
+            request.getHeaders().setContentType( MediaType.APPLICATION_JSON );
+            request.getHeaders().set( HttpHeaders.CONTENT_ENCODING, "gzip" );
+            request.getHeaders().add( HEADER_AUTHORIZATION, CodecUtils.getBasicAuthString( instance.getUsername(), instance.getPassword() ) );
+
+            try ( GZIPOutputStream out = new GZIPOutputStream( request.getBody() ) )
+            {
+                renderService.toJson( out, body );
+            }
+        };
+    }
+
     /**
      * Sends a synchronization request to the {@code syncUrl}
      *
@@ -84,7 +84,7 @@ public class TrackerProgramsDataSynchronizationJob extends AbstractJob
         {
             TrackerProgramsDataSynchronizationJobParameters jobParameters =
                 (TrackerProgramsDataSynchronizationJobParameters) jobConfiguration.getJobParameters();
-            trackerSync.syncTrackerProgramData( jobParameters.getPageSize() );
+            trackerSync.syncTrackerProgramData( jobParameters.getPageSize(), jobParameters.getConcurrentRequests() );
             notifier.notify( jobConfiguration, "Tracker programs data sync successful" );
         }
         catch ( Exception e )
@@ -39,16 +39,13 @@ import org.hisp.dhis.render.RenderService;
 import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.util.Clock;
-import org.hisp.dhis.system.util.CodecUtils;
 import org.hisp.dhis.trackedentity.TrackedEntityInstanceQueryParams;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RequestCallback;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.Date;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -79,6 +76,20 @@ public class TrackerSynchronization
     }
 
     public SynchronizationResult syncTrackerProgramData( final int pageSize )
+    {
+        return syncTrackerProgramData( pageSize, SyncPipeline.DEFAULT_CONCURRENT_REQUESTS );
+    }
+
+    /**
+     * Synchronizes tracked entity instances with the remote server. Pages are
+     * fetched while previous pages are being posted, with up to the given
+     * number of requests in flight.
+     *
+     * @param pageSize the number of TEIs per request.
+     * @param concurrentRequests the maximum number of concurrent requests.
+     * @return the {@link SynchronizationResult}.
+     */
+    public SynchronizationResult syncTrackerProgramData( final int pageSize, final int concurrentRequests )
     {
         if ( !SyncUtils.testServerAvailability( systemSettingManager, restTemplate ).isAvailable() )
         {
@@ -103,11 +114,12 @@ public class TrackerSynchronization
 
         log.info( objectsToSynchronize + " TEIs to sync were found." );
         log.info( "Remote server URL for Tracker programs POST synchronization: " + instance.getUrl() );
-        log.info( "Tracker programs data synchronization job has " + pages + " pages to synchronize. With page size: " + pageSize );
+        log.info( "Tracker programs data synchronization job has " + pages + " pages to synchronize. With page size: " + pageSize +
+            " and concurrent requests: " + concurrentRequests );
 
         queryParams.setPageSize( pageSize );
 
-        boolean syncResult = runTrackerSyncWithPaging( instance, queryParams, clock, pageSize, pages );
+        boolean syncResult = runTrackerSyncWithPaging( instance, queryParams, clock, pages, concurrentRequests );
 
         if ( syncResult )
         {
@@ -129,38 +141,33 @@ public class TrackerSynchronization
     }
 
     private boolean runTrackerSyncWithPaging( SystemInstance instance, TrackedEntityInstanceQueryParams queryParams,
-        Clock clock, int pageSize, int pages )
+        Clock clock, int pages, int concurrentRequests )
     {
         final TrackedEntityInstanceParams params = TrackedEntityInstanceParams.DATA_SYNCHRONIZATION;
-        boolean syncResult = true;
-
-        for ( int i = 1; i <= pages; i++ )
-        {
-            queryParams.setPage( i );
-
-            List<TrackedEntityInstance> dtoTeis = teiService.getTrackedEntityInstances( queryParams, params, true );
-            log.info( String.format( "Synchronizing page %d with page size %d", i, pageSize ) );
-
-            if ( log.isDebugEnabled() )
-            {
-                log.debug( "TEIs that are going to be synchronized are: " + dtoTeis );
-            }
-
-            if ( sendTrackerSyncRequest( dtoTeis, instance ) )
-            {
-                List<String> teiUIDs = dtoTeis.stream()
-                    .map( TrackedEntityInstance::getTrackedEntityInstance )
-                    .collect( Collectors.toList() );
-                log.info( "The lastSynchronized flag of these TEIs will be updated: " + teiUIDs );
-                teiService.updateTrackedEntityInstancesSyncTimestamp( teiUIDs, new Date( clock.getStartTime() ) );
-            }
-            else
-            {
-                syncResult = false;
-            }
-        }
-
-        return syncResult;
+        final Date lastSynchronized = new Date( clock.getStartTime() );
+
+        SyncPipeline<TrackedEntityInstance> pipeline = new SyncPipeline<>(
+            uidAfter -> {
+                queryParams.setSynchronizationUidAfter( uidAfter );
+
+                List<TrackedEntityInstance> dtoTeis = teiService.getTrackedEntityInstances( queryParams, params, true );
+
+                if ( log.isDebugEnabled() )
+                {
+                    log.debug( "TEIs that are going to be synchronized are: " + dtoTeis );
+                }
+
+                return dtoTeis;
+            },
+            dtoTeis -> sendTrackerSyncRequest( dtoTeis, instance ),
+            TrackedEntityInstance::getTrackedEntityInstance,
+            teiUIDs -> {
+                log.info( "The lastSynchronized flag of " + teiUIDs.size() + " TEIs will be updated" );
+                teiService.updateTrackedEntityInstancesSyncTimestamp( teiUIDs, lastSynchronized );
+            },
+            concurrentRequests, pages );
+
+        return pipeline.run();
     }
 
     private boolean sendTrackerSyncRequest( List<TrackedEntityInstance> dtoTeis, SystemInstance instance )
@@ -168,12 +175,7 @@ public class TrackerSynchronization
         TrackedEntityInstances teis = new TrackedEntityInstances();
         teis.setTrackedEntityInstances( dtoTeis );
 
-        final RequestCallback requestCallback = request ->
-        {
-            request.getHeaders().setContentType( MediaType.APPLICATION_JSON );
-            request.getHeaders().add( SyncUtils.HEADER_AUTHORIZATION, CodecUtils.getBasicAuthString( instance.getUsername(), instance.getPassword() ) );
-            renderService.toJson( request.getBody(), teis );
-        };
+        final RequestCallback requestCallback = SyncUtils.getGzipJsonRequestCallback( renderService, teis, instance );
 
         return SyncUtils.sendSyncRequest( systemSettingManager, restTemplate, requestCallback, instance, SyncEndpoint.TRACKED_ENTITY_INSTANCES );
     }
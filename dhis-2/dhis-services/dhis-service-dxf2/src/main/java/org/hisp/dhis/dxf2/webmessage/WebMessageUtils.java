@@ -154,6 +154,11 @@ public final class WebMessageUtils
         return createWebMessage( message, devMessage, Status.ERROR, HttpStatus.SERVICE_UNAVAILABLE );
     }
 
+    public static WebMessage tooManyRequests( String message )
+    {
+        return createWebMessage( message, Status.ERROR, HttpStatus.TOO_MANY_REQUESTS );
+    }
+
     public static WebMessage unprocessableEntity( String message )
     {
         return createWebMessage( message, Status.ERROR, HttpStatus.UNPROCESSABLE_ENTITY );
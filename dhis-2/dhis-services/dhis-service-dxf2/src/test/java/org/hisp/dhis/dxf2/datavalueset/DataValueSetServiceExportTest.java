@@ -28,6 +28,8 @@ package org.hisp.dhis.dxf2.datavalueset;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Sets;
 import org.hisp.dhis.IntegrationTest;
 import org.hisp.dhis.IntegrationTestBase;
@@ -66,7 +68,10 @@ import java.io.ByteArrayOutputStream;
 import java.util.Date;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Lars Helge Overland
@@ -432,4 +437,105 @@ public class DataValueSetServiceExportTest
         assertNotNull( dvs );
         assertEquals( 14, dvs.getDataValues().size() );
     }
+
+    @Test
+    public void testExportDataValueChanges()
+        throws Exception
+    {
+        DataValue dataValue = dataValueService.getDataValue( deA, peA, ouB, cocA, cocA );
+        dataValue.setValue( "5" );
+        dataValueService.updateDataValue( dataValue );
+        dataValueService.deleteDataValue( dataValue );
+
+        dataValueService.addDataValue( new DataValue( deC, peA, ouA, cocA, cocA, "1" ) );
+
+        JsonNode all = getDataValueChanges( 0, 50000 );
+        JsonNode changes = all.get( "changes" );
+
+        assertEquals( 14, changes.size() );
+        assertFalse( all.get( "hasMore" ).asBoolean() );
+
+        long previous = 0;
+
+        for ( JsonNode change : changes )
+        {
+            assertTrue( change.get( "sequence" ).asLong() > previous );
+            assertFalse( deC.getUid().equals( change.get( "dataElement" ).asText() ) );
+            previous = change.get( "sequence" ).asLong();
+        }
+
+        assertEquals( previous, all.get( "lastSequence" ).asLong() );
+
+        JsonNode deleted = changes.get( changes.size() - 1 );
+
+        assertEquals( "UPDATE", deleted.get( "type" ).asText() );
+        assertEquals( deA.getUid(), deleted.get( "dataElement" ).asText() );
+        assertEquals( "201603", deleted.get( "period" ).asText() );
+        assertEquals( ouB.getUid(), deleted.get( "orgUnit" ).asText() );
+        assertTrue( deleted.get( "deleted" ).asBoolean() );
+
+        JsonNode updated = changes.get( changes.size() - 2 );
+
+        assertEquals( "UPDATE", updated.get( "type" ).asText() );
+        assertEquals( "5", updated.get( "value" ).asText() );
+        assertFalse( updated.get( "deleted" ).asBoolean() );
+
+        JsonNode page = getDataValueChanges( 0, 5 );
+
+        assertEquals( 5, page.get( "changes" ).size() );
+        assertTrue( page.get( "hasMore" ).asBoolean() );
+
+        JsonNode next = getDataValueChanges( page.get( "lastSequence" ).asLong(), 50000 );
+
+        assertEquals( 9, next.get( "changes" ).size() );
+        assertEquals( previous, next.get( "lastSequence" ).asLong() );
+        assertFalse( next.get( "hasMore" ).asBoolean() );
+
+        JsonNode empty = getDataValueChanges( previous, 100 );
+
+        assertEquals( 0, empty.get( "changes" ).size() );
+        assertEquals( previous, empty.get( "lastSequence" ).asLong() );
+    }
+
+    @Test
+    public void testExportDataValueChangesOrgUnitScope()
+        throws Exception
+    {
+        User userB = createUser( 'B' );
+        userB.setOrganisationUnits( Sets.newHashSet( ouA ) );
+        userB.setDataViewOrganisationUnits( Sets.newHashSet( ouB ) );
+        userService.addUser( userB );
+        setDependency( dataValueSetService, "currentUserService", new MockCurrentUserService( userB ) );
+
+        enableDataSharing( userB, dsA, AccessStringHelper.DATA_READ );
+        dataSetService.updateDataSet( dsA );
+
+        JsonNode changes = getDataValueChanges( 0, 50000 ).get( "changes" );
+
+        assertEquals( 6, changes.size() );
+
+        for ( JsonNode change : changes )
+        {
+            assertEquals( ouB.getUid(), change.get( "orgUnit" ).asText() );
+        }
+    }
+
+    @Test
+    public void testDeleteDataValueChanges()
+        throws Exception
+    {
+        assertEquals( 0, dataValueSetService.deleteDataValueChanges( getDate( 2000, 1, 1 ) ) );
+        assertEquals( 12, dataValueSetService.deleteDataValueChanges( new Date( System.currentTimeMillis() + 60000 ) ) );
+        assertEquals( 0, getDataValueChanges( 0, 50000 ).get( "changes" ).size() );
+    }
+
+    private JsonNode getDataValueChanges( long since, int limit )
+        throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        dataValueSetService.writeDataValueChangesJson( since, limit, out );
+
+        return new ObjectMapper().readTree( out.toByteArray() );
+    }
 }
@@ -0,0 +1,237 @@
+package org.hisp.dhis.dxf2.sync;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.hisp.dhis.dxf2.synch.SystemInstance;
+import org.hisp.dhis.render.RenderService;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the synchronization pipeline against a local stub HTTP server.
+ */
+public class SyncPipelineTest
+{
+    private static final String SUCCESS_RESPONSE = "{\"httpStatus\":\"OK\",\"response\":{\"responseType\":\"ImportSummaries\",\"status\":\"SUCCESS\",\"importSummaries\":[]}}";
+
+    private static final String ERROR_RESPONSE = "{\"httpStatus\":\"OK\",\"response\":{\"responseType\":\"ImportSummaries\",\"status\":\"ERROR\",\"importSummaries\":[{\"responseType\":\"ImportSummary\",\"status\":\"ERROR\"}]}}";
+
+    private static final int PAGE_SIZE = 5;
+
+    @Rule
+    public MockitoRule rule = MockitoJUnit.rule();
+
+    @Mock
+    private SystemSettingManager systemSettingManager;
+
+    @Mock
+    private RenderService renderService;
+
+    private HttpServer server;
+
+    private ExecutorService serverExecutor;
+
+    private SystemInstance instance;
+
+    private RestTemplate restTemplate = new RestTemplate();
+
+    private List<String> uids;
+
+    private Set<String> received = ConcurrentHashMap.newKeySet();
+
+    private AtomicInteger requests = new AtomicInteger();
+
+    private AtomicInteger activeRequests = new AtomicInteger();
+
+    private AtomicInteger maxActiveRequests = new AtomicInteger();
+
+    private volatile String failingUid;
+
+    @Before
+    @SuppressWarnings( "unchecked" )
+    public void setUp()
+        throws IOException
+    {
+        uids = IntStream.range( 0, 47 ).mapToObj( i -> String.format( "uid%03d", i ) ).collect( Collectors.toList() );
+
+        when( systemSettingManager.getSystemSetting( SettingKey.MAX_SYNC_ATTEMPTS ) ).thenReturn( 1 );
+
+        doAnswer( invocation -> {
+            OutputStream out = invocation.getArgument( 0 );
+            out.write( String.join( ",", (List<String>) invocation.getArgument( 1 ) ).getBytes( StandardCharsets.UTF_8 ) );
+            return null;
+        } ).when( renderService ).toJson( any( OutputStream.class ), any() );
+
+        serverExecutor = Executors.newFixedThreadPool( 8 );
+        server = HttpServer.create( new InetSocketAddress( "127.0.0.1", 0 ), 0 );
+        server.createContext( SyncEndpoint.EVENTS.getPath(), this::handle );
+        server.setExecutor( serverExecutor );
+        server.start();
+
+        instance = new SystemInstance( "http://127.0.0.1:" + server.getAddress().getPort() + SyncEndpoint.EVENTS.getPath(), "admin", "district" );
+    }
+
+    @After
+    public void tearDown()
+    {
+        server.stop( 0 );
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testSynchronizeAllPages()
+    {
+        List<List<String>> markerBatches = Collections.synchronizedList( new ArrayList<>() );
+
+        boolean success = pipeline( markerBatches, 3, 10 ).run();
+
+        assertTrue( success );
+        assertEquals( 10, requests.get() );
+        assertEquals( uids.size(), received.size() );
+        assertTrue( maxActiveRequests.get() <= 3 );
+        assertEquals( 1, markerBatches.size() );
+        assertEquals( uids, markerBatches.get( 0 ) );
+    }
+
+    @Test
+    public void testFailedPageIsNotMarked()
+    {
+        failingUid = "uid012";
+
+        List<List<String>> markerBatches = Collections.synchronizedList( new ArrayList<>() );
+
+        boolean success = pipeline( markerBatches, 2, 10 ).run();
+
+        assertFalse( success );
+        assertEquals( 10, requests.get() );
+
+        List<String> marked = markerBatches.stream().flatMap( List::stream ).collect( Collectors.toList() );
+
+        assertEquals( uids.size() - PAGE_SIZE, marked.size() );
+        assertFalse( marked.contains( "uid010" ) );
+        assertFalse( marked.contains( "uid014" ) );
+        assertTrue( marked.contains( "uid015" ) );
+    }
+
+    @Test
+    public void testMaxPages()
+    {
+        List<List<String>> markerBatches = Collections.synchronizedList( new ArrayList<>() );
+
+        boolean success = pipeline( markerBatches, 2, 3 ).run();
+
+        assertTrue( success );
+        assertEquals( 3, requests.get() );
+        assertEquals( Arrays.asList( "uid000", "uid014" ), Arrays.asList( markerBatches.get( 0 ).get( 0 ), markerBatches.get( 0 ).get( 14 ) ) );
+    }
+
+    private SyncPipeline<String> pipeline( List<List<String>> markerBatches, int concurrentRequests, int maxPages )
+    {
+        return new SyncPipeline<>(
+            uidAfter -> uids.stream()
+                .filter( uid -> uidAfter == null || uid.compareTo( uidAfter ) > 0 )
+                .limit( PAGE_SIZE )
+                .collect( Collectors.toList() ),
+            page -> SyncUtils.sendSyncRequest( systemSettingManager, restTemplate,
+                SyncUtils.getGzipJsonRequestCallback( renderService, page, instance ), instance, SyncEndpoint.EVENTS ),
+            uid -> uid,
+            markerBatches::add,
+            concurrentRequests, maxPages );
+    }
+
+    private void handle( HttpExchange exchange )
+        throws IOException
+    {
+        int active = activeRequests.incrementAndGet();
+        maxActiveRequests.accumulateAndGet( active, Math::max );
+
+        try
+        {
+            requests.incrementAndGet();
+
+            assertEquals( "gzip", exchange.getRequestHeaders().getFirst( "Content-Encoding" ) );
+
+            String body = IOUtils.toString( new GZIPInputStream( exchange.getRequestBody() ), StandardCharsets.UTF_8 );
+            List<String> page = Arrays.asList( body.split( "," ) );
+            received.addAll( page );
+
+            Thread.sleep( 50 );
+
+            byte[] response = (page.contains( failingUid ) ? ERROR_RESPONSE : SUCCESS_RESPONSE).getBytes( StandardCharsets.UTF_8 );
+
+            exchange.getResponseHeaders().add( "Content-Type", "application/json" );
+            exchange.sendResponseHeaders( 200, response.length );
+            exchange.getResponseBody().write( response );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            activeRequests.decrementAndGet();
+            exchange.close();
+        }
+    }
+}
@@ -42,8 +42,8 @@ import org.hisp.dhis.programrule.*;
 import org.hisp.dhis.rules.RuleEngine;
 import org.hisp.dhis.rules.RuleEngineContext;
 import org.hisp.dhis.rules.models.*;
+import org.hisp.dhis.user.CurrentUserContext;
 import org.hisp.dhis.user.CurrentUserService;
-import org.hisp.dhis.user.UserAuthorityGroup;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Component;
 
@@ -231,9 +231,11 @@ public class ProgramRuleEngine
                 .stream().map( OrganisationUnit::getUid ).collect( Collectors.toList() ) ) );
         }
 
-        if ( currentUserService.getCurrentUser() != null )
+        CurrentUserContext userContext = currentUserService.getCurrentUserContext();
+
+        if ( userContext != null )
         {
-            supplementaryData.put( USER, currentUserService.getCurrentUser().getUserCredentials().getUserAuthorityGroups().stream().map( UserAuthorityGroup::getUid ).collect( Collectors.toList() ) );
+            supplementaryData.put( USER, new ArrayList<>( userContext.getUserRoleUids() ) );
         }
 
         return RuleEngineContext
@@ -40,13 +40,19 @@ import static org.hisp.dhis.system.notification.NotificationLevel.ERROR;
 import static org.hisp.dhis.system.util.ValidationUtils.dataValueIsZeroAndInsignificant;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.logging.Log;
@@ -57,6 +63,7 @@ import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.common.*;
 import org.hisp.dhis.commons.collection.CachingMap;
+import org.hisp.dhis.commons.util.SystemUtils;
 import org.hisp.dhis.commons.util.DebugUtils;
 import org.hisp.dhis.constant.Constant;
 import org.hisp.dhis.constant.ConstantService;
@@ -206,7 +213,7 @@ public class DefaultPredictionService
         {
             notifier.notify( jobId, NotificationLevel.INFO, "Making predictions", false );
 
-            predictionSummary = predictInternal( startDate, endDate, predictors, predictorGroups );
+            predictionSummary = predictInternal( startDate, endDate, predictors, predictorGroups, jobId );
 
             notifier.update( jobId, NotificationLevel.INFO, "Prediction done", true )
                 .addJobSummary( jobId, predictionSummary, PredictionSummary.class );
@@ -223,7 +230,8 @@ public class DefaultPredictionService
         return predictionSummary;
     }
 
-    private PredictionSummary predictInternal( Date startDate, Date endDate, List<String> predictors, List<String> predictorGroups )
+    private PredictionSummary predictInternal( Date startDate, Date endDate, List<String> predictors, List<String> predictorGroups,
+        JobConfiguration jobId )
     {
         List<Predictor> predictorList = new ArrayList<>();
 
@@ -253,9 +261,18 @@ public class DefaultPredictionService
 
         log.info( "Running " + predictorList.size() + " predictors from " + startDate.toString() + " to " + endDate.toString() );
 
-        for ( Predictor predictor : predictorList )
+        List<List<PredictorContext>> predictorContextGroups = getPredictorContextGroups( predictorList );
+
+        int predictorsDone = 0;
+
+        for ( List<PredictorContext> group : predictorContextGroups )
         {
-            predict( predictor, startDate, endDate, predictionSummary );
+            notifier.updateProgress( jobId, "Running predictors " + (predictorsDone + 1) + " to " +
+                (predictorsDone + group.size()) + " of " + predictorList.size(), predictorsDone, predictorList.size() );
+
+            predict( group, startDate, endDate, predictionSummary );
+
+            predictorsDone += group.size();
         }
 
         log.info( "Finished predictors from " + startDate.toString() + " to " + endDate.toString() + ": " + predictionSummary.toString() );
@@ -266,9 +283,23 @@ public class DefaultPredictionService
     @Override
     public void predict( Predictor predictor, Date startDate, Date endDate, PredictionSummary predictionSummary )
     {
-        Expression generator = predictor.getGenerator();
-        Expression skipTest = predictor.getSampleSkipTest();
-        DataElement outputDataElement = predictor.getOutput();
+        predict( Lists.newArrayList( getPredictorContext( predictor ) ), startDate, endDate, predictionSummary );
+    }
+
+    /**
+     * Makes predictions for a group of predictors that share the same period
+     * type, sample periods and organisation unit levels. Data for all the
+     * predictors in the group are fetched together, organisation units are
+     * evaluated in parallel, and predictions are written in bulk.
+     *
+     * @param group the predictors to run.
+     * @param startDate the start date of the output periods.
+     * @param endDate the end date of the output periods.
+     * @param predictionSummary the prediction summary to update.
+     */
+    private void predict( List<PredictorContext> group, Date startDate, Date endDate, PredictionSummary predictionSummary )
+    {
+        Predictor predictor = group.get( 0 ).predictor;
 
         // Note that data is collected for the output (predicted) period based
         // on items that are not enclosed within vector functions (like sum,
@@ -279,11 +310,13 @@ public class DefaultPredictionService
 
         Set<DimensionalItemObject> items = new HashSet<>(); // Non-sampled items.
         Set<DimensionalItemObject> sampleItems = new HashSet<>(); // Sampled items.
-        expressionService.getExpressionDimensionalItemObjects( generator.getExpression(), PREDICTOR_EXPRESSION, items, sampleItems );
-        if ( skipTest != null )
+
+        for ( PredictorContext context : group )
         {
-            expressionService.getExpressionDimensionalItemObjects( skipTest.getExpression(), PREDICTOR_SKIP_TEST, sampleItems, new HashSet<>() );
+            items.addAll( context.items );
+            sampleItems.addAll( context.sampleItems );
         }
+
         Map<String, Constant> constantMap = constantService.getConstantMap();
         Set<Period> outputPeriods = getPeriodsBetweenDates( predictor.getPeriodType(), startDate, endDate );
         Set<Period> existingOutputPeriods = getExistingPeriods( outputPeriods );
@@ -293,10 +326,8 @@ public class DefaultPredictionService
         outputPeriods = new HashSet<>( periodService.reloadPeriods( new ArrayList<>( outputPeriods ) ) );
         CategoryOptionCombo defaultCategoryOptionCombo = categoryService.getDefaultCategoryOptionCombo();
         Set<String> defaultOptionComboAsSet = Sets.newHashSet( defaultCategoryOptionCombo.getUid() );
-        CategoryOptionCombo outputOptionCombo = predictor.getOutputCombo() == null ? defaultCategoryOptionCombo : predictor.getOutputCombo();
         CachingMap<String, CategoryOptionCombo> cocMap = new CachingMap<>();
         Date now = new Date();
-        boolean requireData = generator.getMissingValueStrategy() != NEVER_SKIP && ( !items.isEmpty() || !sampleItems.isEmpty() );
 
         Set<OrganisationUnit> currentUserOrgUnits = new HashSet<>();
         String storedBy = "system-process";
@@ -308,109 +339,382 @@ public class DefaultPredictionService
             storedBy = currentUser.getUsername();
         }
 
-        predictionSummary.incrementPredictors();
+        for ( int i = 0; i < group.size(); i++ )
+        {
+            predictionSummary.incrementPredictors();
+        }
 
-        // Do separate predictor processing for each organisation unit level
-        // selected. This is because at each level, predictions might be based
-        // on data aggregated from all descendant org units. So to prevent
-        // confusion, data for different levels are fetched independently.
+        ForkJoinPool pool = new ForkJoinPool( getParallelism() );
 
-        for ( OrganisationUnitLevel orgUnitLevel : predictor.getOrganisationUnitLevels() )
+        try
         {
-            List<OrganisationUnit> orgUnitsAtLevel = organisationUnitService.getOrganisationUnitsAtOrgUnitLevels(
-                    Lists.newArrayList( orgUnitLevel ), currentUserOrgUnits );
+            // Do separate predictor processing for each organisation unit level
+            // selected. This is because at each level, predictions might be based
+            // on data aggregated from all descendant org units. So to prevent
+            // confusion, data for different levels are fetched independently.
 
-            if ( orgUnitsAtLevel.size() == 0 )
+            for ( OrganisationUnitLevel orgUnitLevel : predictor.getOrganisationUnitLevels() )
             {
-                continue;
+                List<OrganisationUnit> orgUnitsAtLevel = organisationUnitService.getOrganisationUnitsAtOrgUnitLevels(
+                    Lists.newArrayList( orgUnitLevel ), currentUserOrgUnits );
+
+                if ( orgUnitsAtLevel.size() == 0 )
+                {
+                    continue;
+                }
+
+                // Sort by id so that data rows can be matched to their org
+                // unit by binary search of each partition's org unit ids.
+
+                orgUnitsAtLevel = orgUnitsAtLevel.stream()
+                    .sorted( Comparator.comparingLong( OrganisationUnit::getId ) )
+                    .collect( Collectors.toList() );
+
+                // For performance, fetch the data from a bunch of orgUnits at once.
+
+                List<List<OrganisationUnit>> orgUnitLists = Lists.partition( orgUnitsAtLevel, 500 );
+
+                for ( List<OrganisationUnit> orgUnits : orgUnitLists )
+                {
+                    List<MapMapMap<String, Period, DimensionalItemObject, Double>> sampleData = sampleItems.isEmpty() ?
+                        getEmptyData( orgUnits ) : getDataValues( sampleItems, allSamplePeriods, existingSamplePeriods, orgUnits );
+
+                    List<MapMapMap<String, Period, DimensionalItemObject, Double>> valueData = items.isEmpty() ?
+                        getEmptyData( orgUnits ) : getDataValues( items, outputPeriods, existingOutputPeriods, orgUnits );
+
+                    // Evaluate the org units in parallel. The evaluation uses
+                    // only data that is already loaded, so the worker threads
+                    // need no access to the persistence session.
+
+                    Set<Period> periods = outputPeriods;
+
+                    List<PredictedValue> predictedValues = invoke( pool, () -> IntStream.range( 0, orgUnits.size() ).parallel()
+                        .mapToObj( i -> predictOrgUnit( group, i, sampleData.get( i ), valueData.get( i ),
+                            periods, samplePeriodsMap, constantMap, defaultOptionComboAsSet ) )
+                        .flatMap( List::stream )
+                        .collect( Collectors.toList() ) );
+
+                    ListMap<PredictorContext, DataValue> predictions = new ListMap<>();
+
+                    for ( PredictedValue predictedValue : predictedValues )
+                    {
+                        PredictorContext context = group.get( predictedValue.predictorIndex );
+
+                        predictions.putValue( context, new DataValue( context.outputDataElement,
+                            predictedValue.period, orgUnits.get( predictedValue.orgUnitIndex ), context.outputOptionCombo,
+                            cocMap.get( predictedValue.aoc, () -> categoryService.getCategoryOptionCombo( predictedValue.aoc ) ),
+                            predictedValue.value, storedBy, now, null ) );
+                    }
+
+                    BatchHandler<DataValue> dataValueBatchHandler = batchHandlerFactory.createBatchHandler( DataValueBatchHandler.class ).init();
+
+                    for ( PredictorContext context : group )
+                    {
+                        writePredictions( firstNonNull( predictions.get( context ), new ArrayList<>() ), context.outputDataElement,
+                            context.outputOptionCombo, outputPeriods, existingOutputPeriods, orgUnits, storedBy,
+                            predictionSummary, dataValueBatchHandler );
+                    }
+
+                    dataValueBatchHandler.flush();
+                }
             }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Makes the predictions for one organisation unit, for all the predictors
+     * in a group. This method is called from multiple threads at once, so it
+     * uses only the data passed to it and does not access the database.
+     *
+     * @param group the predictors to evaluate.
+     * @param orgUnitIndex the index of the org unit in its partition.
+     * @param sampleMap3 other-period sample data for the orgUnit.
+     * @param valueMap3 current-period sample data for the orgUnit.
+     * @param outputPeriods the periods to predict for.
+     * @param samplePeriodsMap sample periods for each output period.
+     * @param constantMap constants to use in expressions.
+     * @param defaultOptionComboAsSet system default category option combo.
+     * @return the predicted values.
+     */
+    private List<PredictedValue> predictOrgUnit( List<PredictorContext> group, int orgUnitIndex,
+        MapMapMap<String, Period, DimensionalItemObject, Double> sampleMap3,
+        MapMapMap<String, Period, DimensionalItemObject, Double> valueMap3,
+        Set<Period> outputPeriods, ListMap<Period, Period> samplePeriodsMap,
+        Map<String, Constant> constantMap, Set<String> defaultOptionComboAsSet )
+    {
+        List<PredictedValue> predictedValues = new ArrayList<>();
 
-            // For performance, fetch the data from a bunch of orgUnits at once.
+        for ( int predictorIndex = 0; predictorIndex < group.size(); predictorIndex++ )
+        {
+            PredictorContext context = group.get( predictorIndex );
 
-            List<List<OrganisationUnit>> orgUnitLists = Lists.partition( orgUnitsAtLevel, 500 );
+            // The data may have been fetched for several predictors, so select
+            // only the items used by this predictor.
 
-            for ( List<OrganisationUnit> orgUnits : orgUnitLists )
+            MapMapMap<String, Period, DimensionalItemObject, Double> predictorSampleMap3 = getItemData( sampleMap3, context.sampleItems );
+            MapMapMap<String, Period, DimensionalItemObject, Double> predictorValueMap3 = getItemData( valueMap3, context.items );
+
+            MapMap<Period, DimensionalItemObject, Double> sampleMapNonAoc = firstNonNull( predictorSampleMap3.get( NON_AOC ), new MapMap<>() );
+            MapMap<Period, DimensionalItemObject, Double> valueMapNonAoc = firstNonNull( predictorValueMap3.get( NON_AOC ), new MapMap<>() );
+
+            // We will make independent predictions for each attribute
+            // option combination, but some analytics data that is not
+            // stored by AOC must be evaluated with every AOC found.
+
+            Set<String> attributeOptionCombos = getAttributeOptionCombos( predictorSampleMap3, predictorValueMap3, defaultOptionComboAsSet );
+
+            // Predict independently for each AOC, adding in the data,
+            // if any, that is stored without an AOC.
+
+            for ( String aoc : attributeOptionCombos )
             {
-                Map4<OrganisationUnit, String, Period, DimensionalItemObject, Double> sampleMap4 = sampleItems.isEmpty() ?
-                    new Map4<>() : getDataValues( sampleItems, allSamplePeriods, existingSamplePeriods, orgUnits );
+                MapMap<Period, DimensionalItemObject, Double> sampleMap2 = firstNonNull( predictorSampleMap3.get( aoc ), new MapMap<>() );
+                MapMap<Period, DimensionalItemObject, Double> valueMap2 = firstNonNull( predictorValueMap3.get( aoc ), new MapMap<>() );
 
-                Map4<OrganisationUnit, String, Period, DimensionalItemObject, Double> valueMap4 = items.isEmpty() ?
-                        new Map4<>() : getDataValues( items, outputPeriods, existingOutputPeriods, orgUnits );
+                sampleMap2.putMap( sampleMapNonAoc );
+                valueMap2.putMap( valueMapNonAoc );
 
-                List<DataValue> predictions = new ArrayList<>();
+                MapMap<Period, DimensionalItemObject, Double> periodValueMap = applySkipTest( sampleMap2, context.skipTest, constantMap );
 
-                // For each org unit, find its sample data and its non-sample
-                // data values.
-                //
-                // We will make independent predictions for each attribute
-                // option combination, but some analytics data that is not
-                // stored by AOC must be evaluated with every AOC found.
+                // Predict for each output period.
 
-                for ( OrganisationUnit orgUnit : orgUnits )
+                for ( Period outputPeriod : outputPeriods )
                 {
-                    MapMapMap<String, Period, DimensionalItemObject, Double> sampleMap3 = firstNonNull( sampleMap4.get( orgUnit ), new MapMapMap<>() );
-                    MapMapMap<String, Period, DimensionalItemObject, Double> valueMap3 = firstNonNull( valueMap4.get( orgUnit ), new MapMapMap<>() );
-
-                    MapMap<Period, DimensionalItemObject, Double> sampleMapNonAoc = firstNonNull( sampleMap3.get( NON_AOC ), new MapMap<>() );
-                    MapMap<Period, DimensionalItemObject, Double> valueMapNonAoc = firstNonNull( valueMap3.get( NON_AOC ), new MapMap<>() );
+                    Map<DimensionalItemObject, Double> valueMap = firstNonNull( valueMap2.get( outputPeriod ), new HashMap<>() );
 
-                    Set<String> attributeOptionCombos = getAttributeOptionCombos( sampleMap3, valueMap3, defaultOptionComboAsSet );
+                    if ( context.requireData && dataIsAbsent( outputPeriod, valueMap, samplePeriodsMap, periodValueMap ) )
+                    {
+                        continue;
+                    }
 
-                    // Predict independently for each AOC, adding in the data,
-                    // if any, that is stored without an AOC.
+                    Double value = castDouble( expressionService.getExpressionValue( context.generator.getExpression(),
+                        PREDICTOR_EXPRESSION, valueMap, constantMap, null,
+                        outputPeriod.getDaysInPeriod(), context.generator.getMissingValueStrategy(),
+                        samplePeriodsMap.get( outputPeriod ), periodValueMap ) );
 
-                    for ( String aoc : attributeOptionCombos )
+                    if ( value != null && !value.isNaN() && !value.isInfinite() &&
+                        !dataValueIsZeroAndInsignificant( Double.toString( value ), context.outputDataElement ) )
                     {
-                        MapMap<Period, DimensionalItemObject, Double> sampleMap2 = firstNonNull( sampleMap3.get( aoc ), new MapMap<>() );
-                        MapMap<Period, DimensionalItemObject, Double> valueMap2 = firstNonNull( valueMap3.get( aoc ), new MapMap<>() );
-
-                        sampleMap2.putMap( sampleMapNonAoc );
-                        valueMap2.putMap( valueMapNonAoc );
-
-                        MapMap<Period, DimensionalItemObject, Double> periodValueMap = applySkipTest( sampleMap2, skipTest, constantMap );
-
-                        // Predict for each output period.
-
-                        for ( Period outputPeriod : outputPeriods )
-                        {
-                            Map<DimensionalItemObject, Double> valueMap = firstNonNull( valueMap2.get( outputPeriod ), new HashMap<>() );
-
-                            if ( requireData && dataIsAbsent( outputPeriod, valueMap, samplePeriodsMap, periodValueMap ) )
-                            {
-                                continue;
-                            }
-
-                            Double value = castDouble( expressionService.getExpressionValue( generator.getExpression(),
-                                    PREDICTOR_EXPRESSION, valueMap, constantMap, null,
-                                    outputPeriod.getDaysInPeriod(), generator.getMissingValueStrategy(),
-                                    samplePeriodsMap.get( outputPeriod ), periodValueMap ) );
-
-                            if ( value != null && !value.isNaN() && !value.isInfinite() &&
-                                !dataValueIsZeroAndInsignificant( Double.toString( value ), outputDataElement ) )
-                            {
-                                String valueString = outputDataElement.getValueType().isInteger() ?
-                                    Long.toString( Math.round( value ) ) :
-                                    Double.toString( MathUtils.roundFraction( value, 4 ) );
-
-                                predictions.add( new DataValue( outputDataElement,
-                                    outputPeriod, orgUnit, outputOptionCombo,
-                                    cocMap.get( aoc, () -> categoryService.getCategoryOptionCombo( aoc ) ),
-                                    valueString, storedBy, now, null ) );
-                            }
-                        }
+                        String valueString = context.outputIsInteger ?
+                            Long.toString( Math.round( value ) ) :
+                            Double.toString( MathUtils.roundFraction( value, 4 ) );
+
+                        predictedValues.add( new PredictedValue( predictorIndex, orgUnitIndex, outputPeriod, aoc, valueString ) );
                     }
                 }
-
-                writePredictions( predictions, outputDataElement, outputOptionCombo,
-                    outputPeriods, existingOutputPeriods, orgUnits, storedBy, predictionSummary );
             }
         }
+
+        return predictedValues;
     }
 
     // -------------------------------------------------------------------------
     // Supportive Methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Resolves the expression items and output details of a predictor before
+     * any evaluation, so that the predictor can be evaluated by several
+     * threads without touching the persistence session.
+     *
+     * @param predictor the predictor.
+     * @return the predictor context.
+     */
+    private PredictorContext getPredictorContext( Predictor predictor )
+    {
+        PredictorContext context = new PredictorContext();
+
+        context.predictor = predictor;
+        context.generator = predictor.getGenerator();
+        context.skipTest = predictor.getSampleSkipTest();
+        context.outputDataElement = predictor.getOutput();
+        context.outputOptionCombo = predictor.getOutputCombo() == null ?
+            categoryService.getDefaultCategoryOptionCombo() : predictor.getOutputCombo();
+        context.outputIsInteger = context.outputDataElement.getValueType().isInteger();
+
+        expressionService.getExpressionDimensionalItemObjects( context.generator.getExpression(),
+            PREDICTOR_EXPRESSION, context.items, context.sampleItems );
+
+        if ( context.skipTest != null )
+        {
+            expressionService.getExpressionDimensionalItemObjects( context.skipTest.getExpression(),
+                PREDICTOR_SKIP_TEST, context.sampleItems, new HashSet<>() );
+        }
+
+        context.requireData = context.generator.getMissingValueStrategy() != NEVER_SKIP &&
+            ( !context.items.isEmpty() || !context.sampleItems.isEmpty() );
+
+        for ( DimensionalItemObject item : Sets.union( context.items, context.sampleItems ) )
+        {
+            if ( item instanceof DataElement )
+            {
+                context.inputDataElements.add( item.getUid() );
+            }
+            else if ( item instanceof DataElementOperand )
+            {
+                context.inputDataElements.add( ( (DataElementOperand) item ).getDataElement().getUid() );
+            }
+        }
+
+        return context;
+    }
+
+    /**
+     * Groups predictors that can be run together: those with the same period
+     * type, sample periods and organisation unit levels, which can therefore
+     * share their data fetches.
+     * <p>
+     * A predictor that uses the output of another predictor in the list, whose
+     * output is used by another predictor, or that has the same output as
+     * another predictor, depends on the order in which predictors are run. It
+     * is run on its own, in its original position in the list.
+     *
+     * @param predictors the predictors to run, in order.
+     * @return groups of predictors, in the order they are to be run.
+     */
+    private List<List<PredictorContext>> getPredictorContextGroups( List<Predictor> predictors )
+    {
+        List<PredictorContext> contexts = predictors.stream()
+            .map( this::getPredictorContext )
+            .collect( Collectors.toList() );
+
+        Map<String, Integer> outputCounts = new HashMap<>();
+        Set<String> allInputs = new HashSet<>();
+
+        for ( PredictorContext context : contexts )
+        {
+            outputCounts.merge( context.outputDataElement.getUid(), 1, Integer::sum );
+            allInputs.addAll( context.inputDataElements );
+        }
+
+        List<List<PredictorContext>> groups = new ArrayList<>();
+        Map<String, List<PredictorContext>> groupsByKey = new HashMap<>();
+
+        for ( PredictorContext context : contexts )
+        {
+            String output = context.outputDataElement.getUid();
+
+            boolean dependent = outputCounts.get( output ) > 1 || allInputs.contains( output ) ||
+                context.inputDataElements.stream().anyMatch( outputCounts::containsKey );
+
+            if ( dependent )
+            {
+                groups.add( Lists.newArrayList( context ) );
+                continue;
+            }
+
+            List<PredictorContext> group = groupsByKey.get( getGroupKey( context.predictor ) );
+
+            if ( group == null )
+            {
+                group = new ArrayList<>();
+                groupsByKey.put( getGroupKey( context.predictor ), group );
+                groups.add( group );
+            }
+
+            group.add( context );
+        }
+
+        return groups;
+    }
+
+    /**
+     * Gets a key for the sample periods and organisation unit levels of a
+     * predictor. Predictors with the same key can share data fetches.
+     *
+     * @param predictor the predictor.
+     * @return the key.
+     */
+    private String getGroupKey( Predictor predictor )
+    {
+        return predictor.getPeriodType().getName()
+            + "-" + predictor.getSequentialSampleCount()
+            + "-" + predictor.getAnnualSampleCount()
+            + "-" + firstNonNull( predictor.getSequentialSkipCount(), 0 )
+            + "-" + predictor.getOrganisationUnitLevels().stream()
+                .map( l -> String.valueOf( l.getLevel() ) )
+                .sorted()
+                .collect( Collectors.joining( "," ) );
+    }
+
+    /**
+     * Determines how many threads to use for evaluating predictions.
+     *
+     * @return the number of threads to use.
+     */
+    private int getParallelism()
+    {
+        int parallelism = SystemUtils.getCpuCores();
+
+        return parallelism > 2 ? parallelism - 1 : parallelism;
+    }
+
+    /**
+     * Runs a task in a fork-join pool, so that any parallel streams within
+     * the task are evaluated by the threads of that pool.
+     *
+     * @param pool the fork-join pool.
+     * @param task the task to run.
+     * @return the result of the task.
+     */
+    private <T> T invoke( ForkJoinPool pool, Callable<T> task )
+    {
+        try
+        {
+            return pool.submit( task ).get();
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException( "Prediction was interrupted", ex );
+        }
+        catch ( ExecutionException ex )
+        {
+            if ( ex.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            throw new IllegalStateException( ex.getCause() );
+        }
+    }
+
+    /**
+     * Selects from an orgUnit's data only the values for the given items.
+     * Always returns new maps, so the result can be modified without
+     * affecting the data shared with other predictors.
+     *
+     * @param map3 the orgUnit data by attribute option combo and period.
+     * @param items the items to select.
+     * @return the data for the items.
+     */
+    private MapMapMap<String, Period, DimensionalItemObject, Double> getItemData(
+        MapMapMap<String, Period, DimensionalItemObject, Double> map3, Set<DimensionalItemObject> items )
+    {
+        MapMapMap<String, Period, DimensionalItemObject, Double> itemData = new MapMapMap<>();
+
+        for ( Map.Entry<String, MapMap<Period, DimensionalItemObject, Double>> aocEntry : map3.entrySet() )
+        {
+            for ( Map.Entry<Period, Map<DimensionalItemObject, Double>> periodEntry : aocEntry.getValue().entrySet() )
+            {
+                for ( Map.Entry<DimensionalItemObject, Double> itemEntry : periodEntry.getValue().entrySet() )
+                {
+                    if ( items.contains( itemEntry.getKey() ) )
+                    {
+                        itemData.putEntry( aocEntry.getKey(), periodEntry.getKey(), itemEntry.getKey(), itemEntry.getValue() );
+                    }
+                }
+            }
+        }
+
+        return itemData;
+    }
+
     /**
      * For a predictor and orgUnit, determines the set of attribute option
      * combos for which predictions will be generated.
@@ -636,29 +940,31 @@ public class DefaultPredictionService
 
     /**
      * Gets data values for a set of DimensionalItemObjects over a set of
-     * Periods for an organisation unit and/or any of the organisation unit's
-     * descendants.
+     * Periods for a list of organisation units and/or any of the organisation
+     * units' descendants.
      *
      * DimensionalItemObjects may reference aggregate and/or event data.
      *
-     * Returns the values mapped by attribute option combo UID, then Period,
+     * Returns the values for each organisation unit, in the same order as the
+     * organisation units, mapped by attribute option combo UID, then Period,
      * then DimensionalItemObject.
      *
      * @param dimensionItems the dimensionItems.
      * @param allPeriods all data Periods (to fetch event data).
      * @param existingPeriods existing data Periods (to fetch aggregate data).
-     * @param orgUnits the roots of the OrganisationUnit trees to include.
-     * @return the map of values
+     * @param orgUnits the roots of the OrganisationUnit trees to include,
+     *        sorted by id.
+     * @return the values for each organisation unit.
      */
-    private Map4<OrganisationUnit, String, Period, DimensionalItemObject, Double> getDataValues(
+    private List<MapMapMap<String, Period, DimensionalItemObject, Double>> getDataValues(
         Set<DimensionalItemObject> dimensionItems, Set<Period> allPeriods, Set<Period> existingPeriods,
-        List<OrganisationUnit> orgUnits)
+        List<OrganisationUnit> orgUnits )
     {
         Set<DataElement> dataElements = new HashSet<>();
         Set<DataElementOperand> dataElementOperands = new HashSet<>();
         Set<DimensionalItemObject> eventAttributeOptionObjects = new HashSet<>();
         Set<DimensionalItemObject> eventNonAttributeOptionObjects = new HashSet<>();
-        Map4<OrganisationUnit, String, Period, DimensionalItemObject, Double> dataValues = new Map4<>();
+        List<MapMapMap<String, Period, DimensionalItemObject, Double>> dataValues = getEmptyData( orgUnits );
 
         for ( DimensionalItemObject o : dimensionItems )
         {
@@ -682,24 +988,47 @@ public class DefaultPredictionService
 
         if ( ( !dataElements.isEmpty() || !dataElementOperands.isEmpty() ) && !existingPeriods.isEmpty() )
         {
-            dataValues = fetchDataValues( dataElements, dataElementOperands, existingPeriods, orgUnits );
+            fetchDataValues( dataElements, dataElementOperands, existingPeriods, orgUnits, dataValues );
         }
 
         if ( !eventAttributeOptionObjects.isEmpty() && !allPeriods.isEmpty() )
         {
-            dataValues.putMap( getEventDataValues( eventAttributeOptionObjects, true, allPeriods, orgUnits ) );
+            getEventDataValues( eventAttributeOptionObjects, true, allPeriods, orgUnits, dataValues );
         }
 
         if ( !eventNonAttributeOptionObjects.isEmpty() && !allPeriods.isEmpty() )
         {
-            dataValues.putMap( getEventDataValues( eventNonAttributeOptionObjects, false, allPeriods, orgUnits ) );
+            getEventDataValues( eventNonAttributeOptionObjects, false, allPeriods, orgUnits, dataValues );
         }
 
         return dataValues;
     }
 
-    private Map4<OrganisationUnit, String, Period, DimensionalItemObject, Double> fetchDataValues(
-        Set<DataElement> dataElements, Set<DataElementOperand> dataElementOperands, Set<Period> periods, List<OrganisationUnit> orgUnits )
+    /**
+     * Gets an empty data map for each organisation unit.
+     *
+     * @param orgUnits the organisation units.
+     * @return an empty data map for each organisation unit.
+     */
+    private List<MapMapMap<String, Period, DimensionalItemObject, Double>> getEmptyData( List<OrganisationUnit> orgUnits )
+    {
+        List<MapMapMap<String, Period, DimensionalItemObject, Double>> data = new ArrayList<>( orgUnits.size() );
+
+        for ( int i = 0; i < orgUnits.size(); i++ )
+        {
+            data.add( new MapMapMap<>() );
+        }
+
+        return data;
+    }
+
+    /**
+     * Fetches aggregate data values, streaming them from the database into the
+     * data maps of the organisation units. Each value is matched to its org
+     * unit by binary search of the org unit ids, which are in ascending order.
+     */
+    private void fetchDataValues( Set<DataElement> dataElements, Set<DataElementOperand> dataElementOperands,
+        Set<Period> periods, List<OrganisationUnit> orgUnits, List<MapMapMap<String, Period, DimensionalItemObject, Double>> dataValues )
     {
         DataExportParams params = new DataExportParams();
         params.setDataElements( dataElements );
@@ -708,55 +1037,44 @@ public class DefaultPredictionService
         params.setOrganisationUnits( new HashSet<>( orgUnits ) );
         params.setReturnParentOrgUnit( true );
 
-        List<DeflatedDataValue> deflatedDataValues = dataValueService.getDeflatedDataValues( params );
-
         Map<Long, DataElement> dataElementLookup = dataElements.stream().collect( Collectors.toMap( DataElement::getId, de -> de ) );
         Map<String, DataElementOperand> dataElementOperandLookup = dataElementOperands.stream().collect(
             Collectors.toMap( deo -> deo.getDataElement().getId() + "." + deo.getCategoryOptionCombo().getId(), deo -> deo ) );
         Map<Long, Period> periodLookup = periods.stream().collect( Collectors.toMap( Period::getId, p -> p ) );
-        Map<Long, OrganisationUnit> orgUnitLookup = orgUnits.stream().collect( Collectors.toMap( OrganisationUnit::getId, ou -> ou ) );
-        Map<Long, CategoryOptionCombo> aocLookup = new HashMap<>();
-
-        Map4<OrganisationUnit, String, Period, DimensionalItemObject, Double> dataValues = new Map4<>();
+        long[] orgUnitIds = orgUnits.stream().mapToLong( OrganisationUnit::getId ).toArray();
+        Map<Long, String> aocLookup = new HashMap<>();
 
-        for ( DeflatedDataValue dv : deflatedDataValues )
-        {
-            DataElement dataElement = dataElementLookup.get( dv.getDataElementId() );
-            DataElementOperand dataElementOperand = dataElementOperandLookup.get( dv.getDataElementId() + "." + dv.getCategoryOptionComboId() );
-            Period p = periodLookup.get( dv.getPeriodId() );
-            OrganisationUnit orgUnit = orgUnitLookup.get( dv.getSourceId() );
-            CategoryOptionCombo attributeOptionCombo = aocLookup.get( dv.getAttributeOptionComboId() );
+        dataValueService.getDeflatedDataValues( params, dv -> {
+            int orgUnitIndex = Arrays.binarySearch( orgUnitIds, dv.getSourceId() );
             String stringValue = dv.getValue();
 
-            if ( stringValue == null )
+            if ( stringValue == null || orgUnitIndex < 0 )
             {
-                continue;
+                return;
             }
 
-            if ( attributeOptionCombo == null )
-            {
-                attributeOptionCombo = categoryService.getCategoryOptionCombo( dv.getAttributeOptionComboId() );
+            DataElement dataElement = dataElementLookup.get( dv.getDataElementId() );
+            DataElementOperand dataElementOperand = dataElementOperandLookup.get( dv.getDataElementId() + "." + dv.getCategoryOptionComboId() );
+            Period p = periodLookup.get( dv.getPeriodId() );
+            String aoc = aocLookup.computeIfAbsent( dv.getAttributeOptionComboId(),
+                id -> categoryService.getCategoryOptionCombo( id ).getUid() );
 
-                aocLookup.put( dv.getAttributeOptionComboId(), attributeOptionCombo );
-            }
+            MapMapMap<String, Period, DimensionalItemObject, Double> orgUnitData = dataValues.get( orgUnitIndex );
 
             if ( dataElement != null )
             {
-                putDataValue( dataValues, orgUnit, attributeOptionCombo, p, dataElement, stringValue );
+                putDataValue( orgUnitData, aoc, p, dataElement, stringValue );
             }
 
             if ( dataElementOperand != null )
             {
-                putDataValue( dataValues, orgUnit, attributeOptionCombo, p, dataElementOperand, stringValue );
+                putDataValue( orgUnitData, aoc, p, dataElementOperand, stringValue );
             }
-        }
-
-        return dataValues;
+        } );
     }
 
-    private void putDataValue( Map4<OrganisationUnit, String, Period, DimensionalItemObject, Double> dataValues,
-        OrganisationUnit orgUnit, CategoryOptionCombo attributeOptionCombo, Period p, DimensionalItemObject dimensionItem,
-        String stringValue )
+    private void putDataValue( MapMapMap<String, Period, DimensionalItemObject, Double> orgUnitData,
+        String aoc, Period p, DimensionalItemObject dimensionItem, String stringValue )
     {
         Double value;
 
@@ -769,14 +1087,14 @@ public class DefaultPredictionService
             return; // Ignore any non-numeric values.
         }
 
-        Double valueSoFar = dataValues.getValue( orgUnit, attributeOptionCombo.getUid(), p, dimensionItem );
+        Double valueSoFar = orgUnitData.getValue( aoc, p, dimensionItem );
 
         if ( valueSoFar != null )
         {
             value += valueSoFar;
         }
 
-        dataValues.putEntry( orgUnit, attributeOptionCombo.getUid(), p, dimensionItem, value );
+        orgUnitData.putEntry( aoc, p, dimensionItem, value );
     }
 
     /**
@@ -784,19 +1102,17 @@ public class DefaultPredictionService
      * Periods for a list of organisation units and/or any of the organisation
      * units' descendants.
      *
-     * Returns the values mapped by OrganisationUnit, Period, attribute option
-     * combo UID, and DimensionalItemObject.
+     * Adds the values to the data maps of the organisation units, mapped by
+     * attribute option combo UID, Period and DimensionalItemObject.
      *
      * @param dimensionItems the dimensionItems.
      * @param periods the Periods of the DataValues.
      * @param orgUnits the roots of the OrganisationUnit trees to include.
-     * @return the map of values
+     * @param dataValues the data maps of the organisation units.
      */
-    private Map4<OrganisationUnit, String, Period, DimensionalItemObject, Double> getEventDataValues(
-        Set<DimensionalItemObject> dimensionItems, boolean hasAttributeOptions, Set<Period> periods, List<OrganisationUnit> orgUnits )
+    private void getEventDataValues( Set<DimensionalItemObject> dimensionItems, boolean hasAttributeOptions,
+        Set<Period> periods, List<OrganisationUnit> orgUnits, List<MapMapMap<String, Period, DimensionalItemObject, Double>> dataValues )
     {
-        Map4<OrganisationUnit, String, Period, DimensionalItemObject, Double> eventDataValues = new Map4<>();
-
         DataQueryParams.Builder paramsBuilder = DataQueryParams.newBuilder()
             .withPeriods(new ArrayList<>(periods) )
             .withDataDimensionItems( Lists.newArrayList( dimensionItems ) )
@@ -817,7 +1133,12 @@ public class DefaultPredictionService
 
         Map<String, Period> periodLookup = periods.stream().collect( Collectors.toMap(Period::getIsoDate, p -> p ) );
         Map<String, DimensionalItemObject> dimensionItemLookup = dimensionItems.stream().collect( Collectors.toMap(DimensionalItemObject::getDimensionItem, d -> d ) );
-        Map<String, OrganisationUnit> orgUnitLookup = orgUnits.stream().collect( Collectors.toMap(BaseIdentifiableObject::getUid, o -> o ) );
+        Map<String, Integer> orgUnitIndexLookup = new HashMap<>();
+
+        for ( int i = 0; i < orgUnits.size(); i++ )
+        {
+            orgUnitIndexLookup.put( orgUnits.get( i ).getUid(), i );
+        }
 
         for ( List<Object> row : grid.getRows() )
         {
@@ -829,12 +1150,13 @@ public class DefaultPredictionService
 
             Period period = periodLookup.get( pe );
             DimensionalItemObject dimensionItem = dimensionItemLookup.get( dx );
-            OrganisationUnit orgUnit = orgUnitLookup.get( ou );
+            Integer orgUnitIndex = orgUnitIndexLookup.get( ou );
 
-            eventDataValues.putEntry( orgUnit, ao, period, dimensionItem, vl );
+            if ( orgUnitIndex != null )
+            {
+                dataValues.get( orgUnitIndex ).putEntry( ao, period, dimensionItem, vl );
+            }
         }
-
-        return eventDataValues;
     }
 
     /**
@@ -848,22 +1170,23 @@ public class DefaultPredictionService
      * @param existingPeriods Those periods to predict for already in DB.
      * @param orgUnits Organisation units to predict for.
      * @param summary Prediction summary to update.
+     * @param dataValueBatchHandler Batch handler to write through, flushed by
+     *        the caller.
      */
     private void writePredictions( List<DataValue> predictions, DataElement outputDataElement,
         CategoryOptionCombo outputOptionCombo, Set<Period> periods, Set<Period> existingPeriods,
-        List<OrganisationUnit> orgUnits, String storedBy, PredictionSummary summary )
+        List<OrganisationUnit> orgUnits, String storedBy, PredictionSummary summary,
+        BatchHandler<DataValue> dataValueBatchHandler )
     {
         DataExportParams params = new DataExportParams();
         params.setDataElementOperands( Sets.newHashSet( new DataElementOperand( outputDataElement, outputOptionCombo ) ) );
         params.setPeriods( periods );
         params.setOrganisationUnits( new HashSet<>( orgUnits ) );
 
-        List<DeflatedDataValue> oldValueList = dataValueService.getDeflatedDataValues( params );
-
-        Map<String, DeflatedDataValue> oldValues = oldValueList.stream().collect( Collectors.toMap(
-            d -> d.getPeriodId() + "-" + d.getSourceId() + "-" + d.getAttributeOptionComboId(), d -> d ) );
+        Map<String, DeflatedDataValue> oldValues = new HashMap<>();
 
-        BatchHandler<DataValue> dataValueBatchHandler = batchHandlerFactory.createBatchHandler( DataValueBatchHandler.class ).init();
+        dataValueService.getDeflatedDataValues( params, d -> oldValues.put(
+            d.getPeriodId() + "-" + d.getSourceId() + "-" + d.getAttributeOptionComboId(), d ) );
 
         for ( DataValue newValue : predictions )
         {
@@ -932,7 +1255,57 @@ public class DefaultPredictionService
 
             dataValueBatchHandler.deleteObject( toDelete );
         }
+    }
+
+    /**
+     * A predictor with the details needed to evaluate it.
+     */
+    private static class PredictorContext
+    {
+        private Predictor predictor;
+
+        private Expression generator;
+
+        private Expression skipTest;
+
+        private DataElement outputDataElement;
+
+        private CategoryOptionCombo outputOptionCombo;
+
+        private boolean outputIsInteger;
+
+        private boolean requireData;
+
+        private final Set<DimensionalItemObject> items = new HashSet<>(); // Non-sampled items.
 
-        dataValueBatchHandler.flush();
+        private final Set<DimensionalItemObject> sampleItems = new HashSet<>(); // Sampled items.
+
+        private final Set<String> inputDataElements = new HashSet<>();
+    }
+
+    /**
+     * A value predicted for an organisation unit, before it is made into a
+     * data value.
+     */
+    private static class PredictedValue
+    {
+        private final int predictorIndex;
+
+        private final int orgUnitIndex;
+
+        private final Period period;
+
+        private final String aoc;
+
+        private final String value;
+
+        PredictedValue( int predictorIndex, int orgUnitIndex, Period period, String aoc, String value )
+        {
+            this.predictorIndex = predictorIndex;
+            this.orgUnitIndex = orgUnitIndex;
+            this.period = period;
+            this.aoc = aoc;
+            this.value = value;
+        }
     }
 }
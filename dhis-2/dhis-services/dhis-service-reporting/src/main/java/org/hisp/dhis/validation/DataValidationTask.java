@@ -43,7 +43,6 @@ import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.dataelement.DataElementOperand;
 import org.hisp.dhis.datavalue.DataExportParams;
 import org.hisp.dhis.datavalue.DataValueService;
-import org.hisp.dhis.datavalue.DeflatedDataValue;
 import org.hisp.dhis.expression.Expression;
 import org.hisp.dhis.expression.ExpressionService;
 import org.hisp.dhis.expression.Operator;
@@ -56,7 +55,9 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.PersistenceException;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -64,6 +65,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.hisp.dhis.expression.ParseType.SIMPLE_TEST;
@@ -89,6 +91,8 @@ public class DataValidationTask
 
     public final static String NON_AOC = ""; // String that is not an Attribute Option Combo
 
+    private final static String NON_PERIOD = ""; // Analytics data without a period dimension
+
     private final ExpressionService expressionService;
 
     private final DataValueService dataValueService;
@@ -122,6 +126,8 @@ public class DataValidationTask
 
     private PeriodTypeExtended periodTypeX; // Current period type extended.
 
+    private List<Period> periods;           // Periods of current period type, by start date.
+
     private Period period;                  // Current period.
 
     private OrganisationUnit orgUnit;       // Current organisation unit.
@@ -130,6 +136,20 @@ public class DataValidationTask
 
     private ValidationRuleExtended ruleX;   // Current rule extended.
 
+    // Org unit ids of this task in ascending order, used as block index:
+    private long[] orgUnitIds;
+
+    // Data values for all periods of the current period type, indexed by
+    // period index * number of org units + org unit index:
+    private DataBlockCell[] dataBlock;
+
+    // Analytics data for all periods of the current period type, by period:
+    private Map<String, MapMapMap<Long, String, DimensionalItemObject, Double>> indicatorBlock;
+
+    private Map<String, MapMapMap<Long, String, DimensionalItemObject, Double>> eventBlock;
+
+    private Map<String, MapMapMap<Long, String, DimensionalItemObject, Double>> eventBlockWithoutAttributeOptions;
+
     // Data for current period and all rules being evaluated:
     private MapMapMap<Long, String, DimensionalItemObject, Double> dataMap;
 
@@ -141,6 +161,7 @@ public class DataValidationTask
         this.orgUnits = orgUnits;
         this.context = context;
         this.analyticsService = analyticsService;
+        this.orgUnitIds = orgUnits.stream().mapToLong( OrganisationUnit::getId ).sorted().toArray();
     }
 
     /**
@@ -166,6 +187,10 @@ public class DataValidationTask
     /**
      * Get the data needed for this task, then evaluate each combination
      * of organisation unit / period / validation rule.
+     * <p/>
+     * The data for all org units of this task and all periods of a period
+     * type is fetched up front in one block, so the number of queries does
+     * not grow with the number of periods.
      */
     private void runInternal()
     {
@@ -174,39 +199,72 @@ public class DataValidationTask
             return;
         }
 
-        loop:
         for ( PeriodTypeExtended ptx : context.getPeriodTypeXs() )
         {
             periodTypeX = ptx;
 
-            for ( Period p : periodTypeX.getPeriods() )
+            periods = periodTypeX.getPeriods().stream()
+                .sorted( Comparator.comparing( Period::getStartDate ) )
+                .collect( Collectors.toList() );
+
+            if ( periods.isEmpty() )
+            {
+                continue;
+            }
+
+            getDataBlock();
+
+            for ( int periodIndex = 0; periodIndex < periods.size(); periodIndex++ )
             {
-                period = p;
+                period = periods.get( periodIndex );
 
-                getData();
+                getData( periodIndex );
 
-                for ( OrganisationUnit ou : orgUnits )
+                long start = System.nanoTime();
+
+                boolean complete = validatePeriod();
+
+                context.addRuleEvaluationTime( System.nanoTime() - start );
+
+                if ( complete )
                 {
-                    orgUnit = ou;
-                    orgUnitId = ou.getId();
-
-                    for ( ValidationRuleExtended r : periodTypeX.getRuleXs() )
-                    {
-                        ruleX = r;
-
-                        if ( context.isAnalysisComplete() )
-                        {
-                            break loop;
-                        }
-                        validationResults = new HashSet<>();
-                        validateRule();
-                        addValidationResultsToContext();
-                    }
+                    return;
                 }
             }
         }
     }
 
+    /**
+     * Evaluates each combination of organisation unit / validation rule for
+     * the current period.
+     *
+     * @return true if the analysis is complete, otherwise false.
+     */
+    private boolean validatePeriod()
+    {
+        for ( OrganisationUnit ou : orgUnits )
+        {
+            orgUnit = ou;
+            orgUnitId = ou.getId();
+
+            for ( ValidationRuleExtended r : periodTypeX.getRuleXs() )
+            {
+                ruleX = r;
+
+                if ( context.isAnalysisComplete() )
+                {
+                    return true;
+                }
+
+                validationResults = new HashSet<>();
+                validateRule();
+                addValidationResultsToContext();
+            }
+        }
+
+        return false;
+    }
+
     /**
      * Validates one rule / period by seeing which attribute option combos exist
      * for that data, and then iterating through those attribute option combos.
@@ -324,16 +382,57 @@ public class DataValidationTask
     }
 
     /**
-     * Gets the data for this period:
+     * Gets the data for all periods of the current period type.
+     */
+    private void getDataBlock()
+    {
+        long start = System.nanoTime();
+
+        getDataValueBlock();
+
+        context.addDataValueFetchTime( System.nanoTime() - start );
+
+        start = System.nanoTime();
+
+        indicatorBlock = getAnalyticsMap( true, periodTypeX.getIndicators() );
+
+        if ( periodTypeX.areNonSlidingWindowsNeeded() )
+        {
+            eventBlock = getAnalyticsMap( true, periodTypeX.getEventItems() );
+            eventBlockWithoutAttributeOptions = getAnalyticsMap( false, periodTypeX.getEventItemsWithoutAttributeOptions() );
+        }
+
+        context.addAnalyticsFetchTime( System.nanoTime() - start );
+    }
+
+    /**
+     * Gets the data for this period from the data block:
      * <p/>
      * dataMap contains data for non-sliding window expressions.
      * slidingWindowDataMap contains data for sliding window expressions.
+     *
+     * @param periodIndex the index of the current period.
      */
-    private void getData()
+    private void getData( int periodIndex )
     {
-        getDataValueMap();
+        dataMap = new MapMapMap<>();
+
+        for ( int i = 0; i < orgUnitIds.length; i++ )
+        {
+            int cellIndex = periodIndex * orgUnitIds.length + i;
 
-        dataMap.putMap( getAnalyticsMap( true, periodTypeX.getIndicators() ) );
+            DataBlockCell cell = dataBlock[cellIndex];
+
+            if ( cell != null )
+            {
+                dataMap.put( orgUnitIds[i], cell.values );
+                dataBlock[cellIndex] = null; // Each cell is used for one period only
+            }
+        }
+
+        String isoPeriod = period.getIsoDate();
+
+        dataMap.putMap( indicatorBlock.getOrDefault( isoPeriod, new MapMapMap<>() ) );
 
         slidingWindowDataMap = new MapMapMap<>();
 
@@ -341,14 +440,18 @@ public class DataValidationTask
         {
             slidingWindowDataMap.putMap( dataMap );
 
+            long start = System.nanoTime();
+
             slidingWindowDataMap.putMap( getEventMapForSlidingWindow( true, periodTypeX.getEventItems() ) );
             slidingWindowDataMap.putMap( getEventMapForSlidingWindow( false, periodTypeX.getEventItemsWithoutAttributeOptions() ) );
+
+            context.addAnalyticsFetchTime( System.nanoTime() - start );
         }
 
         if ( periodTypeX.areNonSlidingWindowsNeeded() )
         {
-            dataMap.putMap( getAnalyticsMap( true, periodTypeX.getEventItems() ) );
-            dataMap.putMap( getAnalyticsMap( false, periodTypeX.getEventItemsWithoutAttributeOptions() ) );
+            dataMap.putMap( eventBlock.getOrDefault( isoPeriod, new MapMapMap<>() ) );
+            dataMap.putMap( eventBlockWithoutAttributeOptions.getOrDefault( isoPeriod, new MapMapMap<>() ) );
         }
     }
 
@@ -501,14 +604,20 @@ public class DataValidationTask
     }
 
     /**
-     * Gets data elements and data element operands from the datavalue table.
+     * Gets data elements and data element operands from the datavalue table
+     * for all org units of this task and all periods of the current period
+     * type in one streaming query.
+     * <p/>
+     * A data value is used for each period whose start date is included in
+     * the period of the data value.
      */
-    private void getDataValueMap()
+    private void getDataValueBlock()
     {
         DataExportParams params = new DataExportParams();
         params.setDataElements( periodTypeX.getDataElements() );
         params.setDataElementOperands( periodTypeX.getDataElementOperands() );
-        params.setIncludedDate( period.getStartDate() );
+        params.setIncludedDate( periods.get( 0 ).getStartDate() );
+        params.setIncludedEndDate( periods.get( periods.size() - 1 ).getStartDate() );
         params.setOrganisationUnits( new HashSet<>( orgUnits ) );
         params.setPeriodTypes( periodTypeX.getAllowedPeriodTypes() );
         params.setCoDimensionConstraints( context.getCoDimensionConstraints() );
@@ -519,53 +628,87 @@ public class DataValidationTask
             params.setAttributeOptionCombos( Sets.newHashSet( context.getAttributeCombo() ) );
         }
 
-        List<DeflatedDataValue> dataValues = dataValueService.getDeflatedDataValues( params );
+        dataBlock = new DataBlockCell[periods.size() * orgUnitIds.length];
 
-        dataMap = new MapMapMap<>();
+        Map<Long, int[]> periodIndexes = new HashMap<>();
 
-        MapMapMap<Long, String, DimensionalItemObject, Long> checkForDuplicates = new MapMapMap<>();
+        dataValueService.getDeflatedDataValues( params, dv -> {
+            int orgUnitIndex = Arrays.binarySearch( orgUnitIds, dv.getSourceId() );
 
-        for ( DeflatedDataValue dv : dataValues )
-        {
-            DataElement dataElement = periodTypeX.getDataElementIdMap().get( dv.getDataElementId() );
-            String deoIdKey = periodTypeX.getDeoIds( dv.getDataElementId(), dv.getCategoryOptionComboId() );
-            DataElementOperand dataElementOperand = periodTypeX.getDataElementOperandIdMap().get( deoIdKey );
-            Period p = getPeriod( dv.getPeriodId() );
-            long orgUnitId = dv.getSourceId();
-            String attributeOptionComboUid = getAttributeOptionCombo( dv.getAttributeOptionComboId() ).getUid();
-            String valueString = dv.getValue();
-            Double value;
+            if ( orgUnitIndex < 0 )
+            {
+                return;
+            }
+
+            double value;
 
             try
             {
-                value = Double.parseDouble( valueString );
+                value = Double.parseDouble( dv.getValue() );
             }
             catch ( NumberFormatException | NullPointerException e )
             {
-                continue;
+                return;
             }
 
-            if ( dataElement != null )
-            {
-                addValueToDataMap( orgUnitId, attributeOptionComboUid, dataElement, value, p, checkForDuplicates );
-            }
+            Period p = getPeriod( dv.getPeriodId() );
+            int[] indexes = periodIndexes.computeIfAbsent( dv.getPeriodId(), id -> getIncludedPeriodIndexes( p ) );
+
+            DataElement dataElement = periodTypeX.getDataElementIdMap().get( dv.getDataElementId() );
+            String deoIdKey = periodTypeX.getDeoIds( dv.getDataElementId(), dv.getCategoryOptionComboId() );
+            DataElementOperand dataElementOperand = periodTypeX.getDataElementOperandIdMap().get( deoIdKey );
+            String attributeOptionComboUid = getAttributeOptionCombo( dv.getAttributeOptionComboId() ).getUid();
 
-            if ( dataElementOperand != null )
+            for ( int periodIndex : indexes )
             {
-                addValueToDataMap( orgUnitId, attributeOptionComboUid, dataElementOperand, value, p,
-                    checkForDuplicates );
+                DataBlockCell cell = getCell( periodIndex * orgUnitIds.length + orgUnitIndex );
+
+                if ( dataElement != null )
+                {
+                    addValueToCell( cell, attributeOptionComboUid, dataElement, value, p );
+                }
+
+                if ( dataElementOperand != null )
+                {
+                    addValueToCell( cell, attributeOptionComboUid, dataElementOperand, value, p );
+                }
             }
+        } );
+    }
+
+    /**
+     * Gets the indexes of the periods of the current period type whose start
+     * date is included in the given data value period.
+     */
+    private int[] getIncludedPeriodIndexes( Period p )
+    {
+        return IntStream.range( 0, periods.size() )
+            .filter( i -> !periods.get( i ).getStartDate().before( p.getStartDate() )
+                && !periods.get( i ).getStartDate().after( p.getEndDate() ) )
+            .toArray();
+    }
+
+    private DataBlockCell getCell( int cellIndex )
+    {
+        DataBlockCell cell = dataBlock[cellIndex];
+
+        if ( cell == null )
+        {
+            cell = new DataBlockCell();
+            dataBlock[cellIndex] = cell;
         }
+
+        return cell;
     }
 
-    private void addValueToDataMap( long orgUnitId, String aocUid, DimensionalItemObject dimItemObject,
-        Double value, Period p, MapMapMap<Long, String, DimensionalItemObject, Long> checkForDuplicates )
+    private void addValueToCell( DataBlockCell cell, String aocUid, DimensionalItemObject dimItemObject,
+        double value, Period p )
     {
-        double existingValue = ObjectUtils.firstNonNull( dataMap.getValue( orgUnitId, aocUid, dimItemObject ), 0.0 );
+        double existingValue = ObjectUtils.firstNonNull( cell.values.getValue( aocUid, dimItemObject ), 0.0 );
 
         long periodInterval = p.getEndDate().getTime() - p.getStartDate().getTime();
 
-        Long existingPeriodInterval = checkForDuplicates.getValue( orgUnitId, aocUid, dimItemObject );
+        Long existingPeriodInterval = cell.periodIntervals.getValue( aocUid, dimItemObject );
 
         if ( existingPeriodInterval != null )
         {
@@ -579,28 +722,29 @@ public class DataValidationTask
             }
         }
 
-        dataMap.putEntry( orgUnitId, aocUid, dimItemObject, value + existingValue );
+        cell.values.putEntry( aocUid, dimItemObject, value + existingValue );
 
-        checkForDuplicates.putEntry( orgUnitId, aocUid, dimItemObject, periodInterval );
+        cell.periodIntervals.putEntry( aocUid, dimItemObject, periodInterval );
     }
 
     /**
-     * Gets analytics data for the given parameters.
+     * Gets analytics data for the given parameters for all periods of the
+     * current period type, by ISO period.
      *
      * @param hasAttributeOptions whether the event data has attribute options.
      */
-    private MapMapMap<Long, String, DimensionalItemObject, Double> getAnalyticsMap(
+    private Map<String, MapMapMap<Long, String, DimensionalItemObject, Double>> getAnalyticsMap(
         boolean hasAttributeOptions, Set<DimensionalItemObject> analyticsItems )
     {
         if ( analyticsItems.isEmpty() )
         {
-            return new MapMapMap<>();
+            return new HashMap<>();
         }
 
         DataQueryParams.Builder paramsBuilder = DataQueryParams.newBuilder()
             .withDataDimensionItems( Lists.newArrayList( analyticsItems ) )
             .withAttributeOptionCombos( Lists.newArrayList() )
-            .withFilterPeriods( Lists.newArrayList( period ) )
+            .withPeriods( periods )
             .withOrganisationUnits( orgUnits );
 
         if ( hasAttributeOptions )
@@ -656,7 +800,7 @@ public class DataValidationTask
             paramsBuilder.withAttributeOptionCombos( Lists.newArrayList() );
         }
 
-        return getAnalyticsData( paramsBuilder.build(), hasAttributeOptions );
+        return getAnalyticsData( paramsBuilder.build(), hasAttributeOptions ).getOrDefault( NON_PERIOD, new MapMapMap<>() );
     }
 
     /**
@@ -664,12 +808,13 @@ public class DataValidationTask
      *
      * @param params              event data query parameters.
      * @param hasAttributeOptions whether the event data has attribute options.
-     * @return event data.
+     * @return event data by ISO period, or under NON_PERIOD if the query has
+     *         no period dimension.
      */
-    private MapMapMap<Long, String, DimensionalItemObject, Double> getAnalyticsData(
+    private Map<String, MapMapMap<Long, String, DimensionalItemObject, Double>> getAnalyticsData(
         DataQueryParams params, boolean hasAttributeOptions )
     {
-        MapMapMap<Long, String, DimensionalItemObject, Double> map = new MapMapMap<>();
+        Map<String, MapMapMap<Long, String, DimensionalItemObject, Double>> map = new HashMap<>();
 
         Grid grid;
 
@@ -685,6 +830,7 @@ public class DataValidationTask
         int dxInx = grid.getIndexOfHeader( DimensionalObject.DATA_X_DIM_ID );
         int ouInx = grid.getIndexOfHeader( DimensionalObject.ORGUNIT_DIM_ID );
         int aoInx = hasAttributeOptions ? grid.getIndexOfHeader( DimensionalObject.ATTRIBUTEOPTIONCOMBO_DIM_ID ) : 0;
+        int peInx = grid.getIndexOfHeader( DimensionalObject.PERIOD_DIM_ID );
         int vlInx = grid.getWidth() - 1;
 
         Map<String, OrganisationUnit> ouLookup = orgUnits.stream()
@@ -699,14 +845,26 @@ public class DataValidationTask
             String dx = (String) row.get( dxInx );
             String ao = hasAttributeOptions ? (String) row.get( aoInx ) : NON_AOC;
             String ou = (String) row.get( ouInx );
+            String pe = peInx >= 0 ? (String) row.get( peInx ) : NON_PERIOD;
             Double vl = (Double) row.get( vlInx );
 
             OrganisationUnit orgUnit = ouLookup.get( ou );
             DimensionalItemObject analyticsItem = dxLookup.get( dx );
 
-            map.putEntry( orgUnit.getId(), ao, analyticsItem, vl );
+            map.computeIfAbsent( pe, k -> new MapMapMap<>() ).putEntry( orgUnit.getId(), ao, analyticsItem, vl );
         }
 
         return map;
     }
+
+    /**
+     * Data values of one org unit and period, by attribute option combo and
+     * item, along with the interval of the period each value was taken from.
+     */
+    private static class DataBlockCell
+    {
+        final MapMap<String, DimensionalItemObject, Double> values = new MapMap<>();
+
+        final MapMap<String, DimensionalItemObject, Long> periodIntervals = new MapMap<>();
+    }
 }
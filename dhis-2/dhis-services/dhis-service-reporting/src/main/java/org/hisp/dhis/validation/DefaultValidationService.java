@@ -42,6 +42,7 @@ import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.dataelement.DataElementOperand;
 import org.hisp.dhis.dataset.DataSet;
+import org.hisp.dhis.datavalue.DataExportParams;
 import org.hisp.dhis.datavalue.DataValue;
 import org.hisp.dhis.datavalue.DataValueService;
 import org.hisp.dhis.expression.ExpressionService;
@@ -52,15 +53,18 @@ import org.hisp.dhis.period.PeriodService;
 import org.hisp.dhis.period.PeriodType;
 import org.hisp.dhis.program.AnalyticsType;
 import org.hisp.dhis.program.ProgramIndicator;
+import org.hisp.dhis.system.notification.Notifier;
 import org.hisp.dhis.system.util.Clock;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
+import org.hisp.dhis.util.DateUtils;
 import org.hisp.dhis.validation.notification.ValidationNotificationService;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.hisp.dhis.expression.ParseType.VALIDATION_RULE_EXPRESSION;
@@ -99,6 +103,8 @@ public class DefaultValidationService
 
     private final ValidationResultService validationResultService;
 
+    private final Notifier notifier;
+
     private AnalyticsService analyticsService;
     
     private CurrentUserService currentUserService;
@@ -108,7 +114,7 @@ public class DefaultValidationService
         CategoryService categoryService, ConstantService constantService,
         ValidationNotificationService notificationService, ValidationRuleService validationRuleService,
         ApplicationContext applicationContext, ValidationResultService validationResultService,
-        AnalyticsService analyticsService, CurrentUserService currentUserService )
+        AnalyticsService analyticsService, CurrentUserService currentUserService, Notifier notifier )
     {
         checkNotNull( periodService );
         checkNotNull( organisationUnitService );
@@ -123,6 +129,7 @@ public class DefaultValidationService
         checkNotNull( validationResultService );
         checkNotNull( analyticsService );
         checkNotNull( currentUserService );
+        checkNotNull( notifier );
 
         this.periodService = periodService;
         this.organisationUnitService = organisationUnitService;
@@ -137,6 +144,7 @@ public class DefaultValidationService
         this.validationResultService = validationResultService;
         this.analyticsService = analyticsService;
         this.currentUserService = currentUserService;
+        this.notifier = notifier;
     }
 
     /**
@@ -171,22 +179,44 @@ public class DefaultValidationService
                 : parameters.getPeriods().size() + " periods" ) + ", "
             + parameters.getRules().size() + " rules"
             + ( parameters.isPersistResults() ? ", persisting results" : "" )
-            + ( parameters.isSendNotifications() ? ", sending notifications" : "" ) );
+            + ( parameters.isSendNotifications() ? ", sending notifications" : "" )
+            + ( parameters.isIncremental() ? ", data changed since " + DateUtils.getLongDateString( parameters.getChangedSince() ) : "" ) );
+
+        List<OrganisationUnit> orgUnits = getOrganisationUnits( parameters );
 
-        ValidationRunContext context = getValidationContext( parameters );
+        List<ValidationRunContext> contexts = parameters.isIncremental()
+            ? getIncrementalValidationContexts( parameters, orgUnits )
+            : Lists.newArrayList( getValidationContext( parameters, parameters.getRules(), parameters.getPeriods(), orgUnits ) );
 
         clock.logTime( "Initialized validation analysis" );
 
-        Collection<ValidationResult> results = Validator.validate( context, applicationContext, analyticsService );
+        if ( parameters.getJobConfiguration() != null )
+        {
+            notifier.notify( parameters.getJobConfiguration(), "Initialized validation analysis, " + clock.time() );
+        }
+
+        List<ValidationResult> results = new ArrayList<>();
 
-        if ( context.isPersistResults() )
+        for ( ValidationRunContext context : contexts )
         {
-            validationResultService.saveValidationResults( context.getValidationResults() );
+            results.addAll( Validator.validate( context, applicationContext, analyticsService ) );
+
+            if ( context.isPersistResults() )
+            {
+                validationResultService.saveValidationResults( context.getValidationResults() );
+            }
+
+            log.info( "Validation analysis phase timings: " + context.getPhaseTimings() );
+
+            if ( parameters.getJobConfiguration() != null )
+            {
+                notifier.notify( parameters.getJobConfiguration(), "Validation analysis phase timings: " + context.getPhaseTimings() );
+            }
         }
 
-        clock.logTime( "Finished validation analysis, " +  context.getValidationResults().size() + " results").stop();
+        clock.logTime( "Finished validation analysis, " +  results.size() + " results").stop();
 
-        if ( context.isSendNotifications() )
+        if ( parameters.isSendNotifications() )
         {
             notificationService.sendNotifications( Sets.newHashSet( results ) );
         }
@@ -259,34 +289,162 @@ public class DefaultValidationService
     // -------------------------------------------------------------------------
 
     /**
-     * Returns a new Builder with basic configuration based on the input parameters.
+     * Gets the organisation units in scope of the analysis.
      *
-     * @param parameters        ValidationRuleParameters for creating ValidationRuleContext
-     * @return Builder with basic configuration based on input.
+     * @param parameters the validation analysis parameters.
+     * @return the organisation units.
      */
-    private ValidationRunContext getValidationContext( ValidationAnalysisParams parameters )
+    private List<OrganisationUnit> getOrganisationUnits( ValidationAnalysisParams parameters )
     {
-        User currentUser = currentUserService.getCurrentUser();
-
         OrganisationUnit parameterOrgUnit = parameters.getOrgUnit();
-        List<OrganisationUnit> orgUnits;
+
         if ( parameterOrgUnit == null )
         {
-            orgUnits = organisationUnitService.getAllOrganisationUnits();
+            return organisationUnitService.getAllOrganisationUnits();
         }
         else if ( parameters.isIncludeOrgUnitDescendants() )
         {
-            orgUnits = organisationUnitService.getOrganisationUnitWithChildren( parameterOrgUnit.getUid() );
+            return organisationUnitService.getOrganisationUnitWithChildren( parameterOrgUnit.getUid() );
         }
         else
         {
-            orgUnits = Lists.newArrayList( parameterOrgUnit );
+            return Lists.newArrayList( parameterOrgUnit );
+        }
+    }
+
+    /**
+     * Gets the validation contexts for an incremental analysis.
+     * <p/>
+     * Rules which only reference data elements and data element operands are
+     * evaluated if any of their data elements have values changed since the
+     * given date, for the organisation units with changed values and the
+     * periods whose start date is included in a period with changed values.
+     * Deleted values count as changes. Rules referencing other items, such as
+     * indicators and program data, cannot be traced to data value changes and
+     * are evaluated in full.
+     *
+     * @param parameters the validation analysis parameters.
+     * @param orgUnits the organisation units in scope.
+     * @return the validation contexts, possibly empty.
+     */
+    private List<ValidationRunContext> getIncrementalValidationContexts( ValidationAnalysisParams parameters,
+        List<OrganisationUnit> orgUnits )
+    {
+        SetMap<ValidationRule, String> dataValueRuleDataElements = new SetMap<>();
+        Set<DimensionalItemId> dataValueItemIds = new HashSet<>();
+        List<ValidationRule> otherRules = new ArrayList<>();
+
+        for ( ValidationRule rule : parameters.getRules() )
+        {
+            Set<DimensionalItemId> itemIds = Sets.union(
+                expressionService.getExpressionDimensionalItemIds( rule.getLeftSide().getExpression(), VALIDATION_RULE_EXPRESSION ),
+                expressionService.getExpressionDimensionalItemIds( rule.getRightSide().getExpression(), VALIDATION_RULE_EXPRESSION ) );
+
+            boolean dataValueItemsOnly = itemIds.stream().allMatch( id ->
+                id.getDimensionItemType() == DimensionItemType.DATA_ELEMENT ||
+                id.getDimensionItemType() == DimensionItemType.DATA_ELEMENT_OPERAND );
+
+            if ( dataValueItemsOnly )
+            {
+                itemIds.forEach( id -> dataValueRuleDataElements.putValue( rule, id.getId0() ) );
+                dataValueItemIds.addAll( itemIds );
+            }
+            else
+            {
+                otherRules.add( rule );
+            }
+        }
+
+        List<ValidationRunContext> contexts = new ArrayList<>();
+
+        if ( !otherRules.isEmpty() )
+        {
+            contexts.add( getValidationContext( parameters, otherRules, parameters.getPeriods(), orgUnits ) );
+        }
+
+        if ( dataValueItemIds.isEmpty() )
+        {
+            return contexts;
         }
 
+        // 1. Find the data elements, org units and periods with changed values
+
+        Map<Long, DataElement> dataElements = new HashMap<>();
+
+        for ( DimensionalItemObject item : dimensionService.getNoAclDataDimensionalItemObjectMap( dataValueItemIds ).values() )
+        {
+            DataElement dataElement = item instanceof DataElementOperand ? ((DataElementOperand) item).getDataElement() : (DataElement) item;
+
+            dataElements.put( dataElement.getId(), dataElement );
+        }
+
+        DataExportParams params = new DataExportParams()
+            .setDataElements( new HashSet<>( dataElements.values() ) )
+            .setLastUpdated( parameters.getChangedSince() )
+            .setIncludeDeleted( true );
+
+        Set<String> changedDataElements = new HashSet<>();
+        Set<Long> changedOrgUnitIds = new HashSet<>();
+        Set<Long> changedPeriodIds = new HashSet<>();
+
+        dataValueService.getDeflatedDataValues( params, dv -> {
+            changedDataElements.add( dataElements.get( dv.getDataElementId() ).getUid() );
+            changedOrgUnitIds.add( dv.getSourceId() );
+            changedPeriodIds.add( dv.getPeriodId() );
+        } );
+
+        // 2. Map the changes to rules, org units and periods to evaluate
+
+        List<ValidationRule> changedRules = dataValueRuleDataElements.entrySet().stream()
+            .filter( e -> !Collections.disjoint( e.getValue(), changedDataElements ) )
+            .map( Map.Entry::getKey )
+            .collect( Collectors.toList() );
+
+        List<OrganisationUnit> changedOrgUnits = orgUnits.stream()
+            .filter( ou -> changedOrgUnitIds.contains( ou.getId() ) )
+            .collect( Collectors.toList() );
+
+        List<Period> changedPeriods = changedPeriodIds.stream()
+            .map( periodService::getPeriod )
+            .filter( Objects::nonNull )
+            .collect( Collectors.toList() );
+
+        List<Period> periods = parameters.getPeriods().stream()
+            .filter( p -> changedPeriods.stream().anyMatch( c ->
+                !p.getStartDate().before( c.getStartDate() ) && !p.getStartDate().after( c.getEndDate() ) ) )
+            .collect( Collectors.toList() );
+
+        log.info( "Incremental validation of " + changedRules.size() + " of " + dataValueRuleDataElements.size() +
+            " data value rules, " + changedOrgUnits.size() + " org units, " + periods.size() + " periods" );
+
+        if ( !changedRules.isEmpty() && !changedOrgUnits.isEmpty() && !periods.isEmpty() )
+        {
+            contexts.add( getValidationContext( parameters, changedRules, periods, changedOrgUnits ) );
+        }
+
+        return contexts;
+    }
+
+    /**
+     * Returns a new Builder with basic configuration based on the input parameters.
+     *
+     * @param parameters        ValidationRuleParameters for creating ValidationRuleContext
+     * @param rules             the validation rules to evaluate.
+     * @param periods           the periods to evaluate.
+     * @param orgUnits          the organisation units to evaluate.
+     * @return Builder with basic configuration based on input.
+     */
+    private ValidationRunContext getValidationContext( ValidationAnalysisParams parameters,
+        Collection<ValidationRule> rules, Collection<Period> periods, List<OrganisationUnit> orgUnits )
+    {
+        User currentUser = currentUserService.getCurrentUser();
+
+        OrganisationUnit parameterOrgUnit = parameters.getOrgUnit();
+
         Map<PeriodType, PeriodTypeExtended> periodTypeXMap = new HashMap<>();
 
-        addPeriodsToContext( periodTypeXMap, parameters.getPeriods() );
-        addRulesToContext( periodTypeXMap, parameters.getRules() );
+        addPeriodsToContext( periodTypeXMap, periods );
+        addRulesToContext( periodTypeXMap, rules );
         removeAnyUnneededPeriodTypes( periodTypeXMap );
 
         ValidationRunContext.Builder builder = ValidationRunContext.newBuilder()
@@ -295,7 +453,7 @@ public class DefaultValidationService
             .withConstantMap( constantService.getConstantMap() )
             .withInitialResults( validationResultService
                 .getValidationResults( parameterOrgUnit,
-                    parameters.isIncludeOrgUnitDescendants(), parameters.getRules(), parameters.getPeriods()) )
+                    parameters.isIncludeOrgUnitDescendants(), rules, periods ) )
             .withSendNotifications( parameters.isSendNotifications() )
             .withPersistResults( parameters.isPersistResults() )
             .withAttributeCombo( parameters.getAttributeOptionCombo() )
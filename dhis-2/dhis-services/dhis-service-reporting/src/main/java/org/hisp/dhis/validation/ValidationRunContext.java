@@ -47,6 +47,8 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class keeps track of a validation analysis. It contains information about the initial params of the analysis,
@@ -103,6 +105,16 @@ public class ValidationRunContext
 
     private Map<String, CategoryOptionCombo> aocUidMap = new ConcurrentHashMap<>();
 
+    // -------------------------------------------------------------------------
+    // Phase timings, summed over all tasks
+    // -------------------------------------------------------------------------
+
+    private final AtomicLong dataValueFetchNanos = new AtomicLong();
+
+    private final AtomicLong analyticsFetchNanos = new AtomicLong();
+
+    private final AtomicLong ruleEvaluationNanos = new AtomicLong();
+
     // -------------------------------------------------------------------------
     // Getter methods
     // -------------------------------------------------------------------------
@@ -203,6 +215,32 @@ public class ValidationRunContext
 
     }
 
+    public void addDataValueFetchTime( long nanos )
+    {
+        dataValueFetchNanos.addAndGet( nanos );
+    }
+
+    public void addAnalyticsFetchTime( long nanos )
+    {
+        analyticsFetchNanos.addAndGet( nanos );
+    }
+
+    public void addRuleEvaluationTime( long nanos )
+    {
+        ruleEvaluationNanos.addAndGet( nanos );
+    }
+
+    /**
+     * Gets a summary of the time spent in each phase of the analysis, summed
+     * over all validation tasks.
+     */
+    public String getPhaseTimings()
+    {
+        return "data values " + TimeUnit.NANOSECONDS.toMillis( dataValueFetchNanos.get() ) + " ms, " +
+            "analytics " + TimeUnit.NANOSECONDS.toMillis( analyticsFetchNanos.get() ) + " ms, " +
+            "rule evaluation " + TimeUnit.NANOSECONDS.toMillis( ruleEvaluationNanos.get() ) + " ms";
+    }
+
     public int getNumberOfTasks()
     {
         return ( orgUnits.size() + ORG_UNITS_PER_TASK - 1 ) / ORG_UNITS_PER_TASK;
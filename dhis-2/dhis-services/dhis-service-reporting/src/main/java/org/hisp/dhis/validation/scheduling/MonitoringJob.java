@@ -37,6 +37,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.collections4.SetUtils;
@@ -45,6 +46,7 @@ import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodService;
 import org.hisp.dhis.scheduling.AbstractJob;
 import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.scheduling.JobStatus;
 import org.hisp.dhis.scheduling.JobType;
 import org.hisp.dhis.scheduling.parameters.MonitoringJobParameters;
 import org.hisp.dhis.system.notification.Notifier;
@@ -153,12 +155,21 @@ public class MonitoringJob
                     .reduce( Lists.newArrayList(), ListUtils::union );
             }
 
+            Date changedSince = monitoringJobParameters.isIncremental() ? getLastSuccessfulRunStart( jobConfiguration ) : null;
+
+            if ( changedSince != null )
+            {
+                notifier.notify( jobConfiguration, "Validating data changed since " + DateUtils.getLongDateString( changedSince ) );
+            }
+
             ValidationAnalysisParams parameters = validationService
                 .newParamsBuilder( validationRules, null, periods )
                 .withIncludeOrgUnitDescendants( true )
                 .withMaxResults( ValidationService.MAX_SCHEDULED_ALERTS )
                 .withSendNotifications( monitoringJobParameters.isSendNotifications() )
                 .withPersistResults( monitoringJobParameters.isPersistResults() )
+                .withJobConfiguration( jobConfiguration )
+                .withChangedSince( changedSince )
                 .build();
 
             validationService.validationAnalysis( parameters );
@@ -175,4 +186,35 @@ public class MonitoringJob
         }
     }
 
+    /**
+     * Gets the start time of the previous run of the job if it completed
+     * successfully, derived from the time it finished and its run time.
+     *
+     * @param jobConfiguration the job configuration.
+     * @return the start time, or null if the previous run did not complete or
+     *         its start time cannot be determined.
+     */
+    private Date getLastSuccessfulRunStart( JobConfiguration jobConfiguration )
+    {
+        if ( jobConfiguration.getLastExecuted() == null || jobConfiguration.getLastRuntimeExecution() == null
+            || jobConfiguration.getLastExecutedStatus() != JobStatus.COMPLETED )
+        {
+            return null;
+        }
+
+        try
+        {
+            String[] hms = jobConfiguration.getLastRuntimeExecution().split( ":" );
+
+            long runtime = TimeUnit.HOURS.toMillis( Long.parseLong( hms[0] ) )
+                + TimeUnit.MINUTES.toMillis( Long.parseLong( hms[1] ) )
+                + Math.round( Double.parseDouble( hms[2] ) * 1000 );
+
+            return new Date( jobConfiguration.getLastExecuted().getTime() - runtime );
+        }
+        catch ( RuntimeException ex )
+        {
+            return null;
+        }
+    }
 }
@@ -30,6 +30,8 @@ package org.hisp.dhis.predictor;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.IntegrationTest;
 import org.hisp.dhis.IntegrationTestBase;
 import org.hisp.dhis.analytics.AggregationType;
@@ -81,6 +83,8 @@ import static org.junit.Assert.assertEquals;
 public class PredictionServiceTest
     extends IntegrationTestBase
 {
+    private static final Log log = LogFactory.getLog( PredictionServiceTest.class );
+
     @Autowired
     private PredictionService predictionService;
 
@@ -1164,6 +1168,66 @@ public class PredictionServiceTest
         assertEquals( "20", getDataValue( dataElementY, defaultCombo, sourceA, makeMonth( 2001, 7 ) ) );
     }
 
+    @Test
+    public void testPredictThroughputWithSyntheticData()
+    {
+        int orgUnitCount = 200;
+
+        Set<OrganisationUnit> units = new HashSet<>();
+
+        for ( int i = 0; i < orgUnitCount; i++ )
+        {
+            OrganisationUnit unit = createOrganisationUnit( "Synthetic" + i );
+
+            organisationUnitService.addOrganisationUnit( unit );
+
+            units.add( unit );
+
+            for ( int month = 1; month <= 6; month++ )
+            {
+                useDataValue( dataElementA, makeMonth( 2001, month ), unit, 1 + i % 10 + month );
+                useDataValue( dataElementB, makeMonth( 2001, month ), unit, 1 + i % 10 + month );
+            }
+        }
+
+        dataValueBatchHandler.flush();
+
+        setDependency( predictionService, "currentUserService", new MockCurrentUserService( true, units, units ), CurrentUserService.class );
+
+        Predictor predictorX = createPredictor( dataElementX, defaultCombo, "X", expressionA, null,
+            periodTypeMonthly, orgUnitLevel1, 3, 0, 0 );
+        Predictor predictorY = createPredictor( dataElementY, defaultCombo, "Y", expressionB, null,
+            periodTypeMonthly, orgUnitLevel1, 3, 0, 0 );
+        Predictor predictorZ = createPredictor( dataElementZ, defaultCombo, "Z", expressionG, null,
+            periodTypeMonthly, orgUnitLevel1, 3, 0, 0 );
+
+        predictorService.addPredictor( predictorX );
+        predictorService.addPredictor( predictorY );
+        predictorService.addPredictor( predictorZ );
+
+        List<String> predictors = Lists.newArrayList( predictorX.getUid(), predictorY.getUid(), predictorZ.getUid() );
+
+        long start = System.nanoTime();
+
+        summary = predictionService.predictTask( monthStart( 2001, 4 ), monthStart( 2001, 7 ), predictors, null, null );
+
+        long millis = Math.max( 1, ( System.nanoTime() - start ) / 1_000_000 );
+
+        log.info( "Made " + summary.getInserted() + " predictions in " + millis + " ms, " +
+            ( summary.getInserted() * 1000 / millis ) + " predictions per second" );
+
+        assertEquals( "Pred 3 Ins 1800 Upd 0 Del 0 Unch 0", shortSummary( summary ) );
+
+        OrganisationUnit unit = organisationUnitService.getOrganisationUnitByName( "Synthetic0" ).get( 0 );
+
+        assertEquals( "3", getDataValue( dataElementY, defaultCombo, unit, makeMonth( 2001, 4 ) ) );
+        assertEquals( "18", getDataValue( dataElementZ, defaultCombo, unit, makeMonth( 2001, 4 ) ) );
+
+        summary = predictionService.predictTask( monthStart( 2001, 4 ), monthStart( 2001, 7 ), predictors, null, null );
+
+        assertEquals( "Pred 3 Ins 0 Upd 0 Del 0 Unch 1800", shortSummary( summary ) );
+    }
+
     @Test
     public void testPredictMedian()
     {
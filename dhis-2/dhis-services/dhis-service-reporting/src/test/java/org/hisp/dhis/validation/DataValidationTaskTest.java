@@ -34,12 +34,17 @@ import static org.hisp.dhis.expression.ParseType.SIMPLE_TEST;
 import static org.hisp.dhis.expression.ParseType.VALIDATION_RULE_EXPRESSION;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.apache.commons.lang3.RandomUtils;
 import org.hisp.dhis.analytics.AnalyticsService;
@@ -167,8 +172,9 @@ public class DataValidationTaskTest
         DeflatedDataValue ddv = new DeflatedDataValue(dv);
         deflatedDataValues.add(ddv);
 
-        when( dataValueService.getDeflatedDataValues( any( DataExportParams.class ) ) )
-            .thenReturn( deflatedDataValues );
+        when( periodService.getPeriod( anyLong() ) ).thenReturn( p1 );
+        when( categoryService.getCategoryOptionCombo( anyLong() ) ).thenReturn( categoryOptionCombo );
+        mockDataValues( deflatedDataValues );
         
         Map<DimensionalItemObject, Double> vals = new HashMap<>();
         vals.put( deA, 12.4 );
@@ -210,8 +216,7 @@ public class DataValidationTaskTest
         List<DeflatedDataValue> deflatedDataValues = new ArrayList<>();
 
         // Return no values!
-        when( dataValueService.getDeflatedDataValues( any( DataExportParams.class ) ) )
-                .thenReturn( deflatedDataValues );
+        mockDataValues( deflatedDataValues );
 
         subject.init( organisationUnits, ctx, analyticsService );
         subject.run();
@@ -221,6 +226,69 @@ public class DataValidationTaskTest
 
 
 
+    /**
+     * Verify that data values are fetched once for all periods of a period
+     * type, and that a value is used for each period it includes
+     */
+    @Test
+    public void verifyDataValuesFetchedOncePerPeriodType()
+    {
+        Expression leftExpression = createExpression2( 'A', "#{FUrCpcvMAmC.OrDRjJL9bTS}" );
+        Expression rightExpression = createExpression2( 'B', "-10" );
+
+        ValidationRuleExtended vre = createValidationRuleExtended( leftExpression, rightExpression, Operator.not_equal_to );
+
+        List<PeriodTypeExtended> periodTypes = new ArrayList<>();
+        PeriodTypeExtended periodType = createPeriodTypeExtended( vre );
+        periodType.addDataElement( deA );
+        periodTypes.add( periodType );
+
+        CategoryOptionCombo categoryOptionCombo = createCategoryOptionCombo( 'A', 'B' );
+
+        ValidationRunContext ctx = ValidationRunContext.newBuilder()
+            .withOrgUnits( organisationUnits )
+            .withConstantMap( constantMap )
+            .withDefaultAttributeCombo( categoryOptionCombo )
+            .withPeriodTypeXs( periodTypes )
+            .withMaxResults( 500 )
+            .build();
+
+        Period quarter = createPeriod( "2019Q1" );
+
+        List<DeflatedDataValue> deflatedDataValues = new ArrayList<>();
+        deflatedDataValues.add( new DeflatedDataValue( createDataValue( deA, quarter, ouA, "12.4", categoryOptionCombo ) ) );
+
+        when( periodService.getPeriod( anyLong() ) ).thenReturn( quarter );
+        when( categoryService.getCategoryOptionCombo( anyLong() ) ).thenReturn( categoryOptionCombo );
+        mockDataValues( deflatedDataValues );
+
+        Map<DimensionalItemObject, Double> vals = new HashMap<>();
+        vals.put( deA, 12.4 );
+
+        mockExpressionService( leftExpression, vals, ctx, 8.4 );
+        mockExpressionService( rightExpression, vals, ctx, -10.0 );
+
+        when( expressionService.getExpressionValue( "8.4!=-10.0", SIMPLE_TEST ) ).thenReturn( true );
+
+        subject.init( organisationUnits, ctx, analyticsService );
+        subject.run();
+
+        assertThat( ctx.getValidationResults().size(), is( 0 ) );
+
+        verify( dataValueService, times( 1 ) ).getDeflatedDataValues( any( DataExportParams.class ), any() );
+        verify( expressionService, times( 3 ) ).getExpressionValue( "8.4!=-10.0", SIMPLE_TEST );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private void mockDataValues( List<DeflatedDataValue> deflatedDataValues )
+    {
+        doAnswer( invocation -> {
+            Consumer<DeflatedDataValue> consumer = invocation.getArgument( 1 );
+            deflatedDataValues.forEach( consumer );
+            return null;
+        } ).when( dataValueService ).getDeflatedDataValues( any( DataExportParams.class ), any( Consumer.class ) );
+    }
+
     private void mockExpressionService(Expression expression, Map<DimensionalItemObject, Double> vals, ValidationRunContext ctx, Double val) {
 
         when( expressionService.getExpressionValue( expression.getExpression(), VALIDATION_RULE_EXPRESSION, vals,
@@ -676,6 +676,52 @@ public class ValidationServiceTest
         assertResultsEquals( reference, results );
     }
 
+    @Test
+    public void testValidateIncremental()
+    {
+        useDataValue( dataElementA, periodA, sourceA, "1" );
+        useDataValue( dataElementB, periodA, sourceA, "2" );
+        useDataValue( dataElementC, periodA, sourceA, "3" );
+        useDataValue( dataElementD, periodA, sourceA, "4" );
+
+        Date unchangedDate = getDate( 2000, 1, 1 );
+
+        for ( DataElement dataElement : Lists.newArrayList( dataElementA, dataElementB, dataElementC, dataElementD ) )
+        {
+            DataValue dataValue = createDataValue( dataElement, periodA, sourceB, optionCombo, optionCombo, "1" );
+            dataValueService.addDataValue( dataValue );
+            dataValue.setLastUpdated( unchangedDate );
+            dataValueStore.updateDataValue( dataValue );
+        }
+
+        validationRuleService.saveValidationRule( validationRuleA );
+        validationRuleService.saveValidationRule( validationRuleC );
+
+        List<ValidationRule> validationRules = Lists.newArrayList( validationRuleA, validationRuleC );
+        List<Period> periods = Lists.newArrayList( periodA, periodB );
+
+        Date changedSince = getDate( 2001, 1, 1 );
+
+        ValidationAnalysisParams params = validationService.newParamsBuilder( validationRules, null, periods )
+            .withIncludeOrgUnitDescendants( true )
+            .withChangedSince( changedSince )
+            .build();
+
+        Collection<ValidationResult> results = validationService.validationAnalysis( params );
+        Collection<ValidationResult> reference = new HashSet<>();
+
+        reference.add( new ValidationResult( validationRuleA, periodA, sourceA, defaultCombo, 3.0, -1.0, dayInPeriodA ) );
+
+        assertResultsEquals( reference, results );
+
+        params = validationService.newParamsBuilder( validationRules, null, periods )
+            .withIncludeOrgUnitDescendants( true )
+            .withChangedSince( new Date( System.currentTimeMillis() + 60000 ) )
+            .build();
+
+        assertResultsEmpty( validationService.validationAnalysis( params ) );
+    }
+
     @Test
     public void testValidateDataSetPeriodSource()
     {
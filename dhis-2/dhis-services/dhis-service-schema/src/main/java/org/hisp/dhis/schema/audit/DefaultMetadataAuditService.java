@@ -61,6 +61,13 @@ public class DefaultMetadataAuditService implements MetadataAuditService
         auditStore.save( audit );
     }
 
+    @Transactional
+    @Override
+    public void addMetadataAudits( List<MetadataAudit> audits )
+    {
+        audits.forEach( auditStore::save );
+    }
+
     @Transactional(readOnly = true)
     @Override
     public int count( MetadataAuditQuery query )
@@ -42,6 +42,13 @@ public interface MetadataAuditService
      */
     void addMetadataAudit( MetadataAudit audit );
 
+    /**
+     * Persists the given MetadataAudit instances in a single transaction.
+     *
+     * @param audits Instances to add
+     */
+    void addMetadataAudits( List<MetadataAudit> audits );
+
     int count( MetadataAuditQuery query );
 
     List<MetadataAudit> query( MetadataAuditQuery query );
@@ -0,0 +1,234 @@
+package org.hisp.dhis.outlierdetection;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.common.IllegalQueryException;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.dataelement.DataElementGroup;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.scheduling.parameters.OutlierDetectionJobParameters;
+import org.hisp.dhis.system.notification.NotificationLevel;
+import org.hisp.dhis.system.notification.Notifier;
+import org.hisp.dhis.system.util.Clock;
+import org.hisp.dhis.util.DateUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service( "org.hisp.dhis.outlierdetection.OutlierDetectionService" )
+public class DefaultOutlierDetectionService
+    implements OutlierDetectionService
+{
+    private static final Log log = LogFactory.getLog( DefaultOutlierDetectionService.class );
+
+    // -------------------------------------------------------------------------
+    // Dependencies
+    // -------------------------------------------------------------------------
+
+    private final OutlierDetectionStore outlierDetectionStore;
+
+    private final IdentifiableObjectManager idObjectManager;
+
+    private final OrganisationUnitService organisationUnitService;
+
+    private final Notifier notifier;
+
+    public DefaultOutlierDetectionService( OutlierDetectionStore outlierDetectionStore,
+        IdentifiableObjectManager idObjectManager, OrganisationUnitService organisationUnitService, Notifier notifier )
+    {
+        checkNotNull( outlierDetectionStore );
+        checkNotNull( idObjectManager );
+        checkNotNull( organisationUnitService );
+        checkNotNull( notifier );
+
+        this.outlierDetectionStore = outlierDetectionStore;
+        this.idObjectManager = idObjectManager;
+        this.organisationUnitService = organisationUnitService;
+        this.notifier = notifier;
+    }
+
+    // -------------------------------------------------------------------------
+    // OutlierDetectionService implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void validate( OutlierDetectionParams params )
+        throws IllegalQueryException
+    {
+        String violation = null;
+
+        if ( params.getDataElements().isEmpty() )
+        {
+            violation = "At least one data element must be specified";
+        }
+        else if ( params.getDataElements().stream().map( DataElement::getValueType ).anyMatch( vt -> !vt.isNumeric() ) )
+        {
+            violation = "Data elements must be of a numeric value type";
+        }
+        else if ( params.getOrganisationUnits().isEmpty() )
+        {
+            violation = "At least one organisation unit must be specified";
+        }
+        else if ( params.getStartDate() == null || params.getEndDate() == null )
+        {
+            violation = "Start date and end date must be specified";
+        }
+        else if ( params.getStartDate().after( params.getEndDate() ) )
+        {
+            violation = "Start date must be before end date";
+        }
+        else if ( params.hasDataStartDate() && params.getDataStartDate().after( params.getStartDate() ) )
+        {
+            violation = "Data start date must be before start date";
+        }
+        else if ( params.getAlgorithm() == null )
+        {
+            violation = "Algorithm must be specified";
+        }
+        else if ( params.getThreshold() <= 0 )
+        {
+            violation = "Threshold must be a positive number";
+        }
+        else if ( params.getOffset() < 0 )
+        {
+            violation = "Offset must be zero or greater";
+        }
+        else if ( params.getMaxResults() < 0 || params.getMaxResults() > OutlierDetectionParams.MAX_RESULTS_LIMIT )
+        {
+            violation = "Max results must be between zero and " + OutlierDetectionParams.MAX_RESULTS_LIMIT;
+        }
+
+        if ( violation != null )
+        {
+            log.warn( String.format( "Outlier detection validation failed: %s", violation ) );
+
+            throw new IllegalQueryException( violation );
+        }
+    }
+
+    @Override
+    @Transactional( readOnly = true )
+    public List<OutlierValue> getOutlierValues( OutlierDetectionParams params )
+        throws IllegalQueryException
+    {
+        List<OutlierValue> outliers = new ArrayList<>();
+
+        getOutlierValues( params, outliers::add );
+
+        return outliers;
+    }
+
+    @Override
+    @Transactional( readOnly = true )
+    public void getOutlierValues( OutlierDetectionParams params, Consumer<OutlierValue> consumer )
+        throws IllegalQueryException
+    {
+        validate( params );
+
+        outlierDetectionStore.getOutlierValues( params, consumer );
+    }
+
+    @Override
+    @Transactional
+    public int saveOutlierValues( OutlierDetectionParams params )
+        throws IllegalQueryException
+    {
+        validate( params );
+
+        return outlierDetectionStore.saveOutlierValues( params );
+    }
+
+    @Override
+    @Transactional
+    public int saveOutlierValues( OutlierDetectionJobParameters params, JobConfiguration jobId )
+    {
+        Clock clock = new Clock( log ).startClock();
+
+        Date now = new Date();
+
+        List<OrganisationUnit> orgUnits = params.getOrganisationUnits().isEmpty() ?
+            organisationUnitService.getRootOrganisationUnits() :
+            idObjectManager.getByUid( OrganisationUnit.class, params.getOrganisationUnits() );
+
+        List<DataElementGroup> groups = idObjectManager.getByUid( DataElementGroup.class, params.getDataElementGroups() );
+
+        notifier.notify( jobId, String.format( "Detecting outliers for %d data element groups", groups.size() ) );
+
+        int count = 0;
+
+        for ( DataElementGroup group : groups )
+        {
+            Set<DataElement> dataElements = group.getMembers().stream()
+                .filter( de -> de.getValueType().isNumeric() )
+                .collect( Collectors.toSet() );
+
+            if ( dataElements.isEmpty() )
+            {
+                continue;
+            }
+
+            OutlierDetectionParams request = new OutlierDetectionParams()
+                .setDataElements( dataElements )
+                .setOrganisationUnits( new HashSet<>( orgUnits ) )
+                .setDataStartDate( DateUtils.getDateAfterAddition( now, params.getRelativeDataStart() ) )
+                .setStartDate( DateUtils.getDateAfterAddition( now, params.getRelativeStart() ) )
+                .setEndDate( DateUtils.getDateAfterAddition( now, params.getRelativeEnd() ) )
+                .setAlgorithm( params.getAlgorithm() )
+                .setThreshold( params.getThreshold() )
+                .setMaxResults( 0 );
+
+            validate( request );
+
+            int saved = outlierDetectionStore.saveOutlierValues( request );
+
+            count += saved;
+
+            clock.logTime( String.format( "Stored %d outlier values for data element group: %s", saved, group.getName() ) );
+        }
+
+        notifier.notify( jobId, NotificationLevel.INFO,
+            String.format( "Outlier detection done, stored %d outlier values: %s", count, clock.time() ), true );
+
+        return count;
+    }
+}
@@ -0,0 +1,74 @@
+package org.hisp.dhis.outlierdetection;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.scheduling.AbstractJob;
+import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.scheduling.JobType;
+import org.hisp.dhis.scheduling.parameters.OutlierDetectionJobParameters;
+import org.springframework.stereotype.Component;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Job which detects outliers for data element groups and writes the outlier
+ * values to the outliervalue table.
+ */
+@Component( "outlierDetectionJob" )
+public class OutlierDetectionJob
+    extends AbstractJob
+{
+    private final OutlierDetectionService outlierDetectionService;
+
+    public OutlierDetectionJob( OutlierDetectionService outlierDetectionService )
+    {
+        checkNotNull( outlierDetectionService );
+
+        this.outlierDetectionService = outlierDetectionService;
+    }
+
+    @Override
+    public JobType getJobType()
+    {
+        return JobType.OUTLIER_DETECTION;
+    }
+
+    @Override
+    public void execute( JobConfiguration jobConfiguration )
+    {
+        OutlierDetectionJobParameters params = (OutlierDetectionJobParameters) jobConfiguration.getJobParameters();
+
+        if ( params == null )
+        {
+            throw new IllegalStateException( "No job parameters present in outlier detection job" );
+        }
+
+        outlierDetectionService.saveOutlierValues( params, jobConfiguration );
+    }
+}
@@ -0,0 +1,334 @@
+package org.hisp.dhis.outlierdetection.jdbc;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.hisp.dhis.common.IdentifiableObjectUtils.getIdentifiers;
+import static org.hisp.dhis.commons.util.TextUtils.getCommaDelimitedString;
+import static org.hisp.dhis.util.DateUtils.getMediumDateString;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.commons.util.TextUtils;
+import org.hisp.dhis.jdbc.StatementBuilder;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.outlierdetection.OutlierDetectionAlgorithm;
+import org.hisp.dhis.outlierdetection.OutlierDetectionParams;
+import org.hisp.dhis.outlierdetection.OutlierDetectionStore;
+import org.hisp.dhis.outlierdetection.OutlierValue;
+import org.hisp.dhis.period.PeriodType;
+import org.hisp.dhis.system.util.MathUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Outlier detection store which computes the measures of each data element,
+ * organisation unit, category option combination and attribute option
+ * combination with window functions in a single query, instead of one query
+ * per data element and category option combination. Medians and median
+ * absolute deviations are ordered-set aggregates which cannot be used as
+ * window functions and are computed in grouped sub-queries over the same
+ * data values.
+ */
+@Repository( "org.hisp.dhis.outlierdetection.OutlierDetectionStore" )
+public class JdbcOutlierDetectionStore
+    implements OutlierDetectionStore
+{
+    private static final Log log = LogFactory.getLog( JdbcOutlierDetectionStore.class );
+
+    /**
+     * Scale factor which makes the median absolute deviation a consistent
+     * estimator of the standard deviation for normally distributed data.
+     */
+    private static final double MOD_Z_SCORE_FACTOR = 0.6745;
+
+    private static final String KEY_COLUMNS = "dataelementid, sourceid, categoryoptioncomboid, attributeoptioncomboid";
+
+    /**
+     * Number of outlier values fetched from the database at a time when
+     * streaming outlier values.
+     */
+    private static final int FETCH_SIZE = 1000;
+
+    // -------------------------------------------------------------------------
+    // Dependencies
+    // -------------------------------------------------------------------------
+
+    private final StatementBuilder statementBuilder;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Read only JDBC template.
+     */
+    private final JdbcTemplate readOnlyJdbcTemplate;
+
+    public JdbcOutlierDetectionStore( StatementBuilder statementBuilder, JdbcTemplate jdbcTemplate,
+        @Qualifier( "readOnlyJdbcTemplate" ) JdbcTemplate readOnlyJdbcTemplate )
+    {
+        checkNotNull( statementBuilder );
+        checkNotNull( jdbcTemplate );
+        checkNotNull( readOnlyJdbcTemplate );
+
+        this.statementBuilder = statementBuilder;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyJdbcTemplate = readOnlyJdbcTemplate;
+    }
+
+    // -------------------------------------------------------------------------
+    // OutlierDetectionStore implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void getOutlierValues( OutlierDetectionParams params, Consumer<OutlierValue> consumer )
+    {
+        final String scoreColumn = getScoreColumn( params.getAlgorithm() );
+
+        String sql =
+            "select o.*, de.uid as deuid, de.name as dename, ou.uid as ouuid, ou.name as ouname, " +
+                "coc.uid as cocuid, aoc.uid as aocuid, pt.name as ptname " +
+                "from (" + getOutlierSql( params ) + ") o " +
+                "inner join dataelement de on o.dataelementid = de.dataelementid " +
+                "inner join organisationunit ou on o.sourceid = ou.organisationunitid " +
+                "inner join categoryoptioncombo coc on o.categoryoptioncomboid = coc.categoryoptioncomboid " +
+                "inner join categoryoptioncombo aoc on o.attributeoptioncomboid = aoc.categoryoptioncomboid " +
+                "inner join periodtype pt on o.periodtypeid = pt.periodtypeid " +
+                "order by o." + scoreColumn + " desc, o.dataelementid, o.sourceid, o.periodid, " +
+                "o.categoryoptioncomboid, o.attributeoptioncomboid";
+
+        if ( params.hasMaxResults() )
+        {
+            sql += statementBuilder.limitRecord( params.getOffset(), params.getMaxResults() );
+        }
+
+        log.debug( String.format( "Outlier detection SQL: %s", sql ) );
+
+        final String outlierSql = sql;
+
+        readOnlyJdbcTemplate.execute( (ConnectionCallback<Void>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+
+            // PostgreSQL fetches rows with a cursor in batches of the fetch
+            // size only within a transaction, otherwise it reads all rows
+
+            connection.setAutoCommit( false );
+
+            try ( PreparedStatement statement = connection.prepareStatement( outlierSql ) )
+            {
+                statement.setFetchSize( FETCH_SIZE );
+
+                try ( ResultSet rs = statement.executeQuery() )
+                {
+                    while ( rs.next() )
+                    {
+                        consumer.accept( getOutlierValue( rs, params ) );
+                    }
+                }
+            }
+            finally
+            {
+                if ( autoCommit )
+                {
+                    connection.rollback();
+                    connection.setAutoCommit( true );
+                }
+            }
+
+            return null;
+        } );
+    }
+
+    @Override
+    public int saveOutlierValues( OutlierDetectionParams params )
+    {
+        String filter =
+            "dataelementid in (" + getCommaDelimitedString( getIdentifiers( params.getDataElements() ) ) + ") " +
+            "and sourceid in (select ou.organisationunitid from organisationunit ou where " + getPathFilter( params ) + ") " +
+            "and periodid in (select pe.periodid from period pe " +
+            "where pe.startdate >= '" + getMediumDateString( params.getStartDate() ) + "' " +
+            "and pe.enddate <= '" + getMediumDateString( params.getEndDate() ) + "')";
+
+        int deleted = jdbcTemplate.update( "delete from outliervalue where " + filter );
+
+        String sql =
+            "insert into outliervalue (dataelementid, periodid, sourceid, categoryoptioncomboid, attributeoptioncomboid, " +
+                "value, mean, stddev, median, medianabsdeviation, zscore, modifiedzscore, algorithm) " +
+                "select o.dataelementid, o.periodid, o.sourceid, o.categoryoptioncomboid, o.attributeoptioncomboid, " +
+                "o.value, o.mean, o.stddev, o.median, o.mad, o.zscore, o.modifiedzscore, " +
+                "'" + params.getAlgorithm().name() + "' " +
+                "from (" + getOutlierSql( params ) + ") o";
+
+        int saved = jdbcTemplate.update( sql );
+
+        log.info( String.format( "Replaced %d outlier values with %d outlier values using algorithm: %s",
+            deleted, saved, params.getAlgorithm() ) );
+
+        return saved;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the query for outlier values with scores at or above the
+     * threshold in periods within the start and end date. Measures are
+     * computed over all values from the data start date, so that values
+     * outside the reported date range contribute to the measures.
+     */
+    private String getOutlierSql( OutlierDetectionParams params )
+    {
+        final boolean modZScore = params.getAlgorithm() == OutlierDetectionAlgorithm.MOD_Z_SCORE;
+        final String doubleType = statementBuilder.getDoubleColumnType();
+
+        String sql =
+            "with dv as (" +
+                "select dv.dataelementid, dv.sourceid, dv.periodid, dv.categoryoptioncomboid, dv.attributeoptioncomboid, " +
+                "pe.startdate, pe.enddate, pe.periodtypeid, cast( dv.value as " + doubleType + " ) as value " +
+                "from datavalue dv " +
+                "inner join period pe on dv.periodid = pe.periodid " +
+                "inner join organisationunit ou on dv.sourceid = ou.organisationunitid " +
+                "where dv.dataelementid in (" + getCommaDelimitedString( getIdentifiers( params.getDataElements() ) ) + ") " +
+                "and " + getPathFilter( params ) + " " +
+                ( params.hasDataStartDate() ? "and pe.startdate >= '" + getMediumDateString( params.getDataStartDate() ) + "' " : "" ) +
+                "and dv.deleted is false " +
+                "and dv.value " + statementBuilder.getRegexpMatch() + " '" + MathUtils.NUMERIC_LENIENT_REGEXP + "'), " +
+            "dvs as (" +
+                "select dv.*, " +
+                "avg( dv.value ) over w as mean, " +
+                "stddev_pop( dv.value ) over w as stddev " +
+                "from dv " +
+                "window w as (partition by " + KEY_COLUMNS + "))";
+
+        if ( modZScore )
+        {
+            sql +=
+                ", med as (" +
+                    "select " + KEY_COLUMNS + ", percentile_cont( 0.5 ) within group ( order by value ) as median " +
+                    "from dv " +
+                    "group by " + KEY_COLUMNS + "), " +
+                "mad as (" +
+                    "select " + KEY_COLUMNS + ", percentile_cont( 0.5 ) within group ( order by abs( dv.value - med.median ) ) as mad " +
+                    "from dv " +
+                    "inner join med using (" + KEY_COLUMNS + ") " +
+                    "group by " + KEY_COLUMNS + ")";
+        }
+
+        sql +=
+            " select s.* from (" +
+                "select dvs.dataelementid, dvs.sourceid, dvs.periodid, dvs.categoryoptioncomboid, dvs.attributeoptioncomboid, " +
+                "dvs.periodtypeid, dvs.startdate, dvs.enddate, dvs.value, dvs.mean, dvs.stddev, " +
+                ( modZScore ? "med.median, mad.mad, " : "cast( null as " + doubleType + " ) as median, cast( null as " + doubleType + " ) as mad, " ) +
+                "abs( dvs.value - dvs.mean ) / nullif( dvs.stddev, 0 ) as zscore, " +
+                ( modZScore ? MOD_Z_SCORE_FACTOR + " * abs( dvs.value - med.median ) / nullif( mad.mad, 0 )" : "cast( null as " + doubleType + " )" ) + " as modifiedzscore " +
+                "from dvs " +
+                ( modZScore ? "inner join med using (" + KEY_COLUMNS + ") inner join mad using (" + KEY_COLUMNS + ") " : "" ) +
+                "where dvs.startdate >= '" + getMediumDateString( params.getStartDate() ) + "' " +
+                "and dvs.enddate <= '" + getMediumDateString( params.getEndDate() ) + "') s " +
+            "where s." + getScoreColumn( params.getAlgorithm() ) + " >= " + params.getThreshold();
+
+        return sql;
+    }
+
+    private String getPathFilter( OutlierDetectionParams params )
+    {
+        String sql = "(";
+
+        for ( OrganisationUnit orgUnit : params.getOrganisationUnits() )
+        {
+            sql += "ou.path like '" + orgUnit.getPath() + "%' or ";
+        }
+
+        return TextUtils.removeLastOr( sql ) + ")";
+    }
+
+    private String getScoreColumn( OutlierDetectionAlgorithm algorithm )
+    {
+        return algorithm == OutlierDetectionAlgorithm.MOD_Z_SCORE ? "modifiedzscore" : "zscore";
+    }
+
+    private OutlierValue getOutlierValue( ResultSet rs, OutlierDetectionParams params )
+        throws SQLException
+    {
+        OutlierValue outlier = new OutlierValue();
+
+        outlier.setDataElementId( rs.getLong( "dataelementid" ) );
+        outlier.setDataElement( rs.getString( "deuid" ) );
+        outlier.setDataElementName( rs.getString( "dename" ) );
+        outlier.setPeriodId( rs.getLong( "periodid" ) );
+        outlier.setPeriod( PeriodType.getPeriodTypeByName( rs.getString( "ptname" ) )
+            .createPeriod( rs.getDate( "startdate" ) ).getIsoDate() );
+        outlier.setOrgUnitId( rs.getLong( "sourceid" ) );
+        outlier.setOrgUnit( rs.getString( "ouuid" ) );
+        outlier.setOrgUnitName( rs.getString( "ouname" ) );
+        outlier.setCategoryOptionComboId( rs.getLong( "categoryoptioncomboid" ) );
+        outlier.setCategoryOptionCombo( rs.getString( "cocuid" ) );
+        outlier.setAttributeOptionComboId( rs.getLong( "attributeoptioncomboid" ) );
+        outlier.setAttributeOptionCombo( rs.getString( "aocuid" ) );
+        outlier.setValue( rs.getDouble( "value" ) );
+        outlier.setMean( getDouble( rs, "mean" ) );
+        outlier.setStdDev( getDouble( rs, "stddev" ) );
+        outlier.setMedian( getDouble( rs, "median" ) );
+        outlier.setMedianAbsDeviation( getDouble( rs, "mad" ) );
+        outlier.setZScore( getDouble( rs, "zscore" ) );
+        outlier.setModifiedZScore( getDouble( rs, "modifiedzscore" ) );
+
+        if ( params.getAlgorithm() == OutlierDetectionAlgorithm.MOD_Z_SCORE )
+        {
+            double deviation = params.getThreshold() * outlier.getMedianAbsDeviation() / MOD_Z_SCORE_FACTOR;
+
+            outlier.setLowerBound( outlier.getMedian() - deviation );
+            outlier.setUpperBound( outlier.getMedian() + deviation );
+        }
+        else
+        {
+            double deviation = params.getThreshold() * outlier.getStdDev();
+
+            outlier.setLowerBound( outlier.getMean() - deviation );
+            outlier.setUpperBound( outlier.getMean() + deviation );
+        }
+
+        return outlier;
+    }
+
+    private Double getDouble( ResultSet rs, String column )
+        throws SQLException
+    {
+        double value = rs.getDouble( column );
+
+        return rs.wasNull() ? null : value;
+    }
+}
@@ -0,0 +1,167 @@
+package org.hisp.dhis.outlierdetection;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.hisp.dhis.IntegrationTestBase;
+import org.hisp.dhis.category.CategoryOptionCombo;
+import org.hisp.dhis.category.CategoryService;
+import org.hisp.dhis.common.IllegalQueryException;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.dataelement.DataElementService;
+import org.hisp.dhis.datavalue.DataValueService;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.google.common.collect.Sets;
+
+public class OutlierDetectionServiceTest
+    extends IntegrationTestBase
+{
+    private static final double DELTA = 0.01;
+
+    private static final String[] VALUES = { "10", "11", "12", "10", "11", "12", "10", "11", "12", "10", "11", "100" };
+
+    @Autowired
+    private OutlierDetectionService outlierDetectionService;
+
+    @Autowired
+    private DataElementService dataElementService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private OrganisationUnitService organisationUnitService;
+
+    @Autowired
+    private DataValueService dataValueService;
+
+    private DataElement dataElementA;
+
+    private OrganisationUnit organisationUnitA;
+
+    @Override
+    public boolean emptyDatabaseAfterTest()
+    {
+        return true;
+    }
+
+    @Override
+    public void setUpTest()
+    {
+        dataElementA = createDataElement( 'A' );
+        dataElementService.addDataElement( dataElementA );
+
+        organisationUnitA = createOrganisationUnit( 'A' );
+        organisationUnitService.addOrganisationUnit( organisationUnitA );
+
+        CategoryOptionCombo categoryOptionCombo = categoryService.getDefaultCategoryOptionCombo();
+
+        for ( int i = 0; i < VALUES.length; i++ )
+        {
+            dataValueService.addDataValue( createDataValue( dataElementA, createPeriod( String.format( "2020%02d", i + 1 ) ),
+                organisationUnitA, VALUES[i], categoryOptionCombo ) );
+        }
+    }
+
+    private OutlierDetectionParams getParams( OutlierDetectionAlgorithm algorithm, double threshold )
+    {
+        return new OutlierDetectionParams()
+            .setDataElements( Sets.newHashSet( dataElementA ) )
+            .setOrganisationUnits( Sets.newHashSet( organisationUnitA ) )
+            .setStartDate( getDate( 2020, 1, 1 ) )
+            .setEndDate( getDate( 2020, 12, 31 ) )
+            .setAlgorithm( algorithm )
+            .setThreshold( threshold );
+    }
+
+    @Test
+    public void testGetOutlierValuesZScore()
+    {
+        List<OutlierValue> outliers = outlierDetectionService.getOutlierValues(
+            getParams( OutlierDetectionAlgorithm.Z_SCORE, 3.0 ) );
+
+        assertEquals( 1, outliers.size() );
+
+        OutlierValue outlier = outliers.get( 0 );
+
+        assertEquals( dataElementA.getUid(), outlier.getDataElement() );
+        assertEquals( organisationUnitA.getUid(), outlier.getOrgUnit() );
+        assertEquals( "202012", outlier.getPeriod() );
+        assertEquals( 100.0, outlier.getValue(), DELTA );
+        assertEquals( 18.33, outlier.getMean(), DELTA );
+        assertEquals( 24.64, outlier.getStdDev(), DELTA );
+        assertEquals( 3.32, outlier.getZScore(), DELTA );
+    }
+
+    @Test
+    public void testGetOutlierValuesModifiedZScore()
+    {
+        List<OutlierValue> outliers = outlierDetectionService.getOutlierValues(
+            getParams( OutlierDetectionAlgorithm.MOD_Z_SCORE, 3.5 ) );
+
+        assertEquals( 1, outliers.size() );
+
+        OutlierValue outlier = outliers.get( 0 );
+
+        assertEquals( 100.0, outlier.getValue(), DELTA );
+        assertEquals( 11.0, outlier.getMedian(), DELTA );
+        assertEquals( 1.0, outlier.getMedianAbsDeviation(), DELTA );
+        assertEquals( 60.03, outlier.getModifiedZScore(), DELTA );
+    }
+
+    @Test
+    public void testGetOutlierValuesPaged()
+    {
+        OutlierDetectionParams params = getParams( OutlierDetectionAlgorithm.MOD_Z_SCORE, 0.5 )
+            .setMaxResults( 5 );
+
+        List<OutlierValue> firstPage = outlierDetectionService.getOutlierValues( params );
+
+        assertEquals( 5, firstPage.size() );
+        assertEquals( 100.0, firstPage.get( 0 ).getValue(), DELTA );
+
+        List<OutlierValue> secondPage = outlierDetectionService.getOutlierValues( params.setOffset( 5 ) );
+
+        assertEquals( 3, secondPage.size() );
+    }
+
+    @Test( expected = IllegalQueryException.class )
+    public void testValidateNoDataElements()
+    {
+        outlierDetectionService.getOutlierValues( getParams( OutlierDetectionAlgorithm.Z_SCORE, 3.0 )
+            .setDataElements( Sets.newHashSet() ) );
+    }
+}
@@ -31,6 +31,7 @@ package org.hisp.dhis.artemis.audit;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.artemis.ProducerConfiguration;
+import org.hisp.dhis.audit.AuditScope;
 import org.springframework.stereotype.Component;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -60,6 +61,16 @@ public class AuditManager
         this.auditScheduler = auditScheduler;
     }
 
+    /**
+     * Indicates whether audits of the given scope are enabled.
+     *
+     * @param auditScope the audit scope.
+     */
+    public boolean isScopeEnabled( AuditScope auditScope )
+    {
+        return auditProducerSupplier.hasDestination( auditScope );
+    }
+
     public void send( Audit audit )
     {
         if ( config.isUseQueue() )
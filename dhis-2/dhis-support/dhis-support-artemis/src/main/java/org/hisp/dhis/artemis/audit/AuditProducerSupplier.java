@@ -74,6 +74,17 @@ public class AuditProducerSupplier
         }
     }
 
+    /**
+     * Indicates whether audits of the given scope can be published, which
+     * requires the scope to be mapped to a topic.
+     *
+     * @param auditScope the audit scope.
+     */
+    public boolean hasDestination( AuditScope auditScope )
+    {
+        return auditScope != null && !Strings.isNullOrEmpty( auditScopeDestinationMap.get( auditScope ) );
+    }
+
     private String getTopicName( Audit audit )
     {
         return auditScopeDestinationMap.get( audit.getAuditScope() );
@@ -35,7 +35,9 @@ import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.DelayQueue;
 
 /**
@@ -52,6 +54,12 @@ public class AuditScheduler
 
     private final BlockingQueue<QueuedAudit> delayed = new DelayQueue<>();
 
+    /**
+     * Mirror of the delayed queue used for duplicate detection, as
+     * {@link DelayQueue#contains(Object)} is a linear scan under a lock.
+     */
+    private final Set<QueuedAudit> pending = ConcurrentHashMap.newKeySet();
+
     public AuditScheduler( AuditProducerSupplier auditProducerSupplier )
     {
         this.auditProducerSupplier = auditProducerSupplier;
@@ -63,7 +71,7 @@ public class AuditScheduler
 
         final QueuedAudit postponed = new QueuedAudit( auditItem, delay );
 
-        if ( !delayed.contains( postponed ) )
+        if ( pending.add( postponed ) )
         {
             delayed.offer( postponed );
         }
@@ -76,6 +84,8 @@ public class AuditScheduler
 
         delayed.drainTo( expired );
 
+        pending.removeAll( expired );
+
         expired.stream().map( QueuedAudit::getAuditItem ).forEach( auditProducerSupplier::publish );
     }
 }
@@ -31,10 +31,9 @@ package org.hisp.dhis.artemis.audit.listener;
 import org.hisp.dhis.artemis.audit.AuditManager;
 import org.hisp.dhis.artemis.audit.legacy.AuditLegacyObjectFactory;
 import org.hisp.dhis.artemis.config.UsernameSupplier;
-import org.hisp.dhis.audit.Auditable;
-import org.hisp.dhis.system.util.AnnotationUtils;
+import org.hisp.dhis.audit.AuditScope;
+import org.hisp.dhis.audit.AuditType;
 
-import java.util.Arrays;
 import java.util.Optional;
 
 /**
@@ -56,22 +55,39 @@ public abstract class AbstractHibernateListener
         this.usernameSupplier = usernameSupplier;
     }
 
-    Optional<Auditable> getAuditable( Object object, String type )
+    /**
+     * Returns the type of audit events produced by this listener.
+     */
+    abstract AuditType getAuditType();
+
+    /**
+     * Indicates whether entities of the given class are audited by this
+     * listener, which requires the class to be auditable for the audit type
+     * of this listener and its audit scope to be enabled.
+     *
+     * @param klass the entity class.
+     */
+    public boolean isAuditable( Class<?> klass )
     {
-        if ( AnnotationUtils.isAnnotationPresent( object.getClass(), Auditable.class ) )
-        {
-            Auditable auditable = AnnotationUtils.getAnnotation( object.getClass(), Auditable.class );
+        return isAuditable( AuditPolicy.of( klass ) );
+    }
 
-            boolean shouldAudit = Arrays.stream( auditable.eventType() )
-                .anyMatch( s -> s.contains( "all" ) || s.contains( type ) );
+    /**
+     * Returns the audit scope of the given entity if the entity is audited by
+     * this listener.
+     *
+     * @param object the entity.
+     */
+    Optional<AuditScope> getAuditScope( Object object )
+    {
+        AuditPolicy policy = AuditPolicy.of( object.getClass() );
 
-            if ( shouldAudit )
-            {
-                return Optional.of( auditable );
-            }
-        }
+        return isAuditable( policy ) ? Optional.of( policy.getScope() ) : Optional.empty();
+    }
 
-        return Optional.empty();
+    private boolean isAuditable( AuditPolicy policy )
+    {
+        return policy.isAuditable( getAuditType() ) && auditManager.isScopeEnabled( policy.getScope() );
     }
 
     public String getCreatedBy()
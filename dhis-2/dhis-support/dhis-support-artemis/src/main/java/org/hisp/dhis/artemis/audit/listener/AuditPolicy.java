@@ -0,0 +1,145 @@
+package org.hisp.dhis.artemis.audit.listener;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.audit.AuditScope;
+import org.hisp.dhis.audit.AuditType;
+import org.hisp.dhis.audit.Auditable;
+import org.hisp.dhis.system.util.AnnotationUtils;
+
+import java.util.Locale;
+
+/**
+ * Precomputed audit policy of an entity class, derived from the
+ * {@link Auditable} annotation of the class or any of its super types. The
+ * event types of the annotation are held as a bit mask over {@link AuditType}
+ * so that the Hibernate listeners can decide whether to audit an entity
+ * without scanning annotations on every event.
+ * <p>
+ * Policies are computed once per class and cached through a
+ * {@link ClassValue}, see {@link #of(Class)}.
+ *
+ */
+public final class AuditPolicy
+{
+    /**
+     * Policy of classes which are not audited.
+     */
+    public static final AuditPolicy NONE = new AuditPolicy( null, 0 );
+
+    private static final ClassValue<AuditPolicy> POLICIES = new ClassValue<AuditPolicy>()
+    {
+        @Override
+        protected AuditPolicy computeValue( Class<?> klass )
+        {
+            return compute( klass );
+        }
+    };
+
+    private final AuditScope scope;
+
+    private final int eventTypes;
+
+    private AuditPolicy( AuditScope scope, int eventTypes )
+    {
+        this.scope = scope;
+        this.eventTypes = eventTypes;
+    }
+
+    /**
+     * Returns the audit policy of the given class.
+     *
+     * @param klass the entity class.
+     * @return the audit policy, {@link #NONE} if the class is not auditable.
+     */
+    public static AuditPolicy of( Class<?> klass )
+    {
+        return POLICIES.get( klass );
+    }
+
+    /**
+     * Returns the audit scope of the policy, null if the class is not auditable.
+     */
+    public AuditScope getScope()
+    {
+        return scope;
+    }
+
+    /**
+     * Indicates whether any event type is audited.
+     */
+    public boolean isAuditable()
+    {
+        return eventTypes != 0;
+    }
+
+    /**
+     * Indicates whether events of the given type are audited.
+     *
+     * @param auditType the audit type.
+     */
+    public boolean isAuditable( AuditType auditType )
+    {
+        return (eventTypes & mask( auditType )) != 0;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private static AuditPolicy compute( Class<?> klass )
+    {
+        Auditable auditable = AnnotationUtils.getAnnotation( klass, Auditable.class );
+
+        if ( auditable == null )
+        {
+            return NONE;
+        }
+
+        int eventTypes = 0;
+
+        for ( String eventType : auditable.eventType() )
+        {
+            for ( AuditType auditType : AuditType.values() )
+            {
+                if ( eventType.contains( "all" ) || eventType.contains( auditType.name().toLowerCase( Locale.ROOT ) ) )
+                {
+                    eventTypes |= mask( auditType );
+                }
+            }
+        }
+
+        return eventTypes == 0 ? NONE : new AuditPolicy( auditable.scope(), eventTypes );
+    }
+
+    private static int mask( AuditType auditType )
+    {
+        return 1 << auditType.ordinal();
+    }
+}
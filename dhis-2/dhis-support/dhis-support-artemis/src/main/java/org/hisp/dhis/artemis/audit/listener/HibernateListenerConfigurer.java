@@ -28,11 +28,10 @@ package org.hisp.dhis.artemis.audit.listener;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.hibernate.event.service.spi.EventListenerRegistry;
 import org.hibernate.event.spi.EventType;
-import org.hibernate.event.spi.PostDeleteEventListener;
-import org.hibernate.event.spi.PostLoadEventListener;
-import org.hibernate.event.spi.PostUpdateEventListener;
 import org.hibernate.internal.SessionFactoryImpl;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.stereotype.Component;
@@ -40,6 +39,10 @@ import org.springframework.stereotype.Component;
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.PersistenceUnit;
+import javax.persistence.metamodel.EntityType;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -48,6 +51,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * responsible for "intercepting" Hibernate-managed objects after a save/update
  * operation and pass them to the Auditing sub-system.
  * <p>
+ * A listener is only registered if at least one mapped entity class is
+ * audited by it, so that event types without auditing add no overhead.
+ * <p>
  * This bean is not active during tests.
  *
  * @author Luciano Fiandesio
@@ -56,19 +62,21 @@ import static com.google.common.base.Preconditions.checkNotNull;
 @Conditional( value = AuditEnabledCondition.class )
 public class HibernateListenerConfigurer
 {
+    private static final Log log = LogFactory.getLog( HibernateListenerConfigurer.class );
+
     @PersistenceUnit
     private EntityManagerFactory emf;
 
     private final PostInsertAuditListener postInsertAuditListener;
-    private final PostUpdateEventListener postUpdateEventListener;
-    private final PostDeleteEventListener postDeleteEventListener;
-    private final PostLoadEventListener postLoadEventListener;
+    private final PostUpdateAuditListener postUpdateEventListener;
+    private final PostDeleteAuditListener postDeleteEventListener;
+    private final PostLoadAuditListener postLoadEventListener;
 
     public HibernateListenerConfigurer(
         PostInsertAuditListener postInsertAuditListener,
-        PostUpdateEventListener postUpdateEventListener,
-        PostDeleteEventListener postDeleteEventListener,
-        PostLoadEventListener postLoadEventListener )
+        PostUpdateAuditListener postUpdateEventListener,
+        PostDeleteAuditListener postDeleteEventListener,
+        PostLoadAuditListener postLoadEventListener )
     {
         checkNotNull( postDeleteEventListener );
         checkNotNull( postUpdateEventListener );
@@ -88,12 +96,41 @@ public class HibernateListenerConfigurer
 
         EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService( EventListenerRegistry.class );
 
-        registry.getEventListenerGroup( EventType.POST_INSERT ).appendListener( postInsertAuditListener );
+        Set<Class<?>> entityClasses = sessionFactory.getMetamodel().getEntities().stream()
+            .map( EntityType::getJavaType )
+            .filter( Objects::nonNull )
+            .collect( Collectors.toSet() );
+
+        if ( isAuditable( postInsertAuditListener, entityClasses ) )
+        {
+            registry.getEventListenerGroup( EventType.POST_INSERT ).appendListener( postInsertAuditListener );
+        }
+
+        if ( isAuditable( postUpdateEventListener, entityClasses ) )
+        {
+            registry.getEventListenerGroup( EventType.POST_UPDATE ).appendListener( postUpdateEventListener );
+        }
 
-        registry.getEventListenerGroup( EventType.POST_UPDATE ).appendListener( postUpdateEventListener );
+        if ( isAuditable( postDeleteEventListener, entityClasses ) )
+        {
+            registry.getEventListenerGroup( EventType.POST_DELETE ).appendListener( postDeleteEventListener );
+        }
+
+        if ( isAuditable( postLoadEventListener, entityClasses ) )
+        {
+            registry.getEventListenerGroup( EventType.POST_LOAD ).appendListener( postLoadEventListener );
+        }
+    }
+
+    private boolean isAuditable( AbstractHibernateListener listener, Set<Class<?>> entityClasses )
+    {
+        boolean auditable = entityClasses.stream().anyMatch( listener::isAuditable );
 
-        registry.getEventListenerGroup( EventType.POST_DELETE ).appendListener( postDeleteEventListener );
+        if ( !auditable )
+        {
+            log.info( String.format( "No entities are audited for audit type %s, listener not registered", listener.getAuditType() ) );
+        }
 
-        registry.getEventListenerGroup( EventType.POST_LOAD ).appendListener( postLoadEventListener );
+        return auditable;
     }
 }
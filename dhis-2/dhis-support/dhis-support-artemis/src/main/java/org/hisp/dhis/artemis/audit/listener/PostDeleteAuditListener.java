@@ -55,6 +55,12 @@ public class PostDeleteAuditListener
         super( auditManager, auditLegacyObjectFactory, userNameSupplier );
     }
 
+    @Override
+    AuditType getAuditType()
+    {
+        return AuditType.DELETE;
+    }
+
     @Override
     public boolean requiresPostCommitHanding( EntityPersister entityPersister )
     {
@@ -66,14 +72,14 @@ public class PostDeleteAuditListener
     {
         Object entity = postDeleteEvent.getEntity();
 
-        getAuditable( entity, "delete" ).ifPresent( auditable -> {
+        getAuditScope( entity ).ifPresent( scope -> {
             auditManager.send( Audit.builder()
                 .withAuditType( AuditType.DELETE )
-                .withAuditScope( auditable.scope() )
+                .withAuditScope( scope )
                 .withCreatedAt( new Date() )
                 .withCreatedBy( getCreatedBy() )
                 .withObject( entity )
-                .withData( this.legacyObjectFactory.create( auditable.scope(), AuditType.DELETE, entity, getCreatedBy() ) )
+                .withData( this.legacyObjectFactory.create( scope, AuditType.DELETE, entity, getCreatedBy() ) )
                 .build() );
         } );
     }
@@ -54,19 +54,25 @@ public class PostInsertAuditListener
         super( auditManager, auditLegacyObjectFactory, userNameSupplier );
     }
 
+    @Override
+    AuditType getAuditType()
+    {
+        return AuditType.CREATE;
+    }
+
     @Override
     public void onPostInsert( PostInsertEvent postInsertEvent )
     {
         Object entity = postInsertEvent.getEntity();
 
-        getAuditable( entity, "create" ).ifPresent( auditable -> {
+        getAuditScope( entity ).ifPresent( scope -> {
             auditManager.send( Audit.builder()
                 .withAuditType( AuditType.CREATE )
-                .withAuditScope( auditable.scope() )
+                .withAuditScope( scope )
                 .withCreatedAt( new Date() )
                 .withCreatedBy( getCreatedBy() )
                 .withObject( entity )
-                .withData( this.legacyObjectFactory.create( auditable.scope(), AuditType.CREATE, entity, getCreatedBy() ) )
+                .withData( this.legacyObjectFactory.create( scope, AuditType.CREATE, entity, getCreatedBy() ) )
                 .build() );
         } );
     }
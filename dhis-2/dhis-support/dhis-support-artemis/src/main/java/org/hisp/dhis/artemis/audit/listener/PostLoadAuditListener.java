@@ -54,19 +54,25 @@ public class PostLoadAuditListener
         super( auditManager, auditLegacyObjectFactory, userNameSupplier );
     }
 
+    @Override
+    AuditType getAuditType()
+    {
+        return AuditType.READ;
+    }
+
     @Override
     public void onPostLoad( PostLoadEvent postLoadEvent )
     {
         Object entity = postLoadEvent.getEntity();
 
-        getAuditable( entity, "read" ).ifPresent( auditable -> {
+        getAuditScope( entity ).ifPresent( scope -> {
             auditManager.send( Audit.builder()
                 .withAuditType( AuditType.READ )
-                .withAuditScope( auditable.scope() )
+                .withAuditScope( scope )
                 .withCreatedAt( new Date() )
                 .withCreatedBy( getCreatedBy() )
                 .withObject( entity )
-                .withData( this.legacyObjectFactory.create( auditable.scope(), AuditType.READ, entity, getCreatedBy() ) )
+                .withData( this.legacyObjectFactory.create( scope, AuditType.READ, entity, getCreatedBy() ) )
                 .build() );
         } );
     }
@@ -55,19 +55,25 @@ public class PostUpdateAuditListener
         super( auditManager, auditLegacyObjectFactory, userNameSupplier );
     }
 
+    @Override
+    AuditType getAuditType()
+    {
+        return AuditType.UPDATE;
+    }
+
     @Override
     public void onPostUpdate( PostUpdateEvent postUpdateEvent )
     {
         Object entity = postUpdateEvent.getEntity();
 
-        getAuditable( entity, "update" ).ifPresent( auditable -> {
+        getAuditScope( entity ).ifPresent( scope -> {
             auditManager.send( Audit.builder()
                 .withAuditType( AuditType.UPDATE )
-                .withAuditScope( auditable.scope() )
+                .withAuditScope( scope )
                 .withCreatedAt( new Date() )
                 .withCreatedBy( getCreatedBy() )
                 .withObject( entity )
-                .withData( this.legacyObjectFactory.create( auditable.scope(), AuditType.UPDATE, entity, getCreatedBy() ) )
+                .withData( this.legacyObjectFactory.create( scope, AuditType.UPDATE, entity, getCreatedBy() ) )
                 .build() );
         } );
     }
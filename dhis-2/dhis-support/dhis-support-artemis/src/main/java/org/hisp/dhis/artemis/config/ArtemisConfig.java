@@ -37,6 +37,7 @@ import org.apache.activemq.artemis.core.server.JournalType;
 import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
 import org.apache.activemq.artemis.core.settings.impl.AddressSettings;
 import org.apache.qpid.jms.JmsConnectionFactory;
+import org.apache.qpid.jms.JmsSession;
 import org.hisp.dhis.artemis.ProducerConfiguration;
 import org.hisp.dhis.artemis.Topics;
 import org.hisp.dhis.audit.AuditScope;
@@ -111,6 +112,28 @@ public class ArtemisConfig
         return factory;
     }
 
+    /**
+     * Listener container factory for audit consumers. Messages are
+     * acknowledged individually by the consumer once the audit has been
+     * persisted, and the subscription is durable, so that audits which were
+     * received but not persisted are redelivered after a restart. The
+     * subscription is shared, so that audits are persisted once in a cluster.
+     */
+    @Bean
+    public DefaultJmsListenerContainerFactory auditListenerContainerFactory( ConnectionFactory connectionFactory, NameDestinationResolver nameDestinationResolver )
+    {
+        DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
+        factory.setConnectionFactory( connectionFactory );
+        factory.setDestinationResolver( nameDestinationResolver );
+        factory.setPubSubDomain( true );
+        factory.setSubscriptionDurable( true );
+        factory.setSubscriptionShared( true );
+        factory.setSessionAcknowledgeMode( JmsSession.INDIVIDUAL_ACKNOWLEDGE );
+        factory.setConcurrency( "1" );
+
+        return factory;
+    }
+
     @Bean
     public EmbeddedActiveMQ createEmbeddedServer( ArtemisConfigData artemisConfigData ) throws Exception
     {
@@ -0,0 +1,88 @@
+package org.hisp.dhis.artemis.audit.listener;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.hisp.dhis.audit.AuditScope;
+import org.hisp.dhis.audit.AuditType;
+import org.hisp.dhis.audit.Auditable;
+import org.junit.Test;
+
+public class AuditPolicyTest
+{
+    @Auditable( scope = AuditScope.TRACKER, eventType = { "create", "delete" } )
+    private static class CreateDeleteAuditable
+    {
+    }
+
+    @Test
+    public void testAllEventTypes()
+    {
+        AuditPolicy policy = AuditPolicy.of( NestedTestImplementation.class );
+
+        assertEquals( AuditScope.METADATA, policy.getScope() );
+        assertTrue( policy.isAuditable( AuditType.CREATE ) );
+        assertTrue( policy.isAuditable( AuditType.READ ) );
+        assertTrue( policy.isAuditable( AuditType.UPDATE ) );
+        assertTrue( policy.isAuditable( AuditType.DELETE ) );
+    }
+
+    @Test
+    public void testSelectedEventTypes()
+    {
+        AuditPolicy policy = AuditPolicy.of( CreateDeleteAuditable.class );
+
+        assertEquals( AuditScope.TRACKER, policy.getScope() );
+        assertTrue( policy.isAuditable( AuditType.CREATE ) );
+        assertFalse( policy.isAuditable( AuditType.READ ) );
+        assertFalse( policy.isAuditable( AuditType.UPDATE ) );
+        assertTrue( policy.isAuditable( AuditType.DELETE ) );
+    }
+
+    @Test
+    public void testNotAuditable()
+    {
+        AuditPolicy policy = AuditPolicy.of( String.class );
+
+        assertSame( AuditPolicy.NONE, policy );
+        assertNull( policy.getScope() );
+        assertFalse( policy.isAuditable() );
+    }
+
+    @Test
+    public void testPolicyIsCached()
+    {
+        assertSame( AuditPolicy.of( TestImplementation.class ), AuditPolicy.of( TestImplementation.class ) );
+    }
+}
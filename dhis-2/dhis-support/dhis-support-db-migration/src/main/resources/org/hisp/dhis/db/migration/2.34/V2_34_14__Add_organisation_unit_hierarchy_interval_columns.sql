@@ -0,0 +1,9 @@
+-- Pre-order interval encoding of the organisation unit hierarchy, populated on startup
+
+alter table organisationunit
+add column if not exists hierarchystart integer;
+
+alter table organisationunit
+add column if not exists hierarchyend integer;
+
+create index if not exists in_organisationunit_hierarchystart on organisationunit(hierarchystart);
@@ -0,0 +1,55 @@
+-- Append-only change log for data values, written by trigger so that all write paths are captured.
+-- The change id is assigned at insert time, which is not commit order. The sequence column is assigned
+-- later in commit order, once the writing transaction is older than the oldest running transaction,
+-- and is the position clients page by.
+
+create sequence if not exists datavaluechange_sequence;
+
+create table if not exists datavaluechange (
+    changeid bigserial not null primary key,
+    txid bigint not null default txid_current(),
+    sequence bigint,
+    changetype varchar(10) not null,
+    dataelementid bigint not null,
+    periodid bigint not null,
+    sourceid bigint not null,
+    categoryoptioncomboid bigint not null,
+    attributeoptioncomboid bigint not null,
+    value varchar(50000),
+    deleted boolean,
+    lastupdated timestamp,
+    changed timestamp not null default now()
+);
+
+create index if not exists in_datavaluechange_changed on datavaluechange(changed);
+create unique index if not exists in_datavaluechange_sequence on datavaluechange(sequence);
+create index if not exists in_datavaluechange_unsequenced on datavaluechange(txid, changeid) where sequence is null;
+
+create or replace function datavaluechange_capture() returns trigger as
+$$
+begin
+    if (tg_op = 'DELETE') then
+        insert into datavaluechange (changetype, dataelementid, periodid, sourceid, categoryoptioncomboid, attributeoptioncomboid, value, deleted, lastupdated)
+        values ('DELETE', old.dataelementid, old.periodid, old.sourceid, old.categoryoptioncomboid, old.attributeoptioncomboid, null, true, old.lastupdated);
+        return old;
+    end if;
+
+    insert into datavaluechange (changetype, dataelementid, periodid, sourceid, categoryoptioncomboid, attributeoptioncomboid, value, deleted, lastupdated)
+    values (tg_op, new.dataelementid, new.periodid, new.sourceid, new.categoryoptioncomboid, new.attributeoptioncomboid, new.value, new.deleted, new.lastupdated);
+    return new;
+end;
+$$
+language plpgsql;
+
+drop trigger if exists datavaluechange_insert on datavalue;
+drop trigger if exists datavaluechange_update on datavalue;
+drop trigger if exists datavaluechange_delete on datavalue;
+
+create trigger datavaluechange_insert after insert on datavalue
+for each row execute procedure datavaluechange_capture();
+
+create trigger datavaluechange_update after update on datavalue
+for each row when (old.* is distinct from new.*) execute procedure datavaluechange_capture();
+
+create trigger datavaluechange_delete after delete on datavalue
+for each row execute procedure datavaluechange_capture();
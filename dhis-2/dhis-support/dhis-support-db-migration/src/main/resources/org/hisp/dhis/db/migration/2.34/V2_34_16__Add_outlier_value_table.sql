@@ -0,0 +1,32 @@
+-- Results of the outlier detection job, replaced per data element group on each run. Rows are removed
+-- together with their data element, period, organisation unit and category option combos.
+
+create table if not exists outliervalue (
+    dataelementid bigint not null,
+    periodid bigint not null,
+    sourceid bigint not null,
+    categoryoptioncomboid bigint not null,
+    attributeoptioncomboid bigint not null,
+    value double precision not null,
+    mean double precision,
+    stddev double precision,
+    median double precision,
+    medianabsdeviation double precision,
+    zscore double precision,
+    modifiedzscore double precision,
+    algorithm varchar(50) not null,
+    created timestamp not null default now(),
+    constraint outliervalue_pkey primary key (dataelementid, periodid, sourceid, categoryoptioncomboid, attributeoptioncomboid),
+    constraint fk_outliervalue_dataelementid foreign key (dataelementid)
+        references dataelement(dataelementid) on delete cascade,
+    constraint fk_outliervalue_periodid foreign key (periodid)
+        references period(periodid) on delete cascade,
+    constraint fk_outliervalue_organisationunitid foreign key (sourceid)
+        references organisationunit(organisationunitid) on delete cascade,
+    constraint fk_outliervalue_categoryoptioncomboid foreign key (categoryoptioncomboid)
+        references categoryoptioncombo(categoryoptioncomboid) on delete cascade,
+    constraint fk_outliervalue_attributeoptioncomboid foreign key (attributeoptioncomboid)
+        references categoryoptioncombo(categoryoptioncomboid) on delete cascade
+);
+
+create index if not exists in_outliervalue_sourceid on outliervalue(sourceid);
@@ -0,0 +1,33 @@
+-- Version of the data that data approval statuses depend on, used in the approval status cache key.
+-- Statement triggers increment the version within the writing transaction, so that the new version
+-- becomes visible together with the change, on every server.
+
+create table if not exists dataapprovalversion (
+    version bigint not null
+);
+
+insert into dataapprovalversion (version) select 1 where not exists (select 1 from dataapprovalversion);
+
+create or replace function dataapprovalversion_increment() returns trigger as
+$$
+begin
+    update dataapprovalversion set version = version + 1;
+    return null;
+end;
+$$
+language plpgsql;
+
+do
+$$
+declare
+    t text;
+begin
+    foreach t in array array['dataapproval', 'dataapprovalaudit', 'dataapprovallevel', 'dataapprovalworkflow',
+        'dataelementcategoryoption', 'organisationunit', 'usergroup', 'usergroupmembers', 'userinfo', 'usermembership']
+    loop
+        execute format('drop trigger if exists dataapprovalversion_increment on %I', t);
+        execute format('create trigger dataapprovalversion_increment after insert or update or delete or truncate on %I ' ||
+            'for each statement execute procedure dataapprovalversion_increment()', t);
+    end loop;
+end;
+$$;
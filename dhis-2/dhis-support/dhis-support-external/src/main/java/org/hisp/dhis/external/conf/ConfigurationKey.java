@@ -49,6 +49,9 @@ public enum ConfigurationKey
     CONNECTION_PASSWORD( "connection.password", "", true ),
     CONNECTION_SCHEMA( "connection.schema", "", false ),
     CONNECTION_POOL_MAX_SIZE( "connection.pool.max_size", "80", false ),
+    CONNECTION_READ_REPLICA_ROUTING( "connection.read_replica.routing", "off", false ),
+    CONNECTION_READ_REPLICA_MAX_LAG( "connection.read_replica.max_lag", "30", false ),
+    CONNECTION_READ_REPLICA_CHECK_INTERVAL( "connection.read_replica.check_interval", "10", false ),
     LDAP_URL( "ldap.url", "ldaps://0:1", false ),
     LDAP_MANAGER_DN( "ldap.manager.dn", "", false ),
     LDAP_MANAGER_PASSWORD( "ldap.manager.password", "", true ),
@@ -68,6 +71,7 @@ public enum ConfigurationKey
     CLUSTER_CACHE_REMOTE_OBJECT_PORT( "cluster.cache.remote.object.port", "0", false ),
     METADATA_AUDIT_PERSIST( "metadata.audit.persist", "off", false ),
     METADATA_AUDIT_LOG( "metadata.audit.log", "off", false ),
+    DATAVALUE_CHANGELOG_RETENTION_DAYS( "datavalue.changelog.retention_days", "90", false ),
     REDIS_HOST( "redis.host", "localhost", false ),
     REDIS_PORT( "redis.port", "6379", false ),
     REDIS_PASSWORD( "redis.password", "", true ),
@@ -77,6 +81,8 @@ public enum ConfigurationKey
     PROGRAM_TEMPORARY_OWNERSHIP_TIMEOUT( "tracker.temporary.ownership.timeout", "3", false ),
     LEADER_TIME_TO_LIVE( "leader.time.to.live.minutes", "2", false ),
     ANALYTICS_CACHE_EXPIRATION( "analytics.cache.expiration", "0" ),
+    ANALYTICS_RESOURCE_TABLE_INCREMENTAL( "analytics.resource_table.incremental", "on", false ),
+    ANALYTICS_ROLLUP_LEVELS( "analytics.rollup.levels", "1,2,3", false ),
     ARTEMIS_MODE( "artemis.mode", "EMBEDDED" ),
     ARTEMIS_HOST( "artemis.host", "127.0.0.1" ),
     ARTEMIS_PORT( "artemis.port", "15672" ),
@@ -88,16 +94,37 @@ public enum ConfigurationKey
     LOGGING_FILE_MAX_ARCHIVES( "logging.file.max_archives", "1" ),
     SERVER_BASE_URL( "server.base.url", "", false ),
     SERVER_HTTPS( "server.https", "off" ),
+    SERVER_COMPRESSION_ENABLED( "server.compression.enabled", "off", false ),
+    SERVER_COMPRESSION_MIN_SIZE( "server.compression.min_size", "2048", false ),
+    SERVER_COMPRESSION_LEVEL( "server.compression.level", "6", false ),
     MONITORING_PROVIDER( "monitoring.provider", "prometheus" ),
     MONITORING_API_ENABLED( "monitoring.api.enabled", "off", false ),
     MONITORING_JVM_ENABLED( "monitoring.jvm.enabled", "off", false ),
     MONITORING_DBPOOL_ENABLED( "monitoring.dbpool.enabled", "off", false ),
+    MONITORING_READ_REPLICA_ENABLED( "monitoring.read_replica.enabled", "off", false ),
     MONITORING_HIBERNATE_ENABLED( "monitoring.hibernate.enabled", "off", false ),
     MONITORING_UPTIME_ENABLED( "monitoring.uptime.enabled", "off", false ),
     MONITORING_CPU_ENABLED( "monitoring.cpu.enabled", "off", false ),
     MONITORING_LOG_REQUESTID_ENABLED( "monitoring.requestidlog.enabled", "off", false ),
     MONITORING_LOG_REQUESTID_HASHALGO( "monitoring.requestidlog.hash", "SHA-256", false ),
     MONITORING_LOG_REQUESTID_MAXSIZE( "monitoring.requestidlog.maxsize", "-1", false ),
+    MONITORING_JOBS_ENABLED( "monitoring.jobs.enabled", "off", false ),
+    MONITORING_ANALYTICS_ENABLED( "monitoring.analytics.enabled", "off", false ),
+    MONITORING_QUERY_ENABLED( "monitoring.query.enabled", "off", false ),
+    MONITORING_SQL_PROFILER_ENABLED( "monitoring.sql.profiler.enabled", "off", false ),
+    MONITORING_SQL_PROFILER_REPEAT_THRESHOLD( "monitoring.sql.profiler.repeat_threshold", "50", false ),
+    SCHEDULING_POOL_ANALYTICS_SIZE( "scheduling.pool.analytics.size", "2", false ),
+    SCHEDULING_POOL_ANALYTICS_QUEUE( "scheduling.pool.analytics.queue", "20", false ),
+    SCHEDULING_POOL_IMPORT_SIZE( "scheduling.pool.import.size", "5", false ),
+    SCHEDULING_POOL_IMPORT_QUEUE( "scheduling.pool.import.queue", "1000", false ),
+    SCHEDULING_POOL_SYNC_SIZE( "scheduling.pool.sync.size", "3", false ),
+    SCHEDULING_POOL_SYNC_QUEUE( "scheduling.pool.sync.queue", "50", false ),
+    SCHEDULING_POOL_NOTIFICATIONS_SIZE( "scheduling.pool.notifications.size", "3", false ),
+    SCHEDULING_POOL_NOTIFICATIONS_QUEUE( "scheduling.pool.notifications.queue", "100", false ),
+    SCHEDULING_POOL_MAINTENANCE_SIZE( "scheduling.pool.maintenance.size", "3", false ),
+    SCHEDULING_POOL_MAINTENANCE_QUEUE( "scheduling.pool.maintenance.queue", "100", false ),
+    SCHEDULING_QUEUE_IMPORT_CONCURRENCY( "scheduling.queue.import.concurrency", "3", false ),
+    SCHEDULING_QUEUE_IMPORT_CAPACITY( "scheduling.queue.import.capacity", "100", false ),
     APP_STORE_URL( "appstore.base.url", "https://play.dhis2.org/appstore", false ),
     APP_STORE_API_URL( "appstore.api.url", "https://play.dhis2.org/appstore/api", false );
 
@@ -32,6 +32,8 @@ import com.mchange.v2.c3p0.ComboPooledDataSource;
 import org.hisp.dhis.cache.DefaultHibernateCacheManager;
 import org.hisp.dhis.datasource.DataSourceManager;
 import org.hisp.dhis.datasource.DefaultDataSourceManager;
+import org.hisp.dhis.datasource.ProfilingDataSource;
+import org.hisp.dhis.datasource.TransactionRoutingDataSource;
 import org.hisp.dhis.dbms.DbmsManager;
 import org.hisp.dhis.dbms.HibernateDbmsManager;
 import org.hisp.dhis.deletedobject.DeletedObject;
@@ -56,6 +58,9 @@ import javax.sql.DataSource;
 import java.beans.PropertyVetoException;
 import java.util.List;
 
+import static org.hisp.dhis.external.conf.ConfigurationKey.CONNECTION_READ_REPLICA_ROUTING;
+import static org.hisp.dhis.external.conf.ConfigurationKey.MONITORING_SQL_PROFILER_ENABLED;
+
 /**
  * @author Luciano Fiandesio
  */
@@ -105,9 +110,27 @@ public class HibernateConfig
         return sessionFactory;
     }
 
+    /**
+     * Returns the data source used by Hibernate and the JDBC template. When
+     * read replica routing is enabled and read replicas are defined,
+     * connections of read only transactions are routed to the read replicas.
+     */
     @Bean
     public DataSource dataSource()
         throws PropertyVetoException
+    {
+        if ( dhisConfigurationProvider.isEnabled( CONNECTION_READ_REPLICA_ROUTING ) &&
+            dataSourceManager().getReadReplicaCount() > 0 )
+        {
+            return TransactionRoutingDataSource.createLazy( primaryDataSource(), readOnlyDataSource() );
+        }
+
+        return primaryDataSource();
+    }
+
+    @Bean
+    public DataSource primaryDataSource()
+        throws PropertyVetoException
     {
         // FIXME LUCIANO destroyMethod ? destroy-method="close"
         ComboPooledDataSource dataSource = new ComboPooledDataSource();
@@ -121,6 +144,11 @@ public class HibernateConfig
         dataSource.setAcquireIncrement( 5 );
         dataSource.setMaxIdleTime( 7200 );
 
+        if ( dhisConfigurationProvider.isEnabled( MONITORING_SQL_PROFILER_ENABLED ) )
+        {
+            return new ProfilingDataSource( dataSource );
+        }
+
         return dataSource;
     }
 
@@ -129,7 +157,7 @@ public class HibernateConfig
     {
         DefaultDataSourceManager defaultDataSourceManager = new DefaultDataSourceManager();
         defaultDataSourceManager.setConfig( dhisConfigurationProvider );
-        defaultDataSourceManager.setMainDataSource( dataSource() );
+        defaultDataSourceManager.setMainDataSource( primaryDataSource() );
 
         return defaultDataSourceManager;
     }
@@ -139,7 +167,15 @@ public class HibernateConfig
     {
         // FIXME Luciano why do we need this? Can't we use @Transactional readonly?
 
-        return dataSourceManager().getReadOnlyDataSource();
+        DataSource readOnlyDataSource = dataSourceManager().getReadOnlyDataSource();
+
+        if ( dhisConfigurationProvider.isEnabled( MONITORING_SQL_PROFILER_ENABLED ) &&
+            !(readOnlyDataSource instanceof ProfilingDataSource) )
+        {
+            return new ProfilingDataSource( readOnlyDataSource );
+        }
+
+        return readOnlyDataSource;
     }
 
     @Bean
@@ -28,6 +28,8 @@ package org.hisp.dhis.datasource;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.util.List;
+
 import javax.sql.DataSource;
 
 /**
@@ -52,4 +54,20 @@ public interface DataSourceManager
      * @return the number of explicitly defined read only database instances.
      */
     int getReadReplicaCount();
+
+    /**
+     * Returns the explicitly defined read only database instances with their
+     * health state.
+     *
+     * @return a list of read replicas, empty if none are defined.
+     */
+    List<ReadReplica> getReadReplicas();
+
+    /**
+     * Returns the number of read only connections which were routed to the
+     * main data source because no read replica was healthy.
+     *
+     * @return the number of connections routed to the main data source.
+     */
+    long getReadReplicaFallbackCount();
 }
@@ -31,16 +31,24 @@ package org.hisp.dhis.datasource;
 import static org.hisp.dhis.external.conf.ConfigurationKey.CONNECTION_DRIVER_CLASS;
 import static org.hisp.dhis.external.conf.ConfigurationKey.CONNECTION_PASSWORD;
 import static org.hisp.dhis.external.conf.ConfigurationKey.CONNECTION_POOL_MAX_SIZE;
+import static org.hisp.dhis.external.conf.ConfigurationKey.CONNECTION_READ_REPLICA_CHECK_INTERVAL;
+import static org.hisp.dhis.external.conf.ConfigurationKey.CONNECTION_READ_REPLICA_MAX_LAG;
 import static org.hisp.dhis.external.conf.ConfigurationKey.CONNECTION_URL;
 import static org.hisp.dhis.external.conf.ConfigurationKey.CONNECTION_USERNAME;
 
 import java.beans.PropertyVetoException;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.sql.DataSource;
 
@@ -51,15 +59,23 @@ import org.hisp.dhis.commons.util.DebugUtils;
 import org.hisp.dhis.external.conf.ConfigurationKey;
 import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.util.ObjectUtils;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.mchange.v2.c3p0.ComboPooledDataSource;
 
 /**
+ * Read replicas are checked for replication lag on startup and at the interval
+ * given by <code>connection.read_replica.check_interval</code>. Replicas lagging
+ * more than <code>connection.read_replica.max_lag</code> seconds behind the
+ * primary, or failing the check, are ejected from routing until they have
+ * caught up.
+ *
  * @author Lars Helge Overland
  */
 public class DefaultDataSourceManager
-    implements DataSourceManager, InitializingBean
+    implements DataSourceManager, InitializingBean, DisposableBean
 {
     private static final Log log = LogFactory.getLog( DefaultDataSourceManager.class );
 
@@ -72,6 +88,37 @@ public class DefaultDataSourceManager
     private static final int VAL_MAX_IDLE_TIME = 21600;
     private static final int MAX_READ_REPLICAS = 5;
     private static final String DEFAULT_POOL_SIZE = "40";
+    private static final int CHECK_QUERY_TIMEOUT = 5;
+
+    /**
+     * Current WAL location of the primary.
+     */
+    private static final String SQL_CURRENT_LSN = "select pg_current_wal_lsn()::text";
+
+    /**
+     * Current WAL location query for PostgreSQL versions before 10.
+     */
+    private static final String SQL_CURRENT_LSN_LEGACY = "select pg_current_xlog_location()::text";
+
+    /**
+     * Replication lag in seconds, given the current WAL location of the
+     * primary. Zero when the replica has replayed the primary up to that
+     * location, since the last replay timestamp does not advance while the
+     * primary is idle. Otherwise the time since the last replayed transaction,
+     * which keeps growing while the WAL receiver is disconnected, or infinite
+     * if no transaction has been replayed. Zero on a server which is not in
+     * recovery.
+     */
+    private static final String SQL_REPLICATION_LAG =
+        "select case when not pg_is_in_recovery() or pg_last_wal_replay_lsn() >= ?::pg_lsn then 0 " +
+        "else coalesce( extract( epoch from now() - pg_last_xact_replay_timestamp() ), 'Infinity' ) end";
+
+    /**
+     * Replication lag query for PostgreSQL versions before 10.
+     */
+    private static final String SQL_REPLICATION_LAG_LEGACY =
+        "select case when not pg_is_in_recovery() or pg_last_xlog_replay_location() >= ?::pg_lsn then 0 " +
+        "else coalesce( extract( epoch from now() - pg_last_xact_replay_timestamp() ), 'Infinity' ) end";
 
     /**
      * State holder for the resolved read only data source.
@@ -81,16 +128,44 @@ public class DefaultDataSourceManager
     /**
      * State holder for explicitly defined read only data sources.
      */
-    private List<DataSource> internalReadOnlyInstanceList;
+    private List<ReadReplica> internalReadReplicas = Collections.emptyList();
+
+    /**
+     * State holder for the data source routing to the read replicas, null if
+     * no read replicas are defined.
+     */
+    private ReadReplicaRoutingDataSource internalRoutingDataSource;
+
+    private ScheduledExecutorService healthCheckExecutor;
 
     @Override
     public void afterPropertiesSet()
         throws Exception
     {
-        List<DataSource> ds = getReadOnlyDataSources();
+        List<ReadReplica> replicas = getReadReplicaInstances();
+
+        this.internalReadReplicas = replicas;
 
-        this.internalReadOnlyInstanceList = ds;
-        this.internalReadOnlyDataSource = !ds.isEmpty() ? new CircularRoutingDataSource( ds ) : mainDataSource;
+        if ( !replicas.isEmpty() )
+        {
+            this.internalRoutingDataSource = new ReadReplicaRoutingDataSource( replicas, mainDataSource );
+            this.internalReadOnlyDataSource = internalRoutingDataSource;
+
+            startHealthChecks();
+        }
+        else
+        {
+            this.internalReadOnlyDataSource = mainDataSource;
+        }
+    }
+
+    @Override
+    public void destroy()
+    {
+        if ( healthCheckExecutor != null )
+        {
+            healthCheckExecutor.shutdownNow();
+        }
     }
 
     // -------------------------------------------------------------------------
@@ -124,14 +199,26 @@ public class DefaultDataSourceManager
     @Override
     public int getReadReplicaCount()
     {
-        return internalReadOnlyInstanceList != null ? internalReadOnlyInstanceList.size() : 0;
+        return internalReadReplicas.size();
+    }
+
+    @Override
+    public List<ReadReplica> getReadReplicas()
+    {
+        return Collections.unmodifiableList( internalReadReplicas );
+    }
+
+    @Override
+    public long getReadReplicaFallbackCount()
+    {
+        return internalRoutingDataSource != null ? internalRoutingDataSource.getFallbackCount() : 0;
     }
 
     // -------------------------------------------------------------------------
     // Supportive methods
     // -------------------------------------------------------------------------
 
-    private List<DataSource> getReadOnlyDataSources()
+    private List<ReadReplica> getReadReplicaInstances()
     {
         String mainUser = config.getProperty( ConfigurationKey.CONNECTION_USERNAME );
         String mainPassword = config.getProperty( ConfigurationKey.CONNECTION_PASSWORD );
@@ -140,7 +227,7 @@ public class DefaultDataSourceManager
 
         Properties props = config.getProperties();
 
-        List<DataSource> dataSources = new ArrayList<>();
+        List<ReadReplica> replicas = new ArrayList<>();
 
         for ( int i = 1; i <= MAX_READ_REPLICAS; i++ )
         {
@@ -165,7 +252,7 @@ public class DefaultDataSourceManager
                     ds.setAcquireIncrement( VAL_ACQUIRE_INCREMENT );
                     ds.setMaxIdleTime( VAL_MAX_IDLE_TIME );
 
-                    dataSources.add( ds );
+                    replicas.add( new ReadReplica( String.format( "read%d", i ), ds ) );
 
                     log.info( String.format( "Found read replica, index: '%d', connection URL: '%s''", i, jdbcUrl ) );
 
@@ -178,9 +265,93 @@ public class DefaultDataSourceManager
             }
         }
 
-        log.info( "Read only configuration initialized, read replicas found: " + dataSources.size() );
+        log.info( "Read only configuration initialized, read replicas found: " + replicas.size() );
+
+        return replicas;
+    }
+
+    private void startHealthChecks()
+    {
+        double maxLag = Double.parseDouble( config.getProperty( CONNECTION_READ_REPLICA_MAX_LAG ) );
+        long interval = Long.parseLong( config.getProperty( CONNECTION_READ_REPLICA_CHECK_INTERVAL ) );
+
+        checkReadReplicas( maxLag );
+
+        healthCheckExecutor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat( "read-replica-check-%d" ).setDaemon( true ).build() );
+
+        healthCheckExecutor.scheduleWithFixedDelay( () -> checkReadReplicas( maxLag ), interval, interval, TimeUnit.SECONDS );
+
+        log.info( String.format( "Read replica health checks started, max lag: %.1f seconds, interval: %d seconds",
+            maxLag, interval ) );
+    }
+
+    /**
+     * Checks the replication lag of all read replicas against the current WAL
+     * location of the primary. The check is skipped if the location of the
+     * primary cannot be read.
+     */
+    private void checkReadReplicas( double maxLag )
+    {
+        String primaryLsn;
+
+        try
+        {
+            primaryLsn = getCurrentLsn( mainDataSource );
+        }
+        catch ( SQLException | RuntimeException ex )
+        {
+            log.warn( "Read replica health check skipped, could not read WAL location of primary: " + ex.getMessage() );
+            return;
+        }
+
+        for ( ReadReplica replica : internalReadReplicas )
+        {
+            try
+            {
+                replica.checked( getReplicationLag( replica.getDataSource(), primaryLsn ), maxLag );
+            }
+            catch ( SQLException | RuntimeException ex )
+            {
+                replica.eject( "health check failed: " + ex.getMessage() );
+            }
+        }
+    }
+
+    private String getCurrentLsn( DataSource dataSource )
+        throws SQLException
+    {
+        try ( Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement() )
+        {
+            stmt.setQueryTimeout( CHECK_QUERY_TIMEOUT );
+
+            String sql = conn.getMetaData().getDatabaseMajorVersion() >= 10 ? SQL_CURRENT_LSN : SQL_CURRENT_LSN_LEGACY;
+
+            try ( ResultSet rs = stmt.executeQuery( sql ) )
+            {
+                return rs.next() ? rs.getString( 1 ) : null;
+            }
+        }
+    }
+
+    private double getReplicationLag( DataSource dataSource, String primaryLsn )
+        throws SQLException
+    {
+        try ( Connection conn = dataSource.getConnection() )
+        {
+            String sql = conn.getMetaData().getDatabaseMajorVersion() >= 10 ? SQL_REPLICATION_LAG : SQL_REPLICATION_LAG_LEGACY;
+
+            try ( PreparedStatement stmt = conn.prepareStatement( sql ) )
+            {
+                stmt.setQueryTimeout( CHECK_QUERY_TIMEOUT );
+                stmt.setString( 1, primaryLsn );
 
-        return dataSources;
+                try ( ResultSet rs = stmt.executeQuery() )
+                {
+                    return rs.next() ? rs.getDouble( 1 ) : 0d;
+                }
+            }
+        }
     }
 
     private void testConnection( ComboPooledDataSource dataSource )
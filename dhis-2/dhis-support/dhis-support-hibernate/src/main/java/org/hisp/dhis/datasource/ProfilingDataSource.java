@@ -0,0 +1,177 @@
+package org.hisp.dhis.datasource;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Data source which records the statements executed through its connections
+ * in the {@link StatementProfile} of the current thread. Connections obtained
+ * while no profile is active are returned as they are, so threads which are
+ * not profiled are not affected.
+ */
+public class ProfilingDataSource
+    extends DelegatingDataSource
+{
+    private static final Class<?>[] CONNECTION_INTERFACES = { Connection.class };
+
+    public ProfilingDataSource( DataSource targetDataSource )
+    {
+        super( targetDataSource );
+    }
+
+    @Override
+    public Connection getConnection()
+        throws SQLException
+    {
+        return profile( super.getConnection() );
+    }
+
+    @Override
+    public Connection getConnection( String username, String password )
+        throws SQLException
+    {
+        return profile( super.getConnection( username, password ) );
+    }
+
+    /**
+     * Closes the target data source if it can be closed.
+     */
+    public void close()
+        throws Exception
+    {
+        if ( getTargetDataSource() instanceof AutoCloseable )
+        {
+            ((AutoCloseable) getTargetDataSource()).close();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private static Connection profile( Connection connection )
+    {
+        if ( connection == null || StatementProfile.current() == null )
+        {
+            return connection;
+        }
+
+        return (Connection) Proxy.newProxyInstance( ProfilingDataSource.class.getClassLoader(), CONNECTION_INTERFACES,
+            ( proxy, method, args ) -> {
+                if ( isIdentityMethod( method ) )
+                {
+                    return invokeIdentityMethod( proxy, method, args );
+                }
+
+                Object result = invoke( connection, method, args );
+
+                if ( result instanceof Statement )
+                {
+                    String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+
+                    return profile( (Statement) result, sql );
+                }
+
+                return result;
+            } );
+    }
+
+    private static Statement profile( Statement statement, String preparedSql )
+    {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class :
+            statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+
+        return (Statement) Proxy.newProxyInstance( ProfilingDataSource.class.getClassLoader(), new Class<?>[] { type },
+            ( proxy, method, args ) -> {
+                if ( isIdentityMethod( method ) )
+                {
+                    return invokeIdentityMethod( proxy, method, args );
+                }
+
+                if ( !method.getName().startsWith( "execute" ) )
+                {
+                    return invoke( statement, method, args );
+                }
+
+                long start = System.nanoTime();
+
+                try
+                {
+                    return invoke( statement, method, args );
+                }
+                finally
+                {
+                    StatementProfile profile = StatementProfile.current();
+
+                    if ( profile != null )
+                    {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+
+                        profile.record( sql, System.nanoTime() - start );
+                    }
+                }
+            } );
+    }
+
+    private static boolean isIdentityMethod( Method method )
+    {
+        return method.getDeclaringClass() == Object.class &&
+            ("equals".equals( method.getName() ) || "hashCode".equals( method.getName() ));
+    }
+
+    private static Object invokeIdentityMethod( Object proxy, Method method, Object[] args )
+    {
+        return "equals".equals( method.getName() ) ? proxy == args[0] : System.identityHashCode( proxy );
+    }
+
+    private static Object invoke( Object target, Method method, Object[] args )
+        throws Throwable
+    {
+        try
+        {
+            return method.invoke( target, args );
+        }
+        catch ( InvocationTargetException ex )
+        {
+            throw ex.getTargetException();
+        }
+    }
+}
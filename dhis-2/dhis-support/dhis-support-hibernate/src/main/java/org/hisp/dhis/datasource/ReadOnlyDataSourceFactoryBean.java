@@ -32,8 +32,9 @@ import javax.sql.DataSource;
 
 import org.springframework.beans.factory.FactoryBean;
 /**
- * Factory bean which provides a {@link CircularRoutingDataSource} containing a
- * list of data sources connecting to read replica database instances.
+ * Factory bean which provides the read only data source of the
+ * {@link DataSourceManager}, which is a {@link ReadReplicaRoutingDataSource}
+ * routing to read replica database instances if any are configured.
  * 
  * @author Lars Helge Overland
  */
@@ -0,0 +1,170 @@
+package org.hisp.dhis.datasource;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A read replica data source with its health state. A replica is ejected
+ * when its replication lag exceeds the maximum lag or it cannot be reached,
+ * and is admitted again once its lag has been within the maximum lag for a
+ * number of consecutive checks. Ejected replicas do not receive connections.
+ */
+public class ReadReplica
+{
+    private static final Log log = LogFactory.getLog( ReadReplica.class );
+
+    /**
+     * Number of consecutive successful checks required to admit an ejected
+     * replica again.
+     */
+    static final int READMIT_CHECKS = 3;
+
+    private final String name;
+
+    private final DataSource dataSource;
+
+    private volatile boolean healthy = true;
+
+    private volatile double lagSeconds = 0;
+
+    private int consecutiveHealthyChecks = 0;
+
+    private final AtomicLong connectionCount = new AtomicLong();
+
+    private final AtomicLong ejectionCount = new AtomicLong();
+
+    public ReadReplica( String name, DataSource dataSource )
+    {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    // -------------------------------------------------------------------------
+    // Health
+    // -------------------------------------------------------------------------
+
+    /**
+     * Records the replication lag found by a health check, ejecting the
+     * replica if the lag exceeds the given maximum lag and admitting it again
+     * if it has been within the maximum lag for enough consecutive checks.
+     *
+     * @param lagSeconds the replication lag in seconds.
+     * @param maxLagSeconds the maximum allowed replication lag in seconds.
+     */
+    synchronized void checked( double lagSeconds, double maxLagSeconds )
+    {
+        this.lagSeconds = lagSeconds;
+
+        if ( lagSeconds > maxLagSeconds )
+        {
+            eject( String.format( "replication lag of %.1f seconds exceeds maximum of %.1f seconds",
+                lagSeconds, maxLagSeconds ) );
+        }
+        else if ( !healthy && ++consecutiveHealthyChecks >= READMIT_CHECKS )
+        {
+            healthy = true;
+
+            log.info( String.format( "Read replica '%s' admitted, replication lag: %.1f seconds", name, lagSeconds ) );
+        }
+    }
+
+    /**
+     * Ejects the replica, so that it does not receive connections until it has
+     * passed enough consecutive health checks.
+     *
+     * @param reason the reason for the ejection.
+     */
+    synchronized void eject( String reason )
+    {
+        consecutiveHealthyChecks = 0;
+
+        if ( healthy )
+        {
+            healthy = false;
+            ejectionCount.incrementAndGet();
+
+            log.warn( String.format( "Read replica '%s' ejected, %s", name, reason ) );
+        }
+    }
+
+    void connectionAcquired()
+    {
+        connectionCount.incrementAndGet();
+    }
+
+    // -------------------------------------------------------------------------
+    // Get methods
+    // -------------------------------------------------------------------------
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public DataSource getDataSource()
+    {
+        return dataSource;
+    }
+
+    public boolean isHealthy()
+    {
+        return healthy;
+    }
+
+    /**
+     * Returns the replication lag in seconds found by the last successful
+     * health check.
+     */
+    public double getLagSeconds()
+    {
+        return lagSeconds;
+    }
+
+    /**
+     * Returns the number of connections routed to this replica.
+     */
+    public long getConnectionCount()
+    {
+        return connectionCount.get();
+    }
+
+    /**
+     * Returns the number of times this replica has been ejected.
+     */
+    public long getEjectionCount()
+    {
+        return ejectionCount.get();
+    }
+}
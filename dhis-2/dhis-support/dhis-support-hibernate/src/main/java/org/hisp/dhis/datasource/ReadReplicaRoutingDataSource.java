@@ -0,0 +1,132 @@
+package org.hisp.dhis.datasource;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Data source implementation which routes to the healthy read replicas in a
+ * circular fashion. A replica which fails to provide a connection is ejected
+ * and the next healthy replica is tried. When no replica is healthy, the
+ * fallback data source is used.
+ */
+public class ReadReplicaRoutingDataSource
+    extends AbstractDataSource
+{
+    private final List<ReadReplica> replicas;
+
+    private final DataSource fallbackDataSource;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final AtomicLong fallbackCount = new AtomicLong();
+
+    public ReadReplicaRoutingDataSource( List<ReadReplica> replicas, DataSource fallbackDataSource )
+    {
+        this.replicas = ImmutableList.copyOf( replicas );
+        this.fallbackDataSource = fallbackDataSource;
+    }
+
+    // -------------------------------------------------------------------------
+    // AbstractDataSource implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public Connection getConnection()
+        throws SQLException
+    {
+        return getConnection( DataSource::getConnection );
+    }
+
+    @Override
+    public Connection getConnection( String username, String password )
+        throws SQLException
+    {
+        return getConnection( dataSource -> dataSource.getConnection( username, password ) );
+    }
+
+    /**
+     * Returns the number of connections which were routed to the fallback data
+     * source because no replica was healthy.
+     */
+    public long getFallbackCount()
+    {
+        return fallbackCount.get();
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private Connection getConnection( ConnectionProvider provider )
+        throws SQLException
+    {
+        int start = Math.floorMod( next.getAndIncrement(), replicas.size() );
+
+        for ( int i = 0; i < replicas.size(); i++ )
+        {
+            ReadReplica replica = replicas.get( (start + i) % replicas.size() );
+
+            if ( replica.isHealthy() )
+            {
+                try
+                {
+                    Connection connection = provider.getConnection( replica.getDataSource() );
+                    replica.connectionAcquired();
+                    return connection;
+                }
+                catch ( SQLException ex )
+                {
+                    replica.eject( "connection failed: " + ex.getMessage() );
+                }
+            }
+        }
+
+        fallbackCount.incrementAndGet();
+
+        return provider.getConnection( fallbackDataSource );
+    }
+
+    @FunctionalInterface
+    private interface ConnectionProvider
+    {
+        Connection getConnection( DataSource dataSource )
+            throws SQLException;
+    }
+}
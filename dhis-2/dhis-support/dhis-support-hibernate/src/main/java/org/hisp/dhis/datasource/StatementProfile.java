@@ -0,0 +1,210 @@
+package org.hisp.dhis.datasource;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Profile of the SQL statements executed by the current thread within a scope
+ * such as an HTTP request or a job. Counts the statements, their total
+ * execution time, and how many times each statement shape was executed. The
+ * shape of a statement is its SQL with literals replaced by placeholders, so
+ * statements which only differ in values are counted together.
+ * <p>
+ * Statements are recorded by the {@link ProfilingDataSource} while a profile
+ * is active for the thread. A profile is not thread safe, and statements
+ * executed on other threads are not recorded.
+ */
+public final class StatementProfile
+{
+    private static final ThreadLocal<StatementProfile> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Upper bound for the number of distinct statements and shapes tracked
+     * per profile.
+     */
+    private static final int MAX_TRACKED = 1000;
+
+    private static final Pattern STRING_LITERAL = Pattern.compile( "'(?:[^']|'')*'" );
+
+    private static final Pattern NUMBER_LITERAL = Pattern.compile( "\\b\\d+(?:\\.\\d+)?\\b" );
+
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile( "\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)" );
+
+    private static final Pattern WHITESPACE = Pattern.compile( "\\s+" );
+
+    private final Map<String, String> shapesBySql = new HashMap<>();
+
+    private final Map<String, Integer> shapeCounts = new HashMap<>();
+
+    private int statementCount = 0;
+
+    private long totalTimeNanos = 0;
+
+    private int maxRepeatCount = 0;
+
+    private String mostRepeatedShape;
+
+    private StatementProfile()
+    {
+    }
+
+    // -------------------------------------------------------------------------
+    // Scope
+    // -------------------------------------------------------------------------
+
+    /**
+     * Starts a profile for the current thread.
+     *
+     * @return the profile, or null if a profile is already active for the
+     *         current thread, in which case statements are recorded by that
+     *         profile.
+     */
+    public static StatementProfile start()
+    {
+        if ( CURRENT.get() != null )
+        {
+            return null;
+        }
+
+        StatementProfile profile = new StatementProfile();
+        CURRENT.set( profile );
+        return profile;
+    }
+
+    /**
+     * Returns the active profile of the current thread, or null if none.
+     */
+    public static StatementProfile current()
+    {
+        return CURRENT.get();
+    }
+
+    /**
+     * Stops this profile if it is the active profile of the current thread.
+     */
+    public void stop()
+    {
+        if ( CURRENT.get() == this )
+        {
+            CURRENT.remove();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Recording
+    // -------------------------------------------------------------------------
+
+    /**
+     * Records the execution of a statement.
+     *
+     * @param sql the SQL of the statement, may be null for batches of plain
+     *        statements.
+     * @param timeNanos the execution time in nanoseconds.
+     */
+    public void record( String sql, long timeNanos )
+    {
+        statementCount++;
+        totalTimeNanos += timeNanos;
+
+        String shape = sql != null ? shapesBySql.get( sql ) : "batch";
+
+        if ( shape == null )
+        {
+            shape = getShape( sql );
+
+            if ( shapesBySql.size() < MAX_TRACKED )
+            {
+                shapesBySql.put( sql, shape );
+            }
+        }
+
+        if ( shapeCounts.size() >= MAX_TRACKED && !shapeCounts.containsKey( shape ) )
+        {
+            return;
+        }
+
+        int count = shapeCounts.merge( shape, 1, Integer::sum );
+
+        if ( count > maxRepeatCount )
+        {
+            maxRepeatCount = count;
+            mostRepeatedShape = shape;
+        }
+    }
+
+    /**
+     * Returns the shape of the given SQL statement, which is the statement
+     * with literals and lists of placeholders replaced by a single placeholder
+     * and whitespace collapsed.
+     *
+     * @param sql the SQL statement.
+     * @return the shape of the statement.
+     */
+    public static String getShape( String sql )
+    {
+        String shape = STRING_LITERAL.matcher( sql ).replaceAll( "?" );
+        shape = NUMBER_LITERAL.matcher( shape ).replaceAll( "?" );
+        shape = PLACEHOLDER_LIST.matcher( shape ).replaceAll( "(?)" );
+        return WHITESPACE.matcher( shape ).replaceAll( " " ).trim();
+    }
+
+    // -------------------------------------------------------------------------
+    // Get methods
+    // -------------------------------------------------------------------------
+
+    public int getStatementCount()
+    {
+        return statementCount;
+    }
+
+    public long getTotalTimeNanos()
+    {
+        return totalTimeNanos;
+    }
+
+    /**
+     * Returns the number of executions of the most executed statement shape.
+     */
+    public int getMaxRepeatCount()
+    {
+        return maxRepeatCount;
+    }
+
+    /**
+     * Returns the most executed statement shape, or null if no statements
+     * were recorded.
+     */
+    public String getMostRepeatedShape()
+    {
+        return mostRepeatedShape;
+    }
+}
@@ -30,36 +30,49 @@ package org.hisp.dhis.datasource;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.List;
 
 import javax.sql.DataSource;
 
 import org.springframework.jdbc.datasource.AbstractDataSource;
-
-import com.google.common.collect.Iterators;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
- * Data source implementation which routes to the configured target data sources
- * in a circular fashion.
- * 
- * @author Lars Helge Overland
+ * Data source implementation which routes connections requested within a
+ * read only transaction to the read only data source, and all other
+ * connections to the main data source.
+ * <p>
+ * The read only flag of a transaction is exposed only after the transaction
+ * manager has requested its connection, so this data source must be wrapped
+ * in a {@link LazyConnectionDataSourceProxy} which defers fetching the actual
+ * connection to the first statement, see {@link #createLazy(DataSource, DataSource)}.
  */
-public class CircularRoutingDataSource
+public class TransactionRoutingDataSource
     extends AbstractDataSource
 {
-    private Iterator<DataSource> dataSourceIterator;
+    private final DataSource mainDataSource;
+
+    private final DataSource readOnlyDataSource;
 
-    public CircularRoutingDataSource()
+    public TransactionRoutingDataSource( DataSource mainDataSource, DataSource readOnlyDataSource )
     {
+        this.mainDataSource = mainDataSource;
+        this.readOnlyDataSource = readOnlyDataSource;
     }
-    
-    public CircularRoutingDataSource( List<DataSource> targetDataSources )
+
+    /**
+     * Creates a transaction routing data source wrapped in a lazy connection
+     * proxy.
+     *
+     * @param mainDataSource the main data source.
+     * @param readOnlyDataSource the read only data source.
+     * @return a data source.
+     */
+    public static DataSource createLazy( DataSource mainDataSource, DataSource readOnlyDataSource )
     {
-        this.dataSourceIterator = Iterators.cycle( Collections.synchronizedList( targetDataSources ) );
+        return new LazyConnectionDataSourceProxy( new TransactionRoutingDataSource( mainDataSource, readOnlyDataSource ) );
     }
-        
+
     // -------------------------------------------------------------------------
     // AbstractDataSource implementation
     // -------------------------------------------------------------------------
@@ -68,22 +81,25 @@ public class CircularRoutingDataSource
     public Connection getConnection()
         throws SQLException
     {
-        return getDataSource().getConnection();
+        return getTargetDataSource().getConnection();
     }
 
     @Override
     public Connection getConnection( String username, String password )
         throws SQLException
     {
-        return getDataSource().getConnection( username, password );
+        return getTargetDataSource().getConnection( username, password );
     }
 
     // -------------------------------------------------------------------------
-    // Private methods
+    // Supportive methods
     // -------------------------------------------------------------------------
 
-    private synchronized DataSource getDataSource()
+    private DataSource getTargetDataSource()
     {
-        return dataSourceIterator.next();
+        boolean readOnly = TransactionSynchronizationManager.isActualTransactionActive() &&
+            TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+
+        return readOnly ? readOnlyDataSource : mainDataSource;
     }
 }
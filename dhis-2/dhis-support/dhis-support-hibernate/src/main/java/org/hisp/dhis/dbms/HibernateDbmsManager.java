@@ -89,6 +89,8 @@ public class HibernateDbmsManager
 
         emptyTable( "datavalueaudit" );
         emptyTable( "datavalue" );
+        emptyTable( "datavaluechange" );
+        emptyTable( "outliervalue" );
         emptyTable( "completedatasetregistration" );
 
         emptyTable( "pushanalysisrecipientusergroups" );
@@ -0,0 +1,167 @@
+package org.hisp.dhis.datasource;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+/**
+ * Unit tests for {@link ReadReplicaRoutingDataSource} and {@link ReadReplica}.
+ */
+public class ReadReplicaRoutingDataSourceTest
+{
+    private StubDataSource main;
+
+    private StubDataSource dsA;
+
+    private StubDataSource dsB;
+
+    private ReadReplica replicaA;
+
+    private ReadReplica replicaB;
+
+    private ReadReplicaRoutingDataSource routingDataSource;
+
+    @Before
+    public void setUp()
+    {
+        main = new StubDataSource();
+        dsA = new StubDataSource();
+        dsB = new StubDataSource();
+
+        replicaA = new ReadReplica( "read1", dsA );
+        replicaB = new ReadReplica( "read2", dsB );
+
+        routingDataSource = new ReadReplicaRoutingDataSource( Arrays.asList( replicaA, replicaB ), main );
+    }
+
+    @Test
+    public void testCircularRouting()
+        throws SQLException
+    {
+        assertSame( dsA.connection, routingDataSource.getConnection() );
+        assertSame( dsB.connection, routingDataSource.getConnection() );
+        assertSame( dsA.connection, routingDataSource.getConnection() );
+
+        assertEquals( 2, replicaA.getConnectionCount() );
+        assertEquals( 1, replicaB.getConnectionCount() );
+        assertEquals( 0, routingDataSource.getFallbackCount() );
+    }
+
+    @Test
+    public void testLaggingReplicaIsSkipped()
+        throws SQLException
+    {
+        replicaA.checked( 60, 30 );
+
+        assertFalse( replicaA.isHealthy() );
+        assertSame( dsB.connection, routingDataSource.getConnection() );
+        assertSame( dsB.connection, routingDataSource.getConnection() );
+        assertEquals( 1, replicaA.getEjectionCount() );
+    }
+
+    @Test
+    public void testFailingReplicaIsEjected()
+        throws SQLException
+    {
+        dsA.failing = true;
+
+        assertSame( dsB.connection, routingDataSource.getConnection() );
+        assertFalse( replicaA.isHealthy() );
+        assertEquals( 1, replicaA.getEjectionCount() );
+    }
+
+    @Test
+    public void testFallbackWhenNoReplicaIsHealthy()
+        throws SQLException
+    {
+        replicaA.eject( "test" );
+        replicaB.eject( "test" );
+
+        assertSame( main.connection, routingDataSource.getConnection() );
+        assertEquals( 1, routingDataSource.getFallbackCount() );
+    }
+
+    @Test
+    public void testReplicaIsReadmitted()
+    {
+        replicaA.checked( 60, 30 );
+
+        for ( int i = 1; i < ReadReplica.READMIT_CHECKS; i++ )
+        {
+            replicaA.checked( 1, 30 );
+            assertFalse( replicaA.isHealthy() );
+        }
+
+        replicaA.checked( 1, 30 );
+
+        assertTrue( replicaA.isHealthy() );
+        assertEquals( 1, replicaA.getLagSeconds(), 0.01 );
+        assertEquals( 1, replicaA.getEjectionCount() );
+    }
+
+    private static class StubDataSource
+        extends AbstractDataSource
+    {
+        private final Connection connection = (Connection) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[] { Connection.class }, ( proxy, method, args ) -> null );
+
+        private boolean failing = false;
+
+        @Override
+        public Connection getConnection()
+            throws SQLException
+        {
+            if ( failing )
+            {
+                throw new SQLException( "Connection refused" );
+            }
+
+            return connection;
+        }
+
+        @Override
+        public Connection getConnection( String username, String password )
+            throws SQLException
+        {
+            return getConnection();
+        }
+    }
+}
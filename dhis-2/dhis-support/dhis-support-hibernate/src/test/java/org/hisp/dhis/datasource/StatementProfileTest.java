@@ -0,0 +1,93 @@
+package org.hisp.dhis.datasource;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link StatementProfile}.
+ */
+public class StatementProfileTest
+{
+    @After
+    public void tearDown()
+    {
+        StatementProfile profile = StatementProfile.current();
+
+        if ( profile != null )
+        {
+            profile.stop();
+        }
+    }
+
+    @Test
+    public void testGetShape()
+    {
+        assertEquals( "select * from dataelement where uid = ? and code = ?",
+            StatementProfile.getShape( "select *  from dataelement\n where uid = 'abc''d' and code = 42" ) );
+        assertEquals( "select * from orgunit where id in (?)",
+            StatementProfile.getShape( "select * from orgunit where id in (?, ?,?)" ) );
+        assertEquals( "select t2.name from t2",
+            StatementProfile.getShape( "select t2.name from t2" ) );
+    }
+
+    @Test
+    public void testStartAndStop()
+    {
+        StatementProfile profile = StatementProfile.start();
+
+        assertSame( profile, StatementProfile.current() );
+        assertNull( StatementProfile.start() );
+
+        profile.stop();
+
+        assertNull( StatementProfile.current() );
+    }
+
+    @Test
+    public void testRecord()
+    {
+        StatementProfile profile = StatementProfile.start();
+
+        profile.record( "select name from dataelement where dataelementid = 1", 1000 );
+        profile.record( "select name from dataelement where dataelementid = 2", 2000 );
+        profile.record( "select name from dataelement where dataelementid = 3", 3000 );
+        profile.record( "select name from period where periodid = ?", 4000 );
+
+        assertEquals( 4, profile.getStatementCount() );
+        assertEquals( 10000, profile.getTotalTimeNanos() );
+        assertEquals( 3, profile.getMaxRepeatCount() );
+        assertEquals( "select name from dataelement where dataelementid = ?", profile.getMostRepeatedShape() );
+    }
+}
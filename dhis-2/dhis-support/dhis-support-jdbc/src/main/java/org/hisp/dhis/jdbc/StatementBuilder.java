@@ -225,6 +225,17 @@ public interface StatementBuilder
     
     String getDropNotNullConstraint( String table, String column, String type );
 
+    /**
+     * Returns a scalar sub query which calculates a checksum of the rows of the
+     * given table based on the given columns. The checksum changes when the
+     * values of any row change, also when the number of rows is unchanged.
+     *
+     * @param table the table name.
+     * @param columns the columns to include in the checksum.
+     * @return a scalar sub query returning the checksum.
+     */
+    String getTableChecksum( String table, List<String> columns );
+
     /**
      * Generates a derived table containing one column of literal strings.
      *
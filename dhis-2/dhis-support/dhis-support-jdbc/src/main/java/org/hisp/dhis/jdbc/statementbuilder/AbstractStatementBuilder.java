@@ -35,6 +35,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.hisp.dhis.commons.util.SqlHelper;
@@ -177,6 +178,28 @@ public abstract class AbstractStatementBuilder
         return "alter table " + table + " modify column " + column + " " + type + " null;";
     }
 
+    @Override
+    public String getTableChecksum( String table, List<String> columns )
+    {
+        // Generic implementation without hash functions, only detects changed row counts
+
+        return "(select count(*) from " + table + ")";
+    }
+
+    /**
+     * Returns an expression which concatenates the text values of the given
+     * columns, separated by comma, with null values as empty text.
+     *
+     * @param columns the columns.
+     * @return an expression concatenating the column values.
+     */
+    protected String getRowText( List<String> columns )
+    {
+        return columns.stream()
+            .map( column -> "coalesce(cast(" + column + " as varchar), '')" )
+            .collect( Collectors.joining( " || ',' || " ) );
+    }
+
     /**
      * Generates a derived table containing one column of literal strings.
      *
@@ -28,6 +28,8 @@ package org.hisp.dhis.jdbc.statementbuilder;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.util.List;
+
 /**
  * @author Lars Helge Overland
  */
@@ -112,6 +114,15 @@ public class H2StatementBuilder
         return ("DATEDIFF('DAY', " + toColumn + ", " + fromColumn + ")");
     }
 
+    @Override
+    public String getTableChecksum( String table, List<String> columns )
+    {
+        String row = getRowText( columns );
+
+        return "(select rawtohex(hash('SHA256', stringtoutf8(coalesce(group_concat(" + row +
+            " order by " + row + " separator ';'), '')), 1)) from " + table + ")";
+    }
+
     @Override
     public String getNumberOfColumnsInPrimaryKey( String table )
     {
@@ -133,6 +133,14 @@ public class PostgreSQLStatementBuilder
         return toColumn + " - " + fromColumn;
     }
 
+    @Override
+    public String getTableChecksum( String table, List<String> columns )
+    {
+        String row = getRowText( columns );
+
+        return "(select md5(coalesce(string_agg(" + row + ", ';' order by " + row + "), '')) from " + table + ")";
+    }
+
     @Override
     public String getDropPrimaryKey( String table )
     {
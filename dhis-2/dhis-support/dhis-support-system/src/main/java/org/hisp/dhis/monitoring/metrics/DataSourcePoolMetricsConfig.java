@@ -44,6 +44,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
 import org.springframework.util.StringUtils;
 
 import com.google.common.collect.Lists;
@@ -108,8 +109,13 @@ public class DataSourcePoolMetricsConfig
     @Bean
     public Collection<DataSourcePoolMetadataProvider> dataSourceMetadataProvider()
     {
-        DataSourcePoolMetadataProvider provider = dataSource -> new C3p0MetadataProvider(
-            (ComboPooledDataSource) dataSource );
+        DataSourcePoolMetadataProvider provider = dataSource -> {
+            DataSource target = dataSource instanceof DelegatingDataSource ?
+                ((DelegatingDataSource) dataSource).getTargetDataSource() : dataSource;
+
+            return target instanceof ComboPooledDataSource ?
+                new C3p0MetadataProvider( (ComboPooledDataSource) target ) : null;
+        };
 
         return Lists.newArrayList( provider );
     }
@@ -0,0 +1,106 @@
+package org.hisp.dhis.monitoring.metrics;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.external.conf.ConfigurationKey.MONITORING_READ_REPLICA_ENABLED;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import org.hisp.dhis.datasource.DataSourceManager;
+import org.hisp.dhis.datasource.ReadReplica;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.monitoring.metrics.jdbc.DataSourcePoolMetadataProvider;
+import org.hisp.dhis.monitoring.metrics.jdbc.DataSourcePoolMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Exports the health, replication lag, routed connections and connection pool
+ * state of each read replica, and the number of read only connections routed
+ * to the main data source because no read replica was healthy.
+ */
+@Configuration
+@Conditional( ReadReplicaMetricsConfig.ReadReplicaMetricsEnabledCondition.class )
+public class ReadReplicaMetricsConfig
+{
+    private static final String METRIC_PREFIX = "dhis.db.replica.";
+
+    @Autowired
+    public void bindToRegistry( MeterRegistry registry, DataSourceManager dataSourceManager,
+        Collection<DataSourcePoolMetadataProvider> metadataProviders )
+    {
+        for ( ReadReplica replica : dataSourceManager.getReadReplicas() )
+        {
+            Gauge.builder( METRIC_PREFIX + "healthy", replica, r -> r.isHealthy() ? 1 : 0 )
+                .tag( "replica", replica.getName() )
+                .description( "Whether the read replica receives connections" )
+                .register( registry );
+
+            Gauge.builder( METRIC_PREFIX + "lag", replica, ReadReplica::getLagSeconds )
+                .tag( "replica", replica.getName() )
+                .baseUnit( "seconds" )
+                .description( "Replication lag of the read replica" )
+                .register( registry );
+
+            FunctionCounter.builder( METRIC_PREFIX + "connections", replica, ReadReplica::getConnectionCount )
+                .tag( "replica", replica.getName() )
+                .description( "Number of connections routed to the read replica" )
+                .register( registry );
+
+            FunctionCounter.builder( METRIC_PREFIX + "ejections", replica, ReadReplica::getEjectionCount )
+                .tag( "replica", replica.getName() )
+                .description( "Number of times the read replica was ejected" )
+                .register( registry );
+
+            new DataSourcePoolMetrics( replica.getDataSource(), metadataProviders, replica.getName(),
+                Collections.emptyList() ).bindTo( registry );
+        }
+
+        FunctionCounter.builder( METRIC_PREFIX + "fallback", dataSourceManager, DataSourceManager::getReadReplicaFallbackCount )
+            .description( "Number of read only connections routed to the main data source" )
+            .register( registry );
+    }
+
+    static class ReadReplicaMetricsEnabledCondition
+        extends
+        MetricsEnabler
+    {
+        @Override
+        protected ConfigurationKey getConfigKey()
+        {
+            return MONITORING_READ_REPLICA_ENABLED;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.hisp.dhis.monitoring.sql;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.hisp.dhis.external.conf.ConfigurationKey.MONITORING_SQL_PROFILER_ENABLED;
+import static org.hisp.dhis.external.conf.ConfigurationKey.MONITORING_SQL_PROFILER_REPEAT_THRESHOLD;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.datasource.StatementProfile;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * Profiles the SQL statements of HTTP requests and jobs when enabled through
+ * <code>monitoring.sql.profiler.enabled</code>. Records the number of
+ * statements and the total statement execution time per request handler and
+ * job type, and logs a warning when a single statement shape is executed more
+ * than <code>monitoring.sql.profiler.repeat_threshold</code> times within one
+ * request or job, which typically indicates lazy loading or querying per row.
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ * StatementProfile profile = statementProfiler.start();
+ * try
+ * {
+ *     ...
+ * }
+ * finally
+ * {
+ *     statementProfiler.finish( profile, StatementProfiler.SOURCE_JOB, jobType, description );
+ * }
+ * </pre>
+ */
+@Component( "org.hisp.dhis.monitoring.sql.StatementProfiler" )
+public class StatementProfiler
+    implements MeterBinder
+{
+    private static final Log log = LogFactory.getLog( StatementProfiler.class );
+
+    private static final String METRIC_PREFIX = "dhis.sql.";
+
+    public static final String SOURCE_REQUEST = "request";
+
+    public static final String SOURCE_JOB = "job";
+
+    private final boolean enabled;
+
+    private final int repeatThreshold;
+
+    /**
+     * Meters are registered with a composite registry which has no effect until
+     * a registry is added in {@link #bindTo(MeterRegistry)}.
+     */
+    private final CompositeMeterRegistry registry = new CompositeMeterRegistry();
+
+    public StatementProfiler( DhisConfigurationProvider config )
+    {
+        checkNotNull( config );
+
+        this.enabled = config.isEnabled( MONITORING_SQL_PROFILER_ENABLED );
+        this.repeatThreshold = Integer.parseInt( config.getProperty( MONITORING_SQL_PROFILER_REPEAT_THRESHOLD ) );
+    }
+
+    /**
+     * Indicates whether statement profiling is enabled.
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Starts profiling the statements of the current thread.
+     *
+     * @return the profile, or null if profiling is disabled or a profile is
+     *         already active for the current thread.
+     */
+    public StatementProfile start()
+    {
+        return enabled ? StatementProfile.start() : null;
+    }
+
+    /**
+     * Stops the given profile and records it.
+     *
+     * @param profile the profile, may be null in which case nothing happens.
+     * @param source the source, {@link #SOURCE_REQUEST} or {@link #SOURCE_JOB}.
+     * @param name the name of the request handler or job type.
+     * @param description the description of the request or job to include in
+     *        warnings.
+     */
+    public void finish( StatementProfile profile, String source, String name, String description )
+    {
+        if ( profile == null )
+        {
+            return;
+        }
+
+        profile.stop();
+
+        DistributionSummary.builder( METRIC_PREFIX + "statements" )
+            .tags( "source", source, "name", name )
+            .description( "Number of SQL statements executed" )
+            .publishPercentileHistogram()
+            .register( registry )
+            .record( profile.getStatementCount() );
+
+        Timer.builder( METRIC_PREFIX + "time" )
+            .tags( "source", source, "name", name )
+            .description( "Total execution time of SQL statements" )
+            .publishPercentileHistogram()
+            .register( registry )
+            .record( profile.getTotalTimeNanos(), TimeUnit.NANOSECONDS );
+
+        if ( isRepeated( profile ) )
+        {
+            Counter.builder( METRIC_PREFIX + "repeated" )
+                .tags( "source", source, "name", name )
+                .description( "Number of times a statement shape was executed more often than the repeat threshold" )
+                .register( registry )
+                .increment();
+
+            log.warn( String.format( "Statement executed %d times by %s (%d statements in total, possible N+1 query): %s",
+                profile.getMaxRepeatCount(), description, profile.getStatementCount(), profile.getMostRepeatedShape() ) );
+        }
+    }
+
+    /**
+     * Indicates whether the most executed statement shape of the given profile
+     * was executed more often than the repeat threshold.
+     */
+    public boolean isRepeated( StatementProfile profile )
+    {
+        return profile.getMaxRepeatCount() > repeatThreshold;
+    }
+
+    // -------------------------------------------------------------------------
+    // MeterBinder implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void bindTo( MeterRegistry meterRegistry )
+    {
+        registry.add( meterRegistry );
+    }
+}
@@ -49,6 +49,8 @@ public class InMemoryNotifier implements Notifier
 
     private NotificationMap notificationMap = new NotificationMap();
 
+    private final NotificationListeners listeners = new NotificationListeners();
+
     // -------------------------------------------------------------------------
     // Notifier implementation
     // -------------------------------------------------------------------------
@@ -75,6 +77,8 @@ public class InMemoryNotifier implements Notifier
             notificationMap.add( id, notification );
 
             log.info( notification );
+
+            listeners.notification( id, notification );
         }
 
         return this;
@@ -97,12 +101,40 @@ public class InMemoryNotifier implements Notifier
     {
         if ( id != null && !(level != null && level.isOff()) )
         {
-            notify( id, level, message, completed );
+            update( id, new Notification( level, id.getJobType(), new Date(), message, completed ) );
         }
 
         return this;
     }
 
+    @Override
+    public Notifier updateProgress( JobConfiguration id, String message, long processed, long total )
+    {
+        if ( id != null )
+        {
+            Notification notification = new Notification( NotificationLevel.INFO, id.getJobType(), new Date(), message, false );
+            notification.setProgress( Notification.getPercent( processed, total ) );
+
+            update( id, notification );
+        }
+
+        return this;
+    }
+
+    private void update( JobConfiguration id, Notification notification )
+    {
+        if ( notificationMap.update( id, notification ) )
+        {
+            log.debug( notification );
+        }
+        else
+        {
+            log.info( notification );
+        }
+
+        listeners.notification( id, notification );
+    }
+
     @Override
     public List<Notification> getLastNotificationsByJobType( JobType jobType, String lastId )
     {
@@ -166,6 +198,8 @@ public class InMemoryNotifier implements Notifier
         if ( id != null && !(level != null && level.isOff()) )
         {
             notificationMap.addSummary( id, jobSummary );
+
+            listeners.jobSummary( id, jobSummary );
         }
 
         return this;
@@ -188,4 +222,20 @@ public class InMemoryNotifier implements Notifier
     {
         return notificationMap.getSummary( jobType, jobId );
     }
+
+    @Override
+    public Notifier addListener( JobType jobType, String jobId, NotificationListener listener )
+    {
+        listeners.add( jobType, jobId, listener );
+
+        return this;
+    }
+
+    @Override
+    public Notifier removeListener( JobType jobType, String jobId, NotificationListener listener )
+    {
+        listeners.remove( jobType, jobId, listener );
+
+        return this;
+    }
 }
@@ -55,6 +55,8 @@ public class Notification
     
     private boolean completed;
 
+    private Integer progress;
+
     // -------------------------------------------------------------------------
     // Constructors
     // -------------------------------------------------------------------------
@@ -74,6 +76,26 @@ public class Notification
         this.completed = completed;
     }
 
+    // -------------------------------------------------------------------------
+    // Logic
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the given progress as a percentage between 0 and 100.
+     *
+     * @param processed the number of items processed.
+     * @param total the total number of items.
+     */
+    public static int getPercent( long processed, long total )
+    {
+        if ( total <= 0 )
+        {
+            return 0;
+        }
+
+        return (int) Math.max( 0, Math.min( 100, processed * 100 / total ) );
+    }
+
     // -------------------------------------------------------------------------
     // Get and set
     // -------------------------------------------------------------------------
@@ -150,6 +172,22 @@ public class Notification
         this.completed = completed;
     }
 
+    /**
+     * Progress of the job in percent, or null if the notification does not
+     * report progress.
+     */
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public Integer getProgress()
+    {
+        return progress;
+    }
+
+    public void setProgress( Integer progress )
+    {
+        this.progress = progress;
+    }
+
     // -------------------------------------------------------------------------
     // equals, hashCode, toString
     // -------------------------------------------------------------------------
@@ -186,6 +224,7 @@ public class Notification
     @Override
     public String toString()
     {
-        return "[Level: " + level + ", category: " + category + ", time: " + time + ", message: " + message + "]";
+        return "[Level: " + level + ", category: " + category + ", time: " + time + ", message: " + message +
+            (progress != null ? ", progress: " + progress + "%" : "") + "]";
     }
 }
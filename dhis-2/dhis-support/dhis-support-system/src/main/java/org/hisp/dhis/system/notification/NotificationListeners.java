@@ -0,0 +1,110 @@
+package org.hisp.dhis.system.notification;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.scheduling.JobType;
+
+/**
+ * Registry of the {@link NotificationListener} instances of a notifier, keyed
+ * on job type and job identifier. Listeners are only known to the node where
+ * they were registered.
+ */
+class NotificationListeners
+{
+    private static final Log log = LogFactory.getLog( NotificationListeners.class );
+
+    private final ConcurrentHashMap<String, Set<NotificationListener>> listeners = new ConcurrentHashMap<>();
+
+    void add( JobType jobType, String jobId, NotificationListener listener )
+    {
+        listeners.compute( getKey( jobType, jobId ), ( k, set ) -> {
+            Set<NotificationListener> result = set != null ? set : new CopyOnWriteArraySet<>();
+            result.add( listener );
+            return result;
+        } );
+    }
+
+    void remove( JobType jobType, String jobId, NotificationListener listener )
+    {
+        listeners.computeIfPresent( getKey( jobType, jobId ), ( k, set ) -> {
+            set.remove( listener );
+            return set.isEmpty() ? null : set;
+        } );
+    }
+
+    void notification( JobConfiguration id, Notification notification )
+    {
+        fire( id, listener -> listener.notification( notification ) );
+    }
+
+    void jobSummary( JobConfiguration id, Object jobSummary )
+    {
+        fire( id, listener -> listener.jobSummary( jobSummary ) );
+    }
+
+    private void fire( JobConfiguration id, Consumer<NotificationListener> event )
+    {
+        if ( listeners.isEmpty() )
+        {
+            return;
+        }
+
+        Set<NotificationListener> set = listeners.get( getKey( id.getJobType(), id.getUid() ) );
+
+        if ( set == null )
+        {
+            return;
+        }
+
+        for ( NotificationListener listener : set )
+        {
+            try
+            {
+                event.accept( listener );
+            }
+            catch ( RuntimeException ex )
+            {
+                log.warn( "Notification listener failed: " + ex.getMessage() );
+            }
+        }
+    }
+
+    private static String getKey( JobType jobType, String jobId )
+    {
+        return jobType + ":" + jobId;
+    }
+}
@@ -26,147 +26,211 @@ package org.hisp.dhis.system.notification;
  * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
  * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
 import org.hisp.dhis.scheduling.JobConfiguration;
 import org.hisp.dhis.scheduling.JobType;
 
+import java.util.AbstractMap;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
+ * Holds notifications and summaries per job type, bounded to a fixed number of
+ * jobs per type and a fixed number of notifications per job.
+ * <p>
+ * The per type maps are never mutated once published. Adding or removing a
+ * job replaces the map under a lock, which happens once per job run, so that
+ * readers polling for progress never block the writers.
+ *
  * @author Henning Håkonsen
  */
 public class NotificationMap
 {
     private final static int MAX_POOL_TYPE_SIZE = 100;
 
-    private Map<JobType, LinkedHashMap<String, LinkedList<Notification>>> notificationsWithType;
+    private final static int MAX_NOTIFICATIONS_PER_JOB = 500;
+
+    private final Map<JobType, LinkedHashMap<String, NotificationRingBuffer>> notificationsWithType = new ConcurrentHashMap<>();
 
-    private Map<JobType, LinkedHashMap<String, Object>> summariesWithType;
+    private final Map<JobType, LinkedHashMap<String, Object>> summariesWithType = new ConcurrentHashMap<>();
 
     NotificationMap()
     {
-        notificationsWithType = new HashMap<>();
-        Arrays.stream( JobType.values() )
-            .forEach( jobType -> notificationsWithType.put( jobType, new LinkedHashMap<>() ) );
-
-        summariesWithType = new HashMap<>();
-        Arrays.stream( JobType.values() )
-            .forEach( jobType -> summariesWithType.put( jobType, new LinkedHashMap<>() ) );
+        for ( JobType jobType : JobType.values() )
+        {
+            notificationsWithType.put( jobType, new LinkedHashMap<>() );
+            summariesWithType.put( jobType, new LinkedHashMap<>() );
+        }
     }
 
     public List<Notification> getLastNotificationsByJobType( JobType jobType )
     {
-        LinkedHashMap<String, LinkedList<Notification>> jobTypeNotifications = notificationsWithType.get( jobType );
-
-        if ( jobTypeNotifications.size() == 0 )
-        {
-            return new ArrayList<>();
-        }
+        NotificationRingBuffer buffer = getLast( notificationsWithType.get( jobType ) );
 
-        String key = (String) jobTypeNotifications.keySet().toArray()[jobTypeNotifications.size() - 1];
-
-        return jobTypeNotifications.get( key );
+        return buffer != null ? buffer.snapshot() : new ArrayList<>();
     }
 
+    /**
+     * Returns a view of all notifications. Each lookup in the view returns a
+     * snapshot of the current notifications for the job type.
+     */
     public Map<JobType, LinkedHashMap<String, LinkedList<Notification>>> getNotifications()
     {
-        return notificationsWithType;
+        return new AbstractMap<JobType, LinkedHashMap<String, LinkedList<Notification>>>()
+        {
+            @Override
+            public LinkedHashMap<String, LinkedList<Notification>> get( Object key )
+            {
+                return key instanceof JobType ? getNotificationsWithType( (JobType) key ) : null;
+            }
+
+            @Override
+            public Set<Entry<JobType, LinkedHashMap<String, LinkedList<Notification>>>> entrySet()
+            {
+                return notificationsWithType.keySet().stream()
+                    .map( jobType -> new SimpleImmutableEntry<>( jobType, getNotificationsWithType( jobType ) ) )
+                    .collect( Collectors.toSet() );
+            }
+        };
     }
 
     public LinkedList<Notification> getNotificationsByJobId( JobType jobType, String jobId )
     {
-        if ( notificationsWithType.get( jobType ).containsKey( jobId ) )
-        {
-            return notificationsWithType.get( jobType ).get( jobId );
-        }
-        else
-        {
-            return new LinkedList<>();
-        }
+        NotificationRingBuffer buffer = notificationsWithType.get( jobType ).get( jobId );
+
+        return buffer != null ? buffer.snapshot() : new LinkedList<>();
     }
 
-    public Map<String, LinkedList<Notification>> getNotificationsWithType( JobType jobType )
+    public LinkedHashMap<String, LinkedList<Notification>> getNotificationsWithType( JobType jobType )
     {
-        return notificationsWithType.get( jobType );
+        LinkedHashMap<String, LinkedList<Notification>> notifications = new LinkedHashMap<>();
+
+        notificationsWithType.get( jobType ).forEach( ( uid, buffer ) -> notifications.put( uid, buffer.snapshot() ) );
+
+        return notifications;
     }
 
     public void add( JobConfiguration jobConfiguration, Notification notification )
     {
-        String uid = jobConfiguration.getUid();
-
-        LinkedHashMap<String, LinkedList<Notification>> uidNotifications = notificationsWithType
-            .get( jobConfiguration.getJobType() );
-
-        LinkedList<Notification> notifications;
-        if ( uidNotifications.containsKey( uid ) )
-        {
-            notifications = uidNotifications.get( uid );
-        }
-        else
-        {
-            notifications = new LinkedList<>();
-        }
+        getBuffer( jobConfiguration ).add( notification );
+    }
 
-        notifications.addFirst( notification );
+    /**
+     * Replaces the latest notification of the job if it was a non-completed
+     * update, otherwise adds the notification.
+     *
+     * @return true if a notification was replaced, false if added.
+     */
+    public boolean update( JobConfiguration jobConfiguration, Notification notification )
+    {
+        return getBuffer( jobConfiguration ).update( notification );
+    }
 
-        if ( uidNotifications.size() >= MAX_POOL_TYPE_SIZE )
-        {
-            String key = (String) uidNotifications.keySet().toArray()[0];
-            uidNotifications.remove( key );
-        }
+    public synchronized void addSummary( JobConfiguration jobConfiguration, Object summary )
+    {
+        LinkedHashMap<String, Object> summaries = new LinkedHashMap<>( summariesWithType.get( jobConfiguration.getJobType() ) );
 
-        uidNotifications.put( uid, notifications );
+        summaries.remove( jobConfiguration.getUid() );
+        removeEldest( summaries );
+        summaries.put( jobConfiguration.getUid(), summary );
 
-        notificationsWithType.put( jobConfiguration.getJobType(), uidNotifications );
+        summariesWithType.put( jobConfiguration.getJobType(), summaries );
     }
 
-    public void addSummary( JobConfiguration jobConfiguration, Object summary )
+    public Object getSummary( JobType jobType )
     {
-        LinkedHashMap<String, Object> summaries = summariesWithType.get( jobConfiguration.getJobType() );
+        return getLast( summariesWithType.get( jobType ) );
+    }
 
-        if ( summaries.size() >= MAX_POOL_TYPE_SIZE )
-        {
-            String key = (String) summaries.keySet().toArray()[0];
-            summaries.remove( key );
-        }
+    public Object getSummary( JobType jobType, String jobId )
+    {
+        return summariesWithType.get( jobType ).get( jobId );
+    }
 
-        summaries.put( jobConfiguration.getUid(), summary );
+    public Object getJobSummariesForJobType( JobType jobType )
+    {
+        return summariesWithType.get( jobType );
     }
 
-    public Object getSummary( JobType jobType )
+    public synchronized void clear( JobConfiguration jobConfiguration )
     {
-        LinkedHashMap<String, Object> summariesForJobType = summariesWithType.get( jobType );
+        JobType jobType = jobConfiguration.getJobType();
 
-        if ( summariesForJobType.size() == 0 )
+        if ( notificationsWithType.get( jobType ).containsKey( jobConfiguration.getUid() ) )
         {
-            return null;
+            LinkedHashMap<String, NotificationRingBuffer> buffers = new LinkedHashMap<>( notificationsWithType.get( jobType ) );
+            buffers.remove( jobConfiguration.getUid() );
+            notificationsWithType.put( jobType, buffers );
         }
-        else
+
+        if ( summariesWithType.get( jobType ).containsKey( jobConfiguration.getUid() ) )
         {
-            return summariesForJobType.values().toArray()[summariesForJobType.size() - 1];
+            LinkedHashMap<String, Object> summaries = new LinkedHashMap<>( summariesWithType.get( jobType ) );
+            summaries.remove( jobConfiguration.getUid() );
+            summariesWithType.put( jobType, summaries );
         }
     }
 
-    public Object getSummary( JobType jobType, String jobId )
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private NotificationRingBuffer getBuffer( JobConfiguration jobConfiguration )
     {
-        return summariesWithType.get( jobType ).get( jobId );
+        NotificationRingBuffer buffer = notificationsWithType.get( jobConfiguration.getJobType() ).get( jobConfiguration.getUid() );
+
+        return buffer != null ? buffer : addBuffer( jobConfiguration );
     }
 
-    public Object getJobSummariesForJobType( JobType jobType )
+    private synchronized NotificationRingBuffer addBuffer( JobConfiguration jobConfiguration )
     {
-        return summariesWithType.get( jobType );
+        JobType jobType = jobConfiguration.getJobType();
+
+        NotificationRingBuffer buffer = notificationsWithType.get( jobType ).get( jobConfiguration.getUid() );
+
+        if ( buffer == null )
+        {
+            LinkedHashMap<String, NotificationRingBuffer> buffers = new LinkedHashMap<>( notificationsWithType.get( jobType ) );
+
+            buffer = new NotificationRingBuffer( MAX_NOTIFICATIONS_PER_JOB );
+
+            removeEldest( buffers );
+            buffers.put( jobConfiguration.getUid(), buffer );
+
+            notificationsWithType.put( jobType, buffers );
+        }
+
+        return buffer;
     }
 
-    public void clear( JobConfiguration jobConfiguration )
+    private static void removeEldest( Map<String, ?> map )
     {
-        notificationsWithType.get( jobConfiguration.getJobType() ).remove( jobConfiguration.getUid() );
-        summariesWithType.get( jobConfiguration.getJobType() ).remove( jobConfiguration.getUid() );
+        if ( map.size() >= MAX_POOL_TYPE_SIZE )
+        {
+            Iterator<String> keys = map.keySet().iterator();
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static <T> T getLast( LinkedHashMap<String, T> map )
+    {
+        T last = null;
+
+        for ( T value : map.values() )
+        {
+            last = value;
+        }
+
+        return last;
     }
 }
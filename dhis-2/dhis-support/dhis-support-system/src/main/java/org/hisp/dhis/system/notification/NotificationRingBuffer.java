@@ -0,0 +1,165 @@
+package org.hisp.dhis.system.notification;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed size ring buffer holding the notifications of a single job. When the
+ * buffer is full the oldest notification is overwritten, so memory use per job
+ * is bounded regardless of how many notifications the job emits.
+ * <p>
+ * Writers are serialized on the buffer. Readers never lock; they copy the
+ * slots and discard any entries which were overwritten by a writer while the
+ * copy was taken.
+ */
+public class NotificationRingBuffer
+{
+    private final AtomicReferenceArray<Notification> slots;
+
+    private final int capacity;
+
+    /**
+     * Number of notifications ever added. The notification with sequence
+     * number n is stored in slot n modulo capacity.
+     */
+    private volatile long writeCount = 0;
+
+    /**
+     * Whether the most recent notification is a non-completed update which
+     * the next update may replace. Guarded by this.
+     */
+    private boolean lastReplaceable = false;
+
+    public NotificationRingBuffer( int capacity )
+    {
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>( capacity );
+    }
+
+    // -------------------------------------------------------------------------
+    // Write
+    // -------------------------------------------------------------------------
+
+    /**
+     * Appends the given notification.
+     *
+     * @param notification the {@link Notification}.
+     */
+    public synchronized void add( Notification notification )
+    {
+        append( notification );
+
+        lastReplaceable = false;
+    }
+
+    /**
+     * Replaces the most recent notification with the given notification if the
+     * most recent notification was itself a non-completed update, otherwise
+     * appends it. A replacing notification keeps the identifier of the one it
+     * replaces so that clients polling with that identifier receive the new
+     * state.
+     *
+     * @param notification the {@link Notification}.
+     * @return true if a notification was replaced, false if appended.
+     */
+    public synchronized boolean update( Notification notification )
+    {
+        if ( lastReplaceable && writeCount > 0 )
+        {
+            int slot = (int) ((writeCount - 1) % capacity);
+
+            notification.setUid( slots.get( slot ).getUid() );
+            slots.set( slot, notification );
+            lastReplaceable = !notification.isCompleted();
+
+            return true;
+        }
+
+        append( notification );
+
+        lastReplaceable = !notification.isCompleted();
+
+        return false;
+    }
+
+    private void append( Notification notification )
+    {
+        slots.set( (int) (writeCount % capacity), notification );
+
+        writeCount++;
+    }
+
+    // -------------------------------------------------------------------------
+    // Read
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns a snapshot of the notifications in this buffer, newest first.
+     *
+     * @return a list of {@link Notification}.
+     */
+    public LinkedList<Notification> snapshot()
+    {
+        long end = writeCount;
+        long start = Math.max( 0, end - capacity );
+
+        LinkedList<Notification> notifications = new LinkedList<>();
+
+        for ( long i = end - 1; i >= start; i-- )
+        {
+            notifications.add( slots.get( (int) (i % capacity) ) );
+        }
+
+        // Drop the oldest entries if writers lapped them during the copy
+
+        long overwritten = writeCount - capacity - start;
+
+        for ( long i = 0; i < overwritten && !notifications.isEmpty(); i++ )
+        {
+            notifications.removeLast();
+        }
+
+        return notifications;
+    }
+
+    /**
+     * Returns the number of notifications currently held.
+     */
+    public int size()
+    {
+        return (int) Math.min( writeCount, capacity );
+    }
+
+    public int getCapacity()
+    {
+        return capacity;
+    }
+}
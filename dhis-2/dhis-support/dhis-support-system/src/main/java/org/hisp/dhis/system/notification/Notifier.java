@@ -53,6 +53,18 @@ public interface Notifier
 
     Notifier update( JobConfiguration id, NotificationLevel level, String message, boolean completed );
 
+    /**
+     * Reports the progress of a job. Consecutive updates replace the latest
+     * notification of the job rather than being appended to it, so reporting
+     * progress per batch does not grow the notification list.
+     *
+     * @param id the job configuration.
+     * @param message the message.
+     * @param processed the number of items processed so far.
+     * @param total the total number of items.
+     */
+    Notifier updateProgress( JobConfiguration id, String message, long processed, long total );
+
     Map<JobType, LinkedHashMap<String, LinkedList<Notification>>> getNotifications();
 
     List<Notification> getLastNotificationsByJobType( JobType jobType, String lastId );
@@ -72,4 +84,25 @@ public interface Notifier
     Object getJobSummary( JobType jobType );
 
     Object getJobSummaryByJobId( JobType jobType, String jobId );
+
+    /**
+     * Registers a listener which is told about the notifications and the job
+     * summary of the given job from now on. Only jobs running on this node are
+     * reported to the listener.
+     *
+     * @param jobType the job type.
+     * @param jobId the job identifier.
+     * @param listener the listener.
+     */
+    Notifier addListener( JobType jobType, String jobId, NotificationListener listener );
+
+    /**
+     * Removes a listener registered with
+     * {@link #addListener(JobType, String, NotificationListener)}.
+     *
+     * @param jobType the job type.
+     * @param jobId the job identifier.
+     * @param listener the listener.
+     */
+    Notifier removeListener( JobType jobType, String jobId, NotificationListener listener );
 }
@@ -37,6 +37,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -45,7 +47,10 @@ import org.hisp.dhis.hibernate.objectmapper.ParseDateStdDeserializer;
 import org.hisp.dhis.hibernate.objectmapper.WriteDateStdSerializer;
 import org.hisp.dhis.scheduling.JobConfiguration;
 import org.hisp.dhis.scheduling.JobType;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ZSetOperations;
 
 import com.bedatadriven.jackson.datatype.jts.JtsModule;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
@@ -89,6 +94,17 @@ public class RedisNotifier implements Notifier
 
     private final static int MAX_POOL_TYPE_SIZE = 100;
 
+    private final static int MAX_NOTIFICATIONS_PER_JOB = 500;
+
+    /**
+     * Serialized value of the latest notification per job notification key
+     * which may be replaced by the next update. Jobs run on a single node, so
+     * this does not need to be shared through redis.
+     */
+    private final Map<String, String> replaceableUpdates = new ConcurrentHashMap<>();
+
+    private final NotificationListeners listeners = new NotificationListeners();
+
     private ObjectMapper objectMapper;
 
     public RedisNotifier( RedisTemplate<String, String> redisTemplate )
@@ -143,28 +159,12 @@ public class RedisNotifier implements Notifier
         if ( id != null && !(level != null && level.isOff()) )
         {
             Notification notification = new Notification( level, id.getJobType(), new Date(), message, completed );
-            String notificationKey = generateNotificationKey( id.getJobType(), id.getUid() );
-            String notificationOrderKey = generateNotificationOrderKey( id.getJobType() );
-            Date now = new Date();
-            try
-            {
-                if ( redisTemplate.boundZSetOps( notificationOrderKey ).zCard() >= MAX_POOL_TYPE_SIZE )
-                {
-                    Set<String> deleteKeys = redisTemplate.boundZSetOps( notificationOrderKey ).range( 0, 0 );
-                    redisTemplate.delete( deleteKeys );
-                    redisTemplate.boundZSetOps( notificationOrderKey ).removeRange( 0, 0 );
-                }
 
-                redisTemplate.boundZSetOps( notificationKey ).add( objectMapper.writeValueAsString( notification ),
-                    now.getTime() );
-                redisTemplate.boundZSetOps( notificationOrderKey ).add( id.getUid(), now.getTime() );
-            }
-            catch ( JsonProcessingException ex )
-            {
-                log.warn( String.format( NOTIFIER_ERROR, ex.getMessage() ) );
-            }
+            write( id, notification, false );
 
             log.info( notification );
+
+            listeners.notification( id, notification );
         }
         return this;
     }
@@ -186,12 +186,134 @@ public class RedisNotifier implements Notifier
     {
         if ( id != null && !(level != null && level.isOff()) )
         {
-            notify( id, level, message, completed );
+            update( id, new Notification( level, id.getJobType(), new Date(), message, completed ) );
         }
 
         return this;
     }
 
+    @Override
+    public Notifier updateProgress( JobConfiguration id, String message, long processed, long total )
+    {
+        if ( id != null )
+        {
+            Notification notification = new Notification( NotificationLevel.INFO, id.getJobType(), new Date(), message, false );
+            notification.setProgress( Notification.getPercent( processed, total ) );
+
+            update( id, notification );
+        }
+
+        return this;
+    }
+
+    private void update( JobConfiguration id, Notification notification )
+    {
+        if ( write( id, notification, true ) )
+        {
+            log.debug( notification );
+        }
+        else
+        {
+            log.info( notification );
+        }
+
+        listeners.notification( id, notification );
+    }
+
+    /**
+     * Writes the given notification in a single pipelined round trip. An update
+     * replaces the previous notification of the job if that was itself a
+     * non-completed update. The notifications of a job are trimmed to
+     * {@link #MAX_NOTIFICATIONS_PER_JOB} in the same round trip, while the job
+     * order is only trimmed when a job is seen for the first time.
+     *
+     * @param id the job configuration.
+     * @param notification the notification.
+     * @param update whether the notification is an update.
+     * @return true if a previous notification was replaced.
+     */
+    private boolean write( JobConfiguration id, Notification notification, boolean update )
+    {
+        String notificationKey = generateNotificationKey( id.getJobType(), id.getUid() );
+        String notificationOrderKey = generateNotificationOrderKey( id.getJobType() );
+        long time = notification.getTime().getTime();
+
+        String replaced = update ? replaceableUpdates.get( notificationKey ) : null;
+
+        try
+        {
+            if ( replaced != null )
+            {
+                notification.setUid( objectMapper.readValue( replaced, Notification.class ).getUid() );
+            }
+
+            String value = objectMapper.writeValueAsString( notification );
+
+            List<Object> results = redisTemplate.executePipelined( new SessionCallback<Object>()
+            {
+                @Override
+                @SuppressWarnings( "unchecked" )
+                public <K, V> Object execute( RedisOperations<K, V> operations )
+                {
+                    ZSetOperations<String, String> zSetOps = ((RedisOperations<String, String>) operations).opsForZSet();
+
+                    zSetOps.add( notificationOrderKey, id.getUid(), time );
+
+                    if ( replaced != null )
+                    {
+                        zSetOps.remove( notificationKey, replaced );
+                    }
+
+                    zSetOps.add( notificationKey, value, time );
+                    zSetOps.removeRange( notificationKey, 0, -(MAX_NOTIFICATIONS_PER_JOB + 1) );
+
+                    return null;
+                }
+            } );
+
+            if ( update && !notification.isCompleted() )
+            {
+                replaceableUpdates.put( notificationKey, value );
+            }
+            else
+            {
+                replaceableUpdates.remove( notificationKey );
+            }
+
+            if ( Boolean.TRUE.equals( results.get( 0 ) ) )
+            {
+                trimNotificationOrder( id.getJobType() );
+            }
+        }
+        catch ( IOException ex )
+        {
+            log.warn( String.format( NOTIFIER_ERROR, ex.getMessage() ) );
+        }
+
+        return replaced != null;
+    }
+
+    private void trimNotificationOrder( JobType jobType )
+    {
+        String notificationOrderKey = generateNotificationOrderKey( jobType );
+
+        Long size = redisTemplate.boundZSetOps( notificationOrderKey ).zCard();
+
+        if ( size != null && size > MAX_POOL_TYPE_SIZE )
+        {
+            Set<String> evictedJobUids = redisTemplate.boundZSetOps( notificationOrderKey ).range( 0, size - MAX_POOL_TYPE_SIZE - 1 );
+
+            List<String> evictedKeys = evictedJobUids.stream()
+                .map( uid -> generateNotificationKey( jobType, uid ) )
+                .collect( Collectors.toList() );
+
+            evictedKeys.forEach( replaceableUpdates::remove );
+
+            redisTemplate.delete( evictedKeys );
+            redisTemplate.boundZSetOps( notificationOrderKey ).remove( evictedJobUids.toArray() );
+        }
+    }
+
     @Override
     public List<Notification> getLastNotificationsByJobType( JobType jobType, String lastId )
     {
@@ -263,6 +385,7 @@ public class RedisNotifier implements Notifier
     {
         if ( id != null )
         {
+            replaceableUpdates.remove( generateNotificationKey( id.getJobType(), id.getUid() ) );
             redisTemplate.delete( generateNotificationKey( id.getJobType(), id.getUid() ) );
             redisTemplate.boundHashOps( generateSummaryKey( id.getJobType() ) ).delete( id.getUid() );
             redisTemplate.boundZSetOps( generateNotificationOrderKey( id.getJobType() ) ).remove( id.getUid() );
@@ -315,6 +438,7 @@ public class RedisNotifier implements Notifier
 
                 redisTemplate.boundZSetOps( summaryOrderKey ).add( id.getUid(), now.getTime() );
 
+                listeners.jobSummary( id, jobSummary );
             }
             catch ( JsonProcessingException | ClassNotFoundException ex )
             {
@@ -413,6 +537,22 @@ public class RedisNotifier implements Notifier
         return null;
     }
 
+    @Override
+    public Notifier addListener( JobType jobType, String jobId, NotificationListener listener )
+    {
+        listeners.add( jobType, jobId, listener );
+
+        return this;
+    }
+
+    @Override
+    public Notifier removeListener( JobType jobType, String jobId, NotificationListener listener )
+    {
+        listeners.remove( jobType, jobId, listener );
+
+        return this;
+    }
+
     private static String generateNotificationKey( JobType jobType, String jobUid )
     {
         return new StringBuilder()
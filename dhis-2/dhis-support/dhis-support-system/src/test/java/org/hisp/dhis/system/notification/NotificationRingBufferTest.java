@@ -0,0 +1,94 @@
+package org.hisp.dhis.system.notification;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.hisp.dhis.scheduling.JobType.DATAVALUE_IMPORT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NotificationRingBufferTest
+{
+    @Test
+    public void testAddOverwritesOldest()
+    {
+        NotificationRingBuffer buffer = new NotificationRingBuffer( 3 );
+
+        for ( int i = 0; i < 5; i++ )
+        {
+            buffer.add( notification( "Message " + i, false ) );
+        }
+
+        List<Notification> notifications = buffer.snapshot();
+
+        assertEquals( 3, buffer.size() );
+        assertEquals( 3, notifications.size() );
+        assertEquals( "Message 4", notifications.get( 0 ).getMessage() );
+        assertEquals( "Message 2", notifications.get( 2 ).getMessage() );
+    }
+
+    @Test
+    public void testUpdateReplacesUpdate()
+    {
+        NotificationRingBuffer buffer = new NotificationRingBuffer( 3 );
+
+        buffer.add( notification( "Started", false ) );
+
+        assertFalse( buffer.update( notification( "Progress 1", false ) ) );
+        assertTrue( buffer.update( notification( "Progress 2", false ) ) );
+        assertTrue( buffer.update( notification( "Done", true ) ) );
+        assertFalse( buffer.update( notification( "Progress 3", false ) ) );
+
+        List<Notification> notifications = buffer.snapshot();
+
+        assertEquals( 3, notifications.size() );
+        assertEquals( "Progress 3", notifications.get( 0 ).getMessage() );
+        assertEquals( "Done", notifications.get( 1 ).getMessage() );
+        assertEquals( "Started", notifications.get( 2 ).getMessage() );
+    }
+
+    @Test
+    public void testEmptySnapshot()
+    {
+        NotificationRingBuffer buffer = new NotificationRingBuffer( 3 );
+
+        assertEquals( 0, buffer.size() );
+        assertTrue( buffer.snapshot().isEmpty() );
+    }
+
+    private Notification notification( String message, boolean completed )
+    {
+        return new Notification( NotificationLevel.INFO, DATAVALUE_IMPORT, new Date(), message, completed );
+    }
+}
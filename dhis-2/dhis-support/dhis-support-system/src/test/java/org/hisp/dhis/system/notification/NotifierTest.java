@@ -35,6 +35,8 @@ import org.hisp.dhis.user.User;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -43,6 +45,7 @@ import java.util.Map;
 import static org.hisp.dhis.scheduling.JobType.*;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -243,6 +246,99 @@ public class NotifierTest extends DhisSpringTest
                 .size() );
     }
 
+    @Test
+    public void testUpdateReplacesLatestUpdate()
+    {
+        JobConfiguration jobConfig = new JobConfiguration( null, PREDICTOR, user.getUid(), false );
+        jobConfig.setUid( "pr1" );
+
+        notifier.notify( jobConfig, "Making predictions" );
+        notifier.update( jobConfig, "Running predictor: 1" );
+
+        List<Notification> notifications = notifier.getNotificationsByJobId( PREDICTOR, jobConfig.getUid() );
+        assertEquals( 2, notifications.size() );
+        String updateUid = notifications.get( 0 ).getUid();
+
+        notifier.update( jobConfig, "Running predictor: 2" );
+        notifier.update( jobConfig, "Running predictor: 3" );
+
+        notifications = notifier.getNotificationsByJobId( PREDICTOR, jobConfig.getUid() );
+        assertEquals( 2, notifications.size() );
+        assertEquals( "Running predictor: 3", notifications.get( 0 ).getMessage() );
+        assertEquals( updateUid, notifications.get( 0 ).getUid() );
+
+        notifications = notifier.getLastNotificationsByJobType( PREDICTOR, updateUid );
+        assertEquals( 1, notifications.size() );
+        assertEquals( "Running predictor: 3", notifications.get( 0 ).getMessage() );
+
+        notifier.update( jobConfig, NotificationLevel.INFO, "Prediction done", true );
+        notifier.update( jobConfig, "Running predictor: 4" );
+
+        notifications = notifier.getNotificationsByJobId( PREDICTOR, jobConfig.getUid() );
+        assertEquals( 3, notifications.size() );
+        assertEquals( "Prediction done", notifications.get( 1 ).getMessage() );
+        assertTrue( notifications.get( 1 ).isCompleted() );
+    }
+
+    @Test
+    public void testUpdateProgress()
+    {
+        JobConfiguration jobConfig = new JobConfiguration( null, ANALYTICS_TABLE, user.getUid(), false );
+        jobConfig.setUid( "at2" );
+
+        notifier.notify( jobConfig, "Populating tables" );
+
+        for ( int i = 0; i < 200; i++ )
+        {
+            notifier.updateProgress( jobConfig, "Populated partition " + i, i, 400 );
+        }
+
+        List<Notification> notifications = notifier.getNotificationsByJobId( ANALYTICS_TABLE, jobConfig.getUid() );
+        assertEquals( 2, notifications.size() );
+        assertEquals( Integer.valueOf( 49 ), notifications.get( 0 ).getProgress() );
+        assertEquals( "Populated partition 199", notifications.get( 0 ).getMessage() );
+        assertNull( notifications.get( 1 ).getProgress() );
+    }
+
+    @Test
+    public void testListener()
+    {
+        List<String> messages = new ArrayList<>();
+        List<Object> summaries = new ArrayList<>();
+
+        NotificationListener listener = new NotificationListener()
+        {
+            @Override
+            public void notification( Notification notification )
+            {
+                messages.add( notification.getMessage() );
+            }
+
+            @Override
+            public void jobSummary( Object jobSummary )
+            {
+                summaries.add( jobSummary );
+            }
+        };
+
+        notifier.addListener( DATAVALUE_IMPORT, dataValueImportJobConfig.getUid(), listener );
+
+        notifier.notify( dataValueImportJobConfig, "Import started" );
+        notifier.notify( dataValueImportSecondJobConfig, "Import started" );
+        notifier.updateProgress( dataValueImportJobConfig, "Imported rows", 10, 20 );
+        notifier.addJobSummary( dataValueImportJobConfig, "Summary", String.class );
+
+        notifier.removeListener( DATAVALUE_IMPORT, dataValueImportJobConfig.getUid(), listener );
+
+        notifier.notify( dataValueImportJobConfig, "Import done" );
+
+        assertEquals( Arrays.asList( "Import started", "Imported rows" ), messages );
+        assertEquals( Arrays.asList( "Summary" ), summaries );
+
+        notifier.clear( dataValueImportJobConfig );
+        notifier.clear( dataValueImportSecondJobConfig );
+    }
+
     private String getNotificationUid( LinkedHashMap<String, LinkedList<Notification>> notifications, String jobUid,
         String message )
     {
@@ -30,6 +30,7 @@ package org.hisp.dhis.mock;
 
 import com.google.common.collect.Sets;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.user.CurrentUserContext;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.user.UserAuthorityGroup;
@@ -110,6 +111,12 @@ public class MockCurrentUserService
             currentUser.getUsername(), currentUser.getUserCredentials().getAllAuthorities() );
     }
 
+    @Override
+    public CurrentUserContext getCurrentUserContext()
+    {
+        return CurrentUserContext.of( currentUser );
+    }
+
     @Override
     public Set<OrganisationUnit> getCurrentUserOrganisationUnits()
     {
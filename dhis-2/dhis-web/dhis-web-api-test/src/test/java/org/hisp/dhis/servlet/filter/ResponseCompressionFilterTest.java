@@ -0,0 +1,314 @@
+package org.hisp.dhis.servlet.filter;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class ResponseCompressionFilterTest
+{
+    private static final int MIN_SIZE = 1024;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private DeflaterPool mockDeflaterPool;
+
+    private ResponseCompressionFilter filter;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    private byte[] body;
+
+    @Before
+    public void setUp()
+    {
+        filter = new ResponseCompressionFilter( true, MIN_SIZE, new DeflaterPool( Deflater.DEFAULT_COMPRESSION, 2 ) );
+
+        request = new MockHttpServletRequest( "GET", "/api/dataElements" );
+        request.addHeader( HttpHeaders.ACCEPT_ENCODING, "gzip, deflate" );
+
+        response = new MockHttpServletResponse();
+
+        StringBuilder builder = new StringBuilder( "[" );
+
+        for ( int i = 0; i < 200; i++ )
+        {
+            builder.append( "{\"id\":\"" ).append( i ).append( "\",\"name\":\"Data element " ).append( i ).append( "\"}," );
+        }
+
+        body = builder.append( "{}]" ).toString().getBytes( StandardCharsets.UTF_8 );
+    }
+
+    @Test
+    public void testGzipRoundTrip()
+        throws Exception
+    {
+        filter.doFilter( request, response, ( req, res ) -> {
+            res.setContentType( "application/json" );
+            ((HttpServletResponse) res).setHeader( HttpHeaders.ETAG, "\"0a1b2c\"" );
+            res.getOutputStream().write( body, 0, 100 );
+            res.getOutputStream().write( body, 100, body.length - 100 );
+        } );
+
+        byte[] content = response.getContentAsByteArray();
+
+        assertEquals( "gzip", response.getHeader( HttpHeaders.CONTENT_ENCODING ) );
+        assertEquals( HttpHeaders.ACCEPT_ENCODING, response.getHeader( HttpHeaders.VARY ) );
+        assertEquals( 0x1f, content[0] & 0xff );
+        assertEquals( 0x8b, content[1] & 0xff );
+
+        // Trailer holds the CRC32 and size of the uncompressed body
+
+        CRC32 crc = new CRC32();
+        crc.update( body );
+
+        ByteBuffer trailer = ByteBuffer.wrap( content, content.length - 8, 8 ).order( ByteOrder.LITTLE_ENDIAN );
+
+        assertEquals( (int) crc.getValue(), trailer.getInt() );
+        assertEquals( body.length, trailer.getInt() );
+
+        assertArrayEquals( body, gunzip( content ) );
+    }
+
+    @Test
+    public void testWeakenETag()
+        throws Exception
+    {
+        filter.doFilter( request, response, ( req, res ) -> {
+            res.setContentType( "application/json" );
+            ((HttpServletResponse) res).setHeader( HttpHeaders.ETAG, "\"0a1b2c\"" );
+            res.getOutputStream().write( body );
+        } );
+
+        assertEquals( "W/\"0a1b2c\"", response.getHeader( HttpHeaders.ETAG ) );
+    }
+
+    @Test
+    public void testKeepWeakETag()
+        throws Exception
+    {
+        filter.doFilter( request, response, ( req, res ) -> {
+            res.setContentType( "application/json" );
+            ((HttpServletResponse) res).setHeader( HttpHeaders.ETAG, "W/\"0a1b2c\"" );
+            res.getOutputStream().write( body );
+        } );
+
+        assertEquals( "W/\"0a1b2c\"", response.getHeader( HttpHeaders.ETAG ) );
+    }
+
+    @Test
+    public void testBelowMinSizePassthrough()
+        throws Exception
+    {
+        byte[] small = Arrays.copyOf( body, MIN_SIZE - 1 );
+
+        filter.doFilter( request, response, ( req, res ) -> {
+            res.setContentType( "application/json" );
+            res.setContentLength( small.length );
+            res.getOutputStream().write( small );
+        } );
+
+        assertNull( response.getHeader( HttpHeaders.CONTENT_ENCODING ) );
+        assertEquals( small.length, response.getContentLength() );
+        assertArrayEquals( small, response.getContentAsByteArray() );
+    }
+
+    @Test
+    public void testContentEncodingAlreadySet()
+        throws Exception
+    {
+        filter.doFilter( request, response, ( req, res ) -> {
+            res.setContentType( "application/javascript" );
+            ((HttpServletResponse) res).setHeader( HttpHeaders.CONTENT_ENCODING, "br" );
+            res.getOutputStream().write( body );
+        } );
+
+        assertEquals( "br", response.getHeader( HttpHeaders.CONTENT_ENCODING ) );
+        assertArrayEquals( body, response.getContentAsByteArray() );
+    }
+
+    @Test
+    public void testNotModifiedPassthrough()
+        throws Exception
+    {
+        assertNotCompressedForStatus( HttpServletResponse.SC_NOT_MODIFIED );
+    }
+
+    @Test
+    public void testNoContentPassthrough()
+        throws Exception
+    {
+        assertNotCompressedForStatus( HttpServletResponse.SC_NO_CONTENT );
+    }
+
+    @Test
+    public void testNotAcceptedPassthrough()
+        throws Exception
+    {
+        request = new MockHttpServletRequest( "GET", "/api/dataElements" );
+        request.addHeader( HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, deflate" );
+
+        filter.doFilter( request, response, ( req, res ) -> {
+            res.setContentType( "application/json" );
+            res.getOutputStream().write( body );
+        } );
+
+        assertNull( response.getHeader( HttpHeaders.CONTENT_ENCODING ) );
+        assertArrayEquals( body, response.getContentAsByteArray() );
+    }
+
+    @Test
+    public void testEventStreamPassthrough()
+        throws Exception
+    {
+        byte[] event = "data: {\"progress\":10}\n\n".getBytes( StandardCharsets.UTF_8 );
+        byte[][] flushed = new byte[1][];
+
+        filter.doFilter( request, response, ( req, res ) -> {
+            res.setContentType( "text/event-stream" );
+            res.getOutputStream().write( event );
+            res.getOutputStream().flush();
+            flushed[0] = response.getContentAsByteArray();
+        } );
+
+        assertNull( response.getHeader( HttpHeaders.CONTENT_ENCODING ) );
+        assertArrayEquals( event, flushed[0] );
+        assertArrayEquals( event, response.getContentAsByteArray() );
+    }
+
+    @Test
+    public void testReleaseDeflaterOnException()
+        throws Exception
+    {
+        Deflater deflater = new Deflater( Deflater.DEFAULT_COMPRESSION, true );
+
+        when( mockDeflaterPool.borrow() ).thenReturn( deflater );
+
+        filter = new ResponseCompressionFilter( true, MIN_SIZE, mockDeflaterPool );
+
+        FilterChain chain = ( req, res ) -> {
+            res.setContentType( "application/json" );
+            res.getOutputStream().write( body );
+            throw new ServletException( "Serialization failed" );
+        };
+
+        try
+        {
+            filter.doFilter( request, response, chain );
+            fail( "Expected ServletException" );
+        }
+        catch ( ServletException ex )
+        {
+            assertEquals( "Serialization failed", ex.getMessage() );
+        }
+
+        verify( mockDeflaterPool ).release( deflater );
+
+        deflater.end();
+    }
+
+    @Test
+    public void testDeflaterPoolReuse()
+    {
+        DeflaterPool deflaterPool = new DeflaterPool( Deflater.DEFAULT_COMPRESSION, 1 );
+
+        Deflater deflaterA = deflaterPool.borrow();
+        Deflater deflaterB = deflaterPool.borrow();
+
+        deflaterA.setInput( body );
+        deflaterA.deflate( new byte[256] );
+
+        deflaterPool.release( deflaterA );
+        deflaterPool.release( deflaterB );
+
+        Deflater reused = deflaterPool.borrow();
+
+        assertSame( deflaterA, reused );
+        assertEquals( 0, reused.getTotalIn() );
+        assertNotSame( deflaterB, deflaterPool.borrow() );
+    }
+
+    private void assertNotCompressedForStatus( int status )
+        throws Exception
+    {
+        filter.doFilter( request, response, ( req, res ) -> {
+            ((HttpServletResponse) res).setStatus( status );
+            res.setContentType( "application/json" );
+            res.getOutputStream().write( body );
+        } );
+
+        assertNull( response.getHeader( HttpHeaders.CONTENT_ENCODING ) );
+        assertArrayEquals( body, response.getContentAsByteArray() );
+    }
+
+    private byte[] gunzip( byte[] content )
+        throws IOException
+    {
+        try ( InputStream in = new GZIPInputStream( new ByteArrayInputStream( content ) ) )
+        {
+            return IOUtils.toByteArray( in );
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.hisp.dhis.servlet.filter;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+
+import org.hisp.dhis.datasource.StatementProfile;
+import org.hisp.dhis.monitoring.sql.StatementProfiler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class StatementProfilingFilterTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private StatementProfiler statementProfiler;
+
+    private StatementProfile profile;
+
+    private StatementProfilingFilter filter;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    @Before
+    public void setUp()
+    {
+        profile = StatementProfile.start();
+
+        when( statementProfiler.isEnabled() ).thenReturn( true );
+        when( statementProfiler.start() ).thenReturn( profile );
+
+        filter = new StatementProfilingFilter( statementProfiler );
+        request = new MockHttpServletRequest( "GET", "/api/dataElements" );
+        response = new MockHttpServletResponse();
+    }
+
+    @After
+    public void tearDown()
+    {
+        profile.stop();
+    }
+
+    @Test
+    public void testHeadersWithoutBody()
+        throws ServletException, IOException
+    {
+        filter.doFilter( request, response, ( req, res ) -> {
+            profile.record( "select * from dataelement", 2_000_000 );
+            profile.record( "select * from dataelement", 1_000_000 );
+        } );
+
+        assertEquals( "2", response.getHeader( StatementProfilingFilter.HEADER_STATEMENTS ) );
+        assertEquals( "3", response.getHeader( StatementProfilingFilter.HEADER_TIME ) );
+        assertEquals( "2", response.getHeader( StatementProfilingFilter.HEADER_REPEATED ) );
+    }
+
+    @Test
+    public void testHeadersBeforeCommittedBody()
+        throws ServletException, IOException
+    {
+        filter.doFilter( request, response, ( req, res ) -> {
+            profile.record( "select * from dataelement", 1_000_000 );
+
+            res.getOutputStream().write( new byte[response.getBufferSize() + 1] );
+            res.flushBuffer();
+
+            profile.record( "select * from categorycombo", 1_000_000 );
+        } );
+
+        assertTrue( response.isCommitted() );
+        assertEquals( "1", response.getHeader( StatementProfilingFilter.HEADER_STATEMENTS ) );
+    }
+
+    @Test
+    public void testHeadersBeforeWriterFlush()
+        throws ServletException, IOException
+    {
+        filter.doFilter( request, response, ( req, res ) -> {
+            profile.record( "select * from dataelement", 1_000_000 );
+
+            res.getWriter().write( "{}" );
+            res.getWriter().flush();
+
+            profile.record( "select * from categorycombo", 1_000_000 );
+        } );
+
+        assertEquals( "1", response.getHeader( StatementProfilingFilter.HEADER_STATEMENTS ) );
+        assertEquals( "{}", response.getContentAsString() );
+    }
+
+    @Test
+    public void testNoHeadersWhenNotProfiled()
+        throws ServletException, IOException
+    {
+        when( statementProfiler.start() ).thenReturn( null );
+
+        filter.doFilter( request, response, ( req, res ) -> res.getWriter().write( "{}" ) );
+
+        assertNull( response.getHeader( StatementProfilingFilter.HEADER_STATEMENTS ) );
+        assertEquals( "{}", response.getContentAsString() );
+    }
+}
@@ -28,8 +28,10 @@ package org.hisp.dhis.webapi.utils;
  */
 
 import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.common.cache.CacheStrategy;
 import org.hisp.dhis.common.cache.Cacheability;
+import org.hisp.dhis.indicator.IndicatorType;
 import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.webapi.DhisWebSpringTest;
@@ -37,13 +39,19 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 
 import javax.servlet.http.HttpServletResponse;
 import java.util.Calendar;
+import java.util.Date;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Stian Sandvold
@@ -57,6 +65,9 @@ public class ContextUtilsTest
     @Autowired
     private SystemSettingManager systemSettingManager;
 
+    @Autowired
+    private IdentifiableObjectManager idObjectManager;
+
     private HttpServletResponse response;
 
     @Before
@@ -159,4 +170,71 @@ public class ContextUtilsTest
     {
         Assert.assertEquals( "test.txt", ContextUtils.getAttachmentFileName( "attachment; filename=test.txt" ) );
     }
+
+    @Test
+    public void testIsNotModifiedDeep()
+    {
+        String tag = ContextUtils.getDeepEtag( "dataElements", 12, null );
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader( ContextUtils.HEADER_IF_NONE_MATCH, "\"abc\", W/\"" + tag + "\"" );
+
+        assertTrue( ContextUtils.isNotModifiedDeep( request, response, tag ) );
+        assertEquals( HttpServletResponse.SC_NOT_MODIFIED, response.getStatus() );
+        assertEquals( "\"" + tag + "\"", response.getHeader( ContextUtils.HEADER_ETAG ) );
+    }
+
+    @Test
+    public void testIsModifiedDeep()
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader( ContextUtils.HEADER_IF_NONE_MATCH, "\"abc\"" );
+
+        assertFalse( ContextUtils.isNotModifiedDeep( request, response, ContextUtils.getDeepEtag( "dataElements", 12 ) ) );
+        assertEquals( HttpServletResponse.SC_OK, response.getStatus() );
+        assertFalse( ContextUtils.isNotModifiedDeep( request, response, null ) );
+    }
+
+    @Test
+    public void testGetDeepEtag()
+    {
+        assertEquals( ContextUtils.getDeepEtag( "dataElements", 12 ), ContextUtils.getDeepEtag( "dataElements", 12 ) );
+        assertNotEquals( ContextUtils.getDeepEtag( "dataElements", 12 ), ContextUtils.getDeepEtag( "dataElements", 13 ) );
+    }
+
+    @Test
+    public void testGetAnalyticsEtag()
+    {
+        systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE, new Date( 1000000L ) );
+
+        String tag = contextUtils.getAnalyticsEtag( "key", "admin" );
+
+        assertNotNull( tag );
+        assertEquals( tag, contextUtils.getAnalyticsEtag( "key", "admin" ) );
+        assertNotEquals( tag, contextUtils.getAnalyticsEtag( "key", "other" ) );
+
+        systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE, new Date( 2000000L ) );
+
+        assertNotEquals( tag, contextUtils.getAnalyticsEtag( "key", "admin" ) );
+    }
+
+    @Test
+    public void testGetAnalyticsEtagMetadataUpdate()
+    {
+        systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE, new Date( 1000000L ) );
+
+        String tag = contextUtils.getAnalyticsEtag( "key", "admin" );
+
+        IndicatorType indicatorType = createIndicatorType( 'A' );
+        idObjectManager.save( indicatorType );
+        idObjectManager.save( createIndicator( 'A', indicatorType ) );
+
+        assertNotEquals( tag, contextUtils.getAnalyticsEtag( "key", "admin" ) );
+    }
+
+    @Test
+    public void testGetAnalyticsEtagWithoutTables()
+    {
+        assertNull( contextUtils.getAnalyticsEtag( "key", "admin" ) );
+    }
 }
@@ -38,6 +38,7 @@ import org.hisp.dhis.common.BaseIdentifiableObject;
 import org.hisp.dhis.common.DhisApiVersion;
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.common.IdentifiableObjectUtils;
 import org.hisp.dhis.common.IdentifiableObjects;
 import org.hisp.dhis.common.Pager;
 import org.hisp.dhis.common.PagerUtils;
@@ -94,6 +95,7 @@ import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.user.UserSettingKey;
 import org.hisp.dhis.user.UserSettingService;
+import org.hisp.dhis.util.DateUtils;
 import org.hisp.dhis.webapi.mvc.annotation.ApiVersion;
 import org.hisp.dhis.webapi.service.ContextService;
 import org.hisp.dhis.webapi.service.LinkService;
@@ -103,6 +105,7 @@ import org.hisp.dhis.webapi.webdomain.WebMetadata;
 import org.hisp.dhis.webapi.webdomain.WebOptions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.util.StringUtils;
@@ -119,6 +122,8 @@ import java.io.IOException;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -219,6 +224,13 @@ public abstract class AbstractCrudController<T extends IdentifiableObject>
             throw new ReadAccessDeniedException( "You don't have the proper permissions to read objects of this type." );
         }
 
+        if ( ContextUtils.isNotModifiedDeep( request, response, getObjectListEtag( request, fields, currentUser ) ) )
+        {
+            response.setHeader( ContextUtils.HEADER_CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue() );
+
+            return null;
+        }
+
         List<T> entities = getEntityList( metadata, options, filters, orders );
         Pager pager = metadata.getPager();
 
@@ -1144,12 +1156,132 @@ public abstract class AbstractCrudController<T extends IdentifiableObject>
         }
         else
         {
+            if ( isPagingInQuery( options ) )
+            {
+                applyPaging( query, metadata, options, filters );
+            }
+
             entityList = (List<T>) queryService.query( query );
         }
 
         return entityList;
     }
 
+    /**
+     * Indicates whether the paging of the entity list can be done by the query
+     * engine. Controllers which filter the entity list after querying should
+     * return false.
+     *
+     * @param options the web options.
+     * @return true if paging can be done by the query engine.
+     */
+    protected boolean isPagingInQuery( WebOptions options )
+    {
+        return options.hasPaging();
+    }
+
+    /**
+     * Returns a deep ETag for the object list response which can be computed
+     * without querying the entities. The tag is derived from the last updated
+     * timestamp and count of the entity type, the current user with its groups,
+     * roles, authorities and database locale, and the request URI, query string
+     * and accept header. Returns null if the response cannot be validated this
+     * way, which is the case unless all fields are persisted, simple properties
+     * owned by the entity and no filter refers to an associated object, as other
+     * fields can change without changing the entity. Controllers which add data
+     * from other sources to the entity list should override and return null.
+     *
+     * @param request     the HttpServletRequest.
+     * @param fields      the requested fields.
+     * @param currentUser the current user.
+     * @return a deep ETag value, or null.
+     */
+    protected String getObjectListEtag( HttpServletRequest request, List<String> fields, User currentUser )
+    {
+        if ( currentUser == null || currentUser.getUserCredentials() == null || !isEtagFields( fields )
+            || contextService.getParameterValues( "filter" ).stream().anyMatch( filter -> filter.split( ":" )[0].contains( "." ) ) )
+        {
+            return null;
+        }
+
+        Date lastUpdated = manager.getLastUpdated( getEntityClass() );
+
+        if ( lastUpdated == null )
+        {
+            return null;
+        }
+
+        List<String> groupUids = IdentifiableObjectUtils.getUids( currentUser.getGroups() );
+        Collections.sort( groupUids );
+
+        List<String> roleUids = IdentifiableObjectUtils.getUids( currentUser.getUserCredentials().getUserAuthorityGroups() );
+        Collections.sort( roleUids );
+
+        List<String> authorities = new ArrayList<>( currentUser.getUserCredentials().getAllAuthorities() );
+        Collections.sort( authorities );
+
+        return ContextUtils.getDeepEtag( getEntityClass().getName(), DateUtils.getLongDateString( lastUpdated ),
+            manager.getCount( getEntityClass() ), currentUser.getUid(), DateUtils.getLongDateString( currentUser.getLastUpdated() ),
+            groupUids, roleUids, ContextUtils.getDeepEtag( authorities.toArray() ),
+            userSettingService.getUserSetting( UserSettingKey.DB_LOCALE ),
+            request.getRequestURI(), request.getQueryString(), request.getHeader( HttpHeaders.ACCEPT ) );
+    }
+
+    /**
+     * Indicates whether the given fields only refer to persisted, simple and
+     * non-collection properties owned by the entity, which are the fields
+     * which cannot change without changing the last updated timestamp of the
+     * entity.
+     *
+     * @param fields the requested fields.
+     * @return true if the fields can be validated by a deep ETag.
+     */
+    private boolean isEtagFields( List<String> fields )
+    {
+        Schema schema = getSchema();
+
+        for ( String fieldList : fields )
+        {
+            for ( String field : fieldList.split( "," ) )
+            {
+                Property property = schema.getPersistedProperty( field.trim() );
+
+                if ( property == null || !property.isSimple() || property.isCollection() || !property.isOwner() )
+                {
+                    return false;
+                }
+            }
+        }
+
+        return !fields.isEmpty();
+    }
+
+    /**
+     * Applies the paging of the given options to the given query and sets the
+     * resulting pager on the given metadata. The total is counted through a
+     * separate query, as planning a query modifies its criterions.
+     *
+     * @param query the query.
+     * @param metadata the web metadata.
+     * @param options the web options.
+     * @param filters the filters of the query.
+     */
+    protected void applyPaging( Query query, WebMetadata metadata, WebOptions options, List<String> filters )
+        throws QueryParserException
+    {
+        Query countQuery = queryService.getQueryFromUrl( getEntityClass(), filters, new ArrayList<>(), options.getRootJunction() );
+        countQuery.setUser( query.getUser() );
+        countQuery.setDefaults( query.getDefaults() );
+        countQuery.setObjects( query.getObjects() );
+
+        Pager pager = new Pager( options.getPage(), queryService.count( countQuery ), options.getPageSize() );
+
+        query.setFirstResult( pager.getOffset() );
+        query.setMaxResults( pager.getPageSize() );
+
+        metadata.setPager( pager );
+    }
+
     private List<T> getEntity( String uid )
     {
         return getEntity( uid, NO_WEB_OPTIONS );
@@ -33,6 +33,7 @@ import static org.hisp.dhis.common.DimensionalObjectUtils.getItemsFromParam;
 import java.util.Date;
 import java.util.Set;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.hisp.dhis.analytics.*;
@@ -41,8 +42,10 @@ import org.hisp.dhis.common.*;
 import org.hisp.dhis.common.cache.CacheStrategy;
 import org.hisp.dhis.dxf2.datavalueset.DataValueSet;
 import org.hisp.dhis.system.grid.GridUtils;
+import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.webapi.mvc.annotation.ApiVersion;
 import org.hisp.dhis.webapi.utils.ContextUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -67,12 +70,15 @@ public class AnalyticsController
 
     private final ContextUtils contextUtils;
 
+    private final CurrentUserService currentUserService;
+
     public AnalyticsController( DataQueryService dataQueryService, AnalyticsService analyticsService,
-        ContextUtils contextUtils )
+        ContextUtils contextUtils, CurrentUserService currentUserService )
     {
         this.dataQueryService = dataQueryService;
         this.analyticsService = analyticsService;
         this.contextUtils = contextUtils;
+        this.currentUserService = currentUserService;
     }
 
     // -------------------------------------------------------------------------
@@ -129,6 +135,14 @@ public class AnalyticsController
         DataQueryParams params = dataQueryService.getFromRequest( request );
 
         contextUtils.configureAnalyticsResponse( response, ContextUtils.CONTENT_TYPE_JSON, CacheStrategy.RESPECT_SYSTEM_SETTING, null, false, params.getLatestEndDate() );
+
+        HttpServletRequest servletRequest = ContextUtils.getRequest();
+
+        if ( ContextUtils.isNotModifiedDeep( servletRequest, response, getEtag( params, servletRequest ) ) )
+        {
+            return null;
+        }
+
         return analyticsService.getAggregatedDataValues( params, getItemsFromParam( columns ), getItemsFromParam( rows ) );
     }
 
@@ -690,4 +704,22 @@ public class AnalyticsController
     {
         return AnalyticsTableType.values();
     }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns a deep ETag for the given query, which is valid until analytics
+     * tables are generated again or metadata which responses are computed from
+     * is updated. The query string and accept header cover
+     * request parameters which are not part of the query key, such as the
+     * layout and JSONP callback.
+     */
+    private String getEtag( DataQueryParams params, HttpServletRequest servletRequest )
+    {
+        String queryKey = params.getKey() + servletRequest.getQueryString() + servletRequest.getHeader( HttpHeaders.ACCEPT );
+
+        return contextUtils.getAnalyticsEtag( queryKey, currentUserService.getCurrentUsername() );
+    }
 }
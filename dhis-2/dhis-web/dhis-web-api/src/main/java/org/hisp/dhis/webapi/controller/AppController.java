@@ -30,10 +30,16 @@ package org.hisp.dhis.webapi.controller;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import javax.servlet.http.HttpServletRequest;
@@ -49,7 +55,6 @@ import org.hisp.dhis.dxf2.webmessage.WebMessageException;
 import org.hisp.dhis.dxf2.webmessage.WebMessageUtils;
 import org.hisp.dhis.hibernate.exception.ReadAccessDeniedException;
 import org.hisp.dhis.i18n.I18nManager;
-import org.hisp.dhis.render.DefaultRenderService;
 import org.hisp.dhis.render.RenderService;
 import org.hisp.dhis.util.DateUtils;
 import org.hisp.dhis.webapi.mvc.annotation.ApiVersion;
@@ -57,6 +62,8 @@ import org.hisp.dhis.webapi.service.ContextService;
 import org.hisp.dhis.webapi.utils.ContextUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -70,7 +77,9 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
 
 /**
  * @author Lars Helge Overland
@@ -83,6 +92,24 @@ public class AppController
     public static final String RESOURCE_PATH = "/apps";
     public final Pattern REGEX_REMOVE_PROTOCOL = Pattern.compile( ".+:/+" );
 
+    /**
+     * Matches file names with a content hash, such as main.3f2a9c1b.chunk.js,
+     * which are safe to cache forever.
+     */
+    private static final Pattern REGEX_HASHED_FILENAME = Pattern.compile( "[.-][0-9a-f]{8,}(\\.chunk)?\\.[a-z0-9]+$" );
+
+    private static final String CACHE_CONTROL_IMMUTABLE = CacheControl.maxAge( 365, TimeUnit.DAYS ).cachePrivate().getHeaderValue() + ", immutable";
+
+    /**
+     * Precompressed variants by content encoding, in order of preference.
+     */
+    private static final Map<String, String> PRECOMPRESSED_EXTENSIONS = ImmutableMap.of( "br", ".br", "gzip", ".gz" );
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private static final Log log = LogFactory.getLog( AppController.class );
 
     @Autowired
@@ -193,18 +220,18 @@ public class AppController
         // Handling of 'manifest.webapp'
         if ( "manifest.webapp".equals( pageName ) )
         {
-            // If request was for manifest.webapp, check for * and replace with host
-            if ( "*".equals( application.getActivities().getDhis().getHref() ) )
-            {
-                String contextPath = ContextUtils.getContextPath( request );
+            byte[] manifest = appManager.getAppManifest( application, ContextUtils.getContextPath( request ) );
 
-                log.debug( String.format( "Manifest context path: '%s'", contextPath ) );
+            String eTag = "\"" + Hashing.md5().hashBytes( manifest ).toString() + "\"";
 
-                application.getActivities().getDhis().setHref( contextPath );
+            if ( new ServletWebRequest( request, response ).checkNotModified( eTag ) )
+            {
+                return;
             }
 
-            DefaultRenderService.getJsonMapper()
-                .writeValue( response.getOutputStream(), application );
+            response.setContentType( ContextUtils.CONTENT_TYPE_JSON );
+            response.setContentLength( manifest.length );
+            response.getOutputStream().write( manifest );
         }
         // Any other page
         else
@@ -221,9 +248,39 @@ public class AppController
             String filename = resource.getFilename();
             log.debug( String.format( "App filename: '%s'", filename ) );
 
-            if ( new ServletWebRequest( request, response ).checkNotModified( resource.lastModified() ) )
+            // Serve precompressed variant if present and accepted by client
+
+            String contentEncoding = null;
+            String acceptEncoding = request.getHeader( HttpHeaders.ACCEPT_ENCODING );
+
+            for ( Map.Entry<String, String> encoding : PRECOMPRESSED_EXTENSIONS.entrySet() )
+            {
+                Resource encodedResource = isAcceptEncoding( acceptEncoding, encoding.getKey() ) ?
+                    appManager.getAppResource( application, pageName + encoding.getValue() ) : null;
+
+                if ( encodedResource != null )
+                {
+                    resource = encodedResource;
+                    contentEncoding = encoding.getKey();
+                    break;
+                }
+            }
+
+            long lastModified = resource.lastModified();
+            long contentLength = resource.contentLength();
+
+            String eTag = "\"" + Long.toHexString( lastModified ) + "-" + Long.toHexString( contentLength ) +
+                ( contentEncoding != null ? "-" + contentEncoding : "" ) + "\"";
+
+            response.setHeader( HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING );
+
+            if ( filename != null && REGEX_HASHED_FILENAME.matcher( filename ).find() )
+            {
+                response.setHeader( HttpHeaders.CACHE_CONTROL, CACHE_CONTROL_IMMUTABLE );
+            }
+
+            if ( new ServletWebRequest( request, response ).checkNotModified( eTag, lastModified ) )
             {
-                response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
                 return;
             }
 
@@ -234,9 +291,14 @@ public class AppController
                 response.setContentType( mimeType );
             }
 
-            response.setContentLength( (int) resource.contentLength() );
-            response.setHeader( "Last-Modified", DateUtils.getHttpDateString( new Date( resource.lastModified() ) ) );
-            StreamUtils.copy( resource.getInputStream(), response.getOutputStream() );
+            if ( contentEncoding != null )
+            {
+                response.setHeader( HttpHeaders.CONTENT_ENCODING, contentEncoding );
+            }
+
+            response.setContentLengthLong( contentLength );
+            response.setHeader( "Last-Modified", DateUtils.getHttpDateString( new Date( lastModified ) ) );
+            writeResource( resource, contentLength, request, response );
         }
     }
 
@@ -280,6 +342,70 @@ public class AppController
     // Helpers
     //--------------------------------------------------------------------------
 
+    /**
+     * Writes the given resource to the response. Local files are handed to the
+     * servlet container for sendfile where supported, and are otherwise
+     * transferred through a file channel.
+     */
+    private void writeResource( Resource resource, long contentLength, HttpServletRequest request, HttpServletResponse response )
+        throws IOException
+    {
+        if ( !resource.isFile() )
+        {
+            try ( InputStream in = resource.getInputStream() )
+            {
+                StreamUtils.copy( in, response.getOutputStream() );
+            }
+
+            return;
+        }
+
+        File file = resource.getFile();
+
+        if ( Boolean.TRUE.equals( request.getAttribute( SENDFILE_SUPPORT ) ) )
+        {
+            request.setAttribute( SENDFILE_FILENAME, file.getCanonicalPath() );
+            request.setAttribute( SENDFILE_START, 0L );
+            request.setAttribute( SENDFILE_END, contentLength );
+            return;
+        }
+
+        try ( FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ ) )
+        {
+            WritableByteChannel out = Channels.newChannel( response.getOutputStream() );
+            long position = 0;
+
+            while ( position < contentLength )
+            {
+                position += channel.transferTo( position, contentLength - position, out );
+            }
+        }
+    }
+
+    /**
+     * Indicates whether the given Accept-Encoding header value accepts the
+     * given encoding, i.e. lists it without a zero quality value.
+     */
+    private boolean isAcceptEncoding( String acceptEncoding, String encoding )
+    {
+        if ( acceptEncoding == null )
+        {
+            return false;
+        }
+
+        for ( String token : acceptEncoding.split( "," ) )
+        {
+            String[] parts = token.trim().split( ";" );
+
+            if ( parts[0].trim().equalsIgnoreCase( encoding ) )
+            {
+                return parts.length == 1 || !parts[1].trim().matches( "q=0(\\.0*)?" );
+            }
+        }
+
+        return false;
+    }
+
     private String getUrl( String path, String app )
     {
         String prefix = RESOURCE_PATH + "/" + app + "/";
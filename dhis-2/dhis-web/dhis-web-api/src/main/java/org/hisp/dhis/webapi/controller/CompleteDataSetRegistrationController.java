@@ -320,7 +320,7 @@ public class CompleteDataSetRegistrationController
 
         JobConfiguration jobId = new JobConfiguration( "inMemoryCompleteDataSetRegistrationImport", COMPLETE_DATA_SET_REGISTRATION_IMPORT, currentUserService.getCurrentUser().getUid(), true );
 
-        schedulingManager.executeJob(
+        schedulingManager.executeJob( COMPLETE_DATA_SET_REGISTRATION_IMPORT,
             new ImportCompleteDataSetRegistrationsTask(
                 registrationExchangeService, sessionFactory, tmpFile.getLeft(), tmpFile.getRight(), importOptions, format,
                 jobId )
@@ -28,6 +28,7 @@ package org.hisp.dhis.webapi.controller;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.common.collect.Sets;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -36,6 +37,7 @@ import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.common.DhisApiVersion;
 import org.hisp.dhis.common.Grid;
 import org.hisp.dhis.common.GridHeader;
+import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.common.cache.CacheStrategy;
 import org.hisp.dhis.dataanalysis.DataAnalysisParams;
 import org.hisp.dhis.dataanalysis.DataAnalysisService;
@@ -47,6 +49,7 @@ import org.hisp.dhis.dataanalysis.UpdateFollowUpForDataValuesRequest;
 import org.hisp.dhis.dataanalysis.ValidationRuleExpressionDetails;
 import org.hisp.dhis.dataanalysis.ValidationRulesAnalysisParams;
 import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.dataelement.DataElementGroup;
 import org.hisp.dhis.dataelement.DataElementOperand;
 import org.hisp.dhis.dataelement.DataElementService;
 import org.hisp.dhis.dataset.DataSetService;
@@ -61,8 +64,12 @@ import org.hisp.dhis.i18n.I18nFormat;
 import org.hisp.dhis.i18n.I18nManager;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.outlierdetection.OutlierDetectionAlgorithm;
+import org.hisp.dhis.outlierdetection.OutlierDetectionParams;
+import org.hisp.dhis.outlierdetection.OutlierDetectionService;
 import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodService;
+import org.hisp.dhis.render.DefaultRenderService;
 import org.hisp.dhis.system.grid.GridUtils;
 import org.hisp.dhis.system.grid.ListGrid;
 import org.hisp.dhis.validation.ValidationAnalysisParams;
@@ -90,6 +97,8 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -162,6 +171,12 @@ public class DataAnalysisController
     @Autowired
     private ExpressionService expressionService;
 
+    @Autowired
+    private OutlierDetectionService outlierDetectionService;
+
+    @Autowired
+    private IdentifiableObjectManager idObjectManager;
+
     @RequestMapping( value = "/validationRules", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE )
     @ResponseStatus( HttpStatus.OK )
     public @ResponseBody
@@ -335,6 +350,101 @@ public class DataAnalysisController
         return deflatedValuesListToResponse( dataValues );
     }
 
+    /**
+     * Streams a page of outlier values for the given data elements and data
+     * element groups, ordered by descending score. A page holds at most
+     * {@code pageSize} values, and {@code nextPage} in the pager indicates
+     * whether more values exist.
+     */
+    @RequestMapping( value = "/outliers", method = RequestMethod.GET )
+    public void getOutlierValues(
+        @RequestParam( required = false ) Set<String> de,
+        @RequestParam( required = false ) Set<String> deg,
+        @RequestParam Set<String> ou,
+        @RequestParam Date startDate,
+        @RequestParam Date endDate,
+        @RequestParam( required = false ) Date dataStartDate,
+        @RequestParam( defaultValue = "Z_SCORE" ) OutlierDetectionAlgorithm algorithm,
+        @RequestParam( defaultValue = "3.0" ) double threshold,
+        @RequestParam( defaultValue = "1" ) int page,
+        @RequestParam( defaultValue = "50" ) int pageSize,
+        HttpServletResponse response )
+        throws IOException, WebMessageException
+    {
+        if ( page < 1 )
+        {
+            throw new WebMessageException( WebMessageUtils.conflict( "Page must be one or greater" ) );
+        }
+
+        if ( pageSize < 1 || pageSize >= OutlierDetectionParams.MAX_RESULTS_LIMIT )
+        {
+            throw new WebMessageException( WebMessageUtils.conflict( "Page size must be between 1 and " +
+                ( OutlierDetectionParams.MAX_RESULTS_LIMIT - 1 ) ) );
+        }
+
+        Set<DataElement> dataElements = new HashSet<>();
+
+        if ( de != null )
+        {
+            dataElements.addAll( idObjectManager.getByUid( DataElement.class, de ) );
+        }
+
+        if ( deg != null )
+        {
+            dataElementService.getDataElementGroupsByUid( deg ).stream()
+                .map( DataElementGroup::getMembers )
+                .forEach( dataElements::addAll );
+        }
+
+        // Fetch one value beyond the page to tell whether a next page exists
+
+        OutlierDetectionParams params = new OutlierDetectionParams()
+            .setDataElements( dataElements )
+            .setOrganisationUnits( new HashSet<>( idObjectManager.getByUid( OrganisationUnit.class, ou ) ) )
+            .setStartDate( startDate )
+            .setEndDate( endDate )
+            .setDataStartDate( dataStartDate )
+            .setAlgorithm( algorithm )
+            .setThreshold( threshold )
+            .setOffset( ( page - 1 ) * pageSize )
+            .setMaxResults( pageSize + 1 );
+
+        outlierDetectionService.validate( params );
+
+        response.setContentType( ContextUtils.CONTENT_TYPE_JSON );
+
+        try ( JsonGenerator generator = DefaultRenderService.getJsonMapper().getFactory()
+            .createGenerator( response.getOutputStream() ) )
+        {
+            int[] count = { 0 };
+
+            generator.writeStartObject();
+            generator.writeArrayFieldStart( "outlierValues" );
+
+            outlierDetectionService.getOutlierValues( params, outlier -> {
+                if ( ++count[0] <= pageSize )
+                {
+                    try
+                    {
+                        generator.writeObject( outlier );
+                    }
+                    catch ( IOException ex )
+                    {
+                        throw new UncheckedIOException( ex );
+                    }
+                }
+            } );
+
+            generator.writeEndArray();
+            generator.writeObjectFieldStart( "pager" );
+            generator.writeNumberField( "page", page );
+            generator.writeNumberField( "pageSize", pageSize );
+            generator.writeBooleanField( "nextPage", count[0] > pageSize );
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+    }
+
     @RequestMapping( value = "/followup", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE )
     @ResponseStatus( HttpStatus.OK )
     public @ResponseBody
@@ -53,6 +53,7 @@ import org.hisp.dhis.dataset.DataSetService;
 import org.hisp.dhis.datavalue.AggregateAccessManager;
 import org.hisp.dhis.datavalue.DataValue;
 import org.hisp.dhis.datavalue.DataValueService;
+import org.hisp.dhis.dxf2.datavalueset.DataValueSetService;
 import org.hisp.dhis.dxf2.utils.InputUtils;
 import org.hisp.dhis.dxf2.webmessage.WebMessage;
 import org.hisp.dhis.dxf2.webmessage.WebMessageException;
@@ -75,6 +76,7 @@ import org.hisp.dhis.system.util.ValidationUtils;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.webapi.mvc.annotation.ApiVersion;
+import org.hisp.dhis.webapi.utils.ContextUtils;
 import org.jclouds.rest.AuthorizationException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
@@ -98,6 +100,8 @@ public class DataValueController
 {
     public static final String RESOURCE_PATH = "/dataValues";
 
+    private static final int MAX_CHANGES_LIMIT = 50000;
+
     // ---------------------------------------------------------------------
     // Dependencies
     // ---------------------------------------------------------------------
@@ -138,6 +142,9 @@ public class DataValueController
     @Autowired
     private AggregateAccessManager accessManager;
 
+    @Autowired
+    private DataValueSetService dataValueSetService;
+
     // ---------------------------------------------------------------------
     // POST
     // ---------------------------------------------------------------------
@@ -492,6 +499,41 @@ public class DataValueController
         return value;
     }
 
+    // ---------------------------------------------------------------------
+    // GET changes
+    // ---------------------------------------------------------------------
+
+    /**
+     * Streams entries of the data value change log with a sequence number
+     * greater than {@code since}. Clients pass the {@code lastSequence} of the
+     * response as {@code since} on the next request to pull subsequent changes.
+     * Only changes within the data capture organisation units, data sets and
+     * attribute option combos the current user can read data for are included.
+     */
+    @PreAuthorize( "hasRole('ALL') or hasRole('F_EXPORT_DATA')" )
+    @RequestMapping( value = "/changes", method = RequestMethod.GET )
+    public void getDataValueChanges(
+        @RequestParam( defaultValue = "0" ) long since,
+        @RequestParam( defaultValue = "10000" ) int limit,
+        HttpServletResponse response )
+        throws IOException, WebMessageException
+    {
+        if ( since < 0 )
+        {
+            throw new WebMessageException( WebMessageUtils.conflict( "Since must be zero or greater" ) );
+        }
+
+        if ( limit < 1 || limit > MAX_CHANGES_LIMIT )
+        {
+            throw new WebMessageException( WebMessageUtils.conflict( "Limit must be between 1 and " + MAX_CHANGES_LIMIT ) );
+        }
+
+        response.setContentType( ContextUtils.CONTENT_TYPE_JSON );
+        setNoStore( response );
+
+        dataValueSetService.writeDataValueChangesJson( since, limit, response.getOutputStream() );
+    }
+
     // ---------------------------------------------------------------------
     // GET file
     // ---------------------------------------------------------------------
@@ -43,13 +43,15 @@ import org.hisp.dhis.dxf2.datavalueset.DataValueSetService;
 import org.hisp.dhis.dxf2.datavalueset.tasks.ImportDataValueTask;
 import org.hisp.dhis.dxf2.importsummary.ImportSummary;
 import org.hisp.dhis.render.RenderService;
+import org.hisp.dhis.scheduling.ImportJobQueue;
 import org.hisp.dhis.scheduling.JobConfiguration;
-import org.hisp.dhis.scheduling.SchedulingManager;
+import org.hisp.dhis.system.notification.Notifier;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.webapi.mvc.annotation.ApiVersion;
 import org.hisp.dhis.webapi.service.WebMessageService;
 import org.hisp.dhis.webapi.utils.ContextUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.converter.HttpMessageNotWritableException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
@@ -67,6 +69,7 @@ import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import static org.hisp.dhis.dxf2.webmessage.WebMessageUtils.jobConfigurationReport;
+import static org.hisp.dhis.dxf2.webmessage.WebMessageUtils.tooManyRequests;
 import static org.hisp.dhis.scheduling.JobType.DATAVALUE_IMPORT;
 import static org.hisp.dhis.webapi.utils.ContextUtils.*;
 
@@ -95,7 +98,10 @@ public class DataValueSetController
     private CurrentUserService currentUserService;
 
     @Autowired
-    private SchedulingManager schedulingManager;
+    private ImportJobQueue importJobQueue;
+
+    @Autowired
+    private Notifier notifier;
 
     @Autowired
     private SessionFactory sessionFactory;
@@ -339,7 +345,9 @@ public class DataValueSetController
     // -------------------------------------------------------------------------
 
     /**
-     * Starts an asynchronous import task.
+     * Starts an asynchronous import task. The payload is kept in a temporary
+     * file until the task runs. Responds with 429 and a Retry-After header if
+     * the import queue is full.
      *
      * @param importOptions the ImportOptions.
      * @param format        the resource representation format.
@@ -350,38 +358,42 @@ public class DataValueSetController
     private void startAsyncImport( ImportOptions importOptions, String format, HttpServletRequest request, HttpServletResponse response )
         throws IOException
     {
-        InputStream inputStream = saveTmp( request.getInputStream() );
+        File payload = saveTmp( request.getInputStream() );
 
         JobConfiguration jobId = new JobConfiguration( "dataValueImport", DATAVALUE_IMPORT, currentUserService.getCurrentUser().getUid(), true );
-        schedulingManager.executeJob(
-            new ImportDataValueTask( dataValueSetService, adxDataService, sessionFactory, inputStream, importOptions,
-                jobId, format ) );
+
+        if ( !importJobQueue.submit( jobId, new ImportDataValueTask( dataValueSetService, adxDataService,
+            sessionFactory, payload, importOptions, jobId, format, notifier ) ) )
+        {
+            payload.delete();
+
+            response.setHeader( HttpHeaders.RETRY_AFTER, String.valueOf( importJobQueue.getRetryAfterSeconds( DATAVALUE_IMPORT ) ) );
+            webMessageService.send( tooManyRequests( "Too many data value imports are queued, try again later" ), response, request );
+            return;
+        }
 
         response.setHeader( "Location", ContextUtils.getRootPath( request ) + "/system/tasks/" + DATAVALUE_IMPORT );
         webMessageService.send( jobConfigurationReport( jobId ), response, request );
     }
 
     /**
-     * Writes the input stream to a temporary file, and returns a new input
-     * stream connected to the file.
+     * Writes the input stream to a temporary file.
      *
      * @param in the InputStream.
-     * @return an InputStream.
+     * @return the file.
      * @throws IOException
      */
-    private InputStream saveTmp( InputStream in )
+    private File saveTmp( InputStream in )
         throws IOException
     {
         File tmpFile = File.createTempFile( "dvs", null );
 
-        tmpFile.deleteOnExit();
-
         try ( FileOutputStream out = new FileOutputStream( tmpFile ) )
         {
             IOUtils.copy( in, out );
         }
 
-        return new BufferedInputStream( new FileInputStream( tmpFile ) );
+        return tmpFile;
     }
 
     /**
@@ -94,7 +94,7 @@ public class PredictionController
         {
             JobConfiguration jobId = new JobConfiguration( "inMemoryPrediction", PREDICTOR, currentUserService.getCurrentUser().getUid(), true );
 
-            schedulingManager.executeJob( new PredictionTask( startDate, endDate, predictors, predictorGroups, predictionService, jobId ) );
+            schedulingManager.executeJob( PREDICTOR, new PredictionTask( startDate, endDate, predictors, predictorGroups, predictionService, jobId ) );
 
             response.setHeader( "Location", ContextUtils.getRootPath( request ) + "/system/tasks/" + PREDICTOR );
 
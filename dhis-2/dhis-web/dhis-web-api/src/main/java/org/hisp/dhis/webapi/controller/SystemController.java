@@ -66,6 +66,7 @@ import org.hisp.dhis.system.notification.Notification;
 import org.hisp.dhis.system.notification.Notifier;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.webapi.mvc.annotation.ApiVersion;
+import org.hisp.dhis.webapi.service.JobProgressService;
 import org.hisp.dhis.webapi.utils.ContextUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -78,6 +79,8 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.fasterxml.jackson.dataformat.csv.CsvFactory;
 import com.fasterxml.jackson.dataformat.csv.CsvGenerator;
@@ -112,6 +115,9 @@ public class SystemController
     @Autowired
     private RenderService renderService;
 
+    @Autowired
+    private JobProgressService jobProgressService;
+
     @Autowired
     private I18nManager i18nManager;
 
@@ -255,6 +261,19 @@ public class SystemController
         renderService.toJson( response.getOutputStream(), notifications );
     }
 
+    @RequestMapping( value = "/tasks/{jobType}/{jobId}", method = RequestMethod.GET, produces = MediaType.TEXT_EVENT_STREAM_VALUE )
+    public SseEmitter getTaskEventsByUid( @PathVariable( "jobType" ) String jobType, @PathVariable( "jobId" ) String jobId,
+        HttpServletRequest request, HttpServletResponse response )
+    {
+        // Events must reach the client as they are sent, not when the response ends
+
+        ShallowEtagHeaderFilter.disableContentCaching( request );
+        setNoStore( response );
+        response.setHeader( "X-Accel-Buffering", "no" );
+
+        return jobProgressService.subscribe( JobType.valueOf( jobType.toUpperCase() ), jobId );
+    }
+
     // -------------------------------------------------------------------------
     // Tasks summary
     // -------------------------------------------------------------------------
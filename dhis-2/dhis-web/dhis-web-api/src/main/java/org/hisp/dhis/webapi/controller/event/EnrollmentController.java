@@ -374,7 +374,7 @@ public class EnrollmentController
     {
         JobConfiguration jobId = new JobConfiguration( "inMemoryEventImport",
             ENROLLMENT_IMPORT, currentUserService.getCurrentUser().getUid(), true );
-        schedulingManager.executeJob( new ImportEnrollmentsTask( enrollments, enrollmentService, importOptions, jobId ) );
+        schedulingManager.executeJob( ENROLLMENT_IMPORT, new ImportEnrollmentsTask( enrollments, enrollmentService, importOptions, jobId ) );
 
         response.setHeader( "Location", ContextUtils.getRootPath( request ) + "/system/tasks/" + ENROLLMENT_IMPORT );
         webMessageService.send( jobConfigurationReport( jobId ), response, request );
@@ -29,8 +29,11 @@ package org.hisp.dhis.webapi.controller.event;
  */
 
 import static org.hisp.dhis.dxf2.webmessage.WebMessageUtils.jobConfigurationReport;
+import static org.hisp.dhis.dxf2.webmessage.WebMessageUtils.tooManyRequests;
 import static org.hisp.dhis.scheduling.JobType.EVENT_IMPORT;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -40,6 +43,7 @@ import java.util.zip.GZIPOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.io.IOUtils;
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.common.*;
 import org.hisp.dhis.common.cache.CacheStrategy;
@@ -75,11 +79,12 @@ import org.hisp.dhis.program.ProgramStageInstanceService;
 import org.hisp.dhis.program.ProgramStatus;
 import org.hisp.dhis.query.Order;
 import org.hisp.dhis.render.RenderService;
+import org.hisp.dhis.scheduling.ImportJobQueue;
 import org.hisp.dhis.scheduling.JobConfiguration;
-import org.hisp.dhis.scheduling.SchedulingManager;
 import org.hisp.dhis.schema.Schema;
 import org.hisp.dhis.schema.SchemaService;
 import org.hisp.dhis.system.grid.GridUtils;
+import org.hisp.dhis.system.notification.Notifier;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.webapi.mvc.annotation.ApiVersion;
 import org.hisp.dhis.webapi.service.ContextService;
@@ -119,7 +124,10 @@ public class EventController
     private CurrentUserService currentUserService;
 
     @Autowired
-    private SchedulingManager schedulingManager;
+    private ImportJobQueue importJobQueue;
+
+    @Autowired
+    private Notifier notifier;
 
     @Autowired
     private EventService eventService;
@@ -930,8 +938,7 @@ public class EventController
         }
         else
         {
-            List<Event> events = eventService.getEventsXml( inputStream );
-            startAsyncImport( importOptions, events, request, response );
+            startAsyncImport( importOptions, inputStream, ImportEventsTask.FORMAT_XML, request, response );
         }
     }
 
@@ -975,8 +982,7 @@ public class EventController
         }
         else
         {
-            List<Event> events = eventService.getEventsJson( inputStream );
-            startAsyncImport( importOptions, events, request, response );
+            startAsyncImport( importOptions, inputStream, ImportEventsTask.FORMAT_JSON, request, response );
         }
     }
 
@@ -1139,7 +1145,55 @@ public class EventController
     {
         JobConfiguration jobId = new JobConfiguration( "inMemoryEventImport",
             EVENT_IMPORT, currentUserService.getCurrentUser().getUid(), true );
-        schedulingManager.executeJob( new ImportEventsTask( events, eventService, importOptions, jobId ) );
+
+        submitAsyncImport( jobId, new ImportEventsTask( events, eventService, importOptions, jobId, notifier ), null, request, response );
+    }
+
+    /**
+     * Starts an asynchronous import task for the given payload. The payload is
+     * kept in a temporary file and parsed when the task runs.
+     *
+     * @param importOptions the ImportOptions.
+     * @param inputStream   the payload.
+     * @param format        the payload format.
+     * @param request       the HttpRequest.
+     * @param response      the HttpResponse.
+     */
+    private void startAsyncImport( ImportOptions importOptions, InputStream inputStream, String format,
+        HttpServletRequest request, HttpServletResponse response )
+        throws IOException
+    {
+        File payload = File.createTempFile( "events", null );
+
+        try ( FileOutputStream out = new FileOutputStream( payload ) )
+        {
+            IOUtils.copy( inputStream, out );
+        }
+
+        JobConfiguration jobId = new JobConfiguration( "inMemoryEventImport",
+            EVENT_IMPORT, currentUserService.getCurrentUser().getUid(), true );
+
+        submitAsyncImport( jobId, new ImportEventsTask( payload, format, eventService, importOptions, jobId, notifier ), payload, request, response );
+    }
+
+    /**
+     * Submits the given import task to the import queue. Responds with 429 and
+     * a Retry-After header if the queue is full.
+     */
+    private void submitAsyncImport( JobConfiguration jobId, ImportEventsTask task, File payload,
+        HttpServletRequest request, HttpServletResponse response )
+    {
+        if ( !importJobQueue.submit( jobId, task ) )
+        {
+            if ( payload != null )
+            {
+                payload.delete();
+            }
+
+            response.setHeader( HttpHeaders.RETRY_AFTER, String.valueOf( importJobQueue.getRetryAfterSeconds( EVENT_IMPORT ) ) );
+            webMessageService.send( tooManyRequests( "Too many event imports are queued, try again later" ), response, request );
+            return;
+        }
 
         response.setHeader( "Location", ContextUtils.getRootPath( request ) + "/system/tasks/" + EVENT_IMPORT );
         webMessageService.send( jobConfigurationReport( jobId ), response, request );
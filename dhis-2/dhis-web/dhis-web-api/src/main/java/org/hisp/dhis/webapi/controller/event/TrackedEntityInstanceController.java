@@ -817,7 +817,7 @@ public class TrackedEntityInstanceController
     {
         JobConfiguration jobId = new JobConfiguration( "inMemoryEventImport",
             TEI_IMPORT, currentUserService.getCurrentUser().getUid(), true );
-        schedulingManager.executeJob( new ImportTrackedEntitiesTask( trackedEntityInstances, trackedEntityInstanceService, importOptions, jobId ) );
+        schedulingManager.executeJob( TEI_IMPORT, new ImportTrackedEntitiesTask( trackedEntityInstances, trackedEntityInstanceService, importOptions, jobId ) );
 
         response.setHeader( "Location", ContextUtils.getRootPath( request ) + "/system/tasks/" + TEI_IMPORT );
         webMessageService.send( jobConfigurationReport( jobId ), response, request );
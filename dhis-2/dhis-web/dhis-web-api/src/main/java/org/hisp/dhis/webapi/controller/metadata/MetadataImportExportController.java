@@ -219,7 +219,7 @@ public class MetadataImportExportController
     {
         MetadataAsyncImporter metadataImporter = metadataAsyncImporterFactory.getObject();
         metadataImporter.setParams( params );
-        schedulingManager.executeJob( metadataImporter );
+        schedulingManager.executeJob( METADATA_IMPORT, metadataImporter );
 
         response.setHeader( "Location", ContextUtils.getRootPath( request ) + "/system/tasks/" + METADATA_IMPORT );
         webMessageService.send( jobConfigurationReport( params.getId() ), response, request );
@@ -230,7 +230,7 @@ public class MetadataImportExportController
         GmlAsyncImporter gmlImporter = gmlAsyncImporterFactory.getObject();
         gmlImporter.setInputStream( request.getInputStream() );
         gmlImporter.setParams( params );
-        schedulingManager.executeJob( gmlImporter );
+        schedulingManager.executeJob( GML_IMPORT, gmlImporter );
 
         response.setHeader( "Location", ContextUtils.getRootPath( request ) + "/system/tasks/" + GML_IMPORT );
         webMessageService.send( jobConfigurationReport( params.getId() ), response, request );
@@ -151,6 +151,11 @@ public class OrganisationUnitController
             query.setObjects( objects );
         }
 
+        if ( isPagingInQuery( options ) )
+        {
+            applyPaging( query, metadata, options, filters );
+        }
+
         List<OrganisationUnit> list = (List<OrganisationUnit>) queryService.query( query );
 
         // ---------------------------------------------------------------------
@@ -118,6 +118,12 @@ public class UserController
     // GET
     // -------------------------------------------------------------------------
 
+    @Override
+    protected String getObjectListEtag( HttpServletRequest request, List<String> fields, User currentUser )
+    {
+        return null; // User credentials, e.g. last login, change without updating the user
+    }
+
     @Override
     @SuppressWarnings( "unchecked" )
     protected List<User> getEntityList( WebMetadata metadata, WebOptions options, List<String> filters,
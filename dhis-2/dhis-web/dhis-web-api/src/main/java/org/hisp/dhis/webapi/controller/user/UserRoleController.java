@@ -77,6 +77,12 @@ public class UserRoleController
         return entityList;
     }
 
+    @Override
+    protected boolean isPagingInQuery( WebOptions options )
+    {
+        return super.isPagingInQuery( options ) && !Boolean.parseBoolean( options.getOptions().get( "canIssue" ) );
+    }
+
     @RequestMapping( value = "/{id}/users/{userId}", method = { RequestMethod.POST, RequestMethod.PUT } )
     @ResponseStatus( HttpStatus.NO_CONTENT )
     public void addUserToRole( @PathVariable( value = "id" ) String pvId, @PathVariable( "userId" ) String pvUserId, HttpServletResponse response ) throws WebMessageException
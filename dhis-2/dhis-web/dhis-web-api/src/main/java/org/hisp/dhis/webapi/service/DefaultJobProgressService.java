@@ -0,0 +1,428 @@
+package org.hisp.dhis.webapi.service;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.render.RenderService;
+import org.hisp.dhis.scheduling.JobType;
+import org.hisp.dhis.system.notification.Notification;
+import org.hisp.dhis.system.notification.NotificationListener;
+import org.hisp.dhis.system.notification.Notifier;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Job progress service which pushes notifications to clients through
+ * {@link Notifier} listeners.
+ * <p>
+ * Events are written by a small pool of writer threads, so that a job never
+ * blocks on a client and no thread is held per open stream. The events of a
+ * stream are written in order, one at a time, from a bounded queue. Events
+ * for a stream which falls behind are dropped rather than queued, so that a
+ * slow client neither grows the heap nor delays other streams for longer than
+ * its current write.
+ * <p>
+ * A scheduler thread periodically revisits every open stream to send a
+ * heartbeat, which detects clients which went away, and to pick up
+ * notifications which were dropped or not reported to a local listener, such
+ * as those of a job running on another node of a cluster.
+ */
+@Service
+public class DefaultJobProgressService
+    implements JobProgressService
+{
+    private static final Log log = LogFactory.getLog( DefaultJobProgressService.class );
+
+    private static final long EMITTER_TIMEOUT = TimeUnit.MINUTES.toMillis( 30 );
+
+    private static final long SWEEP_INTERVAL = TimeUnit.SECONDS.toMillis( 15 );
+
+    private static final int WRITER_THREADS = 4;
+
+    private static final int MAX_PENDING_EVENTS = 32;
+
+    private static final String EVENT_NOTIFICATION = "notification";
+
+    private static final String EVENT_SUMMARY = "summary";
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService scheduler;
+
+    private ExecutorService writers;
+
+    private final Notifier notifier;
+
+    private final RenderService renderService;
+
+    public DefaultJobProgressService( Notifier notifier, RenderService renderService )
+    {
+        checkNotNull( notifier );
+        checkNotNull( renderService );
+
+        this.notifier = notifier;
+        this.renderService = renderService;
+    }
+
+    @PostConstruct
+    public void init()
+    {
+        scheduler = Executors.newSingleThreadScheduledExecutor( new ThreadFactoryBuilder()
+            .setNameFormat( "job-progress-sweep-%d" ).setDaemon( true ).build() );
+
+        writers = Executors.newFixedThreadPool( WRITER_THREADS, new ThreadFactoryBuilder()
+            .setNameFormat( "job-progress-writer-%d" ).setDaemon( true ).build() );
+
+        scheduler.scheduleWithFixedDelay( this::sweep, SWEEP_INTERVAL, SWEEP_INTERVAL, TimeUnit.MILLISECONDS );
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        scheduler.shutdownNow();
+        writers.shutdownNow();
+
+        subscriptions.forEach( subscription -> subscription.emitter.complete() );
+    }
+
+    // -------------------------------------------------------------------------
+    // JobProgressService implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public SseEmitter subscribe( JobType jobType, String jobId )
+    {
+        SseEmitter emitter = new SseEmitter( EMITTER_TIMEOUT );
+
+        Subscription subscription = new Subscription( jobType, jobId, emitter );
+
+        emitter.onCompletion( subscription::close );
+        emitter.onTimeout( subscription::close );
+        emitter.onError( ex -> subscription.close() );
+
+        subscriptions.add( subscription );
+        notifier.addListener( jobType, jobId, subscription );
+
+        subscription.submit( subscription::catchUp );
+
+        return emitter;
+    }
+
+    private void sweep()
+    {
+        for ( Subscription subscription : subscriptions )
+        {
+            subscription.submit( subscription::sweep );
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive classes
+    // -------------------------------------------------------------------------
+
+    /**
+     * An open stream for a job. Tasks of a stream are run one at a time by a
+     * writer thread, so apart from {@link #close()} and the task queue, the
+     * state is only accessed by one thread at a time.
+     */
+    private class Subscription
+        implements NotificationListener
+    {
+        private final JobType jobType;
+
+        private final String jobId;
+
+        private final SseEmitter emitter;
+
+        private long lastTime = -1;
+
+        private long completedAt = 0;
+
+        private volatile boolean closed = false;
+
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private final AtomicInteger dropped = new AtomicInteger();
+
+        Subscription( JobType jobType, String jobId, SseEmitter emitter )
+        {
+            this.jobType = jobType;
+            this.jobId = jobId;
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void notification( Notification notification )
+        {
+            submit( () -> send( notification, false ) );
+        }
+
+        @Override
+        public void jobSummary( Object jobSummary )
+        {
+            submit( () -> finish( jobSummary ) );
+        }
+
+        /**
+         * Queues a task for this stream, or drops it if the stream has
+         * {@link #MAX_PENDING_EVENTS} tasks pending. Dropped notifications and
+         * summaries are picked up by the next sweep.
+         */
+        void submit( Runnable task )
+        {
+            if ( closed )
+            {
+                return;
+            }
+
+            if ( pending.incrementAndGet() > MAX_PENDING_EVENTS )
+            {
+                pending.decrementAndGet();
+                dropped.incrementAndGet();
+                return;
+            }
+
+            tasks.add( task );
+            scheduleDrain();
+        }
+
+        private void scheduleDrain()
+        {
+            if ( !tasks.isEmpty() && draining.compareAndSet( false, true ) )
+            {
+                try
+                {
+                    writers.execute( this::drain );
+                }
+                catch ( RejectedExecutionException ex )
+                {
+                    // Shutting down
+
+                    draining.set( false );
+                }
+            }
+        }
+
+        /**
+         * Runs the pending tasks of this stream in order, then hands the
+         * writer thread back to other streams.
+         */
+        private void drain()
+        {
+            try
+            {
+                Runnable task;
+
+                while ( !closed && (task = tasks.poll()) != null )
+                {
+                    pending.decrementAndGet();
+                    task.run();
+                }
+            }
+            catch ( RuntimeException ex )
+            {
+                log.warn( "Job progress stream failed: " + ex.getMessage() );
+
+                close();
+                emitter.completeWithError( ex );
+            }
+            finally
+            {
+                draining.set( false );
+            }
+
+            if ( closed )
+            {
+                tasks.clear();
+            }
+            else
+            {
+                scheduleDrain();
+            }
+        }
+
+        /**
+         * Sends the notifications of the job which were not sent yet, oldest
+         * first, and finishes the stream if the job has completed and its
+         * summary is available.
+         */
+        void catchUp()
+        {
+            List<Notification> notifications = notifier.getNotificationsByJobId( jobType, jobId ).stream()
+                .sorted( Comparator.comparing( Notification::getTime ) )
+                .collect( Collectors.toList() );
+
+            for ( Notification notification : notifications )
+            {
+                send( notification, true );
+            }
+
+            if ( completedAt > 0 )
+            {
+                Object jobSummary = notifier.getJobSummaryByJobId( jobType, jobId );
+
+                if ( jobSummary != null )
+                {
+                    finish( jobSummary );
+                }
+            }
+        }
+
+        /**
+         * Picks up missed notifications, and finishes the stream without a
+         * summary if none arrived within a sweep interval after completion.
+         * Otherwise sends a heartbeat.
+         */
+        void sweep()
+        {
+            if ( closed )
+            {
+                return;
+            }
+
+            int droppedEvents = dropped.getAndSet( 0 );
+
+            if ( droppedEvents > 0 )
+            {
+                log.debug( String.format( "Dropped %d events for slow job progress stream of job: %s", droppedEvents, jobId ) );
+            }
+
+            catchUp();
+
+            if ( completedAt > 0 && System.currentTimeMillis() - completedAt >= SWEEP_INTERVAL )
+            {
+                finish( null );
+            }
+            else
+            {
+                emit( SseEmitter.event().comment( "" ) );
+            }
+        }
+
+        private void send( Notification notification, boolean newerOnly )
+        {
+            long time = notification.getTime().getTime();
+
+            if ( closed || time < lastTime || (newerOnly && time == lastTime) )
+            {
+                return;
+            }
+
+            lastTime = time;
+
+            if ( notification.isCompleted() && completedAt == 0 )
+            {
+                completedAt = System.currentTimeMillis();
+            }
+
+            emit( SseEmitter.event()
+                .name( EVENT_NOTIFICATION )
+                .id( notification.getUid() )
+                .data( renderService.toJsonAsString( notification ), MediaType.APPLICATION_JSON ) );
+        }
+
+        private void finish( Object jobSummary )
+        {
+            if ( closed )
+            {
+                return;
+            }
+
+            if ( jobSummary != null )
+            {
+                emit( SseEmitter.event()
+                    .name( EVENT_SUMMARY )
+                    .data( renderService.toJsonAsString( jobSummary ), MediaType.APPLICATION_JSON ) );
+            }
+
+            close();
+
+            emitter.complete();
+        }
+
+        private void emit( SseEmitter.SseEventBuilder event )
+        {
+            if ( closed )
+            {
+                return;
+            }
+
+            try
+            {
+                emitter.send( event );
+            }
+            catch ( IOException | IllegalStateException ex )
+            {
+                // Client went away, the container completes the emitter
+
+                close();
+            }
+        }
+
+        void close()
+        {
+            if ( !closed )
+            {
+                closed = true;
+
+                subscriptions.remove( this );
+                notifier.removeListener( jobType, jobId, this );
+            }
+        }
+    }
+}
@@ -28,14 +28,27 @@ package org.hisp.dhis.webapi.utils;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import org.hisp.dhis.category.CategoryOption;
 import org.hisp.dhis.common.DimensionalObject;
 import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.common.IdentifiableObjectUtils;
 import org.hisp.dhis.common.cache.CacheStrategy;
 import org.hisp.dhis.common.cache.Cacheability;
+import org.hisp.dhis.constant.Constant;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.indicator.Indicator;
+import org.hisp.dhis.indicator.IndicatorType;
+import org.hisp.dhis.legend.LegendSet;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.program.ProgramIndicator;
 import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.util.CodecUtils;
+import org.hisp.dhis.util.DateUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
@@ -44,17 +57,21 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
 
 import javax.annotation.Nullable;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
@@ -96,15 +113,28 @@ public class ContextUtils
     public static final String HEADER_IF_NONE_MATCH = "If-None-Match";
     public static final String HEADER_ETAG = "ETag";
     private static final String QUOTE = "\"";
+    private static final String WEAK_PREFIX = "W/";
+    private static final String WILDCARD = "*";
 
     /**
      * Regular expression that extracts the attachment file name from a content disposition header value.
      */
     private static final Pattern CONTENT_DISPOSITION_ATTACHMENT_FILENAME_PATTERN = Pattern.compile( "attachment;\\s*filename=\"?([^;\"]+)\"?");
 
+    /**
+     * Metadata which analytics responses are computed from or which is part
+     * of the response metadata, and which is not stored in analytics tables.
+     */
+    private static final List<Class<? extends IdentifiableObject>> ANALYTICS_METADATA_CLASSES = ImmutableList.of(
+        Indicator.class, IndicatorType.class, Constant.class, ProgramIndicator.class, DataElement.class,
+        CategoryOption.class, OrganisationUnit.class, LegendSet.class );
+
     @Autowired
     private SystemSettingManager systemSettingManager;
 
+    @Autowired
+    private IdentifiableObjectManager idObjectManager;
+
     public void configureResponse( HttpServletResponse response, String contentType, CacheStrategy cacheStrategy )
     {
         configureResponse( response, contentType, cacheStrategy, null, false );
@@ -423,6 +453,102 @@ public class ContextUtils
         return false;
     }
 
+    /**
+     * Validates the given deep ETag against the "If-None-Match" header of the
+     * request. The tag is meant to be computed before the response body is
+     * built, so that a match avoids the query and rendering altogether. The
+     * shallow ETag filter is bypassed for the request, meaning the body is
+     * streamed to the client rather than buffered and hashed. Weak and
+     * multiple request tags are accepted. Nothing happens if the tag is null.
+     *
+     * @param request  the HttpServletRequest.
+     * @param response the HttpServletResponse.
+     * @param tag      the deep tag, see {@link #getDeepEtag(Object...)}.
+     * @return true if the given tag match a request tag and the response is
+     * considered not modified, false if not.
+     */
+    public static boolean isNotModifiedDeep( HttpServletRequest request, HttpServletResponse response, String tag )
+    {
+        if ( tag == null )
+        {
+            return false;
+        }
+
+        ShallowEtagHeaderFilter.disableContentCaching( request );
+
+        tag = QUOTE + tag + QUOTE;
+
+        response.setHeader( HEADER_ETAG, tag );
+
+        String inputTags = request.getHeader( HEADER_IF_NONE_MATCH );
+
+        if ( inputTags == null )
+        {
+            return false;
+        }
+
+        for ( String inputTag : inputTags.split( "," ) )
+        {
+            inputTag = inputTag.trim();
+            inputTag = inputTag.startsWith( WEAK_PREFIX ) ? inputTag.substring( WEAK_PREFIX.length() ) : inputTag;
+
+            if ( inputTag.equals( tag ) || inputTag.equals( WILDCARD ) )
+            {
+                response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns a deep ETag value, which is a hash of the given signature
+     * elements. Null elements are represented by the string "null".
+     *
+     * @param elements the elements which together identify a representation.
+     * @return a deep ETag value, unquoted.
+     */
+    public static String getDeepEtag( Object... elements )
+    {
+        String signature = Joiner.on( "|" ).useForNull( "null" ).join( elements );
+
+        return Hashing.sha256().hashString( signature, StandardCharsets.UTF_8 ).toString();
+    }
+
+    /**
+     * Returns a deep ETag value for an analytics response, derived from the
+     * time of the last analytics table generation and latest partition update,
+     * the last update of metadata which responses are computed from, the given
+     * query key and user identifier. Returns null if analytics tables have
+     * never been generated successfully.
+     *
+     * @param queryKey the key of the analytics query.
+     * @param userUid  the identifier of the current user, can be null.
+     * @return a deep ETag value, unquoted, or null.
+     */
+    public String getAnalyticsEtag( String queryKey, String userUid )
+    {
+        Date lastTableUpdate = (Date) systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE );
+        Date lastPartitionUpdate = (Date) systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE );
+
+        if ( lastTableUpdate == null )
+        {
+            return null;
+        }
+
+        Long lastMetadataUpdate = ANALYTICS_METADATA_CLASSES.stream()
+            .map( idObjectManager::getLastUpdated )
+            .filter( Objects::nonNull )
+            .map( Date::getTime )
+            .max( Long::compare )
+            .orElse( null );
+
+        return getDeepEtag( DateUtils.getLongDateString( lastTableUpdate ),
+            DateUtils.getLongDateString( lastPartitionUpdate ), lastMetadataUpdate, queryKey, userUid );
+    }
+
     /**
      * Indicates whether the given requests indicates that it accepts a compressed
      * response.
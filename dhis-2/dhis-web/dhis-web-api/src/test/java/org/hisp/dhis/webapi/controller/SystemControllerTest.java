@@ -0,0 +1,139 @@
+package org.hisp.dhis.webapi.controller;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import org.hisp.dhis.render.RenderService;
+import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.scheduling.JobType;
+import org.hisp.dhis.system.notification.InMemoryNotifier;
+import org.hisp.dhis.system.notification.Notification;
+import org.hisp.dhis.system.notification.NotificationLevel;
+import org.hisp.dhis.system.notification.Notifier;
+import org.hisp.dhis.webapi.service.DefaultJobProgressService;
+import org.hisp.dhis.webapi.utils.ContextUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Tests the job progress event stream of {@link SystemController}.
+ */
+public class SystemControllerTest
+{
+    @Mock
+    private RenderService renderService;
+
+    @InjectMocks
+    private SystemController controller;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    private Notifier notifier;
+
+    private DefaultJobProgressService jobProgressService;
+
+    private MockMvc mockMvc;
+
+    @Before
+    public void setUp()
+    {
+        when( renderService.toJsonAsString( any() ) ).thenAnswer( invocation -> {
+            Object object = invocation.getArgument( 0 );
+
+            return object instanceof Notification ?
+                "{\"message\":\"" + ((Notification) object).getMessage() + "\"}" : "{\"summary\":\"" + object + "\"}";
+        } );
+
+        notifier = new InMemoryNotifier();
+
+        jobProgressService = new DefaultJobProgressService( notifier, renderService );
+        jobProgressService.init();
+
+        ReflectionTestUtils.setField( controller, "notifier", notifier );
+        ReflectionTestUtils.setField( controller, "jobProgressService", jobProgressService );
+
+        mockMvc = MockMvcBuilders.standaloneSetup( controller ).build();
+    }
+
+    @After
+    public void tearDown()
+    {
+        jobProgressService.destroy();
+    }
+
+    @Test
+    public void testTaskEventStream()
+        throws Exception
+    {
+        JobConfiguration job = new JobConfiguration( "Import", JobType.DATAVALUE_IMPORT, null, true );
+
+        notifier.notify( job, NotificationLevel.INFO, "Import started", false );
+
+        MvcResult result = mockMvc.perform( get( "/system/tasks/DATAVALUE_IMPORT/" + job.getUid() )
+            .accept( MediaType.TEXT_EVENT_STREAM ) )
+            .andExpect( request().asyncStarted() )
+            .andExpect( header().string( "Cache-Control", ContextUtils.HEADER_VALUE_NO_STORE ) )
+            .andExpect( header().string( "X-Accel-Buffering", "no" ) )
+            .andReturn();
+
+        notifier.notify( job, NotificationLevel.INFO, "Import done", true );
+        notifier.addJobSummary( job, "Imported", String.class );
+
+        result.getAsyncResult( 5000 );
+
+        String content = result.getResponse().getContentAsString();
+
+        assertThat( content, containsString( "event:notification" ) );
+        assertThat( content, containsString( "Import started" ) );
+        assertThat( content, containsString( "Import done" ) );
+        assertThat( content, containsString( "event:summary" ) );
+        assertThat( content, containsString( "{\"summary\":\"Imported\"}" ) );
+        assertTrue( content.indexOf( "Import started" ) < content.indexOf( "Import done" ) );
+    }
+}
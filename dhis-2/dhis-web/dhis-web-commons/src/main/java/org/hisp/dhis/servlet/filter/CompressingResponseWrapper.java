@@ -0,0 +1,470 @@
+package org.hisp.dhis.servlet.filter;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.MimeType;
+
+/**
+ * Response wrapper which gzip compresses the response body while it is being
+ * written. The first bytes are buffered up to the minimum size; the decision
+ * to compress is taken when the buffer overflows or the response finishes,
+ * so small responses are sent uncompressed with their content length. Once
+ * compression has started the body is streamed, and flushing the response
+ * flushes the compressed stream. Server-sent event streams are passed through
+ * as they are written.
+ */
+class CompressingResponseWrapper
+    extends HttpServletResponseWrapper
+{
+    private static final String ENCODING_GZIP = "gzip";
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final DeflaterPool deflaterPool;
+
+    private final int minSize;
+
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    private OutputStream target;
+
+    private GzipOutputStream gzipStream;
+
+    private long contentLength = -1;
+
+    private boolean encoded = false;
+
+    private ServletOutputStream outputStream;
+
+    private PrintWriter writer;
+
+    CompressingResponseWrapper( HttpServletResponse response, DeflaterPool deflaterPool, int minSize )
+    {
+        super( response );
+        this.deflaterPool = deflaterPool;
+        this.minSize = minSize;
+    }
+
+    // -------------------------------------------------------------------------
+    // HttpServletResponse
+    // -------------------------------------------------------------------------
+
+    @Override
+    public ServletOutputStream getOutputStream()
+        throws IOException
+    {
+        if ( writer != null )
+        {
+            throw new IllegalStateException( "getWriter() has already been called for this response" );
+        }
+
+        if ( outputStream == null )
+        {
+            outputStream = new CompressingOutputStream();
+        }
+
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter()
+        throws IOException
+    {
+        if ( writer == null )
+        {
+            if ( outputStream != null )
+            {
+                throw new IllegalStateException( "getOutputStream() has already been called for this response" );
+            }
+
+            outputStream = new CompressingOutputStream();
+            writer = new PrintWriter( new OutputStreamWriter( outputStream, getCharacterEncoding() ) );
+        }
+
+        return writer;
+    }
+
+    @Override
+    public void setContentLength( int len )
+    {
+        setContentLengthLong( len );
+    }
+
+    @Override
+    public void setContentLengthLong( long len )
+    {
+        if ( target == null )
+        {
+            contentLength = len;
+        }
+        else if ( gzipStream == null )
+        {
+            super.setContentLengthLong( len );
+        }
+    }
+
+    @Override
+    public void setHeader( String name, String value )
+    {
+        if ( HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase( name ) )
+        {
+            setContentLengthLong( Long.parseLong( value ) );
+            return;
+        }
+
+        encoded |= HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase( name );
+
+        super.setHeader( name, value );
+    }
+
+    @Override
+    public void addHeader( String name, String value )
+    {
+        if ( HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase( name ) )
+        {
+            setContentLengthLong( Long.parseLong( value ) );
+            return;
+        }
+
+        encoded |= HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase( name );
+
+        super.addHeader( name, value );
+    }
+
+    @Override
+    public void flushBuffer()
+        throws IOException
+    {
+        if ( writer != null )
+        {
+            writer.flush();
+        }
+
+        // Keep buffering until the compression decision is taken
+
+        if ( target != null )
+        {
+            target.flush();
+            super.flushBuffer();
+        }
+    }
+
+    @Override
+    public void resetBuffer()
+    {
+        if ( target == null )
+        {
+            buffer.reset();
+        }
+
+        super.resetBuffer();
+    }
+
+    @Override
+    public void reset()
+    {
+        if ( target == null )
+        {
+            buffer.reset();
+            contentLength = -1;
+            encoded = false;
+        }
+
+        super.reset();
+    }
+
+    // -------------------------------------------------------------------------
+    // Lifecycle
+    // -------------------------------------------------------------------------
+
+    /**
+     * Writes out any buffered content and finishes the compressed stream.
+     */
+    void finish()
+        throws IOException
+    {
+        if ( outputStream == null )
+        {
+            // No body written through this wrapper, e.g. redirects or sendfile
+
+            if ( contentLength >= 0 )
+            {
+                super.setContentLengthLong( contentLength );
+            }
+
+            return;
+        }
+
+        if ( writer != null )
+        {
+            writer.flush();
+        }
+
+        if ( target == null )
+        {
+            start( buffer.size() >= minSize );
+        }
+
+        if ( gzipStream != null )
+        {
+            gzipStream.finish();
+        }
+
+        target.flush();
+    }
+
+    /**
+     * Returns the deflater to the pool. Must be called once the response is
+     * finished or failed.
+     */
+    void release()
+    {
+        if ( gzipStream != null )
+        {
+            gzipStream.release();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void write( byte[] bytes, int offset, int length )
+        throws IOException
+    {
+        if ( target == null )
+        {
+            if ( buffer.size() + length < minSize && !isEventStream() )
+            {
+                buffer.write( bytes, offset, length );
+                return;
+            }
+
+            start( true );
+        }
+
+        target.write( bytes, offset, length );
+    }
+
+    private void start( boolean sizeEligible )
+        throws IOException
+    {
+        HttpServletResponse response = (HttpServletResponse) getResponse();
+
+        if ( sizeEligible && isCompressible() )
+        {
+            response.setHeader( HttpHeaders.CONTENT_ENCODING, ENCODING_GZIP );
+            response.addHeader( HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING );
+
+            String eTag = response.getHeader( HttpHeaders.ETAG );
+
+            if ( eTag != null && !eTag.startsWith( WEAK_PREFIX ) )
+            {
+                response.setHeader( HttpHeaders.ETAG, WEAK_PREFIX + eTag );
+            }
+
+            gzipStream = new GzipOutputStream( response.getOutputStream(), deflaterPool );
+            target = gzipStream;
+        }
+        else
+        {
+            if ( contentLength >= 0 )
+            {
+                response.setContentLengthLong( contentLength );
+            }
+
+            target = response.getOutputStream();
+        }
+
+        buffer.writeTo( target );
+        buffer = null;
+    }
+
+    private boolean isCompressible()
+    {
+        int status = getStatus();
+
+        if ( encoded || status == SC_NO_CONTENT || status == SC_NOT_MODIFIED || status == SC_PARTIAL_CONTENT ||
+            (contentLength >= 0 && contentLength < minSize) || getContentType() == null )
+        {
+            return false;
+        }
+
+        if ( isEventStream() )
+        {
+            return false;
+        }
+
+        MimeType mimeType = MimeType.valueOf( getContentType() );
+        String subtype = mimeType.getSubtype();
+
+        return "text".equals( mimeType.getType() ) ||
+            "json".equals( subtype ) || "xml".equals( subtype ) || "javascript".equals( subtype ) ||
+            "csv".equals( subtype ) || subtype.endsWith( "+json" ) || subtype.endsWith( "+xml" );
+    }
+
+    /**
+     * Server-sent events are neither buffered nor compressed, as each event
+     * must reach the client as soon as it is flushed.
+     */
+    private boolean isEventStream()
+    {
+        return getContentType() != null && getContentType().startsWith( "text/event-stream" );
+    }
+
+    private class CompressingOutputStream
+        extends ServletOutputStream
+    {
+        @Override
+        public void write( int b )
+            throws IOException
+        {
+            CompressingResponseWrapper.this.write( new byte[] { (byte) b }, 0, 1 );
+        }
+
+        @Override
+        public void write( byte[] bytes, int offset, int length )
+            throws IOException
+        {
+            CompressingResponseWrapper.this.write( bytes, offset, length );
+        }
+
+        @Override
+        public void flush()
+            throws IOException
+        {
+            if ( target != null )
+            {
+                target.flush();
+            }
+        }
+
+        @Override
+        public boolean isReady()
+        {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener( WriteListener writeListener )
+        {
+            throw new UnsupportedOperationException( "Non-blocking writes are not supported for compressed responses" );
+        }
+    }
+
+    /**
+     * Gzip stream which borrows its deflater from a pool. Flushing performs a
+     * sync flush, so streamed content reaches the client as it is produced.
+     */
+    private static class GzipOutputStream
+        extends DeflaterOutputStream
+    {
+        private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+        private final DeflaterPool deflaterPool;
+
+        private final CRC32 crc = new CRC32();
+
+        private boolean finished = false;
+
+        private boolean released = false;
+
+        GzipOutputStream( OutputStream out, DeflaterPool deflaterPool )
+            throws IOException
+        {
+            super( out, deflaterPool.borrow(), BUFFER_SIZE, true );
+            this.deflaterPool = deflaterPool;
+            out.write( HEADER );
+        }
+
+        @Override
+        public synchronized void write( byte[] bytes, int offset, int length )
+            throws IOException
+        {
+            super.write( bytes, offset, length );
+            crc.update( bytes, offset, length );
+        }
+
+        @Override
+        public void finish()
+            throws IOException
+        {
+            if ( !finished )
+            {
+                super.finish();
+                writeInt( (int) crc.getValue() );
+                writeInt( (int) def.getBytesRead() );
+                finished = true;
+            }
+        }
+
+        @Override
+        public void close()
+            throws IOException
+        {
+            finish();
+            out.flush();
+        }
+
+        void release()
+        {
+            if ( !released )
+            {
+                deflaterPool.release( def );
+                released = true;
+            }
+        }
+
+        private void writeInt( int value )
+            throws IOException
+        {
+            out.write( value & 0xff );
+            out.write( (value >> 8) & 0xff );
+            out.write( (value >> 16) & 0xff );
+            out.write( (value >> 24) & 0xff );
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.hisp.dhis.servlet.filter;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Bounded pool of raw deflaters for a fixed compression level. Deflaters hold
+ * native memory which is only freed on {@link Deflater#end()}, so reusing them
+ * avoids allocating and finalizing one per response.
+ */
+class DeflaterPool
+{
+    private final int level;
+
+    private final BlockingQueue<Deflater> deflaters;
+
+    DeflaterPool( int level, int capacity )
+    {
+        this.level = level;
+        this.deflaters = new ArrayBlockingQueue<>( capacity );
+    }
+
+    /**
+     * Returns a deflater from the pool, or a new deflater if the pool is empty.
+     * The deflater produces raw deflate data without zlib header and trailer.
+     */
+    Deflater borrow()
+    {
+        Deflater deflater = deflaters.poll();
+
+        return deflater != null ? deflater : new Deflater( level, true );
+    }
+
+    /**
+     * Resets the given deflater and returns it to the pool. The deflater is
+     * ended if the pool is full.
+     */
+    void release( Deflater deflater )
+    {
+        deflater.reset();
+
+        if ( !deflaters.offer( deflater ) )
+        {
+            deflater.end();
+        }
+    }
+}
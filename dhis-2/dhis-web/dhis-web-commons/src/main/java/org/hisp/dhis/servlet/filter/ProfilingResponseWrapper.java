@@ -0,0 +1,255 @@
+package org.hisp.dhis.servlet.filter;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.hisp.dhis.datasource.StatementProfile;
+
+/**
+ * Response wrapper which adds the statement profile headers right before the
+ * response is committed, that is before the first byte of the body is
+ * written, the response is flushed or an error or redirect is sent. The
+ * headers reflect the statements executed up to that point, statements
+ * executed while the body is streamed are only recorded in the metrics.
+ */
+class ProfilingResponseWrapper
+    extends HttpServletResponseWrapper
+{
+    private final StatementProfile profile;
+
+    private boolean headersAdded = false;
+
+    private ServletOutputStream outputStream;
+
+    private PrintWriter writer;
+
+    ProfilingResponseWrapper( HttpServletResponse response, StatementProfile profile )
+    {
+        super( response );
+        this.profile = profile;
+    }
+
+    // -------------------------------------------------------------------------
+    // HttpServletResponse
+    // -------------------------------------------------------------------------
+
+    @Override
+    public ServletOutputStream getOutputStream()
+        throws IOException
+    {
+        if ( outputStream == null )
+        {
+            outputStream = new ProfilingOutputStream( super.getOutputStream() );
+        }
+
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter()
+        throws IOException
+    {
+        if ( writer == null )
+        {
+            writer = new PrintWriter( new ProfilingWriter( super.getWriter() ) );
+        }
+
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer()
+        throws IOException
+    {
+        addHeaders();
+
+        if ( writer != null )
+        {
+            writer.flush();
+        }
+
+        super.flushBuffer();
+    }
+
+    @Override
+    public void sendError( int sc )
+        throws IOException
+    {
+        addHeaders();
+        super.sendError( sc );
+    }
+
+    @Override
+    public void sendError( int sc, String msg )
+        throws IOException
+    {
+        addHeaders();
+        super.sendError( sc, msg );
+    }
+
+    @Override
+    public void sendRedirect( String location )
+        throws IOException
+    {
+        addHeaders();
+        super.sendRedirect( location );
+    }
+
+    @Override
+    public void reset()
+    {
+        super.reset();
+        headersAdded = false;
+    }
+
+    // -------------------------------------------------------------------------
+    // Lifecycle
+    // -------------------------------------------------------------------------
+
+    /**
+     * Adds the profile headers if they have not been added yet and the
+     * response is not committed.
+     */
+    void addHeaders()
+    {
+        if ( headersAdded || isCommitted() )
+        {
+            return;
+        }
+
+        headersAdded = true;
+
+        setHeader( StatementProfilingFilter.HEADER_STATEMENTS, String.valueOf( profile.getStatementCount() ) );
+        setHeader( StatementProfilingFilter.HEADER_TIME, String.valueOf( TimeUnit.NANOSECONDS.toMillis( profile.getTotalTimeNanos() ) ) );
+        setHeader( StatementProfilingFilter.HEADER_REPEATED, String.valueOf( profile.getMaxRepeatCount() ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive classes
+    // -------------------------------------------------------------------------
+
+    private class ProfilingOutputStream
+        extends ServletOutputStream
+    {
+        private final ServletOutputStream target;
+
+        ProfilingOutputStream( ServletOutputStream target )
+        {
+            this.target = target;
+        }
+
+        @Override
+        public void write( int b )
+            throws IOException
+        {
+            addHeaders();
+            target.write( b );
+        }
+
+        @Override
+        public void write( byte[] bytes, int offset, int length )
+            throws IOException
+        {
+            addHeaders();
+            target.write( bytes, offset, length );
+        }
+
+        @Override
+        public void flush()
+            throws IOException
+        {
+            addHeaders();
+            target.flush();
+        }
+
+        @Override
+        public void close()
+            throws IOException
+        {
+            addHeaders();
+            target.close();
+        }
+
+        @Override
+        public boolean isReady()
+        {
+            return target.isReady();
+        }
+
+        @Override
+        public void setWriteListener( WriteListener writeListener )
+        {
+            target.setWriteListener( writeListener );
+        }
+    }
+
+    private class ProfilingWriter
+        extends Writer
+    {
+        private final Writer target;
+
+        ProfilingWriter( Writer target )
+        {
+            this.target = target;
+        }
+
+        @Override
+        public void write( char[] chars, int offset, int length )
+            throws IOException
+        {
+            addHeaders();
+            target.write( chars, offset, length );
+        }
+
+        @Override
+        public void flush()
+            throws IOException
+        {
+            addHeaders();
+            target.flush();
+        }
+
+        @Override
+        public void close()
+            throws IOException
+        {
+            addHeaders();
+            target.close();
+        }
+    }
+}
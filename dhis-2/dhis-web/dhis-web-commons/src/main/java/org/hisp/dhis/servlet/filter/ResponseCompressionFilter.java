@@ -0,0 +1,203 @@
+package org.hisp.dhis.servlet.filter;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.external.conf.ConfigurationKey.SERVER_COMPRESSION_ENABLED;
+import static org.hisp.dhis.external.conf.ConfigurationKey.SERVER_COMPRESSION_LEVEL;
+import static org.hisp.dhis.external.conf.ConfigurationKey.SERVER_COMPRESSION_MIN_SIZE;
+
+import java.io.IOException;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Compresses response bodies with gzip when the client accepts it. Bodies are
+ * compressed while they are written, so node serializers and grid renderers
+ * keep streaming. Responses smaller than the configured minimum size, with a
+ * content encoding already set, or with a content type which is not textual,
+ * are sent as is. Deflaters are pooled across requests.
+ *
+ * <p>Enabled with {@code server.compression.enabled}, with the threshold in
+ * bytes given by {@code server.compression.min_size} and the deflate level by
+ * {@code server.compression.level}.
+ */
+@Component
+public class ResponseCompressionFilter
+    extends
+    OncePerRequestFilter
+{
+    private static final Log log = LogFactory.getLog( ResponseCompressionFilter.class );
+
+    private static final String ENCODING_GZIP = "gzip";
+
+    private final boolean enabled;
+
+    private final int minSize;
+
+    private final DeflaterPool deflaterPool;
+
+    @Autowired
+    public ResponseCompressionFilter( DhisConfigurationProvider dhisConfig )
+    {
+        this( dhisConfig.isEnabled( SERVER_COMPRESSION_ENABLED ),
+            Integer.parseInt( dhisConfig.getProperty( SERVER_COMPRESSION_MIN_SIZE ) ),
+            new DeflaterPool( Integer.parseInt( dhisConfig.getProperty( SERVER_COMPRESSION_LEVEL ) ),
+                Runtime.getRuntime().availableProcessors() * 2 ) );
+    }
+
+    ResponseCompressionFilter( boolean enabled, int minSize, DeflaterPool deflaterPool )
+    {
+        this.enabled = enabled;
+        this.minSize = minSize;
+        this.deflaterPool = deflaterPool;
+
+        log.info( String.format( "Response compression enabled: %b, min size: %d", enabled, minSize ) );
+    }
+
+    @Override
+    protected void doFilterInternal( HttpServletRequest request, HttpServletResponse response, FilterChain chain )
+        throws ServletException, IOException
+    {
+        if ( !enabled || HttpMethod.HEAD.matches( request.getMethod() ) ||
+            !isAcceptGzip( request.getHeader( HttpHeaders.ACCEPT_ENCODING ) ) )
+        {
+            chain.doFilter( request, response );
+            return;
+        }
+
+        CompressingResponseWrapper wrapper = new CompressingResponseWrapper( response, deflaterPool, minSize );
+
+        boolean async = false;
+
+        try
+        {
+            chain.doFilter( request, wrapper );
+
+            if ( request.isAsyncStarted() )
+            {
+                request.getAsyncContext().addListener( new CompressionAsyncListener( wrapper ) );
+                async = true;
+            }
+            else
+            {
+                wrapper.finish();
+            }
+        }
+        finally
+        {
+            if ( !async )
+            {
+                wrapper.release();
+            }
+        }
+    }
+
+    /**
+     * Indicates whether the given Accept-Encoding header value lists gzip
+     * without a zero quality value.
+     */
+    static boolean isAcceptGzip( String acceptEncoding )
+    {
+        if ( acceptEncoding == null )
+        {
+            return false;
+        }
+
+        for ( String token : acceptEncoding.split( "," ) )
+        {
+            String[] parts = token.trim().split( ";" );
+
+            if ( parts[0].trim().equalsIgnoreCase( ENCODING_GZIP ) )
+            {
+                return parts.length == 1 || !parts[1].trim().matches( "q=0(\\.0*)?" );
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Finishes the compressed stream of an asynchronous request once the
+     * request completes.
+     */
+    private static class CompressionAsyncListener
+        implements AsyncListener
+    {
+        private final CompressingResponseWrapper wrapper;
+
+        CompressionAsyncListener( CompressingResponseWrapper wrapper )
+        {
+            this.wrapper = wrapper;
+        }
+
+        @Override
+        public void onComplete( AsyncEvent event )
+            throws IOException
+        {
+            try
+            {
+                wrapper.finish();
+            }
+            finally
+            {
+                wrapper.release();
+            }
+        }
+
+        @Override
+        public void onTimeout( AsyncEvent event )
+        {
+        }
+
+        @Override
+        public void onError( AsyncEvent event )
+        {
+        }
+
+        @Override
+        public void onStartAsync( AsyncEvent event )
+        {
+            event.getAsyncContext().addListener( this );
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.hisp.dhis.servlet.filter;
+
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.hisp.dhis.datasource.StatementProfile;
+import org.hisp.dhis.monitoring.sql.StatementProfiler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Profiles the SQL statements executed while handling a request when the
+ * statement profiler is enabled. The number of statements, their total
+ * execution time in milliseconds and the highest number of executions of a
+ * single statement shape are returned in response headers, which are added
+ * right before the response is committed, and are recorded per handler
+ * method.
+ */
+@Component
+public class StatementProfilingFilter
+    extends
+    OncePerRequestFilter
+{
+    public static final String HEADER_STATEMENTS = "X-Sql-Statements";
+
+    public static final String HEADER_TIME = "X-Sql-Time";
+
+    public static final String HEADER_REPEATED = "X-Sql-Repeated";
+
+    private static final String UNKNOWN_HANDLER = "unknown";
+
+    private final StatementProfiler statementProfiler;
+
+    public StatementProfilingFilter( StatementProfiler statementProfiler )
+    {
+        checkNotNull( statementProfiler );
+
+        this.statementProfiler = statementProfiler;
+    }
+
+    @Override
+    protected boolean shouldNotFilter( HttpServletRequest request )
+    {
+        return !statementProfiler.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal( HttpServletRequest request, HttpServletResponse response, FilterChain chain )
+        throws ServletException, IOException
+    {
+        StatementProfile profile = statementProfiler.start();
+
+        if ( profile == null )
+        {
+            chain.doFilter( request, response );
+            return;
+        }
+
+        ProfilingResponseWrapper responseWrapper = new ProfilingResponseWrapper( response, profile );
+
+        try
+        {
+            chain.doFilter( request, responseWrapper );
+        }
+        finally
+        {
+            statementProfiler.finish( profile, StatementProfiler.SOURCE_REQUEST, getHandlerName( request ),
+                request.getMethod() + " " + request.getRequestURI() );
+
+            responseWrapper.addHeaders();
+        }
+    }
+
+    /**
+     * Returns the name of the handler method which handled the request as
+     * <code>Controller.method</code>, which keeps the number of distinct metric
+     * tags bounded as opposed to the request URI.
+     */
+    private String getHandlerName( HttpServletRequest request )
+    {
+        Object handler = request.getAttribute( HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE );
+
+        if ( handler instanceof HandlerMethod )
+        {
+            HandlerMethod method = (HandlerMethod) handler;
+
+            return method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+        }
+
+        return UNKNOWN_HANDLER;
+    }
+}